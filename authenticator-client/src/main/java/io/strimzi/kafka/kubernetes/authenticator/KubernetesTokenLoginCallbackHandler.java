@@ -11,7 +11,6 @@ import javax.security.auth.callback.Callback;
 import javax.security.auth.callback.UnsupportedCallbackException;
 import javax.security.auth.login.AppConfigurationEntry;
 import java.io.IOException;
-import java.nio.file.Files;
 import java.nio.file.Paths;
 import java.util.List;
 import java.util.Map;
@@ -24,6 +23,8 @@ public class KubernetesTokenLoginCallbackHandler implements AuthenticateCallback
     private static final String KUBERNETES_TOKEN_PATH = "/var/run/secrets/kubernetes.io/serviceaccount/token";
 
     private String providedToken = null;
+    private volatile OAuthBearerToken parsedToken = null;
+    private TokenFileProvider tokenFileProvider = null;
 
     @Override
     public void configure(Map<String, ?> configs, String saslMechanism, List<AppConfigurationEntry> jaasConfigEntries) {
@@ -32,13 +33,24 @@ public class KubernetesTokenLoginCallbackHandler implements AuthenticateCallback
         }
 
         if (jaasConfigEntries.get(0).getOptions().containsKey("token")) {
+            log.debug("Using token from JAAS configuration");
             providedToken = (String) jaasConfigEntries.get(0).getOptions().get("token");
+        } else if (System.getenv().containsKey(TOKEN_ENV_VAR)) {
+            log.debug("Using token from environment variable {}", TOKEN_ENV_VAR);
+            providedToken = System.getenv().get(TOKEN_ENV_VAR);
+        } else if (System.getenv().containsKey(TOKEN_FILE_ENV_VAR)) {
+            log.debug("Using token from file {} set in {}", System.getenv().get(TOKEN_FILE_ENV_VAR), TOKEN_FILE_ENV_VAR);
+            tokenFileProvider = TokenFileProvider.acquire(Paths.get(System.getenv().get(TOKEN_FILE_ENV_VAR)));
+        } else {
+            log.debug("Using token from file {}", KUBERNETES_TOKEN_PATH);
+            tokenFileProvider = TokenFileProvider.acquire(Paths.get(KUBERNETES_TOKEN_PATH));
         }
     }
 
     @Override
     public void close() {
-
+        TokenFileProvider.release(tokenFileProvider);
+        tokenFileProvider = null;
     }
 
     @Override
@@ -61,28 +73,18 @@ public class KubernetesTokenLoginCallbackHandler implements AuthenticateCallback
     }
 
     private OAuthBearerToken getToken() throws IOException {
-        String token;
-
-        if (providedToken != null)   {
-            log.debug("Using token from JAAS configuration");
-            token = providedToken;
-        } else if (System.getenv().containsKey(TOKEN_ENV_VAR)) {
-            log.debug("Using token from environment variable {}", TOKEN_ENV_VAR);
-            token = System.getenv().get(TOKEN_ENV_VAR);
-        } else if (System.getenv().containsKey(TOKEN_FILE_ENV_VAR)) {
-            log.debug("Using token from file {}", TOKEN_FILE_ENV_VAR);
-            token = getTokenFromFile(TOKEN_FILE_ENV_VAR);
-        } else {
-            log.debug("Using token from file {}", KUBERNETES_TOKEN_PATH);
-            token = getTokenFromFile(KUBERNETES_TOKEN_PATH);
+        if (tokenFileProvider != null)  {
+            return tokenFileProvider.token();
         }
 
-        OAuthBearerToken oAuthToken = new OAuthBearerTokenImpl(token);
+        // The token from the configuration or environment variable never changes, so it is parsed only once
+        OAuthBearerToken token = parsedToken;
 
-        return oAuthToken;
-    }
+        if (token == null)  {
+            token = new OAuthBearerTokenImpl(providedToken);
+            parsedToken = token;
+        }
 
-    private String getTokenFromFile(String filePath) throws IOException {
-        return new String(Files.readAllBytes(Paths.get(filePath)));
+        return token;
     }
 }
@@ -0,0 +1,218 @@
+package io.strimzi.kafka.kubernetes.authenticator;
+
+import org.apache.kafka.common.utils.Time;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.nio.file.attribute.FileTime;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Provides the token stored in a file. The token is read and parsed only when it changes, so that the logins of the
+ * clients are served from memory. A background thread watches the directory of the token file (the projected service
+ * account tokens are rotated by the kubelet by swapping a symlink in that directory) and additionally polls the
+ * modification time of the file in case the watch service misses the change or is not available. The token is also
+ * re-read ahead of its expiration.
+ *
+ * The providers are shared by all Kafka clients in the JVM which use the same token file. Every call to acquire()
+ * has to be paired with a call to release().
+ */
+public class TokenFileProvider {
+    private static final Logger log = LoggerFactory.getLogger(TokenFileProvider.class);
+
+    private static final long DEFAULT_POLL_INTERVAL_MS = 10_000L;
+    // The token is refreshed after this share of its lifetime. The kubelet rotates the projected tokens at 80 %.
+    private static final double REFRESH_RATIO = 0.8;
+
+    private static final Map<Path, TokenFileProvider> PROVIDERS = new HashMap<>();
+
+    private final Path path;
+    private final Time time;
+    private final long pollIntervalMs;
+    private final Thread watcher;
+
+    private int references = 0;
+    private volatile boolean closed = false;
+    private volatile OAuthBearerTokenImpl token;
+    private volatile long refreshAtMs = 0;
+    private FileTime lastModified;
+
+    TokenFileProvider(Path path, Time time, long pollIntervalMs) {
+        this.path = path;
+        this.time = time;
+        this.pollIntervalMs = pollIntervalMs;
+
+        this.watcher = new Thread(this::watch, "kubernetes-token-file-watcher");
+        this.watcher.setDaemon(true);
+    }
+
+    /**
+     * Returns the shared provider for the token file
+     *
+     * @param path  Path to the token file
+     *
+     * @return  The token provider
+     */
+    public static synchronized TokenFileProvider acquire(Path path)  {
+        Path normalized = path.toAbsolutePath().normalize();
+        TokenFileProvider provider = PROVIDERS.get(normalized);
+
+        if (provider == null)   {
+            log.debug("Creating token provider for {}", normalized);
+            provider = new TokenFileProvider(normalized, Time.SYSTEM, DEFAULT_POLL_INTERVAL_MS);
+            provider.start();
+            PROVIDERS.put(normalized, provider);
+        }
+
+        provider.references++;
+        return provider;
+    }
+
+    public static synchronized void release(TokenFileProvider provider)  {
+        if (provider == null || PROVIDERS.get(provider.path) != provider)    {
+            return;
+        }
+
+        provider.references--;
+
+        if (provider.references == 0)   {
+            log.debug("Closing token provider for {}", provider.path);
+            PROVIDERS.remove(provider.path);
+            provider.close();
+        }
+    }
+
+    void start()    {
+        watcher.start();
+    }
+
+    void close()    {
+        closed = true;
+        watcher.interrupt();
+    }
+
+    /**
+     * Returns the current token. The file is read only when no token was loaded yet or when the loaded token
+     * expired and the background thread did not manage to refresh it.
+     *
+     * @return  The token
+     *
+     * @throws IOException  When the token file cannot be read or the token cannot be parsed
+     */
+    public OAuthBearerTokenImpl token() throws IOException {
+        OAuthBearerTokenImpl current = token;
+
+        if (current == null || current.lifetimeMs() <= time.milliseconds())    {
+            return reload();
+        }
+
+        return current;
+    }
+
+    /**
+     * Reads the token file again. When the file still contains the same token, the already parsed token is kept.
+     *
+     * @return  The token
+     *
+     * @throws IOException  When the token file cannot be read or the token cannot be parsed
+     */
+    synchronized OAuthBearerTokenImpl reload() throws IOException {
+        FileTime modified = Files.getLastModifiedTime(path);
+        String value = new String(Files.readAllBytes(path), StandardCharsets.US_ASCII).trim();
+
+        OAuthBearerTokenImpl current = token;
+
+        if (current == null || !current.value().equals(value))  {
+            log.debug("Loaded token from {}", path);
+            current = new OAuthBearerTokenImpl(value);
+            token = current;
+        }
+
+        lastModified = modified;
+        refreshAtMs = refreshAt(current, time.milliseconds());
+        return current;
+    }
+
+    private long refreshAt(OAuthBearerTokenImpl token, long nowMs)  {
+        if (token.lifetimeMs() == Long.MAX_VALUE)   {
+            // Tokens without expiration are reloaded only when the file changes
+            return Long.MAX_VALUE;
+        }
+
+        long issuedAtMs = token.startTimeMs() != null ? token.startTimeMs() : nowMs;
+        long refreshAtMs = issuedAtMs + (long) ((token.lifetimeMs() - issuedAtMs) * REFRESH_RATIO);
+
+        // When the file still has the old token, check it again with the next poll
+        return refreshAtMs > nowMs ? refreshAtMs : nowMs + pollIntervalMs;
+    }
+
+    private void watch()    {
+        WatchService watchService = null;
+
+        try {
+            watchService = FileSystems.getDefault().newWatchService();
+            path.getParent().register(watchService, StandardWatchEventKinds.ENTRY_CREATE, StandardWatchEventKinds.ENTRY_MODIFY);
+        } catch (IOException | UnsupportedOperationException e) {
+            log.debug("Failed to watch the directory of {}. The token file will be only polled.", path, e);
+            closeQuietly(watchService);
+            watchService = null;
+        }
+
+        try {
+            while (!closed) {
+                boolean changed = false;
+
+                if (watchService != null)   {
+                    WatchKey key = watchService.poll(pollIntervalMs, TimeUnit.MILLISECONDS);
+
+                    if (key != null)    {
+                        changed = !key.pollEvents().isEmpty();
+                        key.reset();
+                    }
+                } else {
+                    Thread.sleep(pollIntervalMs);
+                }
+
+                if (changed || isModified() || refreshAtMs <= time.milliseconds())   {
+                    try {
+                        reload();
+                    } catch (IOException e) {
+                        log.warn("Failed to reload the token from {}", path, e);
+                    }
+                }
+            }
+        } catch (InterruptedException e) {
+            // Closed
+        } finally {
+            closeQuietly(watchService);
+        }
+    }
+
+    private synchronized boolean isModified()   {
+        try {
+            return !Files.getLastModifiedTime(path).equals(lastModified);
+        } catch (IOException e) {
+            return false;
+        }
+    }
+
+    private static void closeQuietly(WatchService watchService)    {
+        if (watchService != null)   {
+            try {
+                watchService.close();
+            } catch (IOException e) {
+                log.debug("Failed to close the watch service", e);
+            }
+        }
+    }
+}
@@ -0,0 +1,112 @@
+package io.strimzi.kafka.kubernetes.authenticator;
+
+import org.apache.kafka.common.utils.Time;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Base64;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+
+public class TokenFileProviderTest {
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private static String token(String sub, long iat, long exp)   {
+        String payload = "{\"sub\":\"" + sub + "\",\"iat\":" + iat + ",\"exp\":" + exp + "}";
+        return "eyJhbGciOiJSUzI1NiJ9." + Base64.getUrlEncoder().withoutPadding().encodeToString(payload.getBytes(StandardCharsets.UTF_8)) + ".c2lnbmF0dXJl";
+    }
+
+    private static long nowS()  {
+        return System.currentTimeMillis() / 1000;
+    }
+
+    @Test
+    public void testTokenIsKeptInMemory() throws IOException {
+        Path file = folder.newFile("token").toPath();
+        Files.write(file, (token("system:serviceaccount:myproject:first", nowS(), nowS() + 3600) + "\n").getBytes(StandardCharsets.US_ASCII));
+
+        TokenFileProvider provider = new TokenFileProvider(file, Time.SYSTEM, 60_000L);
+        OAuthBearerTokenImpl token = provider.token();
+
+        assertEquals("system:serviceaccount:myproject:first", token.principalName());
+        assertSame(token, provider.token());
+
+        // Reloading unchanged file keeps the parsed token
+        assertSame(token, provider.reload());
+    }
+
+    @Test
+    public void testExpiredTokenIsReloaded() throws IOException {
+        Path file = folder.newFile("token").toPath();
+        Files.write(file, token("system:serviceaccount:myproject:first", nowS() - 3600, nowS() - 1).getBytes(StandardCharsets.US_ASCII));
+
+        TokenFileProvider provider = new TokenFileProvider(file, Time.SYSTEM, 60_000L);
+        OAuthBearerTokenImpl expired = provider.token();
+
+        Files.write(file, token("system:serviceaccount:myproject:second", nowS(), nowS() + 3600).getBytes(StandardCharsets.US_ASCII));
+        OAuthBearerTokenImpl token = provider.token();
+
+        assertNotSame(expired, token);
+        assertEquals("system:serviceaccount:myproject:second", token.principalName());
+    }
+
+    @Test
+    public void testRotatedTokenIsDetected() throws IOException, InterruptedException {
+        Path file = folder.newFile("token").toPath();
+        Files.write(file, token("system:serviceaccount:myproject:first", nowS(), nowS() + 3600).getBytes(StandardCharsets.US_ASCII));
+
+        TokenFileProvider provider = new TokenFileProvider(file, Time.SYSTEM, 50L);
+        provider.start();
+
+        try {
+            assertEquals("system:serviceaccount:myproject:first", provider.token().principalName());
+
+            // Replace the file the same way as the kubelet replaces the projected token
+            Path rotated = folder.newFile("rotated").toPath();
+            Files.write(rotated, token("system:serviceaccount:myproject:second", nowS(), nowS() + 3600).getBytes(StandardCharsets.US_ASCII));
+            Files.move(rotated, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+
+            long deadline = System.currentTimeMillis() + 10_000L;
+            while (!"system:serviceaccount:myproject:second".equals(provider.token().principalName()) && System.currentTimeMillis() < deadline)   {
+                Thread.sleep(20);
+            }
+
+            assertEquals("system:serviceaccount:myproject:second", provider.token().principalName());
+        } finally {
+            provider.close();
+        }
+    }
+
+    @Test
+    public void testProvidersAreShared() throws IOException {
+        Path file = folder.newFile("token").toPath();
+        Files.write(file, token("system:serviceaccount:myproject:first", nowS(), nowS() + 3600).getBytes(StandardCharsets.US_ASCII));
+
+        TokenFileProvider first = TokenFileProvider.acquire(file);
+        TokenFileProvider second = TokenFileProvider.acquire(file.getParent().resolve("../" + folder.getRoot().getName() + "/token"));
+
+        try {
+            assertSame(first, second);
+        } finally {
+            TokenFileProvider.release(first);
+            TokenFileProvider.release(second);
+        }
+
+        TokenFileProvider third = TokenFileProvider.acquire(file);
+
+        try {
+            assertNotSame(first, third);
+        } finally {
+            TokenFileProvider.release(third);
+        }
+    }
+}
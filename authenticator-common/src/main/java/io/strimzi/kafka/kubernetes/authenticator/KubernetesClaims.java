@@ -0,0 +1,154 @@
+package io.strimzi.kafka.kubernetes.authenticator;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+
+import java.io.IOException;
+
+/**
+ * The Kubernetes specific claims of the service account tokens. Both the legacy secret based tokens (with the
+ * kubernetes.io/serviceaccount/* claims) and the bound tokens (with the kubernetes.io claim) are supported. Claims
+ * which are not present in the token are null.
+ */
+public class KubernetesClaims {
+    private static final String LEGACY_PREFIX = "kubernetes.io/serviceaccount/";
+
+    private String namespace;
+    private String serviceAccountName;
+    private String serviceAccountUid;
+    private String podName;
+    private String podUid;
+    private String secretName;
+
+    private KubernetesClaims() {
+    }
+
+    /**
+     * Reads the Kubernetes claims from the parser positioned before the start of the token payload.
+     */
+    static KubernetesClaims parse(JsonParser parser) throws IOException {
+        KubernetesClaims claims = new KubernetesClaims();
+
+        if (parser.nextToken() != JsonToken.START_OBJECT)  {
+            throw new IOException("The token payload is not a JSON object.");
+        }
+
+        while (parser.nextToken() == JsonToken.FIELD_NAME)  {
+            String field = parser.getCurrentName();
+            JsonToken value = parser.nextToken();
+
+            if ("kubernetes.io".equals(field) && value == JsonToken.START_OBJECT)   {
+                claims.parseBoundClaims(parser);
+            } else if (field.startsWith(LEGACY_PREFIX) && value == JsonToken.VALUE_STRING)  {
+                claims.parseLegacyClaim(field.substring(LEGACY_PREFIX.length()), parser.getText());
+            } else {
+                parser.skipChildren();
+            }
+        }
+
+        return claims;
+    }
+
+    private void parseLegacyClaim(String claim, String value)   {
+        switch (claim)  {
+            case "namespace":
+                namespace = value;
+                break;
+            case "service-account.name":
+                serviceAccountName = value;
+                break;
+            case "service-account.uid":
+                serviceAccountUid = value;
+                break;
+            case "secret.name":
+                secretName = value;
+                break;
+            default:
+                // Unknown claims are ignored
+        }
+    }
+
+    private void parseBoundClaims(JsonParser parser) throws IOException {
+        while (parser.nextToken() == JsonToken.FIELD_NAME)  {
+            String field = parser.getCurrentName();
+            JsonToken value = parser.nextToken();
+
+            if ("namespace".equals(field) && value == JsonToken.VALUE_STRING)   {
+                namespace = parser.getText();
+            } else if ("serviceaccount".equals(field) && value == JsonToken.START_OBJECT)   {
+                String[] nameAndUid = parseNameAndUid(parser);
+                serviceAccountName = nameAndUid[0];
+                serviceAccountUid = nameAndUid[1];
+            } else if ("pod".equals(field) && value == JsonToken.START_OBJECT)   {
+                String[] nameAndUid = parseNameAndUid(parser);
+                podName = nameAndUid[0];
+                podUid = nameAndUid[1];
+            } else if ("secret".equals(field) && value == JsonToken.START_OBJECT)   {
+                secretName = parseNameAndUid(parser)[0];
+            } else {
+                parser.skipChildren();
+            }
+        }
+    }
+
+    private static String[] parseNameAndUid(JsonParser parser) throws IOException {
+        String[] nameAndUid = new String[2];
+
+        while (parser.nextToken() == JsonToken.FIELD_NAME)  {
+            String field = parser.getCurrentName();
+            JsonToken value = parser.nextToken();
+
+            if ("name".equals(field) && value == JsonToken.VALUE_STRING)   {
+                nameAndUid[0] = parser.getText();
+            } else if ("uid".equals(field) && value == JsonToken.VALUE_STRING)   {
+                nameAndUid[1] = parser.getText();
+            } else {
+                parser.skipChildren();
+            }
+        }
+
+        return nameAndUid;
+    }
+
+    /**
+     * @return  Namespace of the service account
+     */
+    public String namespace() {
+        return namespace;
+    }
+
+    /**
+     * @return  Name of the service account
+     */
+    public String serviceAccountName() {
+        return serviceAccountName;
+    }
+
+    /**
+     * @return  UID of the service account
+     */
+    public String serviceAccountUid() {
+        return serviceAccountUid;
+    }
+
+    /**
+     * @return  Name of the Pod the token is bound to (bound tokens only)
+     */
+    public String podName() {
+        return podName;
+    }
+
+    /**
+     * @return  UID of the Pod the token is bound to (bound tokens only)
+     */
+    public String podUid() {
+        return podUid;
+    }
+
+    /**
+     * @return  Name of the Secret the token is stored in (legacy tokens) or bound to
+     */
+    public String secretName() {
+        return secretName;
+    }
+}
@@ -1,33 +1,122 @@
 package io.strimzi.kafka.kubernetes.authenticator;
 
-import com.fasterxml.jackson.databind.JsonNode;
-import com.fasterxml.jackson.databind.ObjectMapper;
-import com.fasterxml.jackson.databind.node.JsonNodeType;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import org.apache.kafka.common.security.auth.KafkaPrincipal;
 import org.apache.kafka.common.security.oauthbearer.OAuthBearerToken;
 
 import java.io.IOException;
-import java.util.Base64;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
+import java.util.List;
 import java.util.Set;
+import java.util.function.Function;
 
+/**
+ * OAuthBearerToken implementation for the Kubernetes service account tokens. The payload is decoded into a reusable
+ * per-thread buffer and read using the Jackson streaming API. Only the claims needed for the authentication (sub, exp,
+ * iat, nbf, iss and aud) are read when the token is created. The Kubernetes specific claims are read only when they
+ * are first used.
+ */
 public class OAuthBearerTokenImpl implements OAuthBearerToken {
+    private static final JsonFactory JSON_FACTORY = new JsonFactory();
+
+    // Buffers bigger than this are not kept for reuse
+    private static final int MAX_REUSED_BUFFER_SIZE = 16 * 1024;
+    private static final ThreadLocal<byte[]> PAYLOAD_BUFFER = ThreadLocal.withInitial(() -> new byte[2048]);
+
+    private static final int[] BASE64_DECODE = new int[128];
+
+    static {
+        Arrays.fill(BASE64_DECODE, -1);
+
+        String alphabet = "ABCDEFGHIJKLMNOPQRSTUVWXYZabcdefghijklmnopqrstuvwxyz0123456789";
+        for (int i = 0; i < alphabet.length(); i++)  {
+            BASE64_DECODE[alphabet.charAt(i)] = i;
+        }
+
+        // JWTs should use the URL safe alphabet, but some issuers use the regular one
+        BASE64_DECODE['-'] = 62;
+        BASE64_DECODE['+'] = 62;
+        BASE64_DECODE['_'] = 63;
+        BASE64_DECODE['/'] = 63;
+    }
+
     private final String value;
     private final long  lifetimeMs;
     private final Long startTimeMs;
     private final String principalName;
     private final Set<String> scope;
+    private final String issuer;
+    private final List<String> audience;
+    private final long notBeforeMs;
+
+    private volatile KubernetesClaims kubernetesClaims;
+
+    // Identity returned by the TokenReview (only on the broker side)
+    private volatile String reviewedUid;
+    private volatile List<String> reviewedGroups;
+
+    // Principal built for the connection authenticated with this token (only on the broker side)
+    private volatile KafkaPrincipal principal;
 
     public OAuthBearerTokenImpl(String token) throws IOException {
-        ObjectMapper mapper = new ObjectMapper();
-        String base64Payload = getPayload(token);
-        String payload = new String(Base64.getDecoder().decode(base64Payload));
-        JsonNode jsonPayload = mapper.readTree(payload);
+        String subject = null;
+        long exp = Long.MAX_VALUE;
+        long iat = 0;
+        long nbf = 0;
+        String iss = null;
+        List<String> aud = Collections.emptyList();
+
+        try (JsonParser parser = payloadParser(token)) {
+            if (parser.nextToken() != JsonToken.START_OBJECT)  {
+                throw new IOException("The token payload is not a JSON object.");
+            }
+
+            while (parser.nextToken() == JsonToken.FIELD_NAME)  {
+                String field = parser.getCurrentName();
+                JsonToken value = parser.nextToken();
+
+                switch (field)  {
+                    case "sub":
+                        subject = parseSubject(parser, value);
+                        break;
+                    case "exp":
+                        exp = parseTimestamp(parser, value, Long.MAX_VALUE);
+                        break;
+                    case "iat":
+                        iat = parseTimestamp(parser, value, 0);
+                        break;
+                    case "nbf":
+                        nbf = parseTimestamp(parser, value, 0);
+                        break;
+                    case "iss":
+                        iss = value == JsonToken.VALUE_STRING ? parser.getText() : null;
+                        break;
+                    case "aud":
+                        aud = parseAudience(parser, value);
+                        break;
+                    default:
+                        parser.skipChildren();
+                }
+            }
+        }
+
+        if (subject == null)    {
+            throw new IOException("The token does not contain subject.");
+        }
 
         this.value = token;
-        this.principalName = parseSubject(jsonPayload.get("sub"));
-        this.lifetimeMs = parseExp(jsonPayload.get("exp"));
-        this.startTimeMs = parseIat(jsonPayload.get("iat"));
+        this.principalName = subject;
+        this.lifetimeMs = exp;
+        this.startTimeMs = iat;
         this.scope = Collections.EMPTY_SET;
+        this.issuer = iss;
+        this.audience = aud;
+        this.notBeforeMs = nbf;
     }
 
     /*test*/ static String getPayload(String token) {
@@ -37,33 +126,111 @@ public class OAuthBearerTokenImpl implements OAuthBearerToken {
         return token.substring(first+1, last);
     }
 
-    private static String parseSubject(JsonNode subject) throws IOException   {
-        if (subject == null)    {
-            throw new IOException("The token does not contain subject.");
-        } else if (JsonNodeType.STRING.equals(subject.getNodeType()))  {
-            return subject.asText();
+    /**
+     * Decodes the base64url encoded payload of the token into the per-thread buffer and creates a parser for it.
+     */
+    private static JsonParser payloadParser(String token) throws IOException {
+        int first = token.indexOf('.');
+        int last = token.lastIndexOf('.');
+
+        if (first < 0 || first == last)  {
+            throw new IOException("The token is not a valid JWT.");
+        }
+
+        int maxLength = (last - first - 1) * 3 / 4 + 3;
+        byte[] buffer = PAYLOAD_BUFFER.get();
+
+        if (buffer.length < maxLength)  {
+            buffer = new byte[maxLength];
+
+            if (maxLength <= MAX_REUSED_BUFFER_SIZE)  {
+                PAYLOAD_BUFFER.set(buffer);
+            }
+        }
+
+        int length = decodeBase64(token, first + 1, last, buffer);
+
+        return JSON_FACTORY.createParser(buffer, 0, length);
+    }
+
+    /*test*/ static int decodeBase64(String source, int start, int end, byte[] target) throws IOException {
+        int bits = 0;
+        int bitCount = 0;
+        int length = 0;
+
+        for (int i = start; i < end; i++)   {
+            char c = source.charAt(i);
+
+            if (c == '=')   {
+                break;
+            }
+
+            int decoded = c < BASE64_DECODE.length ? BASE64_DECODE[c] : -1;
+
+            if (decoded < 0)    {
+                throw new IOException("The token payload is not valid base64url.");
+            }
+
+            bits = (bits << 6) | decoded;
+            bitCount += 6;
+
+            if (bitCount >= 8)  {
+                bitCount -= 8;
+                target[length++] = (byte) (bits >> bitCount);
+                bits &= (1 << bitCount) - 1;
+            }
+        }
+
+        return length;
+    }
+
+    private static String parseSubject(JsonParser parser, JsonToken subject) throws IOException   {
+        if (subject == JsonToken.VALUE_STRING)  {
+            return parser.getText();
         } else {
-            throw new IOException("The subject has unexpected type " + subject.getNodeType() + ".");
+            throw new IOException("The subject has unexpected type " + subject + ".");
         }
     }
 
-    private static long parseIat(JsonNode iat) throws IOException   {
-        if (iat == null)    {
-            return 0;
-        } else if (JsonNodeType.NUMBER.equals(iat.getNodeType()))  {
-            return iat.asLong();
+    private static List<String> parseAudience(JsonParser parser, JsonToken audience) throws IOException   {
+        if (audience == JsonToken.VALUE_STRING)  {
+            return Collections.singletonList(parser.getText());
+        } else if (audience == JsonToken.START_ARRAY)  {
+            List<String> result = new ArrayList<>(1);
+            JsonToken item;
+
+            while ((item = parser.nextToken()) != JsonToken.END_ARRAY)  {
+                if (item == JsonToken.VALUE_STRING)  {
+                    result.add(parser.getText());
+                } else {
+                    parser.skipChildren();
+                }
+            }
+
+            return Collections.unmodifiableList(result);
         } else {
-            return 0;
+            parser.skipChildren();
+            return Collections.emptyList();
         }
     }
 
-    private static long parseExp(JsonNode exp) throws IOException   {
-        if (exp == null)    {
-            return Long.MAX_VALUE;
-        } else if (JsonNodeType.NUMBER.equals(exp.getNodeType()))  {
-            return exp.asLong();
+    private static long parseTimestamp(JsonParser parser, JsonToken timestamp, long defaultValue) throws IOException   {
+        if (timestamp == JsonToken.VALUE_NUMBER_INT)  {
+            return secondsToMs(parser.getLongValue());
+        } else if (timestamp == JsonToken.VALUE_NUMBER_FLOAT)  {
+            return secondsToMs((long) parser.getDoubleValue());
         } else {
+            parser.skipChildren();
+            return defaultValue;
+        }
+    }
+
+    // The JWT claims are in seconds, but the OAuthBearerToken interface uses milliseconds
+    private static long secondsToMs(long seconds)   {
+        if (seconds > Long.MAX_VALUE / 1000L)   {
             return Long.MAX_VALUE;
+        } else {
+            return seconds * 1000L;
         }
     }
 
@@ -92,6 +259,101 @@ public class OAuthBearerTokenImpl implements OAuthBearerToken {
         return startTimeMs;
     }
 
+    /**
+     * @return  The issuer (iss claim) or null if the token does not have it
+     */
+    public String issuer() {
+        return issuer;
+    }
+
+    /**
+     * @return  The audiences (aud claim) of the token
+     */
+    public List<String> audience() {
+        return audience;
+    }
+
+    /**
+     * @return  The time before which the token must not be accepted (nbf claim) or 0 if not set
+     */
+    public long notBeforeMs() {
+        return notBeforeMs;
+    }
+
+    /**
+     * The Kubernetes specific claims are parsed on first use.
+     *
+     * @return  The Kubernetes specific claims of the token
+     */
+    public KubernetesClaims kubernetesClaims() {
+        KubernetesClaims claims = kubernetesClaims;
+
+        if (claims == null) {
+            try (JsonParser parser = payloadParser(value)) {
+                claims = KubernetesClaims.parse(parser);
+            } catch (IOException e) {
+                // The payload was already parsed successfully in the constructor
+                throw new UncheckedIOException("Failed to parse the Kubernetes claims", e);
+            }
+
+            kubernetesClaims = claims;
+        }
+
+        return claims;
+    }
+
+    /**
+     * Attaches the identity returned by the TokenReview to the token, so that it can be used by the principal builder.
+     *
+     * @param uid       UID of the user
+     * @param groups    Groups of the user
+     */
+    public void reviewedIdentity(String uid, List<String> groups) {
+        this.reviewedUid = uid;
+        this.reviewedGroups = groups != null ? Collections.unmodifiableList(new ArrayList<>(groups)) : Collections.emptyList();
+    }
+
+    /**
+     * @return  UID of the user returned by the TokenReview or null if the token was not reviewed
+     */
+    public String reviewedUid() {
+        return reviewedUid;
+    }
+
+    /**
+     * @return  Groups of the user returned by the TokenReview or null if the token was not reviewed (for example when
+     *          it was verified locally or the result of an earlier review was used)
+     */
+    public List<String> reviewedGroups() {
+        return reviewedGroups;
+    }
+
+    /**
+     * Returns the principal of the connection authenticated with this token. A new token is created for every
+     * authentication (and re-authentication) of a connection, but Kafka asks for the principal on every request. The
+     * principal is therefore built only on the first call and the same instance is returned afterwards.
+     *
+     * @param builder   Builds the principal from the token
+     *
+     * @return  The principal
+     */
+    public KafkaPrincipal principal(Function<OAuthBearerTokenImpl, KafkaPrincipal> builder) {
+        KafkaPrincipal result = principal;
+
+        if (result == null) {
+            synchronized (this) {
+                result = principal;
+
+                if (result == null) {
+                    result = builder.apply(this);
+                    principal = result;
+                }
+            }
+        }
+
+        return result;
+    }
+
     @Override
     public String toString() {
         return "OAuthBearerTokenImpl{" +
@@ -0,0 +1,221 @@
+package io.strimzi.kafka.kubernetes.authenticator;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import okhttp3.HttpUrl;
+import okhttp3.OkHttpClient;
+import okhttp3.Request;
+import okhttp3.Response;
+import okhttp3.ResponseBody;
+import org.apache.kafka.common.utils.Time;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.math.BigInteger;
+import java.security.AlgorithmParameters;
+import java.security.GeneralSecurityException;
+import java.security.KeyFactory;
+import java.security.PublicKey;
+import java.security.spec.ECGenParameterSpec;
+import java.security.spec.ECParameterSpec;
+import java.security.spec.ECPoint;
+import java.security.spec.ECPublicKeySpec;
+import java.security.spec.RSAPublicKeySpec;
+import java.util.Base64;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Provides the public keys used by the Kubernetes API server to sign the service account tokens. The issuer and the
+ * JWKS endpoint are found using the OIDC discovery document served by the API server. The keys are cached and
+ * refreshed when a token signed with an unknown key ID shows up (but not more often than the minimal refresh interval).
+ */
+public class JwksKeyProvider {
+    private static final Logger log = LoggerFactory.getLogger(JwksKeyProvider.class);
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    public static final String DISCOVERY_PATH = ".well-known/openid-configuration";
+
+    private final OkHttpClient httpClient;
+    private final OkHttpClient anonymousHttpClient;
+    private final String discoveryUrl;
+    private final long minRefreshIntervalMs;
+    private final Time time;
+
+    private volatile Map<String, PublicKey> keys = Collections.emptyMap();
+    private String issuer;
+    private String jwksUrl;
+    private long lastRefreshMs = -1;
+
+    /**
+     * @param httpClient            HTTP client used to talk to the API server
+     * @param discoveryUrl          URL of the OIDC discovery document
+     * @param minRefreshIntervalMs  Minimal interval between two refreshes of the keys
+     * @param time                  Time used to rate limit the refreshes
+     */
+    public JwksKeyProvider(OkHttpClient httpClient, String discoveryUrl, long minRefreshIntervalMs, Time time) {
+        this.httpClient = httpClient;
+        this.discoveryUrl = discoveryUrl;
+        this.minRefreshIntervalMs = minRefreshIntervalMs;
+        this.time = time;
+
+        // The JWKS endpoint might be hosted outside of the API server. We should not send our credentials there.
+        OkHttpClient.Builder anonymousBuilder = httpClient.newBuilder();
+        anonymousBuilder.interceptors().clear();
+        anonymousBuilder.networkInterceptors().clear();
+        this.anonymousHttpClient = anonymousBuilder.build();
+    }
+
+    /**
+     * @return  The issuer of the service account tokens as advertised by the discovery document
+     */
+    public synchronized String issuer() throws IOException  {
+        if (issuer == null) {
+            discover();
+        }
+
+        return issuer;
+    }
+
+    /**
+     * Finds the key with given ID. When the key is not known, the keys will be refreshed (unless they were refreshed
+     * only recently).
+     *
+     * @param kid   ID of the key
+     *
+     * @return  The public key or null if no such key exists
+     */
+    public PublicKey getKey(String kid) throws IOException  {
+        PublicKey key = findKey(keys, kid);
+
+        if (key == null)    {
+            synchronized (this) {
+                key = findKey(keys, kid);
+
+                if (key == null && (lastRefreshMs < 0 || time.milliseconds() - lastRefreshMs >= minRefreshIntervalMs)) {
+                    refresh();
+                    key = findKey(keys, kid);
+                }
+            }
+        }
+
+        return key;
+    }
+
+    private static PublicKey findKey(Map<String, PublicKey> keys, String kid)   {
+        if ((kid == null || kid.isEmpty()) && keys.size() == 1)   {
+            // Tokens without key ID are fine as long as there is no ambiguity
+            return keys.values().iterator().next();
+        } else {
+            return keys.get(kid == null ? "" : kid);
+        }
+    }
+
+    private void discover() throws IOException  {
+        JsonNode discovery = get(httpClient, discoveryUrl);
+
+        if (!discovery.hasNonNull("issuer") || !discovery.hasNonNull("jwks_uri"))   {
+            throw new IOException("The OIDC discovery document at " + discoveryUrl + " does not contain the issuer or the jwks_uri");
+        }
+
+        issuer = discovery.get("issuer").asText();
+        jwksUrl = discovery.get("jwks_uri").asText();
+
+        log.info("Discovered service account token issuer {} with keys at {}", issuer, jwksUrl);
+    }
+
+    private void refresh() throws IOException  {
+        lastRefreshMs = time.milliseconds();
+
+        if (jwksUrl == null)    {
+            discover();
+        }
+
+        JsonNode jwks = get(sameHost(discoveryUrl, jwksUrl) ? httpClient : anonymousHttpClient, jwksUrl);
+        Map<String, PublicKey> newKeys = new HashMap<>();
+
+        if (jwks.has("keys"))   {
+            for (JsonNode jwk : jwks.get("keys"))   {
+                try {
+                    PublicKey key = parseKey(jwk);
+
+                    if (key != null)    {
+                        newKeys.put(jwk.path("kid").asText(""), key);
+                    }
+                } catch (GeneralSecurityException | IllegalArgumentException e) {
+                    log.warn("Failed to parse key {} from JWKS", jwk.path("kid").asText(""), e);
+                }
+            }
+        }
+
+        log.debug("Loaded {} keys from {}", newKeys.size(), jwksUrl);
+        keys = Collections.unmodifiableMap(newKeys);
+    }
+
+    private static PublicKey parseKey(JsonNode jwk) throws GeneralSecurityException   {
+        if (jwk.has("use") && !"sig".equals(jwk.get("use").asText())) {
+            return null;
+        }
+
+        String kty = jwk.path("kty").asText();
+
+        if ("RSA".equals(kty))  {
+            BigInteger modulus = decodeUnsigned(jwk.path("n").asText());
+            BigInteger exponent = decodeUnsigned(jwk.path("e").asText());
+
+            return KeyFactory.getInstance("RSA").generatePublic(new RSAPublicKeySpec(modulus, exponent));
+        } else if ("EC".equals(kty))    {
+            AlgorithmParameters parameters = AlgorithmParameters.getInstance("EC");
+            parameters.init(new ECGenParameterSpec(curveName(jwk.path("crv").asText())));
+            ECParameterSpec spec = parameters.getParameterSpec(ECParameterSpec.class);
+
+            ECPoint point = new ECPoint(decodeUnsigned(jwk.path("x").asText()), decodeUnsigned(jwk.path("y").asText()));
+
+            return KeyFactory.getInstance("EC").generatePublic(new ECPublicKeySpec(point, spec));
+        } else {
+            log.debug("Ignoring key with unsupported type {}", kty);
+            return null;
+        }
+    }
+
+    private static String curveName(String crv) throws GeneralSecurityException {
+        switch (crv)    {
+            case "P-256":
+                return "secp256r1";
+            case "P-384":
+                return "secp384r1";
+            case "P-521":
+                return "secp521r1";
+            default:
+                throw new GeneralSecurityException("Unsupported curve " + crv);
+        }
+    }
+
+    private static BigInteger decodeUnsigned(String value)   {
+        return new BigInteger(1, Base64.getUrlDecoder().decode(value));
+    }
+
+    private static boolean sameHost(String first, String second)  {
+        HttpUrl firstUrl = HttpUrl.parse(first);
+        HttpUrl secondUrl = HttpUrl.parse(second);
+
+        return firstUrl != null && secondUrl != null
+                && firstUrl.scheme().equals(secondUrl.scheme())
+                && firstUrl.host().equals(secondUrl.host())
+                && firstUrl.port() == secondUrl.port();
+    }
+
+    private static JsonNode get(OkHttpClient client, String url) throws IOException {
+        try (Response response = client.newCall(new Request.Builder().get().url(url).build()).execute()) {
+            ResponseBody body = response.body();
+
+            if (response.code() == 200 && body != null) {
+                return MAPPER.readTree(body.byteStream());
+            } else {
+                throw new IOException("Failed to get " + url + ". Server returned HTTP " + response.code() + ".");
+            }
+        }
+    }
+}
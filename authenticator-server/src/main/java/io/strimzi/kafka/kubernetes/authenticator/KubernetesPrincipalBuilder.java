@@ -0,0 +1,113 @@
+package io.strimzi.kafka.kubernetes.authenticator;
+
+import io.strimzi.kafka.kubernetes.common.ConfigUtils;
+import io.strimzi.kafka.kubernetes.common.KubernetesPrincipal;
+import org.apache.kafka.common.Configurable;
+import org.apache.kafka.common.security.auth.AuthenticationContext;
+import org.apache.kafka.common.security.auth.KafkaPrincipal;
+import org.apache.kafka.common.security.auth.KafkaPrincipalBuilder;
+import org.apache.kafka.common.security.auth.SaslAuthenticationContext;
+import org.apache.kafka.common.security.authenticator.DefaultKafkaPrincipalBuilder;
+import org.apache.kafka.common.security.kerberos.KerberosShortNamer;
+import org.apache.kafka.common.security.oauthbearer.OAuthBearerLoginModule;
+import org.apache.kafka.common.security.ssl.SslPrincipalMapper;
+
+import javax.security.sasl.SaslServer;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Principal builder which attaches the identity of the service accounts authenticated by the
+ * KubernetesTokenValidatorCallbackHandler to their principals. The UID and the groups returned by the TokenReview are
+ * used when available. Otherwise (when the token was verified locally or an earlier review result was used), they are
+ * taken from the Kubernetes claims of the token and the groups which Kubernetes gives to every service account.
+ *
+ * Kafka calls the principal builder for every request of the connection. The principal of the token is built only
+ * once and the same instance is returned for all requests until the connection re-authenticates with a new token.
+ *
+ * Other principals (regular users, other authentication mechanisms) are built by the default Kafka principal builder.
+ * Only the SSL principal mapping rules and the Kerberos short name rules are passed to it.
+ */
+public class KubernetesPrincipalBuilder implements KafkaPrincipalBuilder, Configurable {
+    private static final String SERVICE_ACCOUNT_PREFIX = "system:serviceaccount:";
+    private static final String TOKEN_PROPERTY = OAuthBearerLoginModule.OAUTHBEARER_MECHANISM + ".token";
+
+    private DefaultKafkaPrincipalBuilder defaultBuilder;
+
+    @Override
+    public void configure(Map<String, ?> configs) {
+        List<String> kerberosRules = ConfigUtils.getList(configs, "sasl.kerberos.principal.to.local.rules");
+        String sslRules = ConfigUtils.getString(configs, "ssl.principal.mapping.rules", "DEFAULT");
+
+        defaultBuilder = new DefaultKafkaPrincipalBuilder(
+                KerberosShortNamer.fromUnparsedRules("", kerberosRules.isEmpty() ? Collections.singletonList("DEFAULT") : kerberosRules),
+                SslPrincipalMapper.fromRules(sslRules));
+    }
+
+    @Override
+    public KafkaPrincipal build(AuthenticationContext context) {
+        if (context instanceof SaslAuthenticationContext)   {
+            SaslServer server = ((SaslAuthenticationContext) context).server();
+
+            if (OAuthBearerLoginModule.OAUTHBEARER_MECHANISM.equals(server.getMechanismName())
+                    && server.getNegotiatedProperty(TOKEN_PROPERTY) instanceof OAuthBearerTokenImpl)  {
+                return principal((OAuthBearerTokenImpl) server.getNegotiatedProperty(TOKEN_PROPERTY));
+            }
+        }
+
+        return defaultBuilder.build(context);
+    }
+
+    /**
+     * Returns the principal of the token. It is built on the first call and the same instance is returned for every
+     * following call with the same token. It is also used to announce the authenticated principal to the other plugins.
+     *
+     * @param token     The validated token
+     *
+     * @return  The principal
+     */
+    static KafkaPrincipal principal(OAuthBearerTokenImpl token)  {
+        return token.principal(KubernetesPrincipalBuilder::build);
+    }
+
+    /**
+     * Builds a new principal from the token.
+     *
+     * @param token     The validated token
+     *
+     * @return  The principal
+     */
+    static KafkaPrincipal build(OAuthBearerTokenImpl token)  {
+        String name = token.principalName();
+
+        if (!name.startsWith(SERVICE_ACCOUNT_PREFIX))   {
+            return new KafkaPrincipal(KafkaPrincipal.USER_TYPE, name);
+        }
+
+        if (token.reviewedGroups() != null) {
+            return new KubernetesPrincipal(name, token.reviewedUid(), token.reviewedGroups());
+        }
+
+        KubernetesClaims claims = token.kubernetesClaims();
+        String namespace = claims.namespace();
+
+        if (namespace == null)  {
+            // system:serviceaccount:<namespace>:<name>
+            int separator = name.indexOf(':', SERVICE_ACCOUNT_PREFIX.length());
+            namespace = separator > 0 ? name.substring(SERVICE_ACCOUNT_PREFIX.length(), separator) : null;
+        }
+
+        List<String> groups = new ArrayList<>(3);
+        groups.add("system:serviceaccounts");
+
+        if (namespace != null)  {
+            groups.add("system:serviceaccounts:" + namespace);
+        }
+
+        groups.add("system:authenticated");
+
+        return new KubernetesPrincipal(name, claims.serviceAccountUid(), groups);
+    }
+}
@@ -4,14 +4,25 @@ import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import io.fabric8.kubernetes.api.model.authentication.TokenReview;
 import io.fabric8.kubernetes.api.model.authentication.TokenReviewBuilder;
-import io.fabric8.kubernetes.client.DefaultKubernetesClient;
+import io.fabric8.kubernetes.api.model.authentication.UserInfo;
 import io.fabric8.kubernetes.client.KubernetesClient;
 import io.fabric8.kubernetes.client.dsl.base.OperationSupport;
+import io.strimzi.kafka.kubernetes.common.AdmissionController;
+import io.strimzi.kafka.kubernetes.common.AuthenticationEvents;
+import io.strimzi.kafka.kubernetes.common.CircuitBreaker;
+import io.strimzi.kafka.kubernetes.common.ConfigUtils;
+import io.strimzi.kafka.kubernetes.common.HedgedExecutor;
+import io.strimzi.kafka.kubernetes.common.KubernetesClientProvider;
+import io.strimzi.kafka.kubernetes.common.MetricsProvider;
+import io.strimzi.kafka.kubernetes.common.ReviewMetrics;
+import io.strimzi.kafka.kubernetes.common.SingleFlight;
+import okhttp3.Call;
 import okhttp3.OkHttpClient;
 import okhttp3.Request;
 import okhttp3.RequestBody;
 import okhttp3.Response;
 import okhttp3.ResponseBody;
+import org.apache.kafka.common.metrics.Metrics;
 import org.apache.kafka.common.security.auth.AuthenticateCallbackHandler;
 import org.apache.kafka.common.security.oauthbearer.OAuthBearerLoginModule;
 import org.apache.kafka.common.security.oauthbearer.OAuthBearerValidatorCallback;
@@ -23,22 +34,171 @@ import javax.security.auth.callback.Callback;
 import javax.security.auth.callback.UnsupportedCallbackException;
 import javax.security.auth.login.AppConfigurationEntry;
 import java.io.IOException;
+import java.io.InterruptedIOException;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
 
 public class KubernetesTokenValidatorCallbackHandler implements AuthenticateCallbackHandler {
     private static final Logger log = LoggerFactory.getLogger(KubernetesTokenValidatorCallbackHandler.class);
 
+    public static final String CACHE_ENABLED_CONFIG = "kubernetes.authenticator.cache.enabled";
+    public static final String CACHE_TTL_MS_CONFIG = "kubernetes.authenticator.cache.ttl.ms";
+    public static final String CACHE_DENIED_TTL_MS_CONFIG = "kubernetes.authenticator.cache.denied.ttl.ms";
+    public static final String CACHE_MAX_SIZE_CONFIG = "kubernetes.authenticator.cache.max.size";
+    public static final String CACHE_GRACE_MS_CONFIG = "kubernetes.authenticator.cache.grace.ms";
+
+    private static final long DEFAULT_CACHE_TTL_MS = 60_000L;
+    private static final long DEFAULT_CACHE_DENIED_TTL_MS = 0L;
+    private static final int DEFAULT_CACHE_MAX_SIZE = 10_000;
+    private static final long DEFAULT_CACHE_GRACE_MS = 0L;
+
+    public static final String CONFIG_PREFIX = "kubernetes.authenticator.";
+    public static final String REVIEW_TIMEOUT_MS_CONFIG = CONFIG_PREFIX + "review.timeout.ms";
+
+    private static final long DEFAULT_REVIEW_TIMEOUT_MS = 0L;
+    private static final int REFRESH_QUEUE_SIZE = 1_000;
+
+    public static final String VALIDATION_MODE_CONFIG = "kubernetes.authenticator.validation.mode";
+    public static final String JWT_ISSUER_CONFIG = "kubernetes.authenticator.jwt.issuer";
+    public static final String JWT_AUDIENCES_CONFIG = "kubernetes.authenticator.jwt.audiences";
+    public static final String JWT_FALLBACK_ENABLED_CONFIG = "kubernetes.authenticator.jwt.fallback.enabled";
+    public static final String JWKS_MIN_REFRESH_INTERVAL_MS_CONFIG = "kubernetes.authenticator.jwks.min.refresh.interval.ms";
+
+    public static final String VALIDATION_MODE_TOKEN_REVIEW = "tokenreview";
+    public static final String VALIDATION_MODE_LOCAL = "local";
+
+    private static final long DEFAULT_JWKS_MIN_REFRESH_INTERVAL_MS = 10_000L;
+
+    public static final String REJECTION_FILTER_ENABLED_CONFIG = "kubernetes.authenticator.rejection.filter.enabled";
+    public static final String REJECTION_FILTER_SIZE_CONFIG = "kubernetes.authenticator.rejection.filter.size";
+    public static final String REJECTION_FILTER_TTL_MS_CONFIG = "kubernetes.authenticator.rejection.filter.ttl.ms";
+    public static final String REJECTION_BACKOFF_THRESHOLD_CONFIG = "kubernetes.authenticator.rejection.backoff.threshold";
+    public static final String REJECTION_BACKOFF_INITIAL_MS_CONFIG = "kubernetes.authenticator.rejection.backoff.initial.ms";
+    public static final String REJECTION_BACKOFF_MAX_MS_CONFIG = "kubernetes.authenticator.rejection.backoff.max.ms";
+
+    private static final int DEFAULT_REJECTION_FILTER_SIZE = 4_096;
+    private static final long DEFAULT_REJECTION_FILTER_TTL_MS = 60_000L;
+    private static final int DEFAULT_REJECTION_BACKOFF_THRESHOLD = 3;
+    private static final long DEFAULT_REJECTION_BACKOFF_INITIAL_MS = 120_000L;
+    private static final long DEFAULT_REJECTION_BACKOFF_MAX_MS = 900_000L;
+
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    public static final String METRICS_GROUP = "kubernetes-authenticator-metrics";
+
+    private KubernetesClient client;
+    private OkHttpClient httpClient;
+    // The result is the reviewed user or null if the token is not authenticated
+    private final SingleFlight<String, UserInfo> inFlightReviews = new SingleFlight<>();
+    private TokenReviewCache cache;
+    private ThreadPoolExecutor refreshExecutor;
+    private final Set<String> refreshing = ConcurrentHashMap.newKeySet();
+    private CircuitBreaker circuitBreaker;
+    private AdmissionController admissionController;
+    private HedgedExecutor reviewExecutor;
+    private long reviewTimeoutMs;
+    private Metrics metrics;
+    private ReviewMetrics reviewMetrics;
+    private LocalTokenVerifier localVerifier;
+    private TokenRejectionFilter rejectionFilter;
+    private boolean localFallback;
+
     @Override
     public void configure(Map<String, ?> configs, String saslMechanism, List<AppConfigurationEntry> jaasConfigEntries) {
         if (!OAuthBearerLoginModule.OAUTHBEARER_MECHANISM.equals(saslMechanism))    {
             throw new IllegalArgumentException(String.format("Unexpected SASL mechanism: %s", saslMechanism));
         }
+
+        client = KubernetesClientProvider.acquire(configs);
+        httpClient = client.adapt(OkHttpClient.class);
+
+        metrics = MetricsProvider.acquire();
+        reviewMetrics = ReviewMetrics.get(metrics, METRICS_GROUP, "token-review");
+
+        if (ConfigUtils.getBoolean(configs, CACHE_ENABLED_CONFIG, false))    {
+            long ttlMs = ConfigUtils.getLong(configs, CACHE_TTL_MS_CONFIG, DEFAULT_CACHE_TTL_MS);
+            long deniedTtlMs = ConfigUtils.getLong(configs, CACHE_DENIED_TTL_MS_CONFIG, DEFAULT_CACHE_DENIED_TTL_MS);
+            int maxSize = ConfigUtils.getInt(configs, CACHE_MAX_SIZE_CONFIG, DEFAULT_CACHE_MAX_SIZE);
+            long graceMs = ConfigUtils.getLong(configs, CACHE_GRACE_MS_CONFIG, DEFAULT_CACHE_GRACE_MS);
+
+            log.info("TokenReview cache is enabled (TTL {} ms, denied TTL {} ms, max. size {}, grace {} ms)", ttlMs, deniedTtlMs, maxSize, graceMs);
+            cache = new TokenReviewCache(Time.SYSTEM, ttlMs, deniedTtlMs, maxSize, graceMs);
+
+            if (graceMs > 0)    {
+                // Stale results are refreshed in the background. When the queue is full, the refresh is skipped and
+                // the result will be refreshed with the next authentication.
+                refreshExecutor = new ThreadPoolExecutor(1, 1, 0, TimeUnit.MILLISECONDS, new ArrayBlockingQueue<>(REFRESH_QUEUE_SIZE), runnable -> {
+                    Thread thread = new Thread(runnable, "kubernetes-authenticator-refresh");
+                    thread.setDaemon(true);
+                    return thread;
+                });
+            }
+        }
+
+        reviewTimeoutMs = ConfigUtils.getLong(configs, REVIEW_TIMEOUT_MS_CONFIG, DEFAULT_REVIEW_TIMEOUT_MS);
+        reviewExecutor = HedgedExecutor.fromConfig(configs, CONFIG_PREFIX, "TokenReview");
+
+        if (reviewExecutor != null && reviewTimeoutMs <= 0)   {
+            // The calls abandoned after the deadline should not keep the review threads busy
+            reviewTimeoutMs = reviewExecutor.deadlineMs();
+        }
+
+        circuitBreaker = CircuitBreaker.fromConfig(configs, CONFIG_PREFIX, "TokenReview");
+        admissionController = AdmissionController.fromConfig(configs, CONFIG_PREFIX, "TokenReview");
+
+        if (ConfigUtils.getBoolean(configs, REJECTION_FILTER_ENABLED_CONFIG, false))    {
+            int size = ConfigUtils.getInt(configs, REJECTION_FILTER_SIZE_CONFIG, DEFAULT_REJECTION_FILTER_SIZE);
+            long ttlMs = ConfigUtils.getLong(configs, REJECTION_FILTER_TTL_MS_CONFIG, DEFAULT_REJECTION_FILTER_TTL_MS);
+            int backoffThreshold = ConfigUtils.getInt(configs, REJECTION_BACKOFF_THRESHOLD_CONFIG, DEFAULT_REJECTION_BACKOFF_THRESHOLD);
+            long initialBackoffMs = ConfigUtils.getLong(configs, REJECTION_BACKOFF_INITIAL_MS_CONFIG, DEFAULT_REJECTION_BACKOFF_INITIAL_MS);
+            long maxBackoffMs = ConfigUtils.getLong(configs, REJECTION_BACKOFF_MAX_MS_CONFIG, DEFAULT_REJECTION_BACKOFF_MAX_MS);
+
+            log.info("Rejection filter is enabled (size {}, TTL {} ms, backoff after {} rejections from {} ms to {} ms)",
+                    size, ttlMs, backoffThreshold, initialBackoffMs, maxBackoffMs);
+            rejectionFilter = new TokenRejectionFilter(Time.SYSTEM, ConfigUtils.getString(configs, JWT_ISSUER_CONFIG, null),
+                    ConfigUtils.getList(configs, JWT_AUDIENCES_CONFIG), size, ttlMs, backoffThreshold, initialBackoffMs,
+                    maxBackoffMs);
+        }
+
+        String validationMode = ConfigUtils.getString(configs, VALIDATION_MODE_CONFIG, VALIDATION_MODE_TOKEN_REVIEW);
+
+        if (VALIDATION_MODE_LOCAL.equals(validationMode))   {
+            long minRefreshIntervalMs = ConfigUtils.getLong(configs, JWKS_MIN_REFRESH_INTERVAL_MS_CONFIG, DEFAULT_JWKS_MIN_REFRESH_INTERVAL_MS);
+            JwksKeyProvider keyProvider = new JwksKeyProvider(httpClient, client.getMasterUrl().toString() + JwksKeyProvider.DISCOVERY_PATH, minRefreshIntervalMs, Time.SYSTEM);
+
+            localVerifier = new LocalTokenVerifier(keyProvider, ConfigUtils.getString(configs, JWT_ISSUER_CONFIG, null),
+                    ConfigUtils.getList(configs, JWT_AUDIENCES_CONFIG), Time.SYSTEM);
+            localFallback = ConfigUtils.getBoolean(configs, JWT_FALLBACK_ENABLED_CONFIG, true);
+
+            log.info("Tokens will be verified locally (TokenReview fallback {})", localFallback ? "enabled" : "disabled");
+        } else if (!VALIDATION_MODE_TOKEN_REVIEW.equals(validationMode))  {
+            throw new IllegalArgumentException("Unsupported value " + validationMode + " for " + VALIDATION_MODE_CONFIG);
+        }
     }
 
     @Override
     public void close() {
+        if (refreshExecutor != null)    {
+            refreshExecutor.shutdownNow();
+            refreshExecutor = null;
+        }
+
+        if (reviewExecutor != null) {
+            reviewExecutor.close();
+            reviewExecutor = null;
+        }
+
+        KubernetesClientProvider.release(client);
+        client = null;
 
+        MetricsProvider.release(metrics);
+        metrics = null;
     }
 
     @Override
@@ -57,45 +217,227 @@ public class KubernetesTokenValidatorCallbackHandler implements AuthenticateCall
             throw new IllegalArgumentException("Callback has null token value!");
         }
 
-        OAuthBearerTokenImpl token = new OAuthBearerTokenImpl(callback.tokenValue());
+        OAuthBearerTokenImpl token;
+        try {
+            token = new OAuthBearerTokenImpl(callback.tokenValue());
+        } catch (IOException e) {
+            log.debug("Failed to parse the token: {}", e.getMessage());
+            callback.error("invalid_token", null, null);
+            return;
+        }
+
+        long now = Time.SYSTEM.milliseconds();
 
-        if (Time.SYSTEM.milliseconds() > token.lifetimeMs())    {
+        if (now > token.lifetimeMs())    {
             log.trace("The token expired at {}", token.lifetimeMs());
             callback.error("expired_token", null, null);
+            return;
+        } else if (now < token.notBeforeMs())    {
+            log.trace("The token is not valid before {}", token.notBeforeMs());
+            callback.error("invalid_token", null, null);
+            return;
         }
 
-        validateToken(token.value(), callback);
+        validateToken(token, callback);
 
         if (callback.errorStatus() == null) {
             // No errors during the validation
             // We can set the token to indicate success
             callback.token(token);
+
+            if (AuthenticationEvents.hasListeners())    {
+                // Lets the authorizer prepare the decisions for the new session
+                AuthenticationEvents.authenticated(KubernetesPrincipalBuilder.principal(token));
+            }
+        }
+    }
+
+    private void validateToken(OAuthBearerTokenImpl token, OAuthBearerValidatorCallback callback) throws IOException {
+        String tokenHash = TokenReviewCache.hash(token.value());
+
+        if (cache != null)  {
+            Boolean cached = cache.get(tokenHash);
+
+            if (cached != null) {
+                log.trace("Using cached TokenReview result for {}: {}", token.principalName(), cached);
+
+                if (!cached)    {
+                    callback.error("invalid_token", null, null);
+                }
+
+                return;
+            }
+
+            Boolean stale = refreshExecutor != null ? cache.getStale(tokenHash) : null;
+
+            if (stale != null)  {
+                log.trace("Using stale TokenReview result for {} while it is refreshed: {}", token.principalName(), stale);
+                refreshInBackground(token, tokenHash);
+
+                if (!stale)    {
+                    callback.error("invalid_token", null, null);
+                }
+
+                return;
+            }
+        }
+
+        if (rejectionFilter != null && rejectionFilter.reject(token, tokenHash))  {
+            callback.error("invalid_token", null, null);
+            return;
+        }
+
+        boolean authenticated;
+        LocalTokenVerifier.Result localResult = localVerifier != null ? localVerifier.verify(token) : LocalTokenVerifier.Result.UNVERIFIABLE;
+
+        if (localResult == LocalTokenVerifier.Result.VALID) {
+            log.debug("Token is verified locally as {}", token.principalName());
+            authenticated = true;
+        } else if (localResult == LocalTokenVerifier.Result.INVALID) {
+            log.debug("Token is rejected by local verification");
+            authenticated = false;
+        } else if (localVerifier != null && !localFallback)   {
+            log.debug("Token cannot be verified locally and TokenReview fallback is disabled");
+            authenticated = false;
+        } else {
+            try {
+                // Concurrent reviews of the same token share a single request. Nothing about the token is verified
+                // at this point, so it is never prioritized based on its subject.
+                UserInfo user = inFlightReviews.execute(tokenHash, () -> executeReview(token.value(), AdmissionController.Lane.NORMAL));
+                authenticated = user != null;
+
+                if (authenticated)  {
+                    token.reviewedIdentity(user.getUid(), user.getGroups());
+                }
+            } catch (HedgedExecutor.DeadlineExceededException e) {
+                // The client can retry later, so the result is not cached and the network thread is not blocked any longer
+                log.warn("Failed to review the token of {}: {}", token.principalName(), e.getMessage());
+                callback.error("temporarily_unavailable", null, null);
+                return;
+            } catch (IOException e) {
+                callback.error("invalid_token", null, null);
+                throw e;
+            }
+        }
+
+        if (cache != null)  {
+            cache.put(tokenHash, authenticated, token.lifetimeMs());
+        }
+
+        if (rejectionFilter != null && !authenticated)    {
+            rejectionFilter.onRejected(token, tokenHash);
+        }
+
+        if (!authenticated) {
+            callback.error("invalid_token", null, null);
         }
     }
 
-    private void validateToken(String token, OAuthBearerValidatorCallback callback) throws IOException {
+    /*test*/ void refreshInBackground(OAuthBearerTokenImpl token, String tokenHash)  {
+        if (!refreshing.add(tokenHash)) {
+            return;
+        }
+
         try {
-            KubernetesClient client = new DefaultKubernetesClient();
-            OkHttpClient okClient = client.adapt(OkHttpClient.class);
+            refreshExecutor.execute(() -> {
+                try {
+                    boolean authenticated = inFlightReviews.execute(tokenHash, () -> reviewToken(token.value(), AdmissionController.Lane.REVALIDATION)) != null;
+                    cache.put(tokenHash, authenticated, token.lifetimeMs());
+                } catch (IOException e) {
+                    log.debug("Failed to refresh TokenReview result for {}", token.principalName(), e);
+                } finally {
+                    refreshing.remove(tokenHash);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            // The task will never run, so the hash has to be removed here for the result to be refreshed next time
+            refreshing.remove(tokenHash);
+            log.debug("Refresh of TokenReview result for {} was skipped because the refresh queue is full", token.principalName());
+        }
+    }
+
+    /*test*/ void configureRefresh(ThreadPoolExecutor refreshExecutor)  {
+        this.refreshExecutor = refreshExecutor;
+    }
+
+    /*test*/ int refreshing()  {
+        return refreshing.size();
+    }
 
+    /**
+     * Runs the review on the review executor when configured. The calling thread (the network thread of the broker)
+     * waits for it only until the deadline.
+     */
+    private UserInfo executeReview(String token, AdmissionController.Lane lane) throws IOException {
+        if (reviewExecutor == null) {
+            return reviewToken(token, lane);
+        }
+
+        return reviewExecutor.execute(() -> reviewToken(token, lane));
+    }
+
+    private UserInfo reviewToken(String token, AdmissionController.Lane lane) throws IOException {
+        if (admissionController == null)    {
+            return sendReview(token);
+        }
+
+        boolean admitted;
+        try {
+            admitted = admissionController.acquire(lane);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while waiting for the TokenReview admission");
+        }
+
+        if (!admitted)  {
+            reviewMetrics.recordRejected(ReviewMetrics.Outcome.THROTTLED);
+            throw new IOException("Failed to review the token. The TokenReview was not admitted by the admission control.");
+        }
+
+        try {
+            return sendReview(token);
+        } finally {
+            admissionController.release();
+        }
+    }
+
+    private UserInfo sendReview(String token) throws IOException {
+        if (circuitBreaker != null && !circuitBreaker.tryAcquire())    {
+            reviewMetrics.recordRejected(ReviewMetrics.Outcome.CIRCUIT_OPEN);
+            throw new IOException("Failed to review the token. The TokenReview circuit breaker is open.");
+        }
+
+        long reviewStart = reviewMetrics.start();
+        // Anything which ends without a response is an IO error
+        ReviewMetrics.Outcome outcome = ReviewMetrics.Outcome.IO_ERROR;
+
+        try {
             TokenReview tokenReview = new TokenReviewBuilder()
                     .withNewSpec()
                     .withNewToken(token)
                     .endSpec()
                     .build();
 
-            RequestBody body = RequestBody.create(OperationSupport.JSON, new ObjectMapper().writeValueAsString(tokenReview));
+            RequestBody body = RequestBody.create(OperationSupport.JSON, MAPPER.writeValueAsString(tokenReview));
+
+            Call call = httpClient.newCall(new Request.Builder().post(body).url(client.getMasterUrl().toString() + "apis/" + tokenReview.getApiVersion()
+                    + "/tokenreviews").build());
+
+            if (reviewTimeoutMs > 0)    {
+                // Deadline for the whole call including connecting, retries and reading the response
+                call.timeout().timeout(reviewTimeoutMs, TimeUnit.MILLISECONDS);
+            }
 
-            Response response = okClient.newCall(new Request.Builder().post(body).url(client.getMasterUrl().toString() + "apis/" + tokenReview.getApiVersion()
-                    + "/tokenreviews").build()).execute();
+            Response response = call.execute();
             ResponseBody responseBody = response.body();
 
             if (response.code() == 201
                     && responseBody != null) {
                 String responseBodyString = responseBody.string();
+                response.close();
 
                 log.trace("Received TokenReview repsonse: {}", responseBodyString);
-                TokenReview review = new ObjectMapper().readValue(responseBodyString, TokenReview.class);
+                TokenReview review = MAPPER.readValue(responseBodyString, TokenReview.class);
 
                 if (review.getStatus() != null
                         && (review.getStatus().getAuthenticated() == null || !review.getStatus().getAuthenticated())) {
@@ -106,29 +448,51 @@ public class KubernetesTokenValidatorCallbackHandler implements AuthenticateCall
                         log.debug("Token is not authenticated");
                     }
 
-                    callback.error("invalid_token", null, null);
+                    outcome = ReviewMetrics.Outcome.DENIED;
+                    return null;
                 } else if (review.getStatus() != null
                         && review.getStatus().getAuthenticated() != null
                         && review.getStatus().getAuthenticated()) {
                     log.debug("Token is authenticated as {}", review.getStatus().getUser());
+                    outcome = ReviewMetrics.Outcome.ALLOWED;
+                    return review.getStatus().getUser() != null ? review.getStatus().getUser() : new UserInfo();
                 } else {
                     log.warn("Failed to parse TokenReview response.");
-                    callback.error("invalid_token", null, null);
+                    outcome = ReviewMetrics.Outcome.DENIED;
+                    return null;
                 }
-
-                response.close();
             } else {
                 log.warn("Failed to review the token. TokenReview returned HTTP {}.", response.code());
+                outcome = ReviewMetrics.Outcome.HTTP_ERROR;
                 response.close();
-                callback.error("invalid_token", null, null);
                 throw new IOException("Failed to review the token. TokenReview returned HTTP " + response.code());
             }
         } catch (JsonProcessingException e) {
             log.warn("Failed to review the token: {}", e);
-            callback.error("invalid_token", null, null);
             throw new IOException(e);
+        } finally {
+            if (outcome == ReviewMetrics.Outcome.IO_ERROR && HedgedExecutor.cancelled())   {
+                // The review was interrupted because its result is not needed anymore, not because the API server failed
+                reviewMetrics.recordCancelled(reviewStart);
+
+                if (circuitBreaker != null) {
+                    circuitBreaker.onCancelled();
+                }
+            } else {
+                recordReview(reviewStart, outcome);
+            }
         }
+    }
 
+    private void recordReview(long reviewStart, ReviewMetrics.Outcome outcome)  {
+        reviewMetrics.record(reviewStart, outcome);
 
+        if (circuitBreaker != null) {
+            if (outcome == ReviewMetrics.Outcome.ALLOWED || outcome == ReviewMetrics.Outcome.DENIED)  {
+                circuitBreaker.onSuccess(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - reviewStart));
+            } else {
+                circuitBreaker.onFailure();
+            }
+        }
     }
 }
@@ -0,0 +1,196 @@
+package io.strimzi.kafka.kubernetes.authenticator;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.apache.kafka.common.utils.Time;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.PublicKey;
+import java.security.Signature;
+import java.util.Base64;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Verifies the service account tokens locally using the keys published by the API server. Only the bound service
+ * account tokens (with expiration and with the issuer matching the API server) can be verified locally. The other
+ * tokens (e.g. the legacy tokens stored in Secrets which can be revoked by deleting the Secret) are reported as
+ * unverifiable and have to be reviewed by the API server.
+ */
+public class LocalTokenVerifier {
+    private static final Logger log = LoggerFactory.getLogger(LocalTokenVerifier.class);
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    public enum Result {
+        VALID,
+        INVALID,
+        UNVERIFIABLE
+    }
+
+    private final JwksKeyProvider keyProvider;
+    private final String configuredIssuer;
+    private final List<String> audiences;
+    private final Time time;
+
+    /**
+     * @param keyProvider   Provider of the signing keys
+     * @param issuer        Expected issuer or null to use the issuer from the OIDC discovery
+     * @param audiences     Accepted audiences or empty list to accept the issuer as the audience
+     * @param time          Time used to check the token expiration
+     */
+    public LocalTokenVerifier(JwksKeyProvider keyProvider, String issuer, List<String> audiences, Time time) {
+        this.keyProvider = keyProvider;
+        this.configuredIssuer = issuer;
+        this.audiences = audiences;
+        this.time = time;
+    }
+
+    public Result verify(OAuthBearerTokenImpl token)   {
+        String value = token.value();
+        int firstDot = value.indexOf('.');
+        int lastDot = value.lastIndexOf('.');
+
+        if (firstDot <= 0 || lastDot == firstDot)   {
+            log.debug("Token is not a signed JWT");
+            return Result.INVALID;
+        }
+
+        try {
+            String issuer = configuredIssuer != null ? configuredIssuer : keyProvider.issuer();
+
+            if (!issuer.equals(token.issuer()) || token.lifetimeMs() == Long.MAX_VALUE)    {
+                log.trace("Token issued by {} without expiration cannot be verified locally", token.issuer());
+                return Result.UNVERIFIABLE;
+            }
+
+            JsonNode header = MAPPER.readTree(Base64.getUrlDecoder().decode(value.substring(0, firstDot)));
+            String algorithm = signatureAlgorithm(header.path("alg").asText());
+
+            if (algorithm == null)  {
+                log.debug("Token signed with unsupported algorithm {} cannot be verified locally", header.path("alg").asText());
+                return Result.UNVERIFIABLE;
+            }
+
+            PublicKey key = keyProvider.getKey(header.path("kid").asText(null));
+
+            if (key == null)    {
+                log.debug("Token signed with unknown key {} cannot be verified locally", header.path("kid").asText(null));
+                return Result.UNVERIFIABLE;
+            }
+
+            byte[] signature = Base64.getUrlDecoder().decode(value.substring(lastDot + 1));
+            if (algorithm.endsWith("withECDSA"))  {
+                signature = joseToDer(signature);
+            }
+
+            Signature verifier = Signature.getInstance(algorithm);
+            verifier.initVerify(key);
+            verifier.update(value.substring(0, lastDot).getBytes(StandardCharsets.US_ASCII));
+
+            if (!verifier.verify(signature))   {
+                log.debug("Token signature is not valid");
+                return Result.INVALID;
+            }
+        } catch (IOException e) {
+            log.warn("Failed to get the keys for local token verification", e);
+            return Result.UNVERIFIABLE;
+        } catch (GeneralSecurityException | IllegalArgumentException e) {
+            log.debug("Failed to verify token signature", e);
+            return Result.INVALID;
+        }
+
+        long now = time.milliseconds();
+
+        if (now >= token.lifetimeMs())    {
+            log.debug("Token expired at {}", token.lifetimeMs());
+            return Result.INVALID;
+        } else if (now < token.notBeforeMs()) {
+            log.debug("Token is not valid before {}", token.notBeforeMs());
+            return Result.INVALID;
+        } else if (Collections.disjoint(acceptedAudiences(token.issuer()), token.audience()))   {
+            log.debug("Token has unexpected audience {}", token.audience());
+            return Result.INVALID;
+        }
+
+        return Result.VALID;
+    }
+
+    private List<String> acceptedAudiences(String issuer)  {
+        return audiences.isEmpty() ? Collections.singletonList(issuer) : audiences;
+    }
+
+    private static String signatureAlgorithm(String alg)    {
+        switch (alg)    {
+            case "RS256":
+                return "SHA256withRSA";
+            case "RS384":
+                return "SHA384withRSA";
+            case "RS512":
+                return "SHA512withRSA";
+            case "ES256":
+                return "SHA256withECDSA";
+            case "ES384":
+                return "SHA384withECDSA";
+            case "ES512":
+                return "SHA512withECDSA";
+            default:
+                return null;
+        }
+    }
+
+    /**
+     * JWS uses concatenated R and S values for ECDSA signatures while Java expects them DER encoded.
+     */
+    private static byte[] joseToDer(byte[] jose) throws GeneralSecurityException {
+        if (jose.length == 0 || jose.length % 2 != 0)   {
+            throw new GeneralSecurityException("Invalid ECDSA signature length");
+        }
+
+        byte[] r = derInteger(jose, 0, jose.length / 2);
+        byte[] s = derInteger(jose, jose.length / 2, jose.length / 2);
+
+        int sequenceLength = 2 + r.length + 2 + s.length;
+        boolean longForm = sequenceLength > 127;
+
+        byte[] der = new byte[(longForm ? 3 : 2) + sequenceLength];
+        int offset = 0;
+
+        der[offset++] = 0x30;
+        if (longForm)   {
+            der[offset++] = (byte) 0x81;
+        }
+        der[offset++] = (byte) sequenceLength;
+
+        der[offset++] = 0x02;
+        der[offset++] = (byte) r.length;
+        System.arraycopy(r, 0, der, offset, r.length);
+        offset += r.length;
+
+        der[offset++] = 0x02;
+        der[offset++] = (byte) s.length;
+        System.arraycopy(s, 0, der, offset, s.length);
+
+        return der;
+    }
+
+    private static byte[] derInteger(byte[] source, int offset, int length)    {
+        int start = offset;
+        int end = offset + length;
+
+        // Strip the leading zeros, but keep at least one byte
+        while (start < end - 1 && source[start] == 0)  {
+            start++;
+        }
+
+        // Positive numbers with the highest bit set need a leading zero
+        boolean padding = (source[start] & 0x80) != 0;
+        byte[] result = new byte[end - start + (padding ? 1 : 0)];
+        System.arraycopy(source, start, result, padding ? 1 : 0, end - start);
+
+        return result;
+    }
+}
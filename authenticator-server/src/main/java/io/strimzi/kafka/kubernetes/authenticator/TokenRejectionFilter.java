@@ -0,0 +1,141 @@
+package io.strimzi.kafka.kubernetes.authenticator;
+
+import org.apache.kafka.common.utils.Time;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Rejects the tokens which would be rejected by the TokenReview anyway before they are reviewed. This makes the
+ * clients retrying with bad tokens cheap for the broker and free for the API server:
+ *
+ *   - Tokens with unexpected issuer or audience are rejected based on their claims
+ *   - Recently rejected tokens are remembered in a fixed size table keyed by the token hash. Each hash has only one
+ *     slot, so a colliding hash replaces the older one. The table never rejects a token which was not rejected before.
+ *   - Tokens which are rejected repeatedly are backed off. They are remembered for the backoff instead of the TTL when
+ *     it is longer. The backoff doubles with every further rejection.
+ *
+ * The backoff is keyed by the token hash and not by the principal name, because the name is not verified before the
+ * review. A client can therefore never delay the authentication of the tokens of another principal.
+ */
+public class TokenRejectionFilter {
+    private static final Logger log = LoggerFactory.getLogger(TokenRejectionFilter.class);
+
+    private final Time time;
+    private final String issuer;
+    private final List<String> audiences;
+    private final long rejectedTtlMs;
+    private final int backoffThreshold;
+    private final long initialBackoffMs;
+    private final long maxBackoffMs;
+
+    private final String[] rejectedHashes;
+    private final long[] rejectedUntilMs;
+    private final int[] rejections;
+
+    /**
+     * @param time              Time
+     * @param issuer            Expected issuer or null to accept any issuer
+     * @param audiences         Accepted audiences or empty list to accept any audience
+     * @param rejectedSize      Number of slots for the rejected token hashes
+     * @param rejectedTtlMs     How long is a rejected token remembered
+     * @param backoffThreshold  Number of consecutive rejections after which the token is backed off (0 to disable
+     *                          the backoff)
+     * @param initialBackoffMs  Initial backoff
+     * @param maxBackoffMs      Maximal backoff
+     */
+    public TokenRejectionFilter(Time time, String issuer, List<String> audiences, int rejectedSize, long rejectedTtlMs,
+                                int backoffThreshold, long initialBackoffMs, long maxBackoffMs) {
+        if (rejectedSize <= 0)   {
+            throw new IllegalArgumentException("The number of the rejected token slots has to be positive");
+        }
+
+        this.time = time;
+        this.issuer = issuer;
+        this.audiences = audiences != null ? audiences : Collections.emptyList();
+        this.rejectedTtlMs = rejectedTtlMs;
+        this.backoffThreshold = backoffThreshold;
+        this.initialBackoffMs = Math.max(initialBackoffMs, 1);
+        this.maxBackoffMs = Math.max(maxBackoffMs, this.initialBackoffMs);
+        this.rejectedHashes = new String[rejectedSize];
+        this.rejectedUntilMs = new long[rejectedSize];
+        this.rejections = new int[rejectedSize];
+    }
+
+    /**
+     * Checks whether the token should be rejected without review.
+     *
+     * @param token     The token
+     * @param tokenHash Hash of the token
+     *
+     * @return  True if the token should be rejected
+     */
+    public boolean reject(OAuthBearerTokenImpl token, String tokenHash)   {
+        if (issuer != null && !issuer.equals(token.issuer()))    {
+            log.debug("Token of {} has unexpected issuer {}", token.principalName(), token.issuer());
+            return true;
+        } else if (!audiences.isEmpty() && Collections.disjoint(audiences, token.audience()))    {
+            log.debug("Token of {} has unexpected audience {}", token.principalName(), token.audience());
+            return true;
+        } else if (isRejected(tokenHash, time.milliseconds()))  {
+            log.debug("Token of {} was rejected recently", token.principalName());
+            return true;
+        }
+
+        return false;
+    }
+
+    /**
+     * Records a token rejected by the TokenReview.
+     *
+     * @param token     The token
+     * @param tokenHash Hash of the token
+     */
+    public void onRejected(OAuthBearerTokenImpl token, String tokenHash)  {
+        long now = time.milliseconds();
+        int slot = slot(tokenHash);
+
+        synchronized (rejectedHashes)   {
+            // The rejections are consecutive only when the token was still remembered or was forgotten only recently
+            if (tokenHash.equals(rejectedHashes[slot]) && now - rejectedUntilMs[slot] < maxBackoffMs)    {
+                rejections[slot]++;
+            } else {
+                rejections[slot] = 1;
+            }
+
+            rejectedHashes[slot] = tokenHash;
+            rejectedUntilMs[slot] = Math.min(now + rememberMs(rejections[slot]), token.lifetimeMs());
+        }
+    }
+
+    /*test*/ int rejections(String tokenHash)  {
+        int slot = slot(tokenHash);
+
+        synchronized (rejectedHashes)   {
+            return tokenHash.equals(rejectedHashes[slot]) ? rejections[slot] : 0;
+        }
+    }
+
+    private long rememberMs(int rejections)  {
+        if (backoffThreshold <= 0 || rejections < backoffThreshold)  {
+            return rejectedTtlMs;
+        }
+
+        int doublings = Math.min(rejections - backoffThreshold, 30);
+        return Math.max(rejectedTtlMs, Math.min(initialBackoffMs << doublings, maxBackoffMs));
+    }
+
+    private boolean isRejected(String tokenHash, long now)    {
+        int slot = slot(tokenHash);
+
+        synchronized (rejectedHashes)   {
+            return now < rejectedUntilMs[slot] && tokenHash.equals(rejectedHashes[slot]);
+        }
+    }
+
+    private int slot(String tokenHash)  {
+        return (tokenHash.hashCode() & Integer.MAX_VALUE) % rejectedHashes.length;
+    }
+}
@@ -0,0 +1,148 @@
+package io.strimzi.kafka.kubernetes.authenticator;
+
+import org.apache.kafka.common.utils.Time;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Base64;
+import java.util.Iterator;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Bounded cache of TokenReview results. The tokens are never stored in the cache. The entries are keyed by the
+ * SHA-256 hash of the token and expire at the configured TTL or when the token expires, whatever comes first.
+ *
+ * Expired results can be kept for an additional grace period. During it, they are not returned by get() anymore, but
+ * they can still be served as stale results while they are being refreshed. The grace period never extends beyond
+ * the expiration of the token.
+ */
+public class TokenReviewCache {
+    private final Time time;
+    private final long authenticatedTtlMs;
+    private final long rejectedTtlMs;
+    private final int maxSize;
+    private final long graceMs;
+
+    private final ConcurrentHashMap<String, Entry> entries = new ConcurrentHashMap<>();
+    private final ReentrantLock evictionLock = new ReentrantLock();
+
+    public TokenReviewCache(Time time, long authenticatedTtlMs, long rejectedTtlMs, int maxSize) {
+        this(time, authenticatedTtlMs, rejectedTtlMs, maxSize, 0);
+    }
+
+    public TokenReviewCache(Time time, long authenticatedTtlMs, long rejectedTtlMs, int maxSize, long graceMs) {
+        if (maxSize <= 0)   {
+            throw new IllegalArgumentException("The maximum size of the token review cache has to be positive");
+        }
+
+        this.time = time;
+        this.authenticatedTtlMs = authenticatedTtlMs;
+        this.rejectedTtlMs = rejectedTtlMs;
+        this.maxSize = maxSize;
+        this.graceMs = Math.max(graceMs, 0);
+    }
+
+    /**
+     * @return  The cached result or null if there is no valid result cached for this token hash
+     */
+    public Boolean get(String tokenHash)   {
+        Entry entry = entries.get(tokenHash);
+
+        if (entry == null)  {
+            return null;
+        }
+
+        long now = time.milliseconds();
+
+        if (entry.expiresAtMs > now)  {
+            return entry.authenticated;
+        } else if (entry.staleUntilMs <= now)  {
+            entries.remove(tokenHash, entry);
+        }
+
+        return null;
+    }
+
+    /**
+     * @return  The expired result which is still in its grace period or null if there is no such result
+     */
+    public Boolean getStale(String tokenHash)   {
+        Entry entry = entries.get(tokenHash);
+
+        if (entry == null)  {
+            return null;
+        }
+
+        long now = time.milliseconds();
+
+        if (entry.expiresAtMs <= now && entry.staleUntilMs > now)  {
+            return entry.authenticated;
+        }
+
+        return null;
+    }
+
+    public void put(String tokenHash, boolean authenticated, long tokenExpiresAtMs)   {
+        long now = time.milliseconds();
+        long ttlMs = authenticated ? authenticatedTtlMs : rejectedTtlMs;
+        long expiresAtMs = Math.min(now + ttlMs, tokenExpiresAtMs);
+
+        if (expiresAtMs <= now) {
+            return;
+        }
+
+        entries.put(tokenHash, new Entry(authenticated, expiresAtMs, Math.min(expiresAtMs + graceMs, tokenExpiresAtMs)));
+
+        if (entries.size() > maxSize)   {
+            evict(tokenHash);
+        }
+    }
+
+    public int size()   {
+        return entries.size();
+    }
+
+    private void evict(String justAdded)    {
+        // Only one thread needs to do the cleanup. The others can just carry on.
+        if (!evictionLock.tryLock())    {
+            return;
+        }
+
+        try {
+            long now = time.milliseconds();
+            entries.values().removeIf(entry -> entry.staleUntilMs <= now);
+
+            Iterator<String> iterator = entries.keySet().iterator();
+            while (entries.size() > maxSize && iterator.hasNext())  {
+                if (!justAdded.equals(iterator.next()))    {
+                    iterator.remove();
+                }
+            }
+        } finally {
+            evictionLock.unlock();
+        }
+    }
+
+    public static String hash(String token)  {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return Base64.getEncoder().encodeToString(digest.digest(token.getBytes(StandardCharsets.US_ASCII)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not supported", e);
+        }
+    }
+
+    private static final class Entry {
+        private final boolean authenticated;
+        private final long expiresAtMs;
+        private final long staleUntilMs;
+
+        private Entry(boolean authenticated, long expiresAtMs, long staleUntilMs) {
+            this.authenticated = authenticated;
+            this.expiresAtMs = expiresAtMs;
+            this.staleUntilMs = staleUntilMs;
+        }
+    }
+}
@@ -0,0 +1,172 @@
+package io.strimzi.kafka.kubernetes.authenticator;
+
+import io.strimzi.kafka.kubernetes.common.KubernetesPrincipal;
+import org.apache.kafka.common.config.internals.BrokerSecurityConfigs;
+import org.apache.kafka.common.network.ListenerName;
+import org.apache.kafka.common.network.TransportLayer;
+import org.apache.kafka.common.security.auth.KafkaPrincipal;
+import org.apache.kafka.common.security.auth.SecurityProtocol;
+import org.apache.kafka.common.security.authenticator.SaslServerAuthenticator;
+import org.apache.kafka.common.security.oauthbearer.OAuthBearerLoginModule;
+import org.apache.kafka.common.security.oauthbearer.internals.unsecured.OAuthBearerUnsecuredValidatorCallbackHandler;
+import org.apache.kafka.common.utils.Time;
+import org.junit.Test;
+
+import javax.security.auth.Subject;
+import javax.security.sasl.SaslServer;
+import java.io.IOException;
+import java.lang.reflect.Field;
+import java.lang.reflect.Proxy;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class KubernetesPrincipalBuilderTest {
+    private static OAuthBearerTokenImpl token(String payload) throws IOException {
+        Base64.Encoder encoder = Base64.getUrlEncoder().withoutPadding();
+
+        return new OAuthBearerTokenImpl(encoder.encodeToString("{\"alg\":\"RS256\"}".getBytes(StandardCharsets.UTF_8)) + "."
+                + encoder.encodeToString(payload.getBytes(StandardCharsets.UTF_8)) + ".signature");
+    }
+
+    @Test
+    public void testReviewedIdentity() throws IOException {
+        OAuthBearerTokenImpl token = token("{\"sub\":\"system:serviceaccount:myproject:my-user\"}");
+        token.reviewedIdentity("reviewed-uid", Arrays.asList("system:serviceaccounts", "my-group"));
+
+        KafkaPrincipal principal = KubernetesPrincipalBuilder.build(token);
+
+        assertTrue(principal instanceof KubernetesPrincipal);
+        assertEquals(KafkaPrincipal.USER_TYPE, principal.getPrincipalType());
+        assertEquals("system:serviceaccount:myproject:my-user", principal.getName());
+        assertEquals("reviewed-uid", ((KubernetesPrincipal) principal).uid());
+        assertEquals(Arrays.asList("system:serviceaccounts", "my-group"), ((KubernetesPrincipal) principal).groups());
+    }
+
+    @Test
+    public void testIdentityFromClaims() throws IOException {
+        OAuthBearerTokenImpl token = token("{\"sub\":\"system:serviceaccount:myproject:my-user\"," +
+                "\"kubernetes.io\":{\"namespace\":\"myproject\",\"serviceaccount\":{\"name\":\"my-user\",\"uid\":\"claim-uid\"}}}");
+
+        KubernetesPrincipal principal = (KubernetesPrincipal) KubernetesPrincipalBuilder.build(token);
+
+        assertEquals("claim-uid", principal.uid());
+        assertEquals(Arrays.asList("system:serviceaccounts", "system:serviceaccounts:myproject", "system:authenticated"), principal.groups());
+    }
+
+    @Test
+    public void testIdentityFromSubject() throws IOException {
+        KubernetesPrincipal principal = (KubernetesPrincipal) KubernetesPrincipalBuilder.build(token("{\"sub\":\"system:serviceaccount:myproject:my-user\"}"));
+
+        assertNull(principal.uid());
+        assertEquals(Arrays.asList("system:serviceaccounts", "system:serviceaccounts:myproject", "system:authenticated"), principal.groups());
+    }
+
+    @Test
+    public void testRegularUser() throws IOException {
+        OAuthBearerTokenImpl token = token("{\"sub\":\"alice\"}");
+        token.reviewedIdentity("uid", Collections.singletonList("kafka-admins"));
+
+        KafkaPrincipal principal = KubernetesPrincipalBuilder.build(token);
+
+        // Regular users have to be equal to the principals used in the ACLs
+        assertFalse(principal instanceof KubernetesPrincipal);
+        assertEquals(new KafkaPrincipal(KafkaPrincipal.USER_TYPE, "alice"), principal);
+    }
+
+    @Test
+    public void testPrincipalIsReusedForAllRequestsOfConnection() throws Exception {
+        Map<String, Object> configs = new HashMap<>();
+        configs.put(BrokerSecurityConfigs.SASL_ENABLED_MECHANISMS_CONFIG, Collections.singletonList(OAuthBearerLoginModule.OAUTHBEARER_MECHANISM));
+        configs.put(BrokerSecurityConfigs.PRINCIPAL_BUILDER_CLASS_CONFIG, KubernetesPrincipalBuilder.class);
+
+        try (SocketChannel channel = SocketChannel.open()) {
+            TransportLayer transportLayer = (TransportLayer) Proxy.newProxyInstance(getClass().getClassLoader(), new Class<?>[] {TransportLayer.class},
+                (proxy, method, args) -> "socketChannel".equals(method.getName()) ? channel : null);
+
+            SaslServerAuthenticator authenticator = new SaslServerAuthenticator(configs,
+                    Collections.singletonMap(OAuthBearerLoginModule.OAUTHBEARER_MECHANISM, new OAuthBearerUnsecuredValidatorCallbackHandler()),
+                    "my-connection", Collections.singletonMap(OAuthBearerLoginModule.OAUTHBEARER_MECHANISM, new Subject()), null,
+                    ListenerName.forSecurityProtocol(SecurityProtocol.SASL_PLAINTEXT), SecurityProtocol.SASL_PLAINTEXT, transportLayer,
+                    Collections.emptyMap(), Time.SYSTEM);
+
+            // The SASL server of the connection after the successful authentication
+            Field saslServer = SaslServerAuthenticator.class.getDeclaredField("saslServer");
+            saslServer.setAccessible(true);
+            saslServer.set(authenticator, new TokenSaslServer(token("{\"sub\":\"system:serviceaccount:myproject:my-user\"}")));
+
+            // Kafka asks for the principal on every request
+            KubernetesPrincipal first = (KubernetesPrincipal) authenticator.principal();
+            KubernetesPrincipal second = (KubernetesPrincipal) authenticator.principal();
+
+            assertSame(first, second);
+            assertSame(first.decisionMemo(10, 2), second.decisionMemo(10, 2));
+
+            // Re-authentication uses a new token and gets a new principal
+            saslServer.set(authenticator, new TokenSaslServer(token("{\"sub\":\"system:serviceaccount:myproject:my-user\"}")));
+            assertNotSame(first, authenticator.principal());
+        }
+    }
+
+    /**
+     * SASL server with a negotiated token
+     */
+    private static class TokenSaslServer implements SaslServer {
+        private final OAuthBearerTokenImpl token;
+
+        TokenSaslServer(OAuthBearerTokenImpl token) {
+            this.token = token;
+        }
+
+        @Override
+        public String getMechanismName() {
+            return OAuthBearerLoginModule.OAUTHBEARER_MECHANISM;
+        }
+
+        @Override
+        public byte[] evaluateResponse(byte[] response) {
+            return new byte[0];
+        }
+
+        @Override
+        public boolean isComplete() {
+            return true;
+        }
+
+        @Override
+        public String getAuthorizationID() {
+            return token.principalName();
+        }
+
+        @Override
+        public byte[] unwrap(byte[] incoming, int offset, int len) {
+            throw new IllegalStateException();
+        }
+
+        @Override
+        public byte[] wrap(byte[] outgoing, int offset, int len) {
+            throw new IllegalStateException();
+        }
+
+        @Override
+        public Object getNegotiatedProperty(String propName) {
+            return (OAuthBearerLoginModule.OAUTHBEARER_MECHANISM + ".token").equals(propName) ? token : null;
+        }
+
+        @Override
+        public void dispose() {
+            // Nothing to dispose
+        }
+    }
+}
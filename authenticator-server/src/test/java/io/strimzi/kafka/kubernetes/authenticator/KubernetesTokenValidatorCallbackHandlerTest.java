@@ -0,0 +1,45 @@
+package io.strimzi.kafka.kubernetes.authenticator;
+
+import org.junit.Test;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+
+public class KubernetesTokenValidatorCallbackHandlerTest {
+    @Test
+    public void testRefreshSkippedWithFullQueueIsNotLost() throws IOException {
+        Base64.Encoder encoder = Base64.getUrlEncoder().withoutPadding();
+        OAuthBearerTokenImpl token = new OAuthBearerTokenImpl(encoder.encodeToString("{\"alg\":\"RS256\"}".getBytes(StandardCharsets.UTF_8)) + "."
+                + encoder.encodeToString("{\"sub\":\"system:serviceaccount:myproject:my-user\"}".getBytes(StandardCharsets.UTF_8)) + ".signature");
+
+        CountDownLatch blocked = new CountDownLatch(1);
+        ThreadPoolExecutor executor = new ThreadPoolExecutor(1, 1, 0, TimeUnit.MILLISECONDS, new ArrayBlockingQueue<>(1));
+        KubernetesTokenValidatorCallbackHandler handler = new KubernetesTokenValidatorCallbackHandler();
+        handler.configureRefresh(executor);
+
+        try {
+            // The only thread is busy and the only slot of the queue is taken
+            executor.execute(() -> {
+                try {
+                    blocked.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            });
+            executor.execute(() -> { });
+
+            handler.refreshInBackground(token, "hash");
+            assertEquals(0, handler.refreshing());
+        } finally {
+            blocked.countDown();
+            executor.shutdownNow();
+        }
+    }
+}
@@ -0,0 +1,169 @@
+package io.strimzi.kafka.kubernetes.authenticator;
+
+import com.sun.net.httpserver.HttpServer;
+import okhttp3.OkHttpClient;
+import org.apache.kafka.common.utils.Time;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.math.BigInteger;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.KeyPair;
+import java.security.KeyPairGenerator;
+import java.security.PrivateKey;
+import java.security.Signature;
+import java.security.interfaces.RSAPublicKey;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.Collections;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+
+public class LocalTokenVerifierTest {
+    private static final String ISSUER = "https://kubernetes.default.svc.cluster.local";
+    private static final long FAR_FUTURE = 4102444800L;
+
+    private HttpServer server;
+    private String baseUrl;
+    private volatile String jwks;
+    private final AtomicInteger jwksRequests = new AtomicInteger();
+
+    private KeyPair key1;
+    private KeyPair key2;
+
+    @Before
+    public void setup() throws IOException, GeneralSecurityException {
+        KeyPairGenerator generator = KeyPairGenerator.getInstance("RSA");
+        generator.initialize(2048);
+        key1 = generator.generateKeyPair();
+        key2 = generator.generateKeyPair();
+        jwks = jwks(jwk("key1", key1));
+
+        server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        baseUrl = "http://localhost:" + server.getAddress().getPort() + "/";
+
+        server.createContext("/.well-known/openid-configuration", exchange -> {
+            respond(exchange, "{\"issuer\":\"" + ISSUER + "\",\"jwks_uri\":\"" + baseUrl + "openid/v1/jwks\"}");
+        });
+        server.createContext("/openid/v1/jwks", exchange -> {
+            jwksRequests.incrementAndGet();
+            respond(exchange, jwks);
+        });
+        server.start();
+    }
+
+    @After
+    public void teardown()  {
+        server.stop(0);
+    }
+
+    private static void respond(com.sun.net.httpserver.HttpExchange exchange, String body) throws IOException {
+        byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+        exchange.sendResponseHeaders(200, bytes.length);
+
+        try (OutputStream os = exchange.getResponseBody()) {
+            os.write(bytes);
+        }
+    }
+
+    private LocalTokenVerifier verifier(long minRefreshIntervalMs)  {
+        JwksKeyProvider keyProvider = new JwksKeyProvider(new OkHttpClient(), baseUrl + JwksKeyProvider.DISCOVERY_PATH, minRefreshIntervalMs, Time.SYSTEM);
+        return new LocalTokenVerifier(keyProvider, null, Collections.singletonList("kafka"), Time.SYSTEM);
+    }
+
+    private static String jwks(String... keys)   {
+        return "{\"keys\":[" + String.join(",", keys) + "]}";
+    }
+
+    private static String jwk(String kid, KeyPair keyPair)   {
+        RSAPublicKey key = (RSAPublicKey) keyPair.getPublic();
+
+        return "{\"use\":\"sig\",\"kty\":\"RSA\",\"kid\":\"" + kid + "\",\"alg\":\"RS256\"," +
+                "\"n\":\"" + encodeUnsigned(key.getModulus()) + "\",\"e\":\"" + encodeUnsigned(key.getPublicExponent()) + "\"}";
+    }
+
+    private static String encodeUnsigned(BigInteger value)   {
+        byte[] bytes = value.toByteArray();
+
+        if (bytes[0] == 0)  {
+            bytes = Arrays.copyOfRange(bytes, 1, bytes.length);
+        }
+
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(bytes);
+    }
+
+    private static OAuthBearerTokenImpl token(String kid, PrivateKey key, String issuer, String audience, long exp) throws GeneralSecurityException, IOException {
+        Base64.Encoder encoder = Base64.getUrlEncoder().withoutPadding();
+
+        String header = encoder.encodeToString(("{\"alg\":\"RS256\",\"kid\":\"" + kid + "\"}").getBytes(StandardCharsets.UTF_8));
+        String payload = encoder.encodeToString(("{\"aud\":[\"" + audience + "\"],\"exp\":" + exp + ",\"iat\":1600000000,\"iss\":\"" + issuer + "\"," +
+                "\"sub\":\"system:serviceaccount:myproject:default\"}").getBytes(StandardCharsets.UTF_8));
+
+        Signature signature = Signature.getInstance("SHA256withRSA");
+        signature.initSign(key);
+        signature.update((header + "." + payload).getBytes(StandardCharsets.US_ASCII));
+
+        return new OAuthBearerTokenImpl(header + "." + payload + "." + encoder.encodeToString(signature.sign()));
+    }
+
+    @Test
+    public void testValidToken() throws GeneralSecurityException, IOException {
+        LocalTokenVerifier verifier = verifier(0);
+
+        assertEquals(LocalTokenVerifier.Result.VALID, verifier.verify(token("key1", key1.getPrivate(), ISSUER, "kafka", FAR_FUTURE)));
+        assertEquals(LocalTokenVerifier.Result.VALID, verifier.verify(token("key1", key1.getPrivate(), ISSUER, "kafka", FAR_FUTURE)));
+        assertEquals(1, jwksRequests.get());
+    }
+
+    @Test
+    public void testInvalidTokens() throws GeneralSecurityException, IOException {
+        LocalTokenVerifier verifier = verifier(0);
+
+        // Wrong signature
+        assertEquals(LocalTokenVerifier.Result.INVALID, verifier.verify(token("key1", key2.getPrivate(), ISSUER, "kafka", FAR_FUTURE)));
+        // Wrong audience
+        assertEquals(LocalTokenVerifier.Result.INVALID, verifier.verify(token("key1", key1.getPrivate(), ISSUER, "other", FAR_FUTURE)));
+        // Expired
+        assertEquals(LocalTokenVerifier.Result.INVALID, verifier.verify(token("key1", key1.getPrivate(), ISSUER, "kafka", 1600000600L)));
+    }
+
+    @Test
+    public void testUnverifiableTokens() throws GeneralSecurityException, IOException {
+        LocalTokenVerifier verifier = verifier(60_000);
+
+        // Different issuer (e.g. legacy service account tokens)
+        assertEquals(LocalTokenVerifier.Result.UNVERIFIABLE, verifier.verify(token("key1", key1.getPrivate(), "kubernetes/serviceaccount", "kafka", FAR_FUTURE)));
+        // Unknown key
+        assertEquals(LocalTokenVerifier.Result.UNVERIFIABLE, verifier.verify(token("key2", key2.getPrivate(), ISSUER, "kafka", FAR_FUTURE)));
+    }
+
+    @Test
+    public void testKeyRotation() throws GeneralSecurityException, IOException {
+        LocalTokenVerifier verifier = verifier(0);
+
+        assertEquals(LocalTokenVerifier.Result.VALID, verifier.verify(token("key1", key1.getPrivate(), ISSUER, "kafka", FAR_FUTURE)));
+        assertEquals(1, jwksRequests.get());
+
+        jwks = jwks(jwk("key1", key1), jwk("key2", key2));
+
+        assertEquals(LocalTokenVerifier.Result.VALID, verifier.verify(token("key2", key2.getPrivate(), ISSUER, "kafka", FAR_FUTURE)));
+        assertEquals(2, jwksRequests.get());
+    }
+
+    @Test
+    public void testRefreshIsRateLimited() throws GeneralSecurityException, IOException {
+        LocalTokenVerifier verifier = verifier(60_000);
+
+        for (int i = 0; i < 10; i++) {
+            assertEquals(LocalTokenVerifier.Result.UNVERIFIABLE, verifier.verify(token("unknown", key2.getPrivate(), ISSUER, "kafka", FAR_FUTURE)));
+        }
+
+        assertEquals(1, jwksRequests.get());
+    }
+}
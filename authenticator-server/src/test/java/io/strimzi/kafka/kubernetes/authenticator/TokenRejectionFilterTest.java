@@ -0,0 +1,128 @@
+package io.strimzi.kafka.kubernetes.authenticator;
+
+import org.junit.Test;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.Collections;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class TokenRejectionFilterTest {
+    private static final String SUBJECT = "system:serviceaccount:myproject:my-user";
+
+    private static OAuthBearerTokenImpl token(String subject, String claims) throws IOException {
+        Base64.Encoder encoder = Base64.getUrlEncoder().withoutPadding();
+        String payload = "{\"sub\":\"" + subject + "\"" + claims + "}";
+
+        return new OAuthBearerTokenImpl(encoder.encodeToString("{\"alg\":\"RS256\"}".getBytes(StandardCharsets.UTF_8)) + "."
+                + encoder.encodeToString(payload.getBytes(StandardCharsets.UTF_8)) + ".signature");
+    }
+
+    private static TokenRejectionFilter filter(TokenReviewCacheTest.MockTime time, int backoffThreshold)   {
+        return new TokenRejectionFilter(time, null, Collections.emptyList(), 16, 1_000, backoffThreshold, 2_000, 8_000);
+    }
+
+    @Test
+    public void testIssuerAndAudience() throws IOException {
+        TokenRejectionFilter filter = new TokenRejectionFilter(new TokenReviewCacheTest.MockTime(), "https://kubernetes.default.svc",
+                Collections.singletonList("kafka"), 16, 1_000, 0, 2_000, 8_000);
+
+        OAuthBearerTokenImpl valid = token(SUBJECT, ",\"iss\":\"https://kubernetes.default.svc\",\"aud\":[\"api\",\"kafka\"]");
+        OAuthBearerTokenImpl wrongIssuer = token(SUBJECT, ",\"iss\":\"https://other\",\"aud\":\"kafka\"");
+        OAuthBearerTokenImpl wrongAudience = token(SUBJECT, ",\"iss\":\"https://kubernetes.default.svc\",\"aud\":\"api\"");
+
+        assertFalse(filter.reject(valid, "valid"));
+        assertTrue(filter.reject(wrongIssuer, "issuer"));
+        assertTrue(filter.reject(wrongAudience, "audience"));
+    }
+
+    @Test
+    public void testRejectedTokens() throws IOException {
+        TokenReviewCacheTest.MockTime time = new TokenReviewCacheTest.MockTime();
+        TokenRejectionFilter filter = filter(time, 0);
+        OAuthBearerTokenImpl token = token(SUBJECT, "");
+
+        assertFalse(filter.reject(token, "hash1"));
+        filter.onRejected(token, "hash1");
+
+        assertTrue(filter.reject(token, "hash1"));
+        assertFalse(filter.reject(token, "hash2"));
+
+        time.sleep(1_000);
+        assertFalse(filter.reject(token, "hash1"));
+    }
+
+    @Test
+    public void testRejectedTokenExpiration() throws IOException {
+        TokenReviewCacheTest.MockTime time = new TokenReviewCacheTest.MockTime();
+        TokenRejectionFilter filter = new TokenRejectionFilter(time, null, Collections.emptyList(), 16, 10_000, 0, 2_000, 8_000);
+
+        // The token expires before the TTL
+        OAuthBearerTokenImpl token = token(SUBJECT, ",\"exp\":" + (time.milliseconds() + 1_000) / 1000);
+        filter.onRejected(token, "hash");
+        assertTrue(filter.reject(token, "hash"));
+
+        time.sleep(1_000);
+        assertFalse(filter.reject(token, "hash"));
+    }
+
+    @Test
+    public void testBackoff() throws IOException {
+        TokenReviewCacheTest.MockTime time = new TokenReviewCacheTest.MockTime();
+        TokenRejectionFilter filter = filter(time, 2);
+        OAuthBearerTokenImpl token = token(SUBJECT, "");
+
+        // The first rejection is remembered for the TTL
+        filter.onRejected(token, "hash1");
+        time.sleep(1_000);
+        assertFalse(filter.reject(token, "hash1"));
+
+        // Then for the backoff
+        filter.onRejected(token, "hash1");
+        time.sleep(1_000);
+        assertTrue(filter.reject(token, "hash1"));
+        time.sleep(1_000);
+        assertFalse(filter.reject(token, "hash1"));
+
+        // The backoff doubles
+        filter.onRejected(token, "hash1");
+        time.sleep(3_000);
+        assertTrue(filter.reject(token, "hash1"));
+        time.sleep(1_000);
+        assertFalse(filter.reject(token, "hash1"));
+        assertEquals(3, filter.rejections("hash1"));
+    }
+
+    @Test
+    public void testBackoffIsPerToken() throws IOException {
+        TokenReviewCacheTest.MockTime time = new TokenReviewCacheTest.MockTime();
+        TokenRejectionFilter filter = filter(time, 1);
+        OAuthBearerTokenImpl token = token(SUBJECT, "");
+
+        // Bad tokens with the name of a principal do not back off its other tokens
+        filter.onRejected(token, "hash1");
+        filter.onRejected(token, "hash2");
+        assertTrue(filter.reject(token, "hash1"));
+        assertFalse(filter.reject(token, "hash3"));
+    }
+
+    @Test
+    public void testBackoffReset() throws IOException {
+        TokenReviewCacheTest.MockTime time = new TokenReviewCacheTest.MockTime();
+        TokenRejectionFilter filter = filter(time, 2);
+        OAuthBearerTokenImpl token = token(SUBJECT, "");
+
+        filter.onRejected(token, "hash1");
+        filter.onRejected(token, "hash1");
+        assertEquals(2, filter.rejections("hash1"));
+
+        // The rejections are not consecutive once the token is forgotten for the maximal backoff
+        time.sleep(2_000 + 8_000);
+        filter.onRejected(token, "hash1");
+        assertEquals(1, filter.rejections("hash1"));
+    }
+}
@@ -0,0 +1,125 @@
+package io.strimzi.kafka.kubernetes.authenticator;
+
+import org.apache.kafka.common.utils.Time;
+import org.junit.Test;
+
+import java.util.function.Supplier;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class TokenReviewCacheTest {
+    @Test
+    public void testHashDoesNotContainToken()   {
+        String hash = TokenReviewCache.hash("aaa.bbb.ccc");
+
+        assertFalse(hash.contains("bbb"));
+        assertEquals(hash, TokenReviewCache.hash("aaa.bbb.ccc"));
+        assertNotEquals(hash, TokenReviewCache.hash("aaa.bbb.ccd"));
+    }
+
+    @Test
+    public void testExpiresWithTtl()   {
+        MockTime time = new MockTime();
+        TokenReviewCache cache = new TokenReviewCache(time, 1000, 0, 10);
+
+        cache.put("hash", true, Long.MAX_VALUE);
+        assertEquals(Boolean.TRUE, cache.get("hash"));
+
+        time.sleep(1000);
+        assertNull(cache.get("hash"));
+    }
+
+    @Test
+    public void testExpiresWithToken()   {
+        MockTime time = new MockTime();
+        TokenReviewCache cache = new TokenReviewCache(time, 1000, 0, 10);
+
+        cache.put("hash", true, time.milliseconds() + 100);
+        assertEquals(Boolean.TRUE, cache.get("hash"));
+
+        time.sleep(100);
+        assertNull(cache.get("hash"));
+
+        cache.put("expired", true, time.milliseconds() - 1);
+        assertNull(cache.get("expired"));
+    }
+
+    @Test
+    public void testNegativeCaching()   {
+        MockTime time = new MockTime();
+
+        TokenReviewCache disabled = new TokenReviewCache(time, 1000, 0, 10);
+        disabled.put("hash", false, Long.MAX_VALUE);
+        assertNull(disabled.get("hash"));
+
+        TokenReviewCache enabled = new TokenReviewCache(time, 1000, 100, 10);
+        enabled.put("hash", false, Long.MAX_VALUE);
+        assertEquals(Boolean.FALSE, enabled.get("hash"));
+
+        time.sleep(100);
+        assertNull(enabled.get("hash"));
+    }
+
+    @Test
+    public void testSizeBasedEviction()   {
+        TokenReviewCache cache = new TokenReviewCache(new MockTime(), 1000, 0, 10);
+
+        for (int i = 0; i < 100; i++) {
+            cache.put("hash-" + i, true, Long.MAX_VALUE);
+            assertTrue(cache.size() <= 10);
+            assertEquals(Boolean.TRUE, cache.get("hash-" + i));
+        }
+    }
+
+    @Test
+    public void testGracePeriod()   {
+        MockTime time = new MockTime();
+        TokenReviewCache cache = new TokenReviewCache(time, 1000, 0, 10, 500);
+
+        cache.put("hash", true, Long.MAX_VALUE);
+        cache.put("expiring", true, time.milliseconds() + 1200);
+        assertNull(cache.getStale("hash"));
+
+        time.sleep(1000);
+        assertNull(cache.get("hash"));
+        assertEquals(Boolean.TRUE, cache.getStale("hash"));
+        assertEquals(Boolean.TRUE, cache.getStale("expiring"));
+
+        // The grace period does not extend beyond the token expiration
+        time.sleep(200);
+        assertEquals(Boolean.TRUE, cache.getStale("hash"));
+        assertNull(cache.getStale("expiring"));
+
+        time.sleep(300);
+        assertNull(cache.getStale("hash"));
+        assertNull(cache.get("hash"));
+    }
+
+    static class MockTime implements Time {
+        private long nowMs = 1_000_000L;
+
+        @Override
+        public long milliseconds() {
+            return nowMs;
+        }
+
+        @Override
+        public long nanoseconds() {
+            return nowMs * 1_000_000L;
+        }
+
+        @Override
+        public void sleep(long ms) {
+            nowMs += ms;
+        }
+
+        @Override
+        public void waitObject(Object obj, Supplier<Boolean> condition, long timeoutMs) {
+            throw new UnsupportedOperationException();
+        }
+    }
+}
@@ -0,0 +1,226 @@
+package io.strimzi.kafka.kubernetes.authorizer;
+
+import org.apache.kafka.common.acl.AclOperation;
+import org.apache.kafka.common.resource.ResourceType;
+import org.apache.kafka.common.utils.Time;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Bounded history of the operations done by the service accounts. Every subject has a small frequency table of its
+ * operations. The frequencies decay exponentially with the configured half-life, so the table reflects what the
+ * subject did recently rather than what it did once long ago. The history is used to prefetch the decisions which
+ * the subject will most likely need when it connects again.
+ *
+ * When the table of a subject is full, the least frequent operation is replaced. When there are too many subjects,
+ * the least recently active subject is forgotten.
+ */
+public class AccessHistory {
+    private final Time time;
+    private final int maxSubjects;
+    private final int maxEntries;
+    private final double halfLifeMs;
+
+    private final ConcurrentHashMap<String, Subject> subjects = new ConcurrentHashMap<>();
+
+    /**
+     * @param time          Time
+     * @param maxSubjects   Maximal number of subjects
+     * @param maxEntries    Maximal number of operations kept per subject
+     * @param halfLifeMs    Half-life of the frequencies
+     */
+    public AccessHistory(Time time, int maxSubjects, int maxEntries, long halfLifeMs) {
+        if (maxSubjects <= 0 || maxEntries <= 0)    {
+            throw new IllegalArgumentException("The size of the access history has to be positive");
+        }
+
+        this.time = time;
+        this.maxSubjects = maxSubjects;
+        this.maxEntries = maxEntries;
+        this.halfLifeMs = Math.max(halfLifeMs, 1);
+    }
+
+    /**
+     * Records an operation
+     *
+     * @param subject       Name of the subject
+     * @param type          Type of the Kafka resource
+     * @param op            Kafka operation
+     * @param resourceName  Name of the Kafka resource
+     */
+    public void record(String subject, ResourceType type, AclOperation op, String resourceName)  {
+        long now = time.milliseconds();
+        Subject history = subjects.get(subject);
+
+        if (history == null)    {
+            if (subjects.size() >= maxSubjects)    {
+                evictLeastRecentSubject();
+            }
+
+            history = subjects.computeIfAbsent(subject, name -> new Subject());
+        }
+
+        history.record(new Access(type, op, resourceName), now);
+    }
+
+    /**
+     * Returns the most frequent recent operations of the subject
+     *
+     * @param subject   Name of the subject
+     * @param count     Maximal number of returned operations
+     *
+     * @return  The operations ordered from the most frequent one
+     */
+    public List<Access> top(String subject, int count)  {
+        Subject history = subjects.get(subject);
+
+        if (history == null)    {
+            return new ArrayList<>(0);
+        }
+
+        return history.top(count, time.milliseconds());
+    }
+
+    public int size()   {
+        return subjects.size();
+    }
+
+    private void evictLeastRecentSubject()   {
+        String leastRecent = null;
+        long leastRecentMs = Long.MAX_VALUE;
+
+        for (Map.Entry<String, Subject> entry : subjects.entrySet())    {
+            long lastMs = entry.getValue().lastMs;
+
+            if (lastMs < leastRecentMs)   {
+                leastRecent = entry.getKey();
+                leastRecentMs = lastMs;
+            }
+        }
+
+        if (leastRecent != null)    {
+            subjects.remove(leastRecent);
+        }
+    }
+
+    private double decay(double score, long sinceMs, long now)  {
+        return score * Math.pow(0.5, (now - sinceMs) / halfLifeMs);
+    }
+
+    private final class Subject {
+        private final Map<Access, Score> scores = new HashMap<>();
+        private volatile long lastMs = 0;
+
+        private synchronized void record(Access access, long now)   {
+            lastMs = now;
+            Score score = scores.get(access);
+
+            if (score == null)  {
+                if (scores.size() >= maxEntries)    {
+                    evictLeastFrequent(now);
+                }
+
+                score = new Score();
+                scores.put(access, score);
+            }
+
+            score.value = decay(score.value, score.updatedMs, now) + 1.0;
+            score.updatedMs = now;
+        }
+
+        private void evictLeastFrequent(long now)   {
+            Access leastFrequent = null;
+            double lowest = Double.MAX_VALUE;
+
+            for (Map.Entry<Access, Score> entry : scores.entrySet())    {
+                double value = decay(entry.getValue().value, entry.getValue().updatedMs, now);
+
+                if (value < lowest) {
+                    leastFrequent = entry.getKey();
+                    lowest = value;
+                }
+            }
+
+            scores.remove(leastFrequent);
+        }
+
+        private synchronized List<Access> top(int count, long now) {
+            List<Map.Entry<Access, Double>> decayed = new ArrayList<>(scores.size());
+
+            for (Map.Entry<Access, Score> entry : scores.entrySet())    {
+                decayed.add(new HashMap.SimpleImmutableEntry<>(entry.getKey(), decay(entry.getValue().value, entry.getValue().updatedMs, now)));
+            }
+
+            decayed.sort((a, b) -> Double.compare(b.getValue(), a.getValue()));
+
+            List<Access> result = new ArrayList<>(Math.min(count, decayed.size()));
+
+            for (int i = 0; i < count && i < decayed.size(); i++)   {
+                result.add(decayed.get(i).getKey());
+            }
+
+            return result;
+        }
+    }
+
+    private static final class Score {
+        private double value = 0.0;
+        private long updatedMs = 0;
+    }
+
+    /**
+     * Operation on a Kafka resource
+     */
+    public static final class Access {
+        private final ResourceType type;
+        private final AclOperation op;
+        private final String resourceName;
+
+        public Access(ResourceType type, AclOperation op, String resourceName) {
+            this.type = type;
+            this.op = op;
+            this.resourceName = resourceName;
+        }
+
+        public ResourceType type() {
+            return type;
+        }
+
+        public AclOperation op() {
+            return op;
+        }
+
+        public String resourceName() {
+            return resourceName;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            } else if (o == null || getClass() != o.getClass()) {
+                return false;
+            }
+
+            Access access = (Access) o;
+            return type == access.type
+                    && op == access.op
+                    && Objects.equals(resourceName, access.resourceName);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(type, op, resourceName);
+        }
+
+        @Override
+        public String toString() {
+            return op + " " + type + " " + resourceName;
+        }
+    }
+}
@@ -0,0 +1,536 @@
+package io.strimzi.kafka.kubernetes.authorizer;
+
+import org.apache.kafka.common.utils.Time;
+
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Predicate;
+
+/**
+ * Bounded cache of SubjectAccessReview decisions. Allowed and denied decisions have separate TTLs. When the cache
+ * grows over its maximum size, expired entries are removed first and then arbitrary entries until it fits again.
+ *
+ * Expired decisions can be kept for an additional grace period. During it, they are not returned by get() anymore,
+ * but they can still be served as stale decisions while they are being refreshed.
+ *
+ * Decisions can be invalidated when the RBAC resources change. Every invalidation starts a new generation of the
+ * cache. Decisions reviewed before the invalidation and stored after it are dropped, so that a review which was in
+ * progress during the change cannot bring back the old decision.
+ *
+ * Decisions can be also shared by other brokers. The shared decisions carry the time when they were reviewed. They
+ * replace only decisions reviewed earlier and they are ignored when they were reviewed before the last invalidation.
+ */
+public class AuthorizationCache {
+    private final Time time;
+    private final long allowedTtlMs;
+    private final long deniedTtlMs;
+    private final int maxSize;
+    private final long graceMs;
+
+    // Reusable lookup key of every thread, so that the lookups on the hot path do not allocate
+    private static final ThreadLocal<ProbeKey> PROBE = ThreadLocal.withInitial(ProbeKey::new);
+
+    private final ConcurrentHashMap<Key, Entry> entries = new ConcurrentHashMap<>();
+    private final ReentrantLock evictionLock = new ReentrantLock();
+    private final AtomicLong generation = new AtomicLong(0);
+    private volatile long invalidatedAtMs = 0;
+
+    public AuthorizationCache(Time time, long allowedTtlMs, long deniedTtlMs, int maxSize) {
+        this(time, allowedTtlMs, deniedTtlMs, maxSize, 0);
+    }
+
+    public AuthorizationCache(Time time, long allowedTtlMs, long deniedTtlMs, int maxSize, long graceMs) {
+        if (maxSize <= 0)   {
+            throw new IllegalArgumentException("The maximum size of the authorization cache has to be positive");
+        }
+
+        this.time = time;
+        this.allowedTtlMs = allowedTtlMs;
+        this.deniedTtlMs = deniedTtlMs;
+        this.maxSize = maxSize;
+        this.graceMs = Math.max(graceMs, 0);
+    }
+
+    /**
+     * @return  The cached decision or null if there is no valid decision cached for this key
+     */
+    public Boolean get(Key key)   {
+        return get((Object) key);
+    }
+
+    /**
+     * Same as get(Key), but without creating the key. This is used on the hot path of the authorization, where most of
+     * the decisions are found in the cache.
+     *
+     * @return  The cached decision or null if there is no valid decision cached for these attributes
+     */
+    public Boolean get(String user, List<String> userGroups, String group, String resource, String verb, String name)   {
+        ProbeKey probe = PROBE.get().set(user, userGroups, group, resource, verb, name);
+
+        try {
+            return get(probe);
+        } finally {
+            probe.clear();
+        }
+    }
+
+    private Boolean get(Object key)   {
+        Entry entry = entries.get(key);
+
+        if (entry == null)  {
+            return null;
+        }
+
+        long now = time.milliseconds();
+
+        if (entry.expiresAtMs > now)  {
+            return entry.allowed;
+        } else if (entry.expiresAtMs + graceMs <= now)  {
+            entries.remove(key, entry);
+        }
+
+        return null;
+    }
+
+    /**
+     * @return  The expired decision which is still in its grace period or null if there is no such decision
+     */
+    public Boolean getStale(Key key)   {
+        return getStale((Object) key);
+    }
+
+    /**
+     * Same as getStale(Key), but without creating the key.
+     *
+     * @return  The expired decision which is still in its grace period or null if there is no such decision
+     */
+    public Boolean getStale(String user, List<String> userGroups, String group, String resource, String verb, String name)   {
+        ProbeKey probe = PROBE.get().set(user, userGroups, group, resource, verb, name);
+
+        try {
+            return getStale(probe);
+        } finally {
+            probe.clear();
+        }
+    }
+
+    private Boolean getStale(Object key)   {
+        Entry entry = entries.get(key);
+
+        if (entry == null)  {
+            return null;
+        }
+
+        long now = time.milliseconds();
+
+        if (entry.expiresAtMs <= now && entry.expiresAtMs + graceMs > now)  {
+            return entry.allowed;
+        }
+
+        return null;
+    }
+
+    public void put(Key key, boolean allowed)   {
+        add(key, allowed);
+    }
+
+    /**
+     * Adds a decision unless the cache was invalidated since the given generation.
+     *
+     * @param key           Key
+     * @param allowed       Decision
+     * @param generation    Generation of the cache from before the decision was reviewed
+     *
+     * @return  Time when the added decision expires or 0 if it was not added
+     */
+    public long put(Key key, boolean allowed, long generation)   {
+        if (this.generation.get() != generation)    {
+            return 0;
+        }
+
+        long expiresAtMs = add(key, allowed);
+
+        // The invalidation might have happened while the decision was being added
+        if (this.generation.get() != generation)    {
+            entries.remove(key);
+            return 0;
+        }
+
+        return expiresAtMs;
+    }
+
+    private long add(Key key, boolean allowed)   {
+        long ttlMs = allowed ? allowedTtlMs : deniedTtlMs;
+
+        if (ttlMs <= 0) {
+            return 0;
+        }
+
+        long now = time.milliseconds();
+        entries.put(key, new Entry(allowed, now + ttlMs, now));
+
+        if (entries.size() > maxSize)   {
+            evict(key);
+        }
+
+        return now + ttlMs;
+    }
+
+    public boolean share(Key key, boolean allowed, long reviewedAtMs, long expiresAtMs)   {
+        return share(key, allowed, reviewedAtMs, expiresAtMs, 0);
+    }
+
+    /**
+     * Adds a decision shared by another broker. It replaces the cached decision only when that was reviewed earlier.
+     * Expired decisions and decisions reviewed before the last invalidation are ignored. The time of the review comes
+     * from the clock of the other broker, so it has to be later than the invalidation by at least the clock skew.
+     *
+     * @param key               Key
+     * @param allowed           Decision
+     * @param reviewedAtMs      Time when the decision was reviewed
+     * @param expiresAtMs       Time when the decision expires
+     * @param maxClockSkewMs    Maximal difference between the clocks of the brokers
+     *
+     * @return  True if the decision was added
+     */
+    public boolean share(Key key, boolean allowed, long reviewedAtMs, long expiresAtMs, long maxClockSkewMs)   {
+        long generation = this.generation.get();
+
+        if (expiresAtMs <= time.milliseconds() || reviewedAtMs - maxClockSkewMs < invalidatedAtMs)  {
+            return false;
+        }
+
+        Entry shared = new Entry(allowed, expiresAtMs, reviewedAtMs);
+
+        if (entries.merge(key, shared, (existing, incoming) -> existing.reviewedAtMs < incoming.reviewedAtMs ? incoming : existing) != shared)  {
+            return false;
+        }
+
+        // The invalidation might have happened while the decision was being added
+        if (this.generation.get() != generation)    {
+            entries.remove(key, shared);
+            return false;
+        }
+
+        if (entries.size() > maxSize)   {
+            evict(key);
+        }
+
+        return true;
+    }
+
+    /**
+     * Ignores the shared decisions reviewed until now without evicting any cached decision. It is used when the changes
+     * of the RBAC rights done until now are not known, so they could not invalidate the shared decisions.
+     */
+    public void ignoreSharedDecisions()    {
+        invalidatedAtMs = time.milliseconds();
+    }
+
+    /**
+     * @return  The current generation of the cache
+     */
+    public long generation()    {
+        return generation.get();
+    }
+
+    /**
+     * Removes the decisions matching the predicate including the stale ones.
+     *
+     * @param predicate     Predicate selecting the keys of the removed decisions
+     *
+     * @return  Number of removed decisions
+     */
+    public int invalidate(Predicate<Key> predicate)    {
+        generation.incrementAndGet();
+        invalidatedAtMs = time.milliseconds();
+
+        int removed = 0;
+        Iterator<Key> iterator = entries.keySet().iterator();
+
+        while (iterator.hasNext())  {
+            if (predicate.test(iterator.next()))    {
+                iterator.remove();
+                removed++;
+            }
+        }
+
+        return removed;
+    }
+
+    /**
+     * Adds a decision with given expiration, for example loaded from a snapshot. Expired decisions are ignored and
+     * the decisions already in the cache are not replaced.
+     *
+     * @param key           Key
+     * @param allowed       Decision
+     * @param expiresAtMs   Time when the decision expires
+     */
+    public void restore(Key key, boolean allowed, long expiresAtMs)   {
+        if (expiresAtMs <= time.milliseconds())  {
+            return;
+        }
+
+        // The time of the review is unknown, so any shared decision replaces it
+        entries.putIfAbsent(key, new Entry(allowed, expiresAtMs, 0));
+
+        if (entries.size() > maxSize)   {
+            evict(key);
+        }
+    }
+
+    /**
+     * Passes all decisions which did not expire yet to the consumer
+     *
+     * @param consumer  Consumer of the decisions
+     */
+    public void forEachValid(DecisionConsumer consumer)   {
+        long now = time.milliseconds();
+
+        for (Map.Entry<Key, Entry> entry : entries.entrySet())  {
+            if (entry.getValue().expiresAtMs > now) {
+                consumer.accept(entry.getKey(), entry.getValue().allowed, entry.getValue().expiresAtMs);
+            }
+        }
+    }
+
+    public void clear() {
+        generation.incrementAndGet();
+        invalidatedAtMs = time.milliseconds();
+        entries.clear();
+    }
+
+    public int size()   {
+        return entries.size();
+    }
+
+    private void evict(Key justAdded)    {
+        // Only one thread needs to do the cleanup. The others can just carry on.
+        if (!evictionLock.tryLock())    {
+            return;
+        }
+
+        try {
+            long now = time.milliseconds();
+            entries.values().removeIf(entry -> entry.expiresAtMs + graceMs <= now);
+
+            Iterator<Map.Entry<Key, Entry>> iterator = entries.entrySet().iterator();
+            while (entries.size() > maxSize && iterator.hasNext())  {
+                if (!justAdded.equals(iterator.next().getKey()))    {
+                    iterator.remove();
+                }
+            }
+        } finally {
+            evictionLock.unlock();
+        }
+    }
+
+    /**
+     * Consumer of the cached decisions
+     */
+    public interface DecisionConsumer {
+        void accept(Key key, boolean allowed, long expiresAtMs);
+    }
+
+    private static final class Entry {
+        private final boolean allowed;
+        private final long expiresAtMs;
+        private final long reviewedAtMs;
+
+        private Entry(boolean allowed, long expiresAtMs, long reviewedAtMs) {
+            this.allowed = allowed;
+            this.expiresAtMs = expiresAtMs;
+            this.reviewedAtMs = reviewedAtMs;
+        }
+    }
+
+    /**
+     * Key of the cached decision. The groups of the user are passed to the reviews and they are part of the key, so a
+     * decision granted through a group is never served to a principal which does not have that group.
+     */
+    public static final class Key {
+        private final String user;
+        private final List<String> userGroups;
+        private final String group;
+        private final String resource;
+        private final String verb;
+        private final String name;
+        private final int hash;
+
+        public Key(String user, String group, String resource, String verb, String name) {
+            this(user, Collections.emptyList(), group, resource, verb, name);
+        }
+
+        public Key(String user, List<String> userGroups, String group, String resource, String verb, String name) {
+            this.user = user;
+            this.userGroups = userGroups != null ? userGroups : Collections.emptyList();
+            this.group = group;
+            this.resource = resource;
+            this.verb = verb;
+            this.name = name;
+            this.hash = hash(user, this.userGroups, group, resource, verb, name);
+        }
+
+        public String user() {
+            return user;
+        }
+
+        /**
+         * @return  Groups of the user
+         */
+        public List<String> userGroups() {
+            return userGroups;
+        }
+
+        public String group() {
+            return group;
+        }
+
+        public String resource() {
+            return resource;
+        }
+
+        public String verb() {
+            return verb;
+        }
+
+        public String name() {
+            return name;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            } else if (o == null || getClass() != o.getClass()) {
+                return false;
+            }
+
+            Key key = (Key) o;
+            return hash == key.hash && matches(key.user, key.userGroups, key.group, key.resource, key.verb, key.name);
+        }
+
+        private boolean matches(String user, List<String> userGroups, String group, String resource, String verb, String name)  {
+            return Objects.equals(this.user, user)
+                    && sameGroups(this.userGroups, userGroups)
+                    && Objects.equals(this.group, group)
+                    && Objects.equals(this.resource, resource)
+                    && Objects.equals(this.verb, verb)
+                    && Objects.equals(this.name, name);
+        }
+
+        /**
+         * Same as Objects.hash(user, userGroups, group, resource, verb, name), but without the varargs array and the
+         * list iterator.
+         */
+        private static int hash(String user, List<String> userGroups, String group, String resource, String verb, String name)  {
+            int groupsHash = 1;
+
+            for (int i = 0; i < userGroups.size(); i++) {
+                groupsHash = 31 * groupsHash + Objects.hashCode(userGroups.get(i));
+            }
+
+            int result = 1;
+            result = 31 * result + Objects.hashCode(user);
+            result = 31 * result + groupsHash;
+            result = 31 * result + Objects.hashCode(group);
+            result = 31 * result + Objects.hashCode(resource);
+            result = 31 * result + Objects.hashCode(verb);
+            result = 31 * result + Objects.hashCode(name);
+
+            return result;
+        }
+
+        private static boolean sameGroups(List<String> groups, List<String> other)  {
+            if (groups == other)    {
+                return true;
+            } else if (groups.size() != other.size())  {
+                return false;
+            }
+
+            for (int i = 0; i < groups.size(); i++) {
+                if (!Objects.equals(groups.get(i), other.get(i)))   {
+                    return false;
+                }
+            }
+
+            return true;
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+
+        @Override
+        public String toString() {
+            return "Key{" +
+                    "user='" + user + '\'' +
+                    ", userGroups=" + userGroups +
+                    ", group='" + group + '\'' +
+                    ", resource='" + resource + '\'' +
+                    ", verb='" + verb + '\'' +
+                    ", name='" + name + '\'' +
+                    '}';
+        }
+    }
+
+    /**
+     * Mutable key used only to look up the decisions. It matches the Key with the same attributes. It is never stored
+     * in the cache.
+     */
+    private static final class ProbeKey {
+        private String user;
+        private List<String> userGroups;
+        private String group;
+        private String resource;
+        private String verb;
+        private String name;
+        private int hash;
+
+        private ProbeKey set(String user, List<String> userGroups, String group, String resource, String verb, String name)  {
+            this.user = user;
+            this.userGroups = userGroups != null ? userGroups : Collections.emptyList();
+            this.group = group;
+            this.resource = resource;
+            this.verb = verb;
+            this.name = name;
+            this.hash = Key.hash(user, this.userGroups, group, resource, verb, name);
+
+            return this;
+        }
+
+        /**
+         * Drops the references to the attributes, so that the thread local does not keep them alive
+         */
+        private void clear()    {
+            user = null;
+            userGroups = null;
+            group = null;
+            resource = null;
+            verb = null;
+            name = null;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof Key))    {
+                return false;
+            }
+
+            Key key = (Key) o;
+            return hash == key.hash && key.matches(user, userGroups, group, resource, verb, name);
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+    }
+}
@@ -0,0 +1,142 @@
+package io.strimzi.kafka.kubernetes.authorizer;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Reads and writes the snapshots of the authorization cache. The snapshot is a compact binary file with the decisions
+ * which did not expire yet and their expiration times. It never contains any tokens. The file is written to a
+ * temporary file first and then moved in place, so a broker crashing while writing it never leaves a broken snapshot
+ * behind.
+ */
+public class AuthorizationCacheSnapshot {
+    private static final int MAGIC = 0x4B534143;
+    private static final int VERSION = 1;
+
+    private AuthorizationCacheSnapshot() { }
+
+    /**
+     * Writes the valid decisions from the cache into the snapshot file
+     *
+     * @param cache     Authorization cache
+     * @param file      Snapshot file
+     *
+     * @return  Number of written decisions
+     *
+     * @throws IOException  When the file cannot be written
+     */
+    public static int write(AuthorizationCache cache, Path file) throws IOException {
+        Path tempFile = file.resolveSibling(file.getFileName() + ".tmp");
+
+        // The decisions are collected first, so that the cache is not iterated while doing the I/O
+        List<Decision> decisions = new ArrayList<>();
+        cache.forEachValid((key, allowed, expiresAtMs) -> decisions.add(new Decision(key, allowed, expiresAtMs)));
+
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(tempFile)))) {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+
+            for (Decision decision : decisions)   {
+                out.writeBoolean(true);
+                out.writeUTF(decision.key.user());
+                out.writeInt(decision.key.userGroups().size());
+
+                for (String userGroup : decision.key.userGroups())  {
+                    out.writeUTF(userGroup);
+                }
+
+                out.writeUTF(decision.key.group());
+                out.writeUTF(decision.key.resource());
+                out.writeUTF(decision.key.verb());
+                out.writeUTF(decision.key.name() != null ? decision.key.name() : "");
+                out.writeBoolean(decision.allowed);
+                out.writeLong(decision.expiresAtMs);
+            }
+
+            // End of the entries
+            out.writeBoolean(false);
+        }
+
+        Files.move(tempFile, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        return decisions.size();
+    }
+
+    /**
+     * Loads the decisions from the snapshot file into the cache. Decisions which expired in the meantime are ignored.
+     *
+     * @param cache     Authorization cache
+     * @param file      Snapshot file
+     *
+     * @return  Keys of the loaded decisions
+     *
+     * @throws IOException  When the file cannot be read or is not a valid snapshot
+     */
+    public static List<AuthorizationCache.Key> read(AuthorizationCache cache, Path file) throws IOException {
+        List<AuthorizationCache.Key> loaded = new ArrayList<>();
+
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file)))) {
+            if (in.readInt() != MAGIC)  {
+                throw new IOException("File " + file + " is not an authorization cache snapshot");
+            }
+
+            int version = in.readInt();
+            if (version != VERSION)  {
+                throw new IOException("Unsupported authorization cache snapshot version " + version);
+            }
+
+            while (in.readBoolean())    {
+                String user = in.readUTF();
+                List<String> userGroups = readUserGroups(in);
+
+                AuthorizationCache.Key key = new AuthorizationCache.Key(user, userGroups, in.readUTF(), in.readUTF(), in.readUTF(), in.readUTF());
+                boolean allowed = in.readBoolean();
+                long expiresAtMs = in.readLong();
+
+                cache.restore(key, allowed, expiresAtMs);
+
+                if (cache.get(key) != null)  {
+                    loaded.add(key);
+                }
+            }
+        }
+
+        return loaded;
+    }
+
+    private static List<String> readUserGroups(DataInputStream in) throws IOException {
+        int count = in.readInt();
+
+        if (count == 0) {
+            return Collections.emptyList();
+        }
+
+        List<String> userGroups = new ArrayList<>(count);
+
+        for (int i = 0; i < count; i++) {
+            userGroups.add(in.readUTF());
+        }
+
+        return userGroups;
+    }
+
+    private static final class Decision {
+        private final AuthorizationCache.Key key;
+        private final boolean allowed;
+        private final long expiresAtMs;
+
+        private Decision(AuthorizationCache.Key key, boolean allowed, long expiresAtMs) {
+            this.key = key;
+            this.allowed = allowed;
+            this.expiresAtMs = expiresAtMs;
+        }
+    }
+}
@@ -0,0 +1,103 @@
+package io.strimzi.kafka.kubernetes.authorizer;
+
+import io.strimzi.kafka.kubernetes.common.ReviewMetrics;
+import org.apache.kafka.common.metrics.Metrics;
+import org.apache.kafka.common.metrics.Sensor;
+import org.apache.kafka.common.metrics.stats.Meter;
+import org.apache.kafka.common.resource.ResourceType;
+
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Metrics of the authorizer. Besides the SubjectAccessReview metrics, it counts the decisions per Kafka resource type
+ * and the regular users passed to the ACL based authorizer.
+ */
+public class AuthorizerMetrics {
+    public static final String GROUP = "kubernetes-authorizer-metrics";
+
+    private final ReviewMetrics reviews;
+    private final Sensor delegations;
+    private final Map<ResourceType, Sensor> allowed = new EnumMap<>(ResourceType.class);
+    private final Map<ResourceType, Sensor> denied = new EnumMap<>(ResourceType.class);
+
+    public AuthorizerMetrics(Metrics metrics) {
+        reviews = ReviewMetrics.get(metrics, GROUP, "subject-access-review");
+
+        synchronized (metrics) {
+            delegations = meter(metrics, "regular-user-delegation", null,
+                    "Rate of authorizations of regular users passed to the ACL authorizer per second",
+                    "Total number of authorizations of regular users passed to the ACL authorizer");
+
+            for (ResourceType type : ResourceType.values()) {
+                if (type == ResourceType.ANY || type == ResourceType.UNKNOWN)   {
+                    continue;
+                }
+
+                allowed.put(type, decisionMeter(metrics, type, "allowed"));
+                denied.put(type, decisionMeter(metrics, type, "denied"));
+            }
+        }
+    }
+
+    private static Sensor decisionMeter(Metrics metrics, ResourceType type, String decision)    {
+        Map<String, String> tags = new HashMap<>(2);
+        tags.put("resource-type", type.name().toLowerCase());
+        tags.put("decision", decision);
+
+        return meter(metrics, "decision", tags,
+                "Rate of the service account authorization decisions per second",
+                "Total number of the service account authorization decisions");
+    }
+
+    /*
+     * Sensors are registered only once even when multiple authorizer instances share the registry
+     */
+    private static Sensor meter(Metrics metrics, String name, Map<String, String> tags, String rateDescription, String totalDescription)    {
+        String sensorName = GROUP + ":" + name + (tags != null ? tags.toString() : "");
+        Sensor sensor = metrics.getSensor(sensorName);
+
+        if (sensor == null) {
+            sensor = metrics.sensor(sensorName);
+
+            if (tags != null)   {
+                sensor.add(new Meter(metrics.metricName(name + "-rate", GROUP, rateDescription, tags),
+                        metrics.metricName(name + "-total", GROUP, totalDescription, tags)));
+            } else {
+                sensor.add(new Meter(metrics.metricName(name + "-rate", GROUP, rateDescription),
+                        metrics.metricName(name + "-total", GROUP, totalDescription)));
+            }
+        }
+
+        return sensor;
+    }
+
+    /**
+     * @return  Metrics of the SubjectAccessReview requests
+     */
+    public ReviewMetrics reviews() {
+        return reviews;
+    }
+
+    /**
+     * Records a regular user passed to the ACL authorizer
+     */
+    public void recordDelegation() {
+        delegations.record();
+    }
+
+    /**
+     * Records a decision about a service account
+     *
+     * @param type      Type of the Kafka resource
+     * @param decision  True if the operation was allowed
+     */
+    public void recordDecision(ResourceType type, boolean decision) {
+        Sensor sensor = decision ? allowed.get(type) : denied.get(type);
+
+        if (sensor != null) {
+            sensor.record();
+        }
+    }
+}
@@ -0,0 +1,240 @@
+package io.strimzi.kafka.kubernetes.authorizer;
+
+import io.fabric8.kubernetes.api.model.ServiceAccount;
+import io.fabric8.kubernetes.api.model.rbac.ClusterRole;
+import io.fabric8.kubernetes.api.model.rbac.ClusterRoleBinding;
+import io.fabric8.kubernetes.api.model.rbac.Role;
+import io.fabric8.kubernetes.api.model.rbac.RoleBinding;
+import io.fabric8.kubernetes.api.model.rbac.RoleRef;
+import io.fabric8.kubernetes.api.model.rbac.Subject;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Evicts the cached decisions affected by changes of the RBAC resources and ServiceAccounts, so that the decisions can
+ * be cached for much longer without delaying the revocation of the rights:
+ *
+ *   - When a RoleBinding or ClusterRoleBinding changes, the decisions of its old and new subjects are evicted
+ *   - When a Role changes, the decisions of the subjects of the RoleBindings referencing it are evicted
+ *   - When a ServiceAccount changes, the decisions of the service account are evicted
+ *   - When a ClusterRole changes, all decisions are evicted
+ *
+ * The subjects of the groups are matched against the groups of the cached decisions. Decisions without the groups
+ * are evicted for every group. When the resources are listed again (for example because the watch could not be
+ * resumed), the changes in the meantime are unknown and all decisions are evicted.
+ *
+ * The changes done before all resources were listed for the first time are unknown as well. The decisions shared by
+ * the other brokers which were reviewed before that are therefore ignored and the invalidator is synced only after it.
+ */
+public class CacheInvalidator implements RbacWatcher.Listener {
+    private static final Logger log = LoggerFactory.getLogger(CacheInvalidator.class);
+
+    private static final String SERVICE_ACCOUNT_PREFIX = "system:serviceaccount:";
+    private static final String GROUP_KIND = "Group";
+    private static final String SERVICE_ACCOUNT_KIND = "ServiceAccount";
+    private static final String ROLE_KIND = "Role";
+
+    private final AuthorizationCache cache;
+    private final String namespace;
+
+    private final Map<String, RoleBinding> roleBindings = new HashMap<>();
+    private final Map<String, ClusterRoleBinding> clusterRoleBindings = new HashMap<>();
+
+    // The first list of each resource is the initial state which does not invalidate anything
+    private boolean rolesListed = false;
+    private boolean clusterRolesListed = false;
+    private boolean roleBindingsListed = false;
+    private boolean clusterRoleBindingsListed = false;
+    private boolean serviceAccountsListed = false;
+    private volatile boolean synced = false;
+
+    /**
+     * @param cache         The authorization cache
+     * @param namespace     Namespace of the broker in which the Roles, RoleBindings and ServiceAccounts are watched
+     */
+    public CacheInvalidator(AuthorizationCache cache, String namespace) {
+        this.cache = cache;
+        this.namespace = namespace;
+    }
+
+    @Override
+    public synchronized void resetRoles(List<Role> items) {
+        if (rolesListed)    {
+            invalidateAll("Roles were listed again");
+        }
+
+        rolesListed = true;
+        checkSynced();
+    }
+
+    @Override
+    public synchronized void roleChanged(Role role, boolean deleted) {
+        String name = role.getMetadata().getName();
+        Set<String> users = new HashSet<>();
+        Set<String> groups = new HashSet<>();
+
+        for (RoleBinding binding : roleBindings.values())   {
+            RoleRef roleRef = binding.getRoleRef();
+
+            if (roleRef != null && ROLE_KIND.equals(roleRef.getKind()) && name.equals(roleRef.getName()))  {
+                addSubjects(binding.getSubjects(), users, groups);
+            }
+        }
+
+        invalidate(users, groups, "Role " + name);
+    }
+
+    @Override
+    public synchronized void resetClusterRoles(List<ClusterRole> items) {
+        if (clusterRolesListed)    {
+            invalidateAll("ClusterRoles were listed again");
+        }
+
+        clusterRolesListed = true;
+        checkSynced();
+    }
+
+    @Override
+    public synchronized void clusterRoleChanged(ClusterRole role, boolean deleted) {
+        invalidateAll("ClusterRole " + role.getMetadata().getName() + " changed");
+    }
+
+    @Override
+    public synchronized void resetRoleBindings(List<RoleBinding> items) {
+        if (roleBindingsListed)    {
+            invalidateAll("RoleBindings were listed again");
+        }
+
+        roleBindings.clear();
+
+        for (RoleBinding binding : items)   {
+            roleBindings.put(binding.getMetadata().getName(), binding);
+        }
+
+        roleBindingsListed = true;
+        checkSynced();
+    }
+
+    @Override
+    public synchronized void roleBindingChanged(RoleBinding binding, boolean deleted) {
+        String name = binding.getMetadata().getName();
+        RoleBinding previous = deleted ? roleBindings.remove(name) : roleBindings.put(name, binding);
+
+        Set<String> users = new HashSet<>();
+        Set<String> groups = new HashSet<>();
+        addSubjects(binding.getSubjects(), users, groups);
+
+        if (previous != null)   {
+            addSubjects(previous.getSubjects(), users, groups);
+        }
+
+        invalidate(users, groups, "RoleBinding " + name);
+    }
+
+    @Override
+    public synchronized void resetClusterRoleBindings(List<ClusterRoleBinding> items) {
+        if (clusterRoleBindingsListed)    {
+            invalidateAll("ClusterRoleBindings were listed again");
+        }
+
+        clusterRoleBindings.clear();
+
+        for (ClusterRoleBinding binding : items)   {
+            clusterRoleBindings.put(binding.getMetadata().getName(), binding);
+        }
+
+        clusterRoleBindingsListed = true;
+        checkSynced();
+    }
+
+    @Override
+    public synchronized void clusterRoleBindingChanged(ClusterRoleBinding binding, boolean deleted) {
+        String name = binding.getMetadata().getName();
+        ClusterRoleBinding previous = deleted ? clusterRoleBindings.remove(name) : clusterRoleBindings.put(name, binding);
+
+        Set<String> users = new HashSet<>();
+        Set<String> groups = new HashSet<>();
+        addSubjects(binding.getSubjects(), users, groups);
+
+        if (previous != null)   {
+            addSubjects(previous.getSubjects(), users, groups);
+        }
+
+        invalidate(users, groups, "ClusterRoleBinding " + name);
+    }
+
+    @Override
+    public synchronized void resetServiceAccounts(List<ServiceAccount> items) {
+        if (serviceAccountsListed)    {
+            invalidateAll("ServiceAccounts were listed again");
+        }
+
+        serviceAccountsListed = true;
+        checkSynced();
+    }
+
+    @Override
+    public synchronized void serviceAccountChanged(ServiceAccount serviceAccount, boolean deleted) {
+        String user = SERVICE_ACCOUNT_PREFIX + serviceAccount.getMetadata().getNamespace() + ":" + serviceAccount.getMetadata().getName();
+        invalidate(Collections.singleton(user), Collections.emptySet(), "ServiceAccount " + serviceAccount.getMetadata().getName());
+    }
+
+    /**
+     * @return  True once all resources were listed, so that all later changes of the RBAC rights are invalidated
+     */
+    public boolean synced()    {
+        return synced;
+    }
+
+    private void checkSynced()  {
+        if (!synced && rolesListed && clusterRolesListed && roleBindingsListed && clusterRoleBindingsListed && serviceAccountsListed)   {
+            cache.ignoreSharedDecisions();
+            synced = true;
+
+            log.info("Authorization cache invalidation is synced with the RBAC resources");
+        }
+    }
+
+    private void addSubjects(List<Subject> subjects, Set<String> users, Set<String> groups)  {
+        if (subjects == null)   {
+            return;
+        }
+
+        for (Subject subject : subjects)    {
+            if (SERVICE_ACCOUNT_KIND.equals(subject.getKind())) {
+                // Service accounts in RoleBindings default to the namespace of the binding
+                String serviceAccountNamespace = subject.getNamespace() != null && !subject.getNamespace().isEmpty() ? subject.getNamespace() : namespace;
+                users.add(SERVICE_ACCOUNT_PREFIX + serviceAccountNamespace + ":" + subject.getName());
+            } else if (GROUP_KIND.equals(subject.getKind()))    {
+                groups.add(subject.getName());
+            } else {
+                users.add(subject.getName());
+            }
+        }
+    }
+
+    private void invalidate(Set<String> users, Set<String> groups, String reason)   {
+        if (users.isEmpty() && groups.isEmpty())    {
+            return;
+        }
+
+        int removed = cache.invalidate(key -> users.contains(key.user())
+                || (!groups.isEmpty() && (key.userGroups().isEmpty() || !Collections.disjoint(groups, key.userGroups()))));
+
+        log.debug("Evicted {} cached decisions after a change of {}", removed, reason);
+    }
+
+    private void invalidateAll(String reason)   {
+        int size = cache.size();
+        cache.clear();
+
+        log.debug("Evicted all {} cached decisions because {}", size, reason);
+    }
+}
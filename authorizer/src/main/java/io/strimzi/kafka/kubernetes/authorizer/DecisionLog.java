@@ -0,0 +1,241 @@
+package io.strimzi.kafka.kubernetes.authorizer;
+
+import io.strimzi.kafka.kubernetes.common.ConfigUtils;
+import org.apache.kafka.common.acl.AclOperation;
+import org.apache.kafka.common.resource.ResourceType;
+import org.apache.kafka.common.utils.Time;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Consumer;
+
+/**
+ * Asynchronous log of the authorization decisions. The authorizing threads only put the decisions into a bounded
+ * lock-free ring buffer. When the buffer is full, the decisions are dropped and only counted. A background thread
+ * drains the buffer and logs the decisions. The first occurrence of a decision in every summary interval is logged
+ * immediately. Its repetitions are only counted and logged as a single summary at the end of the interval.
+ *
+ * The decisions are logged using the io.strimzi.kafka.kubernetes.authorizer.DecisionLog logger, so that they can be
+ * routed to a separate audit log.
+ */
+public class DecisionLog {
+    private static final Logger log = LoggerFactory.getLogger(DecisionLog.class);
+
+    public static final String ENABLED_CONFIG = "kubernetes.authorizer.decision.log.enabled";
+    public static final String BUFFER_SIZE_CONFIG = "kubernetes.authorizer.decision.log.buffer.size";
+    public static final String SUMMARY_INTERVAL_MS_CONFIG = "kubernetes.authorizer.decision.log.summary.interval.ms";
+    public static final String SAMPLE_RATIO_CONFIG = "kubernetes.authorizer.decision.log.sample.ratio";
+    public static final String ALLOWED_ENABLED_CONFIG = "kubernetes.authorizer.decision.log.allowed.enabled";
+
+    private static final int DEFAULT_BUFFER_SIZE = 8192;
+    private static final long DEFAULT_SUMMARY_INTERVAL_MS = 60_000L;
+    private static final double DEFAULT_SAMPLE_RATIO = 1.0;
+
+    private static final long DRAIN_INTERVAL_NS = TimeUnit.MILLISECONDS.toNanos(100);
+    // When there are more distinct decisions in the interval, the summaries are logged early
+    private static final int MAX_DISTINCT_DECISIONS = 10_000;
+
+    /**
+     * Logged decision
+     */
+    public enum Decision {
+        ALLOWED,
+        DENIED,
+        // Regular users passed to the ACL authorizer
+        DELEGATED
+    }
+
+    private final MpscRingBuffer<Event> buffer;
+    private final Time time;
+    private final long summaryIntervalMs;
+    private final double sampleRatio;
+    private final boolean logAllowed;
+    private final Consumer<String> output;
+    private final AtomicLong dropped = new AtomicLong(0);
+    private final Thread drainer;
+
+    private volatile boolean closed = false;
+
+    // Used only by the drainer thread
+    private final Map<Event, long[]> repetitions = new HashMap<>();
+    private long intervalStartMs;
+
+    DecisionLog(int bufferSize, long summaryIntervalMs, double sampleRatio, boolean logAllowed, Time time, Consumer<String> output) {
+        this.buffer = new MpscRingBuffer<>(bufferSize);
+        this.time = time;
+        this.summaryIntervalMs = summaryIntervalMs;
+        this.sampleRatio = sampleRatio;
+        this.logAllowed = logAllowed;
+        this.output = output;
+        this.intervalStartMs = time.milliseconds();
+
+        this.drainer = new Thread(this::run, "kubernetes-authorizer-decision-log");
+        this.drainer.setDaemon(true);
+    }
+
+    /**
+     * Creates the decision log from the authorizer configuration.
+     *
+     * @param configs   Authorizer configuration
+     *
+     * @return  The decision log or null if it is not enabled
+     */
+    public static DecisionLog fromConfig(Map<String, ?> configs)  {
+        if (!ConfigUtils.getBoolean(configs, ENABLED_CONFIG, true))    {
+            return null;
+        }
+
+        int bufferSize = ConfigUtils.getInt(configs, BUFFER_SIZE_CONFIG, DEFAULT_BUFFER_SIZE);
+        long summaryIntervalMs = ConfigUtils.getLong(configs, SUMMARY_INTERVAL_MS_CONFIG, DEFAULT_SUMMARY_INTERVAL_MS);
+        double sampleRatio = ConfigUtils.getDouble(configs, SAMPLE_RATIO_CONFIG, DEFAULT_SAMPLE_RATIO);
+        boolean logAllowed = ConfigUtils.getBoolean(configs, ALLOWED_ENABLED_CONFIG, false);
+
+        log.info("Decision log is enabled (buffer size {}, summary interval {} ms, sample ratio {}, allowed decisions {})",
+                bufferSize, summaryIntervalMs, sampleRatio, logAllowed ? "enabled" : "disabled");
+
+        return new DecisionLog(bufferSize, summaryIntervalMs, sampleRatio, logAllowed, Time.SYSTEM, log::info);
+    }
+
+    void start()    {
+        drainer.start();
+    }
+
+    void close()    {
+        closed = true;
+        LockSupport.unpark(drainer);
+
+        try {
+            drainer.join(TimeUnit.SECONDS.toMillis(1));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Records the decision. It never blocks.
+     *
+     * @param principalType Type of the principal
+     * @param principalName Name of the principal
+     * @param operation     Kafka operation
+     * @param resourceType  Type of the Kafka resource
+     * @param resourceName  Name of the Kafka resource
+     * @param decision      The decision
+     */
+    public void record(String principalType, String principalName, AclOperation operation, ResourceType resourceType, String resourceName, Decision decision)  {
+        if (decision == Decision.ALLOWED && !logAllowed)    {
+            return;
+        }
+
+        if (sampleRatio < 1.0 && ThreadLocalRandom.current().nextDouble() >= sampleRatio)   {
+            return;
+        }
+
+        if (!buffer.offer(new Event(principalType, principalName, operation, resourceType, resourceName, decision)))  {
+            dropped.incrementAndGet();
+        }
+    }
+
+    private void run()  {
+        while (!closed) {
+            drain();
+            LockSupport.parkNanos(DRAIN_INTERVAL_NS);
+        }
+
+        drain();
+        logSummaries(time.milliseconds());
+    }
+
+    /**
+     * Drains the buffer and logs the summaries when the interval is over. Called only from the drainer thread (or
+     * from tests).
+     */
+    void drain()    {
+        buffer.drain(this::process);
+
+        long now = time.milliseconds();
+
+        if (now - intervalStartMs >= summaryIntervalMs || repetitions.size() >= MAX_DISTINCT_DECISIONS)  {
+            logSummaries(now);
+        }
+    }
+
+    private void process(Event event)  {
+        long[] count = repetitions.get(event);
+
+        if (count == null)  {
+            repetitions.put(event, new long[] {0});
+            output.accept(event.toString());
+        } else {
+            count[0]++;
+        }
+    }
+
+    private void logSummaries(long now)  {
+        for (Map.Entry<Event, long[]> repetition : repetitions.entrySet())   {
+            if (repetition.getValue()[0] > 0)   {
+                output.accept(repetition.getKey() + " (repeated " + repetition.getValue()[0] + " more times in the last " + (now - intervalStartMs) + " ms)");
+            }
+        }
+
+        repetitions.clear();
+        intervalStartMs = now;
+
+        long droppedDecisions = dropped.getAndSet(0);
+
+        if (droppedDecisions > 0)   {
+            log.warn("{} decisions were not logged because the decision log buffer was full", droppedDecisions);
+        }
+    }
+
+    static final class Event {
+        private final String principalType;
+        private final String principalName;
+        private final AclOperation operation;
+        private final ResourceType resourceType;
+        private final String resourceName;
+        private final Decision decision;
+
+        Event(String principalType, String principalName, AclOperation operation, ResourceType resourceType, String resourceName, Decision decision) {
+            this.principalType = principalType;
+            this.principalName = principalName;
+            this.operation = operation;
+            this.resourceType = resourceType;
+            this.resourceName = resourceName;
+            this.decision = decision;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            } else if (o == null || getClass() != o.getClass()) {
+                return false;
+            }
+
+            Event event = (Event) o;
+            return operation == event.operation
+                    && resourceType == event.resourceType
+                    && decision == event.decision
+                    && Objects.equals(principalName, event.principalName)
+                    && Objects.equals(principalType, event.principalType)
+                    && Objects.equals(resourceName, event.resourceName);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(principalType, principalName, operation, resourceType, resourceName, decision);
+        }
+
+        @Override
+        public String toString() {
+            return decision + " " + principalType + ":" + principalName + " " + operation + " " + resourceType + ":" + resourceName;
+        }
+    }
+}
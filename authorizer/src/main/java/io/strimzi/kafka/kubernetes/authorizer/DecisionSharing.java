@@ -0,0 +1,485 @@
+package io.strimzi.kafka.kubernetes.authorizer;
+
+import io.strimzi.kafka.kubernetes.common.ConfigUtils;
+import org.apache.kafka.clients.CommonClientConfigs;
+import org.apache.kafka.clients.admin.AdminClient;
+import org.apache.kafka.clients.admin.NewTopic;
+import org.apache.kafka.clients.consumer.ConsumerConfig;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.clients.consumer.KafkaConsumer;
+import org.apache.kafka.clients.producer.KafkaProducer;
+import org.apache.kafka.clients.producer.ProducerConfig;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.apache.kafka.common.KafkaException;
+import org.apache.kafka.common.PartitionInfo;
+import org.apache.kafka.common.TopicPartition;
+import org.apache.kafka.common.config.TopicConfig;
+import org.apache.kafka.common.errors.TopicExistsException;
+import org.apache.kafka.common.errors.WakeupException;
+import org.apache.kafka.common.serialization.ByteArrayDeserializer;
+import org.apache.kafka.common.serialization.ByteArraySerializer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.BooleanSupplier;
+
+/**
+ * Shares the reviewed decisions between the brokers through a compacted Kafka topic. Every broker publishes the
+ * decisions it got from the SubjectAccessReviews together with the time of the review and their expiration. Every
+ * broker consumes the topic into its own cache. The record key is the review (user, groups of the user, API group,
+ * resource, verb and name), so the compaction keeps only the latest decision of every review. The old segments are deleted once all
+ * their decisions expired.
+ *
+ * The authorizing threads only put the decisions into a bounded lock-free ring buffer. When the buffer is full, the
+ * decisions are not shared and only counted. A single background thread creates the topic when it does not exist,
+ * sends the decisions from the buffer and consumes the topic. When the Kafka clients fail, they are created again after
+ * a backoff. The shared decisions are trusted by all brokers, so only the brokers can be allowed to write into the
+ * topic. The authorizer denies access to it to everyone except the super users.
+ *
+ * The topic is consumed only once the cache is ready to import the decisions. With the cache invalidation, that is
+ * after the RBAC resources were listed, so that the decisions revoked while the broker was down are not imported. The
+ * times of the reviews come from the clocks of the other brokers, so they are compared with the invalidations with a
+ * margin for the clock skew.
+ */
+public class DecisionSharing {
+    private static final Logger log = LoggerFactory.getLogger(DecisionSharing.class);
+
+    public static final String ENABLED_CONFIG = "kubernetes.authorizer.cache.sharing.enabled";
+    public static final String TOPIC_CONFIG = "kubernetes.authorizer.cache.sharing.topic";
+    public static final String BOOTSTRAP_SERVERS_CONFIG = "kubernetes.authorizer.cache.sharing.bootstrap.servers";
+    public static final String BUFFER_SIZE_CONFIG = "kubernetes.authorizer.cache.sharing.buffer.size";
+    public static final String MAX_CLOCK_SKEW_MS_CONFIG = "kubernetes.authorizer.cache.sharing.max.clock.skew.ms";
+    public static final String CLIENT_CONFIG_PREFIX = "kubernetes.authorizer.cache.sharing.client.";
+
+    private static final String DEFAULT_TOPIC = "__kubernetes_authorizer_decisions";
+    private static final int DEFAULT_BUFFER_SIZE = 8192;
+    private static final long DEFAULT_MAX_CLOCK_SKEW_MS = 1_000L;
+
+    // Version of the record format. Version 2 moved the groups of the user into the record key.
+    private static final byte VERSION = 2;
+    private static final Duration POLL_TIMEOUT = Duration.ofMillis(100);
+    private static final long RETRY_BACKOFF_MS = 5_000L;
+    private static final long TOPIC_TIMEOUT_MS = 30_000L;
+    // The old segments are kept at least this long, so that they are not rolled too often
+    private static final long MIN_RETENTION_MS = 60_000L;
+    private static final long SUMMARY_INTERVAL_MS = 60_000L;
+
+    private final AuthorizationCache cache;
+    private final String topic;
+    private final Map<String, Object> clientConfig;
+    private final long retentionMs;
+    private final long maxClockSkewMs;
+    private final BooleanSupplier ready;
+    private final MpscRingBuffer<Decision> buffer;
+    private final AtomicLong dropped = new AtomicLong(0);
+    private final AtomicLong received = new AtomicLong(0);
+    private final AtomicLong failures = new AtomicLong(0);
+    private final Thread sharer;
+
+    private volatile boolean closed = false;
+    private volatile KafkaConsumer<byte[], byte[]> consumer;
+
+    /**
+     * @param cache           The authorization cache into which the shared decisions are added
+     * @param topic           Name of the compacted topic
+     * @param clientConfig    Configuration of the Kafka clients including the bootstrap servers
+     * @param bufferSize      Number of decisions which can wait to be published
+     * @param maxTtlMs        The longest TTL of the decisions
+     * @param maxClockSkewMs  Maximal difference between the clocks of the brokers
+     * @param ready           Whether the cache is ready to import the shared decisions
+     */
+    DecisionSharing(AuthorizationCache cache, String topic, Map<String, Object> clientConfig, int bufferSize, long maxTtlMs,
+                    long maxClockSkewMs, BooleanSupplier ready) {
+        this.cache = cache;
+        this.topic = topic;
+        this.clientConfig = clientConfig;
+        this.retentionMs = Math.max(maxTtlMs, MIN_RETENTION_MS);
+        this.maxClockSkewMs = maxClockSkewMs;
+        this.ready = ready;
+        this.buffer = new MpscRingBuffer<>(bufferSize);
+
+        this.sharer = new Thread(this::run, "kubernetes-authorizer-decision-sharing");
+        this.sharer.setDaemon(true);
+    }
+
+    /**
+     * Creates the decision sharing from the authorizer configuration.
+     *
+     * @param configs   Authorizer configuration
+     * @param cache     The authorization cache
+     * @param maxTtlMs  The longest TTL of the cached decisions
+     * @param ready     Whether the cache is ready to import the shared decisions
+     *
+     * @return  The decision sharing or null if it is not enabled
+     */
+    public static DecisionSharing fromConfig(Map<String, ?> configs, AuthorizationCache cache, long maxTtlMs, BooleanSupplier ready)  {
+        if (!ConfigUtils.getBoolean(configs, ENABLED_CONFIG, false))    {
+            return null;
+        }
+
+        String bootstrapServers = ConfigUtils.getString(configs, BOOTSTRAP_SERVERS_CONFIG, null);
+
+        if (bootstrapServers == null || bootstrapServers.isEmpty())  {
+            log.warn("Sharing of the decisions requires the {} option and will be disabled", BOOTSTRAP_SERVERS_CONFIG);
+            return null;
+        }
+
+        String topic = ConfigUtils.getString(configs, TOPIC_CONFIG, DEFAULT_TOPIC);
+        int bufferSize = ConfigUtils.getInt(configs, BUFFER_SIZE_CONFIG, DEFAULT_BUFFER_SIZE);
+        long maxClockSkewMs = ConfigUtils.getLong(configs, MAX_CLOCK_SKEW_MS_CONFIG, DEFAULT_MAX_CLOCK_SKEW_MS);
+
+        Map<String, Object> clientConfig = new HashMap<>();
+
+        for (Map.Entry<String, ?> config : configs.entrySet())  {
+            if (config.getKey().startsWith(CLIENT_CONFIG_PREFIX))    {
+                clientConfig.put(config.getKey().substring(CLIENT_CONFIG_PREFIX.length()), config.getValue());
+            }
+        }
+
+        clientConfig.put(CommonClientConfigs.BOOTSTRAP_SERVERS_CONFIG, bootstrapServers);
+
+        log.info("Sharing of the decisions is enabled (topic {}, bootstrap servers {}, buffer size {}, max. clock skew {} ms)",
+                topic, bootstrapServers, bufferSize, maxClockSkewMs);
+
+        return new DecisionSharing(cache, topic, clientConfig, bufferSize, maxTtlMs, maxClockSkewMs, ready);
+    }
+
+    /**
+     * @return  Name of the topic used to share the decisions
+     */
+    public String topic()   {
+        return topic;
+    }
+
+    void start()    {
+        sharer.start();
+    }
+
+    void close()    {
+        closed = true;
+        LockSupport.unpark(sharer);
+        KafkaConsumer<byte[], byte[]> current = consumer;
+
+        if (current != null)    {
+            current.wakeup();
+        }
+
+        try {
+            sharer.join(TimeUnit.SECONDS.toMillis(5));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Publishes the reviewed decision to the other brokers. It never blocks.
+     *
+     * @param key           Key of the decision
+     * @param allowed       The decision
+     * @param reviewedAtMs  Time when the review started
+     * @param expiresAtMs   Time when the decision expires
+     */
+    public void publish(AuthorizationCache.Key key, boolean allowed, long reviewedAtMs, long expiresAtMs)  {
+        if (!buffer.offer(new Decision(key, allowed, reviewedAtMs, expiresAtMs)))  {
+            dropped.incrementAndGet();
+        }
+    }
+
+    /**
+     * @return  Number of the consumed decisions which were added to the cache
+     */
+    long received()  {
+        return received.get();
+    }
+
+    /**
+     * @return  Number of times the Kafka clients failed and were created again
+     */
+    long failures()  {
+        return failures.get();
+    }
+
+    boolean running()   {
+        return sharer.isAlive();
+    }
+
+    private void run()  {
+        while (!closed) {
+            try {
+                share();
+            } catch (WakeupException | InterruptedException e) {
+                // Closed
+                return;
+            } catch (RuntimeException e)  {
+                // Any failure is retried, so that the sharing thread does not silently die
+                failures.incrementAndGet();
+                log.warn("Sharing of the decisions failed. It will be retried.", e);
+                LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(RETRY_BACKOFF_MS));
+            }
+        }
+    }
+
+    /**
+     * Creates the Kafka clients and shares the decisions until closed or until the clients fail.
+     */
+    private void share() throws InterruptedException {
+        Map<String, Object> producerConfig = new HashMap<>(clientConfig);
+        producerConfig.putIfAbsent(ProducerConfig.CLIENT_ID_CONFIG, "kubernetes-authorizer-decision-sharing");
+        producerConfig.putIfAbsent(ProducerConfig.ACKS_CONFIG, "1");
+        producerConfig.putIfAbsent(ProducerConfig.LINGER_MS_CONFIG, 10);
+
+        Map<String, Object> consumerConfig = new HashMap<>(clientConfig);
+        consumerConfig.putIfAbsent(ConsumerConfig.CLIENT_ID_CONFIG, "kubernetes-authorizer-decision-sharing");
+        // The partitions are assigned manually, so that every broker consumes all decisions
+        consumerConfig.remove(ConsumerConfig.GROUP_ID_CONFIG);
+        consumerConfig.put(ConsumerConfig.ENABLE_AUTO_COMMIT_CONFIG, false);
+
+        KafkaProducer<byte[], byte[]> producer = null;
+        KafkaConsumer<byte[], byte[]> kafkaConsumer = null;
+
+        try {
+            producer = new KafkaProducer<>(producerConfig, new ByteArraySerializer(), new ByteArraySerializer());
+            kafkaConsumer = new KafkaConsumer<>(consumerConfig, new ByteArrayDeserializer(), new ByteArrayDeserializer());
+            consumer = kafkaConsumer;
+            long summaryAtMs = System.currentTimeMillis() + SUMMARY_INTERVAL_MS;
+
+            while (!closed && !assign(kafkaConsumer))  {
+                LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(RETRY_BACKOFF_MS));
+            }
+
+            while (!closed) {
+                send(producer);
+
+                if (ready.getAsBoolean())   {
+                    for (ConsumerRecord<byte[], byte[]> record : kafkaConsumer.poll(POLL_TIMEOUT))   {
+                        receive(record.key(), record.value());
+                    }
+                } else {
+                    // The decisions are not consumed yet, they are read from the beginning of the topic later
+                    LockSupport.parkNanos(POLL_TIMEOUT.toNanos());
+                }
+
+                if (System.currentTimeMillis() >= summaryAtMs)  {
+                    summaryAtMs = System.currentTimeMillis() + SUMMARY_INTERVAL_MS;
+                    logSummary();
+                }
+            }
+        } finally {
+            consumer = null;
+
+            // The broker might be shutting down already, so the unsent decisions are not waited for
+            if (producer != null)   {
+                producer.close(Duration.ZERO);
+            }
+
+            if (kafkaConsumer != null)  {
+                kafkaConsumer.close(Duration.ZERO);
+            }
+        }
+    }
+
+    /**
+     * Creates the topic unless it exists and assigns all its partitions to the consumer. The decisions are consumed from
+     * the beginning, so that the cache of a starting broker is filled with the decisions of the other brokers.
+     *
+     * @return  True if the partitions were assigned. False if it should be retried later.
+     */
+    private boolean assign(KafkaConsumer<byte[], byte[]> kafkaConsumer) throws InterruptedException {
+        Map<String, String> topicConfig = new HashMap<>();
+        topicConfig.put(TopicConfig.CLEANUP_POLICY_CONFIG, TopicConfig.CLEANUP_POLICY_COMPACT + "," + TopicConfig.CLEANUP_POLICY_DELETE);
+        topicConfig.put(TopicConfig.RETENTION_MS_CONFIG, String.valueOf(retentionMs));
+        topicConfig.put(TopicConfig.SEGMENT_MS_CONFIG, String.valueOf(retentionMs));
+
+        try (AdminClient admin = AdminClient.create(clientConfig)) {
+            // The number of partitions does not matter much as every broker consumes all of them
+            NewTopic newTopic = new NewTopic(topic, Optional.of(1), Optional.empty()).configs(topicConfig);
+            admin.createTopics(Collections.singleton(newTopic)).all().get(TOPIC_TIMEOUT_MS, TimeUnit.MILLISECONDS);
+            log.info("Created topic {} for sharing the decisions", topic);
+        } catch (ExecutionException e) {
+            if (!(e.getCause() instanceof TopicExistsException))    {
+                log.warn("Failed to create topic {} for sharing the decisions. It will be retried.", topic, e.getCause());
+                return false;
+            }
+        } catch (TimeoutException | KafkaException e) {
+            log.warn("Failed to create topic {} for sharing the decisions. It will be retried.", topic, e);
+            return false;
+        }
+
+        try {
+            List<PartitionInfo> partitionInfos = kafkaConsumer.partitionsFor(topic, Duration.ofMillis(TOPIC_TIMEOUT_MS));
+
+            if (partitionInfos == null || partitionInfos.isEmpty())  {
+                log.warn("Topic {} for sharing the decisions has no partitions yet. It will be retried.", topic);
+                return false;
+            }
+
+            List<TopicPartition> partitions = new ArrayList<>(partitionInfos.size());
+
+            for (PartitionInfo partitionInfo : partitionInfos)   {
+                partitions.add(new TopicPartition(partitionInfo.topic(), partitionInfo.partition()));
+            }
+
+            kafkaConsumer.assign(partitions);
+            kafkaConsumer.seekToBeginning(partitions);
+        } catch (WakeupException e) {
+            throw e;
+        } catch (KafkaException e) {
+            log.warn("Failed to get the partitions of topic {} for sharing the decisions. It will be retried.", topic, e);
+            return false;
+        }
+
+        log.info("Sharing the decisions through topic {}", topic);
+        return true;
+    }
+
+    /**
+     * Sends the decisions waiting in the buffer. The failed sends are not retried, the decisions are just not shared.
+     */
+    private void send(KafkaProducer<byte[], byte[]> producer)  {
+        buffer.drain(decision -> producer.send(new ProducerRecord<>(topic, encodeKey(decision.key), encodeValue(decision)), (metadata, e) -> {
+            if (e != null)  {
+                log.debug("Failed to share decision for {}", decision.key, e);
+            }
+        }));
+    }
+
+    /**
+     * Adds the consumed decision to the cache. Decisions which cannot be decoded are ignored.
+     */
+    void receive(byte[] key, byte[] value)  {
+        if (key == null || value == null)   {
+            return;
+        }
+
+        try {
+            Decision decision = decode(key, value);
+
+            if (decision != null && cache.share(decision.key, decision.allowed, decision.reviewedAtMs, decision.expiresAtMs, maxClockSkewMs))  {
+                received.incrementAndGet();
+            }
+        } catch (IOException e) {
+            log.debug("Ignoring shared decision which cannot be decoded", e);
+        }
+    }
+
+    private void logSummary()   {
+        long droppedDecisions = dropped.getAndSet(0);
+
+        if (droppedDecisions > 0)   {
+            log.warn("{} decisions were not shared because the decision sharing buffer was full", droppedDecisions);
+        }
+    }
+
+    static byte[] encodeKey(AuthorizationCache.Key key)  {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            out.writeByte(VERSION);
+            out.writeUTF(key.user());
+            out.writeInt(key.userGroups().size());
+
+            for (String userGroup : key.userGroups())  {
+                out.writeUTF(userGroup);
+            }
+
+            out.writeUTF(key.group());
+            out.writeUTF(key.resource());
+            out.writeUTF(key.verb());
+            out.writeUTF(key.name() != null ? key.name() : "");
+        } catch (IOException e) {
+            throw new IllegalStateException("Failed to encode the decision key", e);
+        }
+
+        return bytes.toByteArray();
+    }
+
+    static byte[] encodeValue(Decision decision)  {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            out.writeByte(VERSION);
+            out.writeBoolean(decision.allowed);
+            out.writeLong(decision.reviewedAtMs);
+            out.writeLong(decision.expiresAtMs);
+        } catch (IOException e) {
+            throw new IllegalStateException("Failed to encode the decision", e);
+        }
+
+        return bytes.toByteArray();
+    }
+
+    /**
+     * @return  The decoded decision or null if it uses an unknown version of the format
+     */
+    static Decision decode(byte[] key, byte[] value) throws IOException {
+        try (DataInputStream keyIn = new DataInputStream(new ByteArrayInputStream(key));
+             DataInputStream valueIn = new DataInputStream(new ByteArrayInputStream(value))) {
+            if (keyIn.readByte() != VERSION || valueIn.readByte() != VERSION)  {
+                return null;
+            }
+
+            String user = keyIn.readUTF();
+            int count = keyIn.readInt();
+
+            if (count < 0)  {
+                throw new IOException("Invalid number of groups " + count);
+            }
+
+            List<String> userGroups = count == 0 ? Collections.emptyList() : new ArrayList<>(count);
+
+            for (int i = 0; i < count; i++) {
+                userGroups.add(keyIn.readUTF());
+            }
+
+            String group = keyIn.readUTF();
+            String resource = keyIn.readUTF();
+            String verb = keyIn.readUTF();
+            String name = keyIn.readUTF();
+
+            boolean allowed = valueIn.readBoolean();
+            long reviewedAtMs = valueIn.readLong();
+            long expiresAtMs = valueIn.readLong();
+
+            return new Decision(new AuthorizationCache.Key(user, userGroups, group, resource, verb, name), allowed, reviewedAtMs, expiresAtMs);
+        }
+    }
+
+    static final class Decision {
+        private final AuthorizationCache.Key key;
+        private final boolean allowed;
+        private final long reviewedAtMs;
+        private final long expiresAtMs;
+
+        Decision(AuthorizationCache.Key key, boolean allowed, long reviewedAtMs, long expiresAtMs) {
+            this.key = key;
+            this.allowed = allowed;
+            this.reviewedAtMs = reviewedAtMs;
+            this.expiresAtMs = expiresAtMs;
+        }
+
+        AuthorizationCache.Key key() {
+            return key;
+        }
+
+        boolean allowed() {
+            return allowed;
+        }
+    }
+}
@@ -0,0 +1,278 @@
+package io.strimzi.kafka.kubernetes.authorizer;
+
+import io.strimzi.kafka.kubernetes.common.AdmissionController;
+import io.strimzi.kafka.kubernetes.common.ConfigUtils;
+import kafka.security.authorizer.AclAuthorizer;
+import org.apache.kafka.common.Endpoint;
+import org.apache.kafka.common.acl.AclBinding;
+import org.apache.kafka.common.acl.AclBindingFilter;
+import org.apache.kafka.common.resource.ResourcePattern;
+import org.apache.kafka.common.security.auth.KafkaPrincipal;
+import org.apache.kafka.server.authorizer.AclCreateResult;
+import org.apache.kafka.server.authorizer.AclDeleteResult;
+import org.apache.kafka.server.authorizer.Action;
+import org.apache.kafka.server.authorizer.AuthorizableRequestContext;
+import org.apache.kafka.server.authorizer.AuthorizationResult;
+import org.apache.kafka.server.authorizer.Authorizer;
+import org.apache.kafka.server.authorizer.AuthorizerServerInfo;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Authorizer implementing the Kafka Authorizer API from KIP-504. Unlike the KubernetesAuthorizer, it gets all actions
+ * of a request in a single batch. The actions are deduplicated and the reviews which cannot be decided locally or from
+ * the cache are done in parallel. The latency of the whole batch is then roughly the latency of a single review.
+ *
+ * Regular users are passed to the AclAuthorizer shipped with Apache Kafka. The ACL management is passed to it as well.
+ */
+public class KubernetesBatchAuthorizer implements Authorizer {
+    private static final Logger log = LoggerFactory.getLogger(KubernetesBatchAuthorizer.class);
+
+    public static final String BATCH_PARALLELISM_CONFIG = "kubernetes.authorizer.batch.parallelism";
+
+    private static final int DEFAULT_BATCH_PARALLELISM = 8;
+    // Queued reviews per review thread
+    private static final int REVIEW_QUEUE_SIZE_PER_THREAD = 16;
+
+    private AclAuthorizer aclAuthorizer;
+    private ServiceAccountAuthorizer serviceAccountAuthorizer;
+    private ExecutorService reviewExecutor;
+
+    @Override
+    public void configure(Map<String, ?> configs) {
+        serviceAccountAuthorizer = new ServiceAccountAuthorizer();
+        serviceAccountAuthorizer.configure(configs);
+
+        aclAuthorizer = new AclAuthorizer();
+        aclAuthorizer.configure(configs);
+
+        int parallelism = ConfigUtils.getInt(configs, BATCH_PARALLELISM_CONFIG, DEFAULT_BATCH_PARALLELISM);
+        reviewExecutor = reviewExecutor(parallelism);
+
+        log.info("Kubernetes batch authorizer is configured with up to {} parallel reviews", parallelism);
+    }
+
+    /**
+     * Creates the executor for the parallel reviews. When its queue is full, the review is done in the calling thread,
+     * which slows down the requests instead of queueing an unbounded number of reviews.
+     *
+     * @param parallelism   Number of the review threads
+     *
+     * @return  Review executor
+     */
+    /*test*/ static ThreadPoolExecutor reviewExecutor(int parallelism)    {
+        AtomicInteger threadCounter = new AtomicInteger(0);
+
+        ThreadPoolExecutor executor = new ThreadPoolExecutor(parallelism, parallelism, 60, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(parallelism * REVIEW_QUEUE_SIZE_PER_THREAD), runnable -> {
+                    Thread thread = new Thread(runnable, "kubernetes-authorizer-review-" + threadCounter.getAndIncrement());
+                    thread.setDaemon(true);
+                    return thread;
+                }, new ThreadPoolExecutor.CallerRunsPolicy());
+        executor.allowCoreThreadTimeOut(true);
+
+        return executor;
+    }
+
+    @Override
+    public Map<Endpoint, ? extends CompletionStage<Void>> start(AuthorizerServerInfo serverInfo) {
+        return aclAuthorizer.start(serverInfo);
+    }
+
+    @Override
+    public List<AuthorizationResult> authorize(AuthorizableRequestContext requestContext, List<Action> actions) {
+        KafkaPrincipal principal = requestContext.principal();
+
+        if (serviceAccountAuthorizer.isServiceAccount(principal))    {
+            return authorizeServiceAccount(principal, actions);
+        } else {
+            log.debug("Authorizing regular user {}:{}. Will be passed to AclAuthorizer.", principal.getPrincipalType(), principal.getName());
+            boolean sharingTopicDenied = false;
+
+            for (Action action : actions)   {
+                serviceAccountAuthorizer.recordDelegation(principal, action.resourcePattern().resourceType(), action.operation(), action.resourcePattern().name());
+                sharingTopicDenied |= serviceAccountAuthorizer.isSharingTopicDenied(principal, action.resourcePattern().resourceType(), action.resourcePattern().name());
+            }
+
+            List<AuthorizationResult> results = aclAuthorizer.authorize(requestContext, actions);
+
+            if (sharingTopicDenied) {
+                results = denySharingTopic(principal, actions, results);
+            }
+
+            return results;
+        }
+    }
+
+    /**
+     * Denies the actions on the topic used to share the decisions regardless of the ACLs
+     */
+    private List<AuthorizationResult> denySharingTopic(KafkaPrincipal principal, List<Action> actions, List<AuthorizationResult> aclResults)  {
+        List<AuthorizationResult> results = new ArrayList<>(aclResults);
+
+        for (int i = 0; i < actions.size(); i++)    {
+            ResourcePattern pattern = actions.get(i).resourcePattern();
+
+            if (serviceAccountAuthorizer.isSharingTopicDenied(principal, pattern.resourceType(), pattern.name()))  {
+                log.debug("Regular user {}:{} is denied access to the topic used to share the decisions", principal.getPrincipalType(), principal.getName());
+                results.set(i, AuthorizationResult.DENIED);
+            }
+        }
+
+        return results;
+    }
+
+    private List<AuthorizationResult> authorizeServiceAccount(KafkaPrincipal principal, List<Action> actions)  {
+        String sa = principal.getName();
+        AuthorizationResult[] results = new AuthorizationResult[actions.size()];
+        // Memoized decisions and failed reviews are not memoized (again)
+        boolean[] skipMemo = new boolean[actions.size()];
+        Map<AuthorizationCache.Key, List<Integer>> pendingReviews = new LinkedHashMap<>();
+        Map<AuthorizationCache.Key, AdmissionController.Lane> lanes = new HashMap<>();
+        long generation = serviceAccountAuthorizer.memoGeneration();
+
+        for (int i = 0; i < actions.size(); i++)    {
+            Action action = actions.get(i);
+            ResourcePattern pattern = action.resourcePattern();
+
+            Boolean decision = serviceAccountAuthorizer.memoizedDecision(principal, pattern.resourceType(), action.operation(), pattern.name(), generation);
+            skipMemo[i] = decision != null;
+
+            if (decision == null)   {
+                decision = serviceAccountAuthorizer.decideWithoutReview(sa, pattern.resourceType(), action.operation(), pattern.name());
+            }
+
+            if (decision == null)   {
+                decision = serviceAccountAuthorizer.decideLocally(principal, pattern.resourceType(), action.operation(), pattern.name());
+
+                if (decision == null)   {
+                    // Identical actions in the same batch are reviewed only once
+                    AuthorizationCache.Key reviewKey = serviceAccountAuthorizer.reviewKey(principal, pattern.resourceType(), action.operation(), pattern.name());
+                    pendingReviews.computeIfAbsent(reviewKey, key -> new ArrayList<>()).add(i);
+                    // The review shared by several actions uses the highest priority lane of them
+                    lanes.merge(reviewKey, ServiceAccountAuthorizer.lane(action.operation()), (a, b) -> a.compareTo(b) <= 0 ? a : b);
+                }
+            }
+
+            if (decision != null)   {
+                results[i] = toResult(decision);
+            }
+        }
+
+        if (!pendingReviews.isEmpty())  {
+            reviewAll(pendingReviews, lanes, results, skipMemo);
+        }
+
+        for (int i = 0; i < actions.size(); i++)    {
+            ResourcePattern pattern = actions.get(i).resourcePattern();
+            boolean allowed = results[i] == AuthorizationResult.ALLOWED;
+
+            if (!skipMemo[i])   {
+                serviceAccountAuthorizer.memoizeDecision(principal, pattern.resourceType(), actions.get(i).operation(), pattern.name(), allowed, generation);
+            }
+
+            serviceAccountAuthorizer.recordDecision(sa, pattern.resourceType(), actions.get(i).operation(), pattern.name(), allowed);
+        }
+
+        return Arrays.asList(results);
+    }
+
+    private void reviewAll(Map<AuthorizationCache.Key, List<Integer>> pendingReviews, Map<AuthorizationCache.Key, AdmissionController.Lane> lanes,
+                           AuthorizationResult[] results, boolean[] failed) {
+        List<Map.Entry<AuthorizationCache.Key, List<Integer>>> reviews = new ArrayList<>(pendingReviews.entrySet());
+        List<Future<Boolean>> futures = new ArrayList<>(reviews.size());
+
+        // The first review is done in the calling thread, the others are done in parallel
+        for (int i = 1; i < reviews.size(); i++)    {
+            AuthorizationCache.Key reviewKey = reviews.get(i).getKey();
+            AdmissionController.Lane lane = lanes.get(reviewKey);
+            futures.add(reviewExecutor.submit(() -> serviceAccountAuthorizer.review(reviewKey, lane)));
+        }
+
+        boolean firstDecision;
+        try {
+            firstDecision = serviceAccountAuthorizer.review(reviews.get(0).getKey(), lanes.get(reviews.get(0).getKey()));
+        } catch (IOException e) {
+            log.info("Failed to process access review", e);
+            firstDecision = false;
+            setFailed(failed, reviews.get(0).getValue());
+        }
+        setResults(results, reviews.get(0).getValue(), firstDecision);
+
+        for (int i = 1; i < reviews.size(); i++)    {
+            boolean decision;
+
+            try {
+                decision = futures.get(i - 1).get();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                log.info("Interrupted while waiting for access review");
+                decision = false;
+                setFailed(failed, reviews.get(i).getValue());
+            } catch (ExecutionException e) {
+                log.info("Failed to process access review", e.getCause());
+                decision = false;
+                setFailed(failed, reviews.get(i).getValue());
+            }
+
+            setResults(results, reviews.get(i).getValue(), decision);
+        }
+    }
+
+    private static void setResults(AuthorizationResult[] results, List<Integer> indexes, boolean decision)    {
+        for (int index : indexes)   {
+            results[index] = toResult(decision);
+        }
+    }
+
+    private static void setFailed(boolean[] failed, List<Integer> indexes)    {
+        for (int index : indexes)   {
+            failed[index] = true;
+        }
+    }
+
+    private static AuthorizationResult toResult(boolean decision)   {
+        return decision ? AuthorizationResult.ALLOWED : AuthorizationResult.DENIED;
+    }
+
+    @Override
+    public List<? extends CompletionStage<AclCreateResult>> createAcls(AuthorizableRequestContext requestContext, List<AclBinding> aclBindings) {
+        return aclAuthorizer.createAcls(requestContext, aclBindings);
+    }
+
+    @Override
+    public List<? extends CompletionStage<AclDeleteResult>> deleteAcls(AuthorizableRequestContext requestContext, List<AclBindingFilter> aclBindingFilters) {
+        return aclAuthorizer.deleteAcls(requestContext, aclBindingFilters);
+    }
+
+    @Override
+    public Iterable<AclBinding> acls(AclBindingFilter filter) {
+        return aclAuthorizer.acls(filter);
+    }
+
+    @Override
+    public void close() {
+        if (reviewExecutor != null) {
+            reviewExecutor.shutdownNow();
+        }
+
+        serviceAccountAuthorizer.close();
+        aclAuthorizer.close();
+    }
+}
@@ -0,0 +1,120 @@
+package io.strimzi.kafka.kubernetes.authorizer;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.function.Consumer;
+
+/**
+ * Bounded lock-free ring buffer for multiple producers and a single consumer. Every slot has a sequence number which
+ * tells the producers whether the slot is free and the consumer whether the slot is published. The producers claim
+ * the slots by a CAS on the tail. When the buffer is full, offer() fails instead of waiting.
+ *
+ * @param <E>   Type of the elements
+ */
+public class MpscRingBuffer<E> {
+    private final int capacity;
+    private final int mask;
+    private final AtomicReferenceArray<E> elements;
+    private final AtomicLongArray sequences;
+    private final AtomicLong tail = new AtomicLong(0);
+
+    // Used only by the consumer thread
+    private long head = 0;
+
+    /**
+     * @param capacity  Minimal capacity of the buffer. It is rounded up to the next power of two.
+     */
+    public MpscRingBuffer(int capacity) {
+        if (capacity <= 0 || capacity > (1 << 30))  {
+            throw new IllegalArgumentException("The ring buffer capacity has to be between 1 and 2^30");
+        }
+
+        this.capacity = capacity == 1 ? 1 : Integer.highestOneBit(capacity - 1) << 1;
+        this.mask = this.capacity - 1;
+        this.elements = new AtomicReferenceArray<>(this.capacity);
+        this.sequences = new AtomicLongArray(this.capacity);
+
+        for (int i = 0; i < this.capacity; i++) {
+            sequences.set(i, i);
+        }
+    }
+
+    /**
+     * Adds the element to the buffer. Can be called from any thread.
+     *
+     * @param element   The element
+     *
+     * @return  True if the element was added. False if the buffer is full.
+     */
+    public boolean offer(E element)  {
+        long position = tail.get();
+
+        while (true) {
+            int index = (int) (position & mask);
+            long difference = sequences.get(index) - position;
+
+            if (difference == 0)    {
+                if (tail.compareAndSet(position, position + 1)) {
+                    elements.lazySet(index, element);
+                    // Publishes the element to the consumer
+                    sequences.set(index, position + 1);
+                    return true;
+                }
+
+                position = tail.get();
+            } else if (difference < 0)  {
+                // The slot was not consumed yet => the buffer is full
+                return false;
+            } else {
+                // Another producer claimed this slot
+                position = tail.get();
+            }
+        }
+    }
+
+    /**
+     * Removes the oldest element from the buffer. Can be called only from the consumer thread.
+     *
+     * @return  The element or null if the buffer is empty
+     */
+    public E poll() {
+        int index = (int) (head & mask);
+
+        if (sequences.get(index) != head + 1)   {
+            // Empty or the producer did not publish the element yet
+            return null;
+        }
+
+        E element = elements.get(index);
+        elements.lazySet(index, null);
+        // Frees the slot for the producers
+        sequences.set(index, head + capacity);
+        head++;
+
+        return element;
+    }
+
+    /**
+     * Removes all published elements from the buffer. Can be called only from the consumer thread.
+     *
+     * @param consumer  Consumer of the removed elements
+     *
+     * @return  Number of removed elements
+     */
+    public int drain(Consumer<E> consumer)  {
+        int drained = 0;
+        E element;
+
+        while ((element = poll()) != null)  {
+            consumer.accept(element);
+            drained++;
+        }
+
+        return drained;
+    }
+
+    public int capacity() {
+        return capacity;
+    }
+}
@@ -0,0 +1,313 @@
+package io.strimzi.kafka.kubernetes.authorizer;
+
+import io.fabric8.kubernetes.api.model.rbac.ClusterRole;
+import io.fabric8.kubernetes.api.model.rbac.ClusterRoleBinding;
+import io.fabric8.kubernetes.api.model.rbac.PolicyRule;
+import io.fabric8.kubernetes.api.model.rbac.Role;
+import io.fabric8.kubernetes.api.model.rbac.RoleBinding;
+import io.fabric8.kubernetes.api.model.rbac.RoleRef;
+import io.fabric8.kubernetes.api.model.rbac.Subject;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Evaluates the Kubernetes RBAC rules locally. It keeps a mirror of the Roles and RoleBindings from the namespace of
+ * the broker and of the ClusterRoles and ClusterRoleBindings. The bindings are indexed by their subjects, so that
+ * evaluating a decision needs only few hash lookups and matching of the rules of the roles bound to the user.
+ *
+ * RBAC rules are only additive. So the evaluator can only say that something is allowed. When no rule allows it,
+ * other authorizers used by the Kubernetes cluster (webhooks etc.) might still allow it.
+ *
+ * The updates are applied under a lock and published as an immutable snapshot. The evaluation does not need any
+ * locking.
+ */
+public class RbacEvaluator implements RbacWatcher.Listener {
+    private static final String SERVICE_ACCOUNT_PREFIX = "system:serviceaccount:";
+    private static final String SERVICE_ACCOUNTS_GROUP = "system:serviceaccounts";
+    private static final String AUTHENTICATED_GROUP = "system:authenticated";
+
+    private static final String USER_KIND = "User";
+    private static final String GROUP_KIND = "Group";
+    private static final String SERVICE_ACCOUNT_KIND = "ServiceAccount";
+    private static final String CLUSTER_ROLE_KIND = "ClusterRole";
+    private static final String WILDCARD = "*";
+
+    private final String namespace;
+
+    private final Map<String, List<PolicyRule>> roles = new HashMap<>();
+    private final Map<String, List<PolicyRule>> clusterRoles = new HashMap<>();
+    private final Map<String, Binding> roleBindings = new HashMap<>();
+    private final Map<String, Binding> clusterRoleBindings = new HashMap<>();
+
+    private boolean rolesSynced = false;
+    private boolean clusterRolesSynced = false;
+    private boolean roleBindingsSynced = false;
+    private boolean clusterRoleBindingsSynced = false;
+
+    private volatile Snapshot snapshot = null;
+
+    /**
+     * @param namespace     Namespace of the broker in which the Roles and RoleBindings are mirrored
+     */
+    public RbacEvaluator(String namespace) {
+        this.namespace = namespace;
+    }
+
+    /**
+     * @return  True when all the resources were loaded and the evaluator can be used
+     */
+    public boolean isSynced()   {
+        return snapshot != null;
+    }
+
+    /**
+     * Checks whether the RBAC rules allow given request.
+     *
+     * @param user      Name of the user
+     * @param groups    Groups of the user (the implicit groups of service accounts are added automatically)
+     * @param apiGroup  API group of the resource
+     * @param resource  Resource type
+     * @param verb      Verb
+     * @param name      Name of the resource or empty string for requests for all resources
+     *
+     * @return  True if some rule allows this request. False otherwise.
+     */
+    public boolean isAllowed(String user, Collection<String> groups, String apiGroup, String resource, String verb, String name)    {
+        Snapshot current = snapshot;
+
+        if (current == null)    {
+            return false;
+        }
+
+        if (matches(current, current.bindingsBySubject.get(userKey(user)), apiGroup, resource, verb, name)) {
+            return true;
+        }
+
+        for (String group : groups) {
+            if (matches(current, current.bindingsBySubject.get(groupKey(group)), apiGroup, resource, verb, name)) {
+                return true;
+            }
+        }
+
+        if (user.startsWith(SERVICE_ACCOUNT_PREFIX))    {
+            String serviceAccountNamespace = user.substring(SERVICE_ACCOUNT_PREFIX.length(), user.lastIndexOf(':'));
+
+            return matches(current, current.bindingsBySubject.get(groupKey(SERVICE_ACCOUNTS_GROUP)), apiGroup, resource, verb, name)
+                    || matches(current, current.bindingsBySubject.get(groupKey(SERVICE_ACCOUNTS_GROUP + ":" + serviceAccountNamespace)), apiGroup, resource, verb, name)
+                    || matches(current, current.bindingsBySubject.get(groupKey(AUTHENTICATED_GROUP)), apiGroup, resource, verb, name);
+        }
+
+        return false;
+    }
+
+    private static boolean matches(Snapshot current, List<Binding> bindings, String apiGroup, String resource, String verb, String name)  {
+        if (bindings == null)   {
+            return false;
+        }
+
+        for (Binding binding : bindings)    {
+            List<PolicyRule> rules = CLUSTER_ROLE_KIND.equals(binding.roleKind) ? current.clusterRoles.get(binding.roleName) : current.roles.get(binding.roleName);
+
+            if (rules != null)  {
+                for (PolicyRule rule : rules)   {
+                    if (ruleMatches(rule, apiGroup, resource, verb, name))  {
+                        return true;
+                    }
+                }
+            }
+        }
+
+        return false;
+    }
+
+    private static boolean ruleMatches(PolicyRule rule, String apiGroup, String resource, String verb, String name)  {
+        return contains(rule.getApiGroups(), apiGroup)
+                && contains(rule.getResources(), resource)
+                && contains(rule.getVerbs(), verb)
+                && (rule.getResourceNames() == null || rule.getResourceNames().isEmpty() || (!name.isEmpty() && rule.getResourceNames().contains(name)));
+    }
+
+    private static boolean contains(List<String> values, String value)  {
+        return values != null && (values.contains(value) || values.contains(WILDCARD));
+    }
+
+    /*
+     * Updates from the watches
+     */
+
+    public synchronized void resetRoles(List<Role> items)   {
+        roles.clear();
+
+        for (Role role : items) {
+            updateRole(role);
+        }
+
+        rolesSynced = true;
+        publish();
+    }
+
+    public synchronized void roleChanged(Role role, boolean deleted)   {
+        if (deleted)    {
+            roles.remove(role.getMetadata().getName());
+        } else {
+            updateRole(role);
+        }
+
+        publish();
+    }
+
+    private void updateRole(Role role)  {
+        roles.put(role.getMetadata().getName(), rules(role.getRules()));
+    }
+
+    public synchronized void resetClusterRoles(List<ClusterRole> items)   {
+        clusterRoles.clear();
+
+        for (ClusterRole role : items) {
+            updateClusterRole(role);
+        }
+
+        clusterRolesSynced = true;
+        publish();
+    }
+
+    public synchronized void clusterRoleChanged(ClusterRole role, boolean deleted)   {
+        if (deleted)    {
+            clusterRoles.remove(role.getMetadata().getName());
+        } else {
+            updateClusterRole(role);
+        }
+
+        publish();
+    }
+
+    private void updateClusterRole(ClusterRole role)  {
+        clusterRoles.put(role.getMetadata().getName(), rules(role.getRules()));
+    }
+
+    public synchronized void resetRoleBindings(List<RoleBinding> items)   {
+        roleBindings.clear();
+
+        for (RoleBinding binding : items) {
+            roleBindings.put(binding.getMetadata().getName(), new Binding(binding.getRoleRef(), binding.getSubjects()));
+        }
+
+        roleBindingsSynced = true;
+        publish();
+    }
+
+    public synchronized void roleBindingChanged(RoleBinding binding, boolean deleted)   {
+        if (deleted)    {
+            roleBindings.remove(binding.getMetadata().getName());
+        } else {
+            roleBindings.put(binding.getMetadata().getName(), new Binding(binding.getRoleRef(), binding.getSubjects()));
+        }
+
+        publish();
+    }
+
+    public synchronized void resetClusterRoleBindings(List<ClusterRoleBinding> items)   {
+        clusterRoleBindings.clear();
+
+        for (ClusterRoleBinding binding : items) {
+            clusterRoleBindings.put(binding.getMetadata().getName(), new Binding(binding.getRoleRef(), binding.getSubjects()));
+        }
+
+        clusterRoleBindingsSynced = true;
+        publish();
+    }
+
+    public synchronized void clusterRoleBindingChanged(ClusterRoleBinding binding, boolean deleted)   {
+        if (deleted)    {
+            clusterRoleBindings.remove(binding.getMetadata().getName());
+        } else {
+            clusterRoleBindings.put(binding.getMetadata().getName(), new Binding(binding.getRoleRef(), binding.getSubjects()));
+        }
+
+        publish();
+    }
+
+    private static List<PolicyRule> rules(List<PolicyRule> rules)    {
+        return rules == null ? Collections.emptyList() : new ArrayList<>(rules);
+    }
+
+    private void publish()  {
+        if (!rolesSynced || !clusterRolesSynced || !roleBindingsSynced || !clusterRoleBindingsSynced)   {
+            return;
+        }
+
+        Map<String, List<Binding>> bindingsBySubject = new HashMap<>();
+        index(bindingsBySubject, roleBindings.values());
+        index(bindingsBySubject, clusterRoleBindings.values());
+
+        snapshot = new Snapshot(new HashMap<>(roles), new HashMap<>(clusterRoles), bindingsBySubject);
+    }
+
+    private void index(Map<String, List<Binding>> index, Collection<Binding> bindings)  {
+        for (Binding binding : bindings)    {
+            for (String subject : binding.subjects)   {
+                index.computeIfAbsent(subject, key -> new ArrayList<>()).add(binding);
+            }
+        }
+    }
+
+    /*
+     * Subjects are indexed by their kind and name. The service accounts are indexed as users since that is how they
+     * authenticate.
+     */
+
+    private static String userKey(String user)    {
+        return USER_KIND + "/" + user;
+    }
+
+    private static String groupKey(String group)    {
+        return GROUP_KIND + "/" + group;
+    }
+
+    private String subjectKey(Subject subject)    {
+        if (SERVICE_ACCOUNT_KIND.equals(subject.getKind())) {
+            // Service accounts in RoleBindings default to the namespace of the binding
+            String serviceAccountNamespace = subject.getNamespace() != null && !subject.getNamespace().isEmpty() ? subject.getNamespace() : namespace;
+            return userKey(SERVICE_ACCOUNT_PREFIX + serviceAccountNamespace + ":" + subject.getName());
+        } else if (GROUP_KIND.equals(subject.getKind()))    {
+            return groupKey(subject.getName());
+        } else {
+            return userKey(subject.getName());
+        }
+    }
+
+    private final class Binding {
+        private final String roleKind;
+        private final String roleName;
+        private final List<String> subjects;
+
+        private Binding(RoleRef roleRef, List<Subject> subjects) {
+            this.roleKind = roleRef != null ? roleRef.getKind() : null;
+            this.roleName = roleRef != null ? roleRef.getName() : null;
+            this.subjects = new ArrayList<>();
+
+            if (subjects != null)   {
+                for (Subject subject : subjects)    {
+                    this.subjects.add(subjectKey(subject));
+                }
+            }
+        }
+    }
+
+    private static final class Snapshot {
+        private final Map<String, List<PolicyRule>> roles;
+        private final Map<String, List<PolicyRule>> clusterRoles;
+        private final Map<String, List<Binding>> bindingsBySubject;
+
+        private Snapshot(Map<String, List<PolicyRule>> roles, Map<String, List<PolicyRule>> clusterRoles, Map<String, List<Binding>> bindingsBySubject) {
+            this.roles = roles;
+            this.clusterRoles = clusterRoles;
+            this.bindingsBySubject = bindingsBySubject;
+        }
+    }
+}
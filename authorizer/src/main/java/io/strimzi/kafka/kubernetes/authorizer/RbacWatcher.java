@@ -0,0 +1,178 @@
+package io.strimzi.kafka.kubernetes.authorizer;
+
+import io.fabric8.kubernetes.api.model.ServiceAccount;
+import io.fabric8.kubernetes.api.model.rbac.ClusterRole;
+import io.fabric8.kubernetes.api.model.rbac.ClusterRoleBinding;
+import io.fabric8.kubernetes.api.model.rbac.Role;
+import io.fabric8.kubernetes.api.model.rbac.RoleBinding;
+import io.fabric8.kubernetes.client.KubernetesClient;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+
+/**
+ * Feeds the listeners (the RBAC evaluator and the cache invalidator) with the Roles and RoleBindings from the
+ * namespace of the broker and with all ClusterRoles and ClusterRoleBindings. Optionally, it watches also the
+ * ServiceAccounts from the namespace of the broker.
+ */
+public class RbacWatcher {
+    private static final long RETRY_INTERVAL_MS = 5_000L;
+
+    /**
+     * Listener for the RBAC resources. The lists and the watch events of all resource types are delivered one by one
+     * from the single watcher thread, so a listener never sees two calls at the same time.
+     */
+    public interface Listener {
+        void resetRoles(List<Role> items);
+        void roleChanged(Role role, boolean deleted);
+        void resetClusterRoles(List<ClusterRole> items);
+        void clusterRoleChanged(ClusterRole role, boolean deleted);
+        void resetRoleBindings(List<RoleBinding> items);
+        void roleBindingChanged(RoleBinding binding, boolean deleted);
+        void resetClusterRoleBindings(List<ClusterRoleBinding> items);
+        void clusterRoleBindingChanged(ClusterRoleBinding binding, boolean deleted);
+
+        default void resetServiceAccounts(List<ServiceAccount> items)   {
+            // Only some listeners need the ServiceAccounts
+        }
+
+        default void serviceAccountChanged(ServiceAccount serviceAccount, boolean deleted)   {
+            // Only some listeners need the ServiceAccounts
+        }
+    }
+
+    private final ScheduledExecutorService executor;
+    private final List<ResourceWatch<?>> watches = new ArrayList<>(5);
+
+    /**
+     * @param client                    Kubernetes client
+     * @param namespace                 Namespace of the broker
+     * @param listeners                 Listeners which should receive the resources
+     * @param watchServiceAccounts      Whether the ServiceAccounts should be watched as well
+     */
+    public RbacWatcher(KubernetesClient client, String namespace, List<Listener> listeners, boolean watchServiceAccounts) {
+        this.executor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "kubernetes-authorizer-rbac-watcher");
+            thread.setDaemon(true);
+            return thread;
+        });
+
+        ResourceWatch<Role> roles = new ResourceWatch<>("Roles",
+            () -> client.rbac().roles().inNamespace(namespace).list(),
+            (resourceVersion, watcher) -> client.rbac().roles().inNamespace(namespace).withResourceVersion(resourceVersion).watch(watcher),
+            new ResourceWatch.Handler<Role>() {
+                @Override
+                public void reset(List<Role> items) {
+                    for (Listener listener : listeners)  {
+                        listener.resetRoles(items);
+                    }
+                }
+
+                @Override
+                public void changed(Role item, boolean deleted) {
+                    for (Listener listener : listeners)  {
+                        listener.roleChanged(item, deleted);
+                    }
+                }
+            }, executor, RETRY_INTERVAL_MS);
+
+        ResourceWatch<RoleBinding> roleBindings = new ResourceWatch<>("RoleBindings",
+            () -> client.rbac().roleBindings().inNamespace(namespace).list(),
+            (resourceVersion, watcher) -> client.rbac().roleBindings().inNamespace(namespace).withResourceVersion(resourceVersion).watch(watcher),
+            new ResourceWatch.Handler<RoleBinding>() {
+                @Override
+                public void reset(List<RoleBinding> items) {
+                    for (Listener listener : listeners)  {
+                        listener.resetRoleBindings(items);
+                    }
+                }
+
+                @Override
+                public void changed(RoleBinding item, boolean deleted) {
+                    for (Listener listener : listeners)  {
+                        listener.roleBindingChanged(item, deleted);
+                    }
+                }
+            }, executor, RETRY_INTERVAL_MS);
+
+        ResourceWatch<ClusterRole> clusterRoles = new ResourceWatch<>("ClusterRoles",
+            () -> client.rbac().clusterRoles().list(),
+            (resourceVersion, watcher) -> client.rbac().clusterRoles().withResourceVersion(resourceVersion).watch(watcher),
+            new ResourceWatch.Handler<ClusterRole>() {
+                @Override
+                public void reset(List<ClusterRole> items) {
+                    for (Listener listener : listeners)  {
+                        listener.resetClusterRoles(items);
+                    }
+                }
+
+                @Override
+                public void changed(ClusterRole item, boolean deleted) {
+                    for (Listener listener : listeners)  {
+                        listener.clusterRoleChanged(item, deleted);
+                    }
+                }
+            }, executor, RETRY_INTERVAL_MS);
+
+        ResourceWatch<ClusterRoleBinding> clusterRoleBindings = new ResourceWatch<>("ClusterRoleBindings",
+            () -> client.rbac().clusterRoleBindings().list(),
+            (resourceVersion, watcher) -> client.rbac().clusterRoleBindings().withResourceVersion(resourceVersion).watch(watcher),
+            new ResourceWatch.Handler<ClusterRoleBinding>() {
+                @Override
+                public void reset(List<ClusterRoleBinding> items) {
+                    for (Listener listener : listeners)  {
+                        listener.resetClusterRoleBindings(items);
+                    }
+                }
+
+                @Override
+                public void changed(ClusterRoleBinding item, boolean deleted) {
+                    for (Listener listener : listeners)  {
+                        listener.clusterRoleBindingChanged(item, deleted);
+                    }
+                }
+            }, executor, RETRY_INTERVAL_MS);
+
+        watches.add(roles);
+        watches.add(roleBindings);
+        watches.add(clusterRoles);
+        watches.add(clusterRoleBindings);
+
+        if (watchServiceAccounts)   {
+            watches.add(new ResourceWatch<>("ServiceAccounts",
+                () -> client.serviceAccounts().inNamespace(namespace).list(),
+                (resourceVersion, watcher) -> client.serviceAccounts().inNamespace(namespace).withResourceVersion(resourceVersion).watch(watcher),
+                new ResourceWatch.Handler<ServiceAccount>() {
+                    @Override
+                    public void reset(List<ServiceAccount> items) {
+                        for (Listener listener : listeners)  {
+                            listener.resetServiceAccounts(items);
+                        }
+                    }
+
+                    @Override
+                    public void changed(ServiceAccount item, boolean deleted) {
+                        for (Listener listener : listeners)  {
+                            listener.serviceAccountChanged(item, deleted);
+                        }
+                    }
+                }, executor, RETRY_INTERVAL_MS));
+        }
+    }
+
+    public void start() {
+        for (ResourceWatch<?> watch : watches)  {
+            watch.start();
+        }
+    }
+
+    public void close() {
+        for (ResourceWatch<?> watch : watches)  {
+            watch.close();
+        }
+
+        executor.shutdownNow();
+    }
+}
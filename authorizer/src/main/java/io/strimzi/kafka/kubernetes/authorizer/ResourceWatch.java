@@ -0,0 +1,179 @@
+package io.strimzi.kafka.kubernetes.authorizer;
+
+import io.fabric8.kubernetes.api.model.HasMetadata;
+import io.fabric8.kubernetes.api.model.KubernetesResourceList;
+import io.fabric8.kubernetes.client.KubernetesClientException;
+import io.fabric8.kubernetes.client.Watch;
+import io.fabric8.kubernetes.client.Watcher;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.List;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Keeps a handler in sync with a Kubernetes resource type. It lists the resources first and then watches them for
+ * changes starting from the resource version of the list. When the watch is closed because of an error, it is resumed
+ * from the last seen resource version, so that no changes are missed and the resources do not need to be listed again.
+ * Only when the resource version is too old (HTTP 410 Gone) or the watch cannot be resumed, the resources are listed
+ * and watched again.
+ *
+ * @param <T>   Type of the watched resource
+ */
+class ResourceWatch<T extends HasMetadata> implements Watcher<T> {
+    private static final Logger log = LoggerFactory.getLogger(ResourceWatch.class);
+
+    private static final int HTTP_GONE = 410;
+
+    interface Lister<T extends HasMetadata>  {
+        KubernetesResourceList<T> list();
+    }
+
+    interface Watching<T> {
+        Watch watch(String resourceVersion, Watcher<T> watcher);
+    }
+
+    interface Handler<T>  {
+        void reset(List<T> items);
+        void changed(T item, boolean deleted);
+    }
+
+    private final String kind;
+    private final Lister<T> lister;
+    private final Watching<T> watching;
+    private final Handler<T> handler;
+    private final ScheduledExecutorService executor;
+    private final long retryIntervalMs;
+
+    private volatile boolean closed = false;
+    private volatile String resourceVersion;
+    private Watch watch;
+
+    ResourceWatch(String kind, Lister<T> lister, Watching<T> watching, Handler<T> handler, ScheduledExecutorService executor, long retryIntervalMs) {
+        this.kind = kind;
+        this.lister = lister;
+        this.watching = watching;
+        this.handler = handler;
+        this.executor = executor;
+        this.retryIntervalMs = retryIntervalMs;
+    }
+
+    void start()    {
+        executor.execute(this::sync);
+    }
+
+    private synchronized void sync()    {
+        if (closed) {
+            return;
+        }
+
+        if (watch != null)  {
+            watch.close();
+            watch = null;
+        }
+
+        try {
+            KubernetesResourceList<T> list = lister.list();
+            handler.reset(list.getItems());
+            resourceVersion = list.getMetadata().getResourceVersion();
+            watch = watching.watch(resourceVersion, this);
+
+            log.debug("Loaded {} {} and started watching them", list.getItems().size(), kind);
+        } catch (KubernetesClientException e)   {
+            log.warn("Failed to list and watch {}. Will retry in {} ms.", kind, retryIntervalMs, e);
+            executor.schedule(this::sync, retryIntervalMs, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    private synchronized void resume()    {
+        if (closed) {
+            return;
+        }
+
+        if (watch != null)  {
+            watch.close();
+            watch = null;
+        }
+
+        try {
+            watch = watching.watch(resourceVersion, this);
+
+            log.debug("Resumed watching {} from resource version {}", kind, resourceVersion);
+        } catch (KubernetesClientException e)   {
+            log.warn("Failed to resume watching {}. They will be listed again.", kind, e);
+            sync();
+        }
+    }
+
+    /**
+     * Called from the websocket thread of the watch. The event is handed over to the executor, so that the handler
+     * gets the lists and the events of all resource types from one thread and in the order they were received.
+     */
+    @Override
+    public void eventReceived(Action action, T resource) {
+        try {
+            executor.execute(() -> deliver(action, resource));
+        } catch (RejectedExecutionException e)  {
+            log.debug("Ignoring {} event for {} received after the watch was closed", action, kind);
+        }
+    }
+
+    private synchronized void deliver(Action action, T resource)  {
+        if (closed) {
+            return;
+        }
+
+        try {
+            switch (action) {
+                case ADDED:
+                case MODIFIED:
+                    handler.changed(resource, false);
+                    break;
+                case DELETED:
+                    handler.changed(resource, true);
+                    break;
+                case ERROR:
+                    log.warn("Received error event while watching {}", kind);
+                    return;
+            }
+        } catch (RuntimeException e)    {
+            // The resource version is not advanced, so the watch never resumes past the event which was not applied
+            log.warn("Failed to handle {} event for {}. They will be listed again.", action, kind, e);
+            executor.execute(this::sync);
+            return;
+        }
+
+        // The resource version is advanced only once the event was applied
+        if (resource != null && resource.getMetadata() != null && resource.getMetadata().getResourceVersion() != null)  {
+            resourceVersion = resource.getMetadata().getResourceVersion();
+        }
+    }
+
+    /*test*/ synchronized String resourceVersion()  {
+        return resourceVersion;
+    }
+
+    @Override
+    public void onClose(KubernetesClientException cause) {
+        if (!closed && cause != null)   {
+            if (cause.getCode() == HTTP_GONE || resourceVersion == null)   {
+                log.info("Watch for {} was closed and cannot be resumed. It will be restarted.", kind, cause);
+                executor.execute(this::sync);
+            } else {
+                log.info("Watch for {} was closed. It will be resumed from resource version {}.", kind, resourceVersion, cause);
+                executor.execute(this::resume);
+            }
+        }
+    }
+
+    synchronized void close()   {
+        closed = true;
+
+        if (watch != null)  {
+            watch.close();
+            watch = null;
+        }
+    }
+}
@@ -0,0 +1,1037 @@
+package io.strimzi.kafka.kubernetes.authorizer;
+
+import io.fabric8.kubernetes.client.KubernetesClient;
+import io.strimzi.kafka.kubernetes.common.AdmissionController;
+import io.strimzi.kafka.kubernetes.common.AuthenticationEvents;
+import io.strimzi.kafka.kubernetes.common.CircuitBreaker;
+import io.strimzi.kafka.kubernetes.common.ConfigUtils;
+import io.strimzi.kafka.kubernetes.common.DecisionMemo;
+import io.strimzi.kafka.kubernetes.common.KubernetesClientProvider;
+import io.strimzi.kafka.kubernetes.common.KubernetesPrincipal;
+import io.strimzi.kafka.kubernetes.common.MetricsProvider;
+import io.strimzi.kafka.kubernetes.common.ReviewMetrics;
+import io.strimzi.kafka.kubernetes.common.SingleFlight;
+import okhttp3.Call;
+import okhttp3.OkHttpClient;
+import okhttp3.Request;
+import okhttp3.RequestBody;
+import okhttp3.Response;
+import okhttp3.ResponseBody;
+import org.apache.kafka.common.acl.AclOperation;
+import org.apache.kafka.common.metrics.Metrics;
+import org.apache.kafka.common.resource.ResourceType;
+import org.apache.kafka.common.security.auth.KafkaPrincipal;
+import org.apache.kafka.common.utils.Time;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.regex.Pattern;
+
+/**
+ * Authorizes the Kubernetes service accounts based on the Kubernetes RBAC. This class does the actual work for both
+ * the KubernetesAuthorizer and the KubernetesBatchAuthorizer. It maps the Kafka operations and resources to the
+ * Kubernetes verbs and resources and reviews them using the local RBAC evaluation, the decision cache and the
+ * SubjectAccessReview API.
+ */
+public class ServiceAccountAuthorizer {
+    private static final Logger log = LoggerFactory.getLogger(ServiceAccountAuthorizer.class);
+
+    private static String STRIMZI_API_GROUP = "kafka.strimzi.io";
+    private static String STRIMZI_KAFKA_TOPICS = "kafkatopics";
+    private static String STRIMZI_KAFKAS = "kafkas";
+
+    private static String KUBERNETES_GET = "get";
+    private static String KUBERNETES_UPDATE = "update";
+    private static String KUBERNETES_CREATE = "create";
+    private static String KUBERNETES_LIST = "list";
+    private static String KUBERNETES_PATCH = "patch";
+
+    public static final String CACHE_ENABLED_CONFIG = "kubernetes.authorizer.cache.enabled";
+    public static final String CACHE_ALLOWED_TTL_MS_CONFIG = "kubernetes.authorizer.cache.allowed.ttl.ms";
+    public static final String CACHE_DENIED_TTL_MS_CONFIG = "kubernetes.authorizer.cache.denied.ttl.ms";
+    public static final String CACHE_MAX_SIZE_CONFIG = "kubernetes.authorizer.cache.max.size";
+    public static final String CACHE_GRACE_MS_CONFIG = "kubernetes.authorizer.cache.grace.ms";
+    public static final String CACHE_SNAPSHOT_FILE_CONFIG = "kubernetes.authorizer.cache.snapshot.file";
+    public static final String CACHE_SNAPSHOT_INTERVAL_MS_CONFIG = "kubernetes.authorizer.cache.snapshot.interval.ms";
+    public static final String CACHE_SNAPSHOT_REVALIDATE_CONFIG = "kubernetes.authorizer.cache.snapshot.revalidate";
+    public static final String CACHE_INVALIDATION_ENABLED_CONFIG = "kubernetes.authorizer.cache.invalidation.enabled";
+
+    private static final long DEFAULT_CACHE_ALLOWED_TTL_MS = 60_000L;
+    private static final long DEFAULT_CACHE_DENIED_TTL_MS = 10_000L;
+    private static final int DEFAULT_CACHE_MAX_SIZE = 10_000;
+    private static final long DEFAULT_CACHE_GRACE_MS = 0L;
+    private static final long DEFAULT_CACHE_SNAPSHOT_INTERVAL_MS = 60_000L;
+
+    public static final String CONFIG_PREFIX = "kubernetes.authorizer.";
+    public static final String REVIEW_TIMEOUT_MS_CONFIG = CONFIG_PREFIX + "review.timeout.ms";
+
+    private static final long DEFAULT_REVIEW_TIMEOUT_MS = 0L;
+    private static final int REFRESH_QUEUE_SIZE = 1_000;
+
+    public static final String RBAC_LOCAL_ENABLED_CONFIG = "kubernetes.authorizer.rbac.local.enabled";
+    public static final String RBAC_LOCAL_DENY_CONFIG = "kubernetes.authorizer.rbac.local.deny";
+    public static final String WILDCARD_REVIEW_ENABLED_CONFIG = "kubernetes.authorizer.wildcard.review.enabled";
+    public static final String SESSION_MEMO_ENABLED_CONFIG = "kubernetes.authorizer.session.memo.enabled";
+    public static final String SESSION_MEMO_TTL_MS_CONFIG = "kubernetes.authorizer.session.memo.ttl.ms";
+    public static final String SESSION_MEMO_MAX_SIZE_CONFIG = "kubernetes.authorizer.session.memo.max.size";
+
+    private static final long DEFAULT_SESSION_MEMO_TTL_MS = 10_000L;
+    private static final int DEFAULT_SESSION_MEMO_MAX_SIZE = 100;
+
+    public static final String PREFETCH_ENABLED_CONFIG = "kubernetes.authorizer.prefetch.enabled";
+    public static final String PREFETCH_TOP_CONFIG = "kubernetes.authorizer.prefetch.top";
+    public static final String PREFETCH_PARALLELISM_CONFIG = "kubernetes.authorizer.prefetch.parallelism";
+    public static final String PREFETCH_HISTORY_HALF_LIFE_MS_CONFIG = "kubernetes.authorizer.prefetch.history.half.life.ms";
+    public static final String PREFETCH_HISTORY_MAX_SUBJECTS_CONFIG = "kubernetes.authorizer.prefetch.history.max.subjects";
+    public static final String PREFETCH_HISTORY_MAX_ENTRIES_CONFIG = "kubernetes.authorizer.prefetch.history.max.entries";
+
+    private static final int DEFAULT_PREFETCH_TOP = 20;
+    private static final int DEFAULT_PREFETCH_PARALLELISM = 4;
+    private static final long DEFAULT_PREFETCH_HISTORY_HALF_LIFE_MS = 3_600_000L;
+    private static final int DEFAULT_PREFETCH_HISTORY_MAX_SUBJECTS = 10_000;
+    private static final int DEFAULT_PREFETCH_HISTORY_MAX_ENTRIES = 64;
+    private static final int PREFETCH_QUEUE_SIZE = 1_000;
+
+    private static final Pattern SERVICE_ACCOUNT = Pattern.compile("^system:serviceaccount:([a-z0-9.-]+:)([a-z0-9.-]+)$");
+
+    // Upper bound of the memoized principal classifications. When it is reached, an arbitrary classification is
+    // removed for every new one.
+    private static final int MAX_CLASSIFIED_PRINCIPALS = 10_000;
+
+    // Only the decisions of the TOPIC and CLUSTER operations (which need reviews) are memoized per session
+    private static final int OPERATIONS = AclOperation.values().length;
+    private static final int MEMO_ACTIONS = 2 * OPERATIONS;
+
+    // The review attributes for the TOPIC and CLUSTER resources. They are built once so that mapping the operation does
+    // not create any new strings.
+    private static final Map<ResourceType, Map<AclOperation, ReviewAttributes>> REVIEW_ATTRIBUTES = new EnumMap<>(ResourceType.class);
+
+    static {
+        REVIEW_ATTRIBUTES.put(ResourceType.TOPIC, reviewAttributes(STRIMZI_KAFKA_TOPICS));
+        REVIEW_ATTRIBUTES.put(ResourceType.CLUSTER, reviewAttributes(STRIMZI_KAFKAS));
+    }
+
+    private Set<String> superUsers = Collections.emptySet();
+    private final ConcurrentHashMap<String, Boolean> classifiedPrincipals = new ConcurrentHashMap<>();
+    private KubernetesClient client;
+    private OkHttpClient httpClient;
+    private String namespace;
+    private AuthorizationCache cache;
+    private ThreadPoolExecutor refreshExecutor;
+    private Path snapshotFile;
+    private ScheduledExecutorService snapshotExecutor;
+    private final Set<AuthorizationCache.Key> refreshing = ConcurrentHashMap.newKeySet();
+    private CircuitBreaker circuitBreaker;
+    private AdmissionController admissionController;
+    private long reviewTimeoutMs;
+    private Metrics metricsRegistry;
+    private AuthorizerMetrics metrics;
+    private DecisionLog decisionLog;
+    private final SingleFlight<AuthorizationCache.Key, Boolean> inFlightReviews = new SingleFlight<>();
+    private RbacEvaluator rbacEvaluator;
+    private RbacWatcher rbacWatcher;
+    private CacheInvalidator cacheInvalidator;
+    private boolean rbacLocalDeny;
+    private boolean wildcardReview;
+    private boolean sessionMemo;
+    private long sessionMemoTtlMs;
+    private int sessionMemoMaxSize;
+    private AccessHistory accessHistory;
+    private int prefetchTop;
+    private ThreadPoolExecutor prefetchExecutor;
+    private AuthenticationEvents.Listener authenticationListener;
+    private DecisionSharing decisionSharing;
+
+    public void configure(Map<String, ?> configs) {
+        // Get the shared Kubernetes client
+        client = KubernetesClientProvider.acquire(configs);
+        namespace = client.getConfiguration().getNamespace();
+        httpClient = client.adapt(OkHttpClient.class);
+
+        metricsRegistry = MetricsProvider.acquire();
+        metrics = new AuthorizerMetrics(metricsRegistry);
+
+        decisionLog = DecisionLog.fromConfig(configs);
+        if (decisionLog != null)    {
+            decisionLog.start();
+        }
+
+        superUsers = ConfigUtils.parseSuperUsers(ConfigUtils.getString(configs, "super.users", null));
+
+        if (ConfigUtils.getBoolean(configs, CACHE_ENABLED_CONFIG, false))    {
+            long allowedTtlMs = ConfigUtils.getLong(configs, CACHE_ALLOWED_TTL_MS_CONFIG, DEFAULT_CACHE_ALLOWED_TTL_MS);
+            long deniedTtlMs = ConfigUtils.getLong(configs, CACHE_DENIED_TTL_MS_CONFIG, DEFAULT_CACHE_DENIED_TTL_MS);
+            int maxSize = ConfigUtils.getInt(configs, CACHE_MAX_SIZE_CONFIG, DEFAULT_CACHE_MAX_SIZE);
+            long graceMs = ConfigUtils.getLong(configs, CACHE_GRACE_MS_CONFIG, DEFAULT_CACHE_GRACE_MS);
+
+            log.info("Authorization cache is enabled (allowed TTL {} ms, denied TTL {} ms, max. size {}, grace {} ms)", allowedTtlMs, deniedTtlMs, maxSize, graceMs);
+            cache = new AuthorizationCache(Time.SYSTEM, allowedTtlMs, deniedTtlMs, maxSize, graceMs);
+
+            if (graceMs > 0)    {
+                // Stale decisions are refreshed in the background. When the queue is full, the refresh is skipped and
+                // the decision will be refreshed with the next authorization.
+                refreshExecutor = new ThreadPoolExecutor(1, 1, 0, TimeUnit.MILLISECONDS, new ArrayBlockingQueue<>(REFRESH_QUEUE_SIZE), runnable -> {
+                    Thread thread = new Thread(runnable, "kubernetes-authorizer-refresh");
+                    thread.setDaemon(true);
+                    return thread;
+                });
+            }
+
+            String snapshotFileName = ConfigUtils.getString(configs, CACHE_SNAPSHOT_FILE_CONFIG, null);
+
+            if (snapshotFileName != null && !snapshotFileName.isEmpty())  {
+                snapshotFile = Paths.get(snapshotFileName);
+                startSnapshots(ConfigUtils.getLong(configs, CACHE_SNAPSHOT_INTERVAL_MS_CONFIG, DEFAULT_CACHE_SNAPSHOT_INTERVAL_MS),
+                        revalidateSnapshot(configs));
+            }
+
+            if (ConfigUtils.getBoolean(configs, CACHE_INVALIDATION_ENABLED_CONFIG, false))    {
+                log.info("Authorization cache invalidation is enabled");
+                cacheInvalidator = new CacheInvalidator(cache, namespace);
+            }
+
+            // With the invalidation, the shared decisions are imported only once the invalidation is synced
+            decisionSharing = DecisionSharing.fromConfig(configs, cache, Math.max(allowedTtlMs, deniedTtlMs),
+                    cacheInvalidator != null ? cacheInvalidator::synced : () -> true);
+            if (decisionSharing != null)    {
+                decisionSharing.start();
+            }
+        } else if (ConfigUtils.getBoolean(configs, DecisionSharing.ENABLED_CONFIG, false))    {
+            log.warn("Sharing of the decisions requires the authorization cache and will be disabled");
+        }
+
+        reviewTimeoutMs = ConfigUtils.getLong(configs, REVIEW_TIMEOUT_MS_CONFIG, DEFAULT_REVIEW_TIMEOUT_MS);
+        circuitBreaker = CircuitBreaker.fromConfig(configs, CONFIG_PREFIX, "SubjectAccessReview");
+        admissionController = AdmissionController.fromConfig(configs, CONFIG_PREFIX, "SubjectAccessReview");
+
+        wildcardReview = ConfigUtils.getBoolean(configs, WILDCARD_REVIEW_ENABLED_CONFIG, false);
+
+        if (wildcardReview)  {
+            log.info("Wildcard reviews are enabled");
+        }
+
+        sessionMemo = ConfigUtils.getBoolean(configs, SESSION_MEMO_ENABLED_CONFIG, false);
+
+        if (sessionMemo)    {
+            sessionMemoTtlMs = ConfigUtils.getLong(configs, SESSION_MEMO_TTL_MS_CONFIG, DEFAULT_SESSION_MEMO_TTL_MS);
+            sessionMemoMaxSize = ConfigUtils.getInt(configs, SESSION_MEMO_MAX_SIZE_CONFIG, DEFAULT_SESSION_MEMO_MAX_SIZE);
+
+            log.info("Per-session decision memo is enabled (TTL {} ms, max. size {})", sessionMemoTtlMs, sessionMemoMaxSize);
+        }
+
+        if (ConfigUtils.getBoolean(configs, RBAC_LOCAL_ENABLED_CONFIG, false))    {
+            rbacLocalDeny = ConfigUtils.getBoolean(configs, RBAC_LOCAL_DENY_CONFIG, false);
+
+            log.info("Local RBAC evaluation is enabled (local deny {})", rbacLocalDeny ? "enabled" : "disabled");
+            rbacEvaluator = new RbacEvaluator(namespace);
+        }
+
+        if (ConfigUtils.getBoolean(configs, PREFETCH_ENABLED_CONFIG, false))    {
+            if (cache == null)  {
+                log.warn("Prefetching of the decisions requires the authorization cache and will be disabled");
+            } else {
+                startPrefetch(configs);
+            }
+        }
+
+        // The local RBAC evaluation and the cache invalidation share the watches
+        List<RbacWatcher.Listener> rbacListeners = new ArrayList<>(2);
+
+        if (rbacEvaluator != null)  {
+            rbacListeners.add(rbacEvaluator);
+        }
+
+        if (cacheInvalidator != null)   {
+            rbacListeners.add(cacheInvalidator);
+        }
+
+        if (!rbacListeners.isEmpty())   {
+            rbacWatcher = new RbacWatcher(client, namespace, rbacListeners, cacheInvalidator != null);
+            rbacWatcher.start();
+        }
+    }
+
+    public void close() {
+        if (authenticationListener != null) {
+            AuthenticationEvents.unregister(authenticationListener);
+        }
+
+        if (prefetchExecutor != null)   {
+            prefetchExecutor.shutdownNow();
+        }
+
+        if (decisionSharing != null)    {
+            decisionSharing.close();
+        }
+
+        if (snapshotExecutor != null)   {
+            snapshotExecutor.shutdownNow();
+            writeSnapshot();
+        }
+
+        if (rbacWatcher != null)    {
+            rbacWatcher.close();
+        }
+
+        if (refreshExecutor != null)    {
+            refreshExecutor.shutdownNow();
+        }
+
+        if (decisionLog != null)    {
+            decisionLog.close();
+        }
+
+        KubernetesClientProvider.release(client);
+        MetricsProvider.release(metricsRegistry);
+    }
+
+    /**
+     * Starts tracking the access history and prefetching the decisions of the authenticated service accounts.
+     */
+    private void startPrefetch(Map<String, ?> configs)  {
+        prefetchTop = ConfigUtils.getInt(configs, PREFETCH_TOP_CONFIG, DEFAULT_PREFETCH_TOP);
+        int parallelism = ConfigUtils.getInt(configs, PREFETCH_PARALLELISM_CONFIG, DEFAULT_PREFETCH_PARALLELISM);
+        long halfLifeMs = ConfigUtils.getLong(configs, PREFETCH_HISTORY_HALF_LIFE_MS_CONFIG, DEFAULT_PREFETCH_HISTORY_HALF_LIFE_MS);
+        int maxSubjects = ConfigUtils.getInt(configs, PREFETCH_HISTORY_MAX_SUBJECTS_CONFIG, DEFAULT_PREFETCH_HISTORY_MAX_SUBJECTS);
+        int maxEntries = ConfigUtils.getInt(configs, PREFETCH_HISTORY_MAX_ENTRIES_CONFIG, DEFAULT_PREFETCH_HISTORY_MAX_ENTRIES);
+
+        log.info("Prefetching of the decisions is enabled (top {}, parallelism {}, history half-life {} ms, max. {} subjects with {} entries)",
+                prefetchTop, parallelism, halfLifeMs, maxSubjects, maxEntries);
+
+        accessHistory = new AccessHistory(Time.SYSTEM, maxSubjects, maxEntries, halfLifeMs);
+
+        // When the queue is full, the prefetch is skipped and the decisions will be reviewed when they are needed
+        AtomicInteger threadCounter = new AtomicInteger(0);
+        prefetchExecutor = new ThreadPoolExecutor(parallelism, parallelism, 60, TimeUnit.SECONDS, new ArrayBlockingQueue<>(PREFETCH_QUEUE_SIZE), runnable -> {
+            Thread thread = new Thread(runnable, "kubernetes-authorizer-prefetch-" + threadCounter.getAndIncrement());
+            thread.setDaemon(true);
+            return thread;
+        }, new ThreadPoolExecutor.DiscardPolicy());
+        prefetchExecutor.allowCoreThreadTimeOut(true);
+
+        authenticationListener = principal -> {
+            if (isServiceAccount(principal))    {
+                prefetchExecutor.execute(() -> prefetch(principal));
+            }
+        };
+        AuthenticationEvents.register(authenticationListener);
+    }
+
+    /**
+     * Reviews the decisions which the principal needed most often in the past and which are not cached yet. The
+     * reviews are done in parallel and in the revalidation lane of the admission control, so that they do not delay
+     * the reviews of the client requests.
+     *
+     * @param principal     The authenticated principal
+     *
+     * @return  Number of prefetched decisions
+     */
+    int prefetch(KafkaPrincipal principal)  {
+        Set<AuthorizationCache.Key> reviewKeys = new LinkedHashSet<>();
+
+        for (AccessHistory.Access access : accessHistory.top(principal.getName(), prefetchTop))  {
+            if (decideWithoutReview(principal.getName(), access.type(), access.op(), access.resourceName()) != null)   {
+                continue;
+            }
+
+            AuthorizationCache.Key reviewKey = reviewKey(principal, access.type(), access.op(), access.resourceName());
+
+            if (decideLocally(reviewKey) == null)   {
+                reviewKeys.add(reviewKey);
+            }
+        }
+
+        if (!reviewKeys.isEmpty())  {
+            log.debug("Prefetching {} decisions for {}", reviewKeys.size(), principal.getName());
+        }
+
+        for (AuthorizationCache.Key reviewKey : reviewKeys)  {
+            prefetchExecutor.execute(() -> {
+                try {
+                    review(reviewKey, AdmissionController.Lane.REVALIDATION);
+                } catch (IOException e) {
+                    log.debug("Failed to prefetch decision for {}", reviewKey, e);
+                }
+            });
+        }
+
+        return reviewKeys.size();
+    }
+
+    /**
+     * Loads the decisions from the snapshot file and schedules the periodic snapshots. The loaded decisions can be
+     * revalidated in the background, so that changes to the RBAC rights done while the broker was down take effect
+     * before the decisions expire.
+     */
+    private void startSnapshots(long intervalMs, boolean revalidate)  {
+        snapshotExecutor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "kubernetes-authorizer-snapshot");
+            thread.setDaemon(true);
+            return thread;
+        });
+
+        if (Files.exists(snapshotFile))  {
+            try {
+                List<AuthorizationCache.Key> loaded = AuthorizationCacheSnapshot.read(cache, snapshotFile);
+                log.info("Loaded {} decisions from the authorization cache snapshot {}", loaded.size(), snapshotFile);
+
+                if (revalidate && !loaded.isEmpty()) {
+                    snapshotExecutor.execute(() -> revalidate(loaded));
+                }
+            } catch (IOException e) {
+                log.warn("Failed to load the authorization cache snapshot {}", snapshotFile, e);
+            }
+        }
+
+        if (intervalMs > 0) {
+            snapshotExecutor.scheduleAtFixedRate(this::writeSnapshot, intervalMs, intervalMs, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    /**
+     * The cache invalidation sees only the RBAC changes done after the broker started. The decisions loaded from the
+     * snapshot are therefore always revalidated when it is enabled, otherwise the rights revoked while the broker was
+     * down would be kept for the whole (long) TTL.
+     */
+    /*test*/ static boolean revalidateSnapshot(Map<String, ?> configs)  {
+        if (ConfigUtils.getBoolean(configs, CACHE_SNAPSHOT_REVALIDATE_CONFIG, false))   {
+            return true;
+        } else if (ConfigUtils.getBoolean(configs, CACHE_INVALIDATION_ENABLED_CONFIG, false))   {
+            log.info("Decisions loaded from the authorization cache snapshot are revalidated because the cache invalidation is enabled");
+            return true;
+        }
+
+        return false;
+    }
+
+    private void revalidate(List<AuthorizationCache.Key> keys)  {
+        for (AuthorizationCache.Key key : keys) {
+            if (Thread.currentThread().isInterrupted()) {
+                return;
+            }
+
+            try {
+                reviewExactly(key, true, AdmissionController.Lane.REVALIDATION);
+            } catch (IOException e) {
+                log.debug("Failed to revalidate decision for {}", key, e);
+            }
+        }
+
+        log.debug("Revalidated {} decisions loaded from the authorization cache snapshot", keys.size());
+    }
+
+    private void writeSnapshot()  {
+        try {
+            int written = AuthorizationCacheSnapshot.write(cache, snapshotFile);
+            log.debug("Written {} decisions to the authorization cache snapshot {}", written, snapshotFile);
+        } catch (IOException e) {
+            log.warn("Failed to write the authorization cache snapshot {}", snapshotFile, e);
+        }
+    }
+
+    /**
+     * @return  True if the principal is a Kubernetes service account which should be authorized by this class
+     */
+    public boolean isServiceAccount(KafkaPrincipal principal)  {
+        if (!KafkaPrincipal.USER_TYPE.equals(principal.getPrincipalType())) {
+            return false;
+        }
+
+        // The same principals authorize over and over again, so the result of the regular expression is memoized
+        String name = principal.getName();
+        Boolean serviceAccount = classifiedPrincipals.get(name);
+
+        if (serviceAccount == null) {
+            serviceAccount = SERVICE_ACCOUNT.matcher(name).matches();
+
+            if (classifiedPrincipals.size() >= MAX_CLASSIFIED_PRINCIPALS)   {
+                Iterator<String> iterator = classifiedPrincipals.keySet().iterator();
+
+                if (iterator.hasNext()) {
+                    iterator.next();
+                    iterator.remove();
+                }
+            }
+
+            classifiedPrincipals.put(name, serviceAccount);
+        }
+
+        return serviceAccount;
+    }
+
+    /**
+     * Authorizes a single operation.
+     *
+     * @param principal     Principal of the service account
+     * @param type          Type of the Kafka resource
+     * @param op            Kafka operation
+     * @param resourceName  Name of the Kafka resource
+     *
+     * @return  True if the operation is allowed. False otherwise.
+     */
+    public boolean authorize(KafkaPrincipal principal, ResourceType type, AclOperation op, String resourceName) {
+        String sa = principal.getName();
+        long generation = memoGeneration();
+        Boolean decision = memoizedDecision(principal, type, op, resourceName, generation);
+
+        if (decision == null)   {
+            try {
+                decision = decide(principal, type, op, resourceName);
+                memoizeDecision(principal, type, op, resourceName, decision, generation);
+            } catch (IOException e)   {
+                // Failed reviews are not memoized
+                log.info("Failed to process access review", e);
+                decision = false;
+            }
+        }
+
+        recordDecision(sa, type, op, resourceName, decision);
+
+        return decision;
+    }
+
+    private boolean decide(KafkaPrincipal principal, ResourceType type, AclOperation op, String resourceName) throws IOException {
+        Boolean decision = decideWithoutReview(principal.getName(), type, op, resourceName);
+
+        if (decision != null)   {
+            return decision;
+        }
+
+        decision = decideLocally(principal, type, op, resourceName);
+
+        if (decision != null)   {
+            return decision;
+        }
+
+        // The key is created only when the review is needed
+        return review(reviewKey(principal, type, op, resourceName), lane(op));
+    }
+
+    /**
+     * Returns the decision memoized for the connection of the principal. The decisions are memoized only for the
+     * principals created by the KubernetesPrincipalBuilder, because only they are unique per connection.
+     *
+     * @param generation    Generation returned by memoGeneration()
+     *
+     * @return  The memoized decision or null if there is none
+     */
+    Boolean memoizedDecision(KafkaPrincipal principal, ResourceType type, AclOperation op, String resourceName, long generation)  {
+        if (!sessionMemo || !(principal instanceof KubernetesPrincipal))  {
+            return null;
+        }
+
+        int action = memoAction(type, op);
+
+        if (action < 0) {
+            return null;
+        }
+
+        return ((KubernetesPrincipal) principal).decisionMemo(sessionMemoMaxSize, MEMO_ACTIONS).get(resourceName, action, Time.SYSTEM.milliseconds(), generation);
+    }
+
+    /**
+     * Memoizes the decision for the connection of the principal.
+     *
+     * @param generation    Generation returned by memoGeneration() before the decision was made
+     */
+    void memoizeDecision(KafkaPrincipal principal, ResourceType type, AclOperation op, String resourceName, boolean decision, long generation)  {
+        if (!sessionMemo || !(principal instanceof KubernetesPrincipal))  {
+            return;
+        }
+
+        int action = memoAction(type, op);
+
+        if (action < 0) {
+            return;
+        }
+
+        DecisionMemo memo = ((KubernetesPrincipal) principal).decisionMemo(sessionMemoMaxSize, MEMO_ACTIONS);
+        long now = Time.SYSTEM.milliseconds();
+        memo.put(resourceName, action, decision, now, now + sessionMemoTtlMs, generation);
+    }
+
+    /**
+     * The memoized decisions are bound to the generation of the authorization cache, so that they are dropped together
+     * with the cached decisions when the cache is invalidated.
+     *
+     * @return  Generation of the memoized decisions
+     */
+    long memoGeneration()   {
+        return cache != null ? cache.generation() : 0L;
+    }
+
+    /**
+     * @return  Index of the action in the per-session memo or -1 if the action is not memoized
+     */
+    private static int memoAction(ResourceType type, AclOperation op)  {
+        switch (type)   {
+            case TOPIC:
+                return op.ordinal();
+            case CLUSTER:
+                return OPERATIONS + op.ordinal();
+            default:
+                return -1;
+        }
+    }
+
+    /**
+     * Decides the operations which do not map to any Kubernetes resource.
+     *
+     * @return  The decision or null if the operation needs to be reviewed
+     */
+    Boolean decideWithoutReview(String sa, ResourceType type, AclOperation op, String resourceName)  {
+        if (log.isTraceEnabled()) {
+            log.trace("Authorizing Kubernetes service account {}", sa);
+        }
+
+        if (superUsers.contains(sa))    {
+            log.debug("{} is supper user and can do whatever it wants", sa);
+            return true;
+        }
+
+        if (isSharingTopic(type, resourceName)) {
+            log.debug("{} is denied access to the topic used to share the decisions", sa);
+            return false;
+        }
+
+        switch (type)   {
+            case GROUP:
+            case TRANSACTIONAL_ID:
+                if (resourceName != null && resourceName.startsWith(sa)) {
+                    return true;
+                } else {
+                    return false;
+                }
+
+            case DELEGATION_TOKEN:
+                return false;
+
+            default:
+                return null;
+        }
+    }
+
+    /**
+     * Checks the access of a regular user to the topic used to share the decisions. All brokers trust the decisions in
+     * it, so only the super users (i.e. the brokers) can access it.
+     *
+     * @return  True if the access has to be denied regardless of the ACLs
+     */
+    public boolean isSharingTopicDenied(KafkaPrincipal principal, ResourceType type, String resourceName)  {
+        if (!isSharingTopic(type, resourceName)) {
+            return false;
+        }
+
+        boolean superUser = superUsers.contains(principal.toString())
+                || (KafkaPrincipal.USER_TYPE.equals(principal.getPrincipalType()) && superUsers.contains(principal.getName()));
+
+        return !superUser;
+    }
+
+    private boolean isSharingTopic(ResourceType type, String resourceName)  {
+        return decisionSharing != null && type == ResourceType.TOPIC && decisionSharing.topic().equals(resourceName);
+    }
+
+    /**
+     * Maps the Kafka operation on a TOPIC or CLUSTER resource to the Kubernetes access review attributes. The groups of
+     * the service account are known only for the principals created by the KubernetesPrincipalBuilder.
+     */
+    AuthorizationCache.Key reviewKey(KafkaPrincipal principal, ResourceType type, AclOperation op, String resourceName)  {
+        ReviewAttributes attributes = reviewAttributes(type, op);
+        return new AuthorizationCache.Key(principal.getName(), groups(principal), attributes.group, attributes.resource, attributes.verb, reviewedName(type, resourceName));
+    }
+
+    private static ReviewAttributes reviewAttributes(ResourceType type, AclOperation op)  {
+        Map<AclOperation, ReviewAttributes> operations = REVIEW_ATTRIBUTES.get(type);
+        return operations != null ? operations.getOrDefault(op, ReviewAttributes.NO_VERB) : ReviewAttributes.NO_VERB;
+    }
+
+    /**
+     * @return  Name of the reviewed resource. The resources which do not map to any Kubernetes resource have no name.
+     */
+    private static String reviewedName(ResourceType type, String resourceName)  {
+        return REVIEW_ATTRIBUTES.containsKey(type) ? resourceName : "";
+    }
+
+    private static List<String> groups(KafkaPrincipal principal)  {
+        return principal instanceof KubernetesPrincipal ? ((KubernetesPrincipal) principal).groups() : Collections.emptyList();
+    }
+
+    private static Map<AclOperation, ReviewAttributes> reviewAttributes(String resource)  {
+        Map<AclOperation, ReviewAttributes> operations = new EnumMap<>(AclOperation.class);
+
+        ReviewAttributes patch = new ReviewAttributes(STRIMZI_API_GROUP, resource, KUBERNETES_PATCH);
+        operations.put(AclOperation.ALTER, patch);
+        operations.put(AclOperation.ALTER_CONFIGS, patch);
+        operations.put(AclOperation.CLUSTER_ACTION, patch);
+
+        operations.put(AclOperation.CREATE, new ReviewAttributes(STRIMZI_API_GROUP, resource, KUBERNETES_CREATE));
+
+        ReviewAttributes list = new ReviewAttributes(STRIMZI_API_GROUP, resource, KUBERNETES_LIST);
+        operations.put(AclOperation.DESCRIBE, list);
+        operations.put(AclOperation.DESCRIBE_CONFIGS, list);
+
+        ReviewAttributes update = new ReviewAttributes(STRIMZI_API_GROUP, resource, KUBERNETES_UPDATE);
+        operations.put(AclOperation.IDEMPOTENT_WRITE, update);
+        operations.put(AclOperation.WRITE, update);
+
+        operations.put(AclOperation.READ, new ReviewAttributes(STRIMZI_API_GROUP, resource, KUBERNETES_GET));
+
+        // The remaining operations are reviewed without any verb and therefore denied
+        for (AclOperation op : AclOperation.values())   {
+            operations.putIfAbsent(op, new ReviewAttributes(STRIMZI_API_GROUP, resource, ""));
+        }
+
+        return operations;
+    }
+
+    /**
+     * @return  True if the review should first check the access to all resources of given type
+     */
+    private boolean useWildcard(String name)  {
+        return wildcardReview && name != null && !name.isEmpty();
+    }
+
+    private static AuthorizationCache.Key wildcardKey(AuthorizationCache.Key reviewKey)  {
+        return new AuthorizationCache.Key(reviewKey.user(), reviewKey.userGroups(), reviewKey.group(), reviewKey.resource(), reviewKey.verb(), "");
+    }
+
+    /**
+     * Decides the review using the local RBAC evaluation or the cache. With the wildcard reviews enabled, the access
+     * to all resources of given type is checked first.
+     *
+     * @return  The decision or null if the SubjectAccessReview is needed
+     */
+    Boolean decideLocally(AuthorizationCache.Key reviewKey)  {
+        return decideLocally(reviewKey.user(), reviewKey.userGroups(), reviewKey.group(), reviewKey.resource(), reviewKey.verb(), reviewKey.name());
+    }
+
+    /**
+     * Same as decideLocally(reviewKey(principal, type, op, resourceName)), but without creating the key. Most of the
+     * operations are decided locally, so the key is created only when the SubjectAccessReview is needed.
+     *
+     * @return  The decision or null if the SubjectAccessReview is needed
+     */
+    Boolean decideLocally(KafkaPrincipal principal, ResourceType type, AclOperation op, String resourceName)  {
+        ReviewAttributes attributes = reviewAttributes(type, op);
+        return decideLocally(principal.getName(), groups(principal), attributes.group, attributes.resource, attributes.verb, reviewedName(type, resourceName));
+    }
+
+    private Boolean decideLocally(String user, List<String> userGroups, String group, String resource, String verb, String name)  {
+        if (useWildcard(name) && Boolean.TRUE.equals(decideLocallyExactly(user, userGroups, group, resource, verb, "")))   {
+            return true;
+        }
+
+        return decideLocallyExactly(user, userGroups, group, resource, verb, name);
+    }
+
+    private Boolean decideLocallyExactly(AuthorizationCache.Key reviewKey)  {
+        return decideLocallyExactly(reviewKey.user(), reviewKey.userGroups(), reviewKey.group(), reviewKey.resource(), reviewKey.verb(), reviewKey.name());
+    }
+
+    private Boolean decideLocallyExactly(String user, List<String> userGroups, String group, String resource, String verb, String name)  {
+        if (rbacEvaluator != null && rbacEvaluator.isSynced())  {
+            if (rbacEvaluator.isAllowed(user, userGroups, group, resource, verb, name))   {
+                log.debug("User {} is allowed {} on {} {} by local RBAC evaluation", user, verb, resource, name);
+                return true;
+            } else if (rbacLocalDeny)   {
+                log.debug("User {} is denied {} on {} {} by local RBAC evaluation", user, verb, resource, name);
+                return false;
+            }
+        }
+
+        if (cache != null)  {
+            Boolean cached = cache.get(user, userGroups, group, resource, verb, name);
+
+            if (cached != null) {
+                if (log.isTraceEnabled()) {
+                    log.trace("Using cached decision for user {} {} on {} {}: {}", user, verb, resource, name, cached);
+                }
+
+                return cached;
+            }
+
+            if (refreshExecutor != null)    {
+                Boolean stale = cache.getStale(user, userGroups, group, resource, verb, name);
+
+                if (stale != null)  {
+                    AuthorizationCache.Key reviewKey = new AuthorizationCache.Key(user, userGroups, group, resource, verb, name);
+                    log.trace("Using stale decision for {} while it is refreshed: {}", reviewKey, stale);
+                    refreshInBackground(reviewKey);
+                    return stale;
+                }
+            }
+        }
+
+        return null;
+    }
+
+    /*test*/ void refreshInBackground(AuthorizationCache.Key reviewKey)  {
+        if (!refreshing.add(reviewKey)) {
+            return;
+        }
+
+        try {
+            refreshExecutor.execute(() -> {
+                try {
+                    // Only the stale decision is refreshed, not the wildcard decision for it
+                    reviewExactly(reviewKey, !reviewKey.name().isEmpty(), AdmissionController.Lane.REVALIDATION);
+                } catch (IOException e) {
+                    log.debug("Failed to refresh decision for {}", reviewKey, e);
+                } finally {
+                    refreshing.remove(reviewKey);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            // The task will never run, so the key has to be removed here for the decision to be refreshed next time
+            refreshing.remove(reviewKey);
+            log.debug("Refresh of decision for {} was skipped because the refresh queue is full", reviewKey);
+        }
+    }
+
+    /*test*/ void configureRefresh(ThreadPoolExecutor refreshExecutor)  {
+        this.refreshExecutor = refreshExecutor;
+    }
+
+    /*test*/ int refreshing()  {
+        return refreshing.size();
+    }
+
+    /**
+     * The reviews of the cluster actions (e.g. from other brokers) are admitted before the client reviews. The lane is
+     * chosen from the operation, because the review key of a cluster action is the same as of other operations on the
+     * cluster (for example ALTER).
+     *
+     * @param op    Kafka operation
+     *
+     * @return  Admission lane of the review
+     */
+    static AdmissionController.Lane lane(AclOperation op)  {
+        return op == AclOperation.CLUSTER_ACTION ? AdmissionController.Lane.CRITICAL : AdmissionController.Lane.NORMAL;
+    }
+
+    /**
+     * Reviews the access using the SubjectAccessReview API. Concurrent identical reviews share a single request. With
+     * the wildcard reviews enabled, the access to all resources of given type is reviewed first (unless its decision
+     * is already cached) and the named resource is reviewed only when it is denied.
+     *
+     * @return  True if the access is allowed. False otherwise.
+     */
+    boolean review(AuthorizationCache.Key reviewKey, AdmissionController.Lane lane) throws IOException  {
+        if (useWildcard(reviewKey.name())) {
+            AuthorizationCache.Key wildcardKey = wildcardKey(reviewKey);
+            Boolean wildcardDecision = decideLocallyExactly(wildcardKey);
+
+            if (wildcardDecision == null)   {
+                // Denied wildcard review is not final, so it is not logged as a denial
+                wildcardDecision = reviewExactly(wildcardKey, false, lane);
+            }
+
+            if (wildcardDecision)   {
+                return true;
+            }
+        }
+
+        return reviewExactly(reviewKey, true, lane);
+    }
+
+    private boolean reviewExactly(AuthorizationCache.Key reviewKey, boolean logDenied, AdmissionController.Lane lane) throws IOException  {
+        boolean result = inFlightReviews.execute(reviewKey, () -> {
+            long generation = cache != null ? cache.generation() : 0;
+            long reviewedAtMs = Time.SYSTEM.milliseconds();
+            boolean allowed = reviewAccess(reviewKey, lane);
+
+            if (cache != null)  {
+                long expiresAtMs = cache.put(reviewKey, allowed, generation);
+
+                // Only the decisions which made it into the cache are shared with the other brokers
+                if (decisionSharing != null && expiresAtMs > 0)  {
+                    decisionSharing.publish(reviewKey, allowed, reviewedAtMs, expiresAtMs);
+                }
+            }
+
+            return allowed;
+        });
+
+        if (result) {
+            log.debug("User {} is allowed {} on {} {}", reviewKey.user(), reviewKey.verb(), reviewKey.resource(), reviewKey.name());
+        } else if (logDenied) {
+            log.debug("User {} is denied {} on {} {}", reviewKey.user(), reviewKey.verb(), reviewKey.resource(), reviewKey.name());
+        } else {
+            log.debug("User {} is denied {} on all {}", reviewKey.user(), reviewKey.verb(), reviewKey.resource());
+        }
+
+        return result;
+    }
+
+    /**
+     * Records the decision about a service account in the metrics and in the decision log.
+     */
+    void recordDecision(String sa, ResourceType type, AclOperation op, String resourceName, boolean decision)  {
+        metrics.recordDecision(type, decision);
+
+        // Only the operations which need reviews are worth prefetching
+        if (accessHistory != null && REVIEW_ATTRIBUTES.containsKey(type))   {
+            accessHistory.record(sa, type, op, resourceName);
+        }
+
+        if (decisionLog != null)    {
+            decisionLog.record(KafkaPrincipal.USER_TYPE, sa, op, type, resourceName, decision ? DecisionLog.Decision.ALLOWED : DecisionLog.Decision.DENIED);
+        }
+    }
+
+    /**
+     * Records a regular user passed to the ACL authorizer in the metrics and in the decision log.
+     */
+    void recordDelegation(KafkaPrincipal principal, ResourceType type, AclOperation op, String resourceName)  {
+        metrics.recordDelegation();
+
+        if (decisionLog != null)    {
+            decisionLog.record(principal.getPrincipalType(), principal.getName(), op, type, resourceName, DecisionLog.Decision.DELEGATED);
+        }
+    }
+
+    /**
+     * @return  Metrics of the authorizer
+     */
+    AuthorizerMetrics metrics()  {
+        return metrics;
+    }
+
+    /*test*/ void configureAdmission(AuthorizerMetrics metrics, AdmissionController admissionController)  {
+        this.metrics = metrics;
+        this.admissionController = admissionController;
+    }
+
+    private boolean reviewAccess(AuthorizationCache.Key reviewKey, AdmissionController.Lane lane) throws IOException {
+        if (admissionController == null)    {
+            return sendReview(reviewKey);
+        }
+
+        boolean admitted;
+        try {
+            admitted = admissionController.acquire(lane);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while waiting for the SubjectAccessReview admission");
+        }
+
+        if (!admitted)  {
+            metrics.reviews().recordRejected(ReviewMetrics.Outcome.THROTTLED);
+            throw new IOException("Failed to review the access. The SubjectAccessReview was not admitted by the admission control.");
+        }
+
+        try {
+            return sendReview(reviewKey);
+        } finally {
+            admissionController.release();
+        }
+    }
+
+    private boolean sendReview(AuthorizationCache.Key reviewKey) throws IOException {
+        RequestBody body = SubjectAccessReviewUtils.getSubjectAccessReviewRequestBody(namespace, reviewKey.user(), reviewKey.userGroups(), reviewKey.group(), reviewKey.resource(), reviewKey.verb(), reviewKey.name());
+        String requestUrl = client.getMasterUrl().toString() + SubjectAccessReviewUtils.getUrlPath();
+
+        if (log.isTraceEnabled()) {
+            log.trace("Requesting SubjectAccessReview from {}: {}", requestUrl,
+                    SubjectAccessReviewUtils.getSubjectAccessReviewRequest(namespace, reviewKey.user(), reviewKey.userGroups(), reviewKey.group(), reviewKey.resource(), reviewKey.verb(), reviewKey.name()));
+        }
+
+        if (circuitBreaker != null && !circuitBreaker.tryAcquire())    {
+            metrics.reviews().recordRejected(ReviewMetrics.Outcome.CIRCUIT_OPEN);
+            throw new IOException("Failed to review the access. The SubjectAccessReview circuit breaker is open.");
+        }
+
+        long reviewStart = metrics.reviews().start();
+        // Anything which ends without a response is an IO error
+        ReviewMetrics.Outcome outcome = ReviewMetrics.Outcome.IO_ERROR;
+
+        Call call = httpClient.newCall(new Request.Builder().post(body).url(requestUrl).build());
+
+        if (reviewTimeoutMs > 0)    {
+            // Deadline for the whole call including connecting, retries and reading the response
+            call.timeout().timeout(reviewTimeoutMs, TimeUnit.MILLISECONDS);
+        }
+
+        try (Response reviewResult = call.execute()) {
+            ResponseBody reviewResultBody = reviewResult.body();
+
+            if (reviewResult.code() == 201 && reviewResultBody != null) {
+                SubjectAccessReviewUtils.Status status;
+
+                if (log.isTraceEnabled()) {
+                    String reviewResultJson = reviewResultBody.string();
+                    log.trace("Received SubjectAccessReview response: {}", reviewResultJson);
+                    status = SubjectAccessReviewUtils.parseStatus(reviewResultJson);
+                } else {
+                    status = SubjectAccessReviewUtils.parseStatus(reviewResultBody.byteStream());
+                }
+
+                if (!status.isAllowed() && status.reason() != null && log.isDebugEnabled()) {
+                    log.debug("SubjectAccessReview for {} did not allow the access: {}", reviewKey.user(), status.reason());
+                }
+
+                outcome = status.isAllowed() ? ReviewMetrics.Outcome.ALLOWED : ReviewMetrics.Outcome.DENIED;
+                return status.isAllowed();
+            } else {
+                outcome = ReviewMetrics.Outcome.HTTP_ERROR;
+
+                if (reviewResultBody != null && log.isTraceEnabled()) {
+                    String reviewResultJson = reviewResultBody.string();
+                    log.trace("Received SubjectAccessReview response: {}", reviewResultJson);
+                }
+
+                throw new IOException("Failed to review the access. SubjectAccessReview returned HTTP " + reviewResult.code() + ".");
+            }
+        } finally {
+            metrics.reviews().record(reviewStart, outcome);
+
+            if (circuitBreaker != null) {
+                if (outcome == ReviewMetrics.Outcome.ALLOWED || outcome == ReviewMetrics.Outcome.DENIED)  {
+                    circuitBreaker.onSuccess(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - reviewStart));
+                } else {
+                    circuitBreaker.onFailure();
+                }
+            }
+        }
+    }
+
+    /**
+     * Kubernetes access review attributes of a Kafka operation
+     */
+    private static final class ReviewAttributes {
+        // Used for the operations which do not map to any Kubernetes resource
+        private static final ReviewAttributes NO_VERB = new ReviewAttributes("", "", "");
+
+        private final String group;
+        private final String resource;
+        private final String verb;
+
+        private ReviewAttributes(String group, String resource, String verb) {
+            this.group = group;
+            this.resource = resource;
+            this.verb = verb;
+        }
+    }
+}
@@ -1,11 +1,28 @@
 package io.strimzi.kafka.kubernetes.authorizer;
 
-import com.fasterxml.jackson.databind.JsonNode;
-import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import okhttp3.MediaType;
+import okhttp3.RequestBody;
 
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.StringWriter;
+import java.util.Collections;
+import java.util.List;
 
+/**
+ * Utilities for the SubjectAccessReview API. The requests are written and the responses are read using the Jackson
+ * streaming API without building any JSON trees. The JsonFactory is thread-safe and shared by all the reviews.
+ */
 public class SubjectAccessReviewUtils {
+    private static final JsonFactory JSON_FACTORY = new JsonFactory();
+    private static final MediaType JSON = MediaType.parse("application/json; charset=utf-8");
+    private static final int REQUEST_SIZE_HINT = 512;
+
     public static String getUrlPath()   {
         return "apis/" + SubjectAccessReviewUtils.getApiVersion() + "/subjectaccessreviews";
     }
@@ -14,36 +31,188 @@ public class SubjectAccessReviewUtils {
         return "authorization.k8s.io/v1";
     }
 
+    /**
+     * Creates the request body for the SubjectAccessReview. The body is not streamed while the request is sent, because
+     * without a known content length it would use chunked encoding which is much slower for such small requests.
+     * Instead, the JSON is written into a byte array sized for a typical review and the request body uses that array
+     * directly without copying it.
+     */
+    public static RequestBody getSubjectAccessReviewRequestBody(String namespace, String sa, String group, String resource, String verb, String name) throws IOException {
+        return getSubjectAccessReviewRequestBody(namespace, sa, Collections.emptyList(), group, resource, verb, name);
+    }
+
+    /**
+     * Creates the request body for the SubjectAccessReview including the groups of the user.
+     */
+    public static RequestBody getSubjectAccessReviewRequestBody(String namespace, String sa, List<String> userGroups, String group, String resource, String verb, String name) throws IOException {
+        RequestOutputStream os = new RequestOutputStream();
+
+        try (JsonGenerator generator = JSON_FACTORY.createGenerator(os)) {
+            writeSubjectAccessReviewRequest(generator, namespace, sa, userGroups, group, resource, verb, name);
+        }
+
+        return os.toRequestBody();
+    }
+
+    /**
+     * Creates the SubjectAccessReview request as String. This is used only for logging.
+     */
     public static String getSubjectAccessReviewRequest(String namespace, String sa, String group, String resource, String verb, String name)    {
-        return "{\n" +
-                "  \"apiVersion\": \"" + getApiVersion() + "\",\n" +
-                "  \"kind\": \"SubjectAccessReview\",\n" +
-                "  \"spec\": {\n" +
-                "    \"user\": \"" + sa + "\",\n" +
-                "    \"resourceAttributes\": {\n" +
-                "      \"group\": \"" + group + "\",\n" +
-                "      \"resource\": \"" + resource + "\",\n" +
-                "      \"verb\": \"" + verb + "\",\n" +
-                "      \"name\": \"" + name + "\",\n" +
-                "      \"namespace\": \"" + namespace + "\"\n" +
-                "    }\n" +
-                "  }\n" +
-                "}";
+        return getSubjectAccessReviewRequest(namespace, sa, Collections.emptyList(), group, resource, verb, name);
     }
 
-    public static boolean isAllowed(String reviewResult) throws IOException {
-        ObjectMapper mapper = new ObjectMapper();
-        JsonNode json = mapper.readTree(reviewResult);
+    /**
+     * Creates the SubjectAccessReview request including the groups of the user as String. This is used only for
+     * logging.
+     */
+    public static String getSubjectAccessReviewRequest(String namespace, String sa, List<String> userGroups, String group, String resource, String verb, String name)    {
+        StringWriter writer = new StringWriter();
+
+        try (JsonGenerator generator = JSON_FACTORY.createGenerator(writer)) {
+            writeSubjectAccessReviewRequest(generator, namespace, sa, userGroups, group, resource, verb, name);
+        } catch (IOException e) {
+            // Should never happen with StringWriter
+            throw new RuntimeException("Failed to create SubjectAccessReview request", e);
+        }
+
+        return writer.toString();
+    }
+
+    private static void writeSubjectAccessReviewRequest(JsonGenerator generator, String namespace, String sa, List<String> userGroups, String group, String resource, String verb, String name) throws IOException {
+        generator.writeStartObject();
+        generator.writeStringField("apiVersion", getApiVersion());
+        generator.writeStringField("kind", "SubjectAccessReview");
+
+        generator.writeObjectFieldStart("spec");
+        generator.writeStringField("user", sa);
+
+        if (!userGroups.isEmpty())  {
+            generator.writeArrayFieldStart("groups");
+
+            for (String userGroup : userGroups) {
+                generator.writeString(userGroup);
+            }
+
+            generator.writeEndArray();
+        }
+
+        generator.writeObjectFieldStart("resourceAttributes");
+        generator.writeStringField("group", group);
+        generator.writeStringField("resource", resource);
+        generator.writeStringField("verb", verb);
+        generator.writeStringField("name", name);
+        generator.writeStringField("namespace", namespace);
+        generator.writeEndObject();
+
+        generator.writeEndObject();
+        generator.writeEndObject();
+    }
+
+    /**
+     * Reads the status of the SubjectAccessReview response. Only the status.allowed, status.denied and status.reason
+     * fields are read. Everything else is skipped.
+     *
+     * @param reviewResult  Stream with the SubjectAccessReview response
+     *
+     * @return  Status of the review
+     *
+     * @throws IOException  When the response is not valid JSON
+     */
+    public static Status parseStatus(InputStream reviewResult) throws IOException {
+        try (JsonParser parser = JSON_FACTORY.createParser(reviewResult)) {
+            return parseStatus(parser);
+        }
+    }
 
-        if (json.get("status") != null)    {
-            JsonNode status = json.get("status");
+    public static Status parseStatus(String reviewResult) throws IOException {
+        try (JsonParser parser = JSON_FACTORY.createParser(reviewResult)) {
+            return parseStatus(parser);
+        }
+    }
+
+    private static Status parseStatus(JsonParser parser) throws IOException {
+        boolean allowed = false;
+        boolean denied = false;
+        String reason = null;
+
+        if (parser.nextToken() != JsonToken.START_OBJECT)  {
+            throw new IOException("SubjectAccessReview response is not a JSON object");
+        }
+
+        while (parser.nextToken() == JsonToken.FIELD_NAME)  {
+            String field = parser.getCurrentName();
+            JsonToken value = parser.nextToken();
+
+            if ("status".equals(field) && value == JsonToken.START_OBJECT)  {
+                while (parser.nextToken() == JsonToken.FIELD_NAME)  {
+                    String statusField = parser.getCurrentName();
+                    JsonToken statusValue = parser.nextToken();
 
-            if (status.get("allowed") != null)  {
-                String allowed = status.get("allowed").asText();
-                return Boolean.parseBoolean(allowed);
+                    if ("allowed".equals(statusField)) {
+                        allowed = statusValue == JsonToken.VALUE_TRUE;
+                    } else if ("denied".equals(statusField)) {
+                        denied = statusValue == JsonToken.VALUE_TRUE;
+                    } else if ("reason".equals(statusField) && statusValue == JsonToken.VALUE_STRING) {
+                        reason = parser.getText();
+                    } else {
+                        parser.skipChildren();
+                    }
+                }
+
+                // Nothing else is needed from the response
+                break;
+            } else {
+                parser.skipChildren();
             }
         }
 
-        return false;
+        return new Status(allowed, denied, reason);
+    }
+
+    public static boolean isAllowed(String reviewResult) throws IOException {
+        return parseStatus(reviewResult).isAllowed();
+    }
+
+    /**
+     * Output stream which turns its content into a request body without copying the byte array
+     */
+    private static final class RequestOutputStream extends ByteArrayOutputStream {
+        RequestOutputStream() {
+            super(REQUEST_SIZE_HINT);
+        }
+
+        RequestBody toRequestBody()    {
+            return RequestBody.create(JSON, buf, 0, count);
+        }
+    }
+
+    /**
+     * Status of the SubjectAccessReview
+     */
+    public static final class Status {
+        private final boolean allowed;
+        private final boolean denied;
+        private final String reason;
+
+        Status(boolean allowed, boolean denied, String reason) {
+            this.allowed = allowed;
+            this.denied = denied;
+            this.reason = reason;
+        }
+
+        /**
+         * @return  True if the access was allowed and not explicitly denied
+         */
+        public boolean isAllowed() {
+            return allowed && !denied;
+        }
+
+        public boolean isDenied() {
+            return denied;
+        }
+
+        public String reason() {
+            return reason;
+        }
     }
 }
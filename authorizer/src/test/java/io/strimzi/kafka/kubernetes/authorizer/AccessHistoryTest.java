@@ -0,0 +1,83 @@
+package io.strimzi.kafka.kubernetes.authorizer;
+
+import org.apache.kafka.common.acl.AclOperation;
+import org.apache.kafka.common.resource.ResourceType;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class AccessHistoryTest {
+    private static final String SA = "system:serviceaccount:myproject:my-user";
+
+    private static AccessHistory.Access read(String topic)  {
+        return new AccessHistory.Access(ResourceType.TOPIC, AclOperation.READ, topic);
+    }
+
+    private static void recordReads(AccessHistory history, String subject, String topic, int count)   {
+        for (int i = 0; i < count; i++) {
+            history.record(subject, ResourceType.TOPIC, AclOperation.READ, topic);
+        }
+    }
+
+    @Test
+    public void testTopByFrequency()  {
+        AccessHistory history = new AccessHistory(new AuthorizationCacheTest.MockTime(), 10, 10, 60_000);
+
+        recordReads(history, SA, "topic1", 1);
+        recordReads(history, SA, "topic2", 5);
+        recordReads(history, SA, "topic3", 3);
+
+        assertEquals(Arrays.asList(read("topic2"), read("topic3")), history.top(SA, 2));
+        assertEquals(3, history.top(SA, 10).size());
+        assertTrue(history.top("system:serviceaccount:myproject:other", 10).isEmpty());
+    }
+
+    @Test
+    public void testDecay()  {
+        AuthorizationCacheTest.MockTime time = new AuthorizationCacheTest.MockTime();
+        AccessHistory history = new AccessHistory(time, 10, 10, 1_000);
+
+        // The old frequent operation decays below the recent one
+        recordReads(history, SA, "old", 8);
+        time.sleep(3_000);
+        recordReads(history, SA, "recent", 2);
+
+        assertEquals(Arrays.asList(read("recent"), read("old")), history.top(SA, 2));
+    }
+
+    @Test
+    public void testMaxEntries()  {
+        AccessHistory history = new AccessHistory(new AuthorizationCacheTest.MockTime(), 10, 2, 60_000);
+
+        recordReads(history, SA, "topic1", 3);
+        recordReads(history, SA, "topic2", 1);
+        recordReads(history, SA, "topic3", 2);
+
+        // The least frequent operation was replaced
+        List<AccessHistory.Access> top = history.top(SA, 10);
+        assertEquals(Arrays.asList(read("topic1"), read("topic3")), top);
+    }
+
+    @Test
+    public void testMaxSubjects()  {
+        AuthorizationCacheTest.MockTime time = new AuthorizationCacheTest.MockTime();
+        AccessHistory history = new AccessHistory(time, 2, 10, 60_000);
+
+        recordReads(history, "user1", "topic", 1);
+        time.sleep(10);
+        recordReads(history, "user2", "topic", 1);
+        time.sleep(10);
+        recordReads(history, "user1", "topic", 1);
+        time.sleep(10);
+        recordReads(history, "user3", "topic", 1);
+
+        // The least recently active subject was forgotten
+        assertEquals(2, history.size());
+        assertTrue(history.top("user2", 10).isEmpty());
+        assertEquals(1, history.top("user1", 10).size());
+    }
+}
@@ -0,0 +1,94 @@
+package io.strimzi.kafka.kubernetes.authorizer;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class AuthorizationCacheSnapshotTest {
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private static AuthorizationCache.Key key(String name)  {
+        return new AuthorizationCache.Key("system:serviceaccount:myproject:default", "kafka.strimzi.io", "kafkatopics", "get", name);
+    }
+
+    @Test
+    public void testRoundTrip() throws IOException {
+        AuthorizationCacheTest.MockTime time = new AuthorizationCacheTest.MockTime();
+        Path file = folder.getRoot().toPath().resolve("snapshot");
+
+        AuthorizationCache original = new AuthorizationCache(time, 1000, 100, 10);
+        original.put(key("allowed"), true);
+        original.put(key("denied"), false);
+        original.put(key(""), true);
+
+        assertEquals(3, AuthorizationCacheSnapshot.write(original, file));
+        assertTrue(Files.exists(file));
+
+        AuthorizationCache restored = new AuthorizationCache(time, 1000, 100, 10);
+        List<AuthorizationCache.Key> loaded = AuthorizationCacheSnapshot.read(restored, file);
+
+        assertEquals(3, loaded.size());
+        assertEquals(Boolean.TRUE, restored.get(key("allowed")));
+        assertEquals(Boolean.FALSE, restored.get(key("denied")));
+        assertEquals(Boolean.TRUE, restored.get(key("")));
+
+        // The restored decisions keep their original expiration
+        time.sleep(100);
+        assertEquals(Boolean.TRUE, restored.get(key("allowed")));
+        assertNull(restored.get(key("denied")));
+    }
+
+    @Test
+    public void testExpiredDecisionsAreSkipped() throws IOException {
+        AuthorizationCacheTest.MockTime time = new AuthorizationCacheTest.MockTime();
+        Path file = folder.getRoot().toPath().resolve("snapshot");
+
+        AuthorizationCache original = new AuthorizationCache(time, 1000, 100, 10);
+        original.put(key("allowed"), true);
+        original.put(key("denied"), false);
+        AuthorizationCacheSnapshot.write(original, file);
+
+        // Broker was down for longer than the denied TTL
+        time.sleep(500);
+
+        AuthorizationCache restored = new AuthorizationCache(time, 1000, 100, 10);
+        List<AuthorizationCache.Key> loaded = AuthorizationCacheSnapshot.read(restored, file);
+
+        assertEquals(1, loaded.size());
+        assertEquals(key("allowed"), loaded.get(0));
+        assertNull(restored.get(key("denied")));
+        assertEquals(1, restored.size());
+    }
+
+    @Test(expected = IOException.class)
+    public void testInvalidFile() throws IOException {
+        Path file = folder.newFile("invalid").toPath();
+        Files.write(file, "not a snapshot".getBytes());
+
+        AuthorizationCacheSnapshot.read(new AuthorizationCache(new AuthorizationCacheTest.MockTime(), 1000, 100, 10), file);
+    }
+
+    @Test(expected = IOException.class)
+    public void testUnsupportedVersion() throws IOException {
+        Path file = folder.getRoot().toPath().resolve("snapshot");
+
+        try (DataOutputStream out = new DataOutputStream(Files.newOutputStream(file)))  {
+            out.writeInt(0x4B534143);
+            out.writeInt(2);
+            out.writeBoolean(false);
+        }
+
+        AuthorizationCacheSnapshot.read(new AuthorizationCache(new AuthorizationCacheTest.MockTime(), 1000, 100, 10), file);
+    }
+}
@@ -0,0 +1,253 @@
+package io.strimzi.kafka.kubernetes.authorizer;
+
+import org.apache.kafka.common.utils.Time;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.function.Supplier;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class AuthorizationCacheTest {
+    private static AuthorizationCache.Key key(String name)  {
+        return new AuthorizationCache.Key("system:serviceaccount:myproject:default", "kafka.strimzi.io", "kafkatopics", "get", name);
+    }
+
+    @Test
+    public void testSeparateTtls()    {
+        MockTime time = new MockTime();
+        AuthorizationCache cache = new AuthorizationCache(time, 1000, 100, 10);
+
+        cache.put(key("allowed"), true);
+        cache.put(key("denied"), false);
+
+        assertEquals(Boolean.TRUE, cache.get(key("allowed")));
+        assertEquals(Boolean.FALSE, cache.get(key("denied")));
+
+        time.sleep(100);
+        assertEquals(Boolean.TRUE, cache.get(key("allowed")));
+        assertNull(cache.get(key("denied")));
+
+        time.sleep(900);
+        assertNull(cache.get(key("allowed")));
+        assertEquals(0, cache.size());
+    }
+
+    @Test
+    public void testZeroTtlDisablesCaching()    {
+        AuthorizationCache cache = new AuthorizationCache(new MockTime(), 1000, 0, 10);
+
+        cache.put(key("denied"), false);
+
+        assertNull(cache.get(key("denied")));
+        assertEquals(0, cache.size());
+    }
+
+    @Test
+    public void testKeyIncludesAllAttributes()    {
+        AuthorizationCache cache = new AuthorizationCache(new MockTime(), 1000, 1000, 10);
+
+        cache.put(key("my-topic"), true);
+
+        assertNull(cache.get(new AuthorizationCache.Key("system:serviceaccount:myproject:default", "kafka.strimzi.io", "kafkatopics", "update", "my-topic")));
+        assertNull(cache.get(new AuthorizationCache.Key("system:serviceaccount:myproject:other", "kafka.strimzi.io", "kafkatopics", "get", "my-topic")));
+        assertEquals(Boolean.TRUE, cache.get(key("my-topic")));
+    }
+
+    @Test
+    public void testKeyIncludesUserGroups()    {
+        AuthorizationCache cache = new AuthorizationCache(new MockTime(), 1000, 1000, 10);
+        AuthorizationCache.Key withGroups = new AuthorizationCache.Key("system:serviceaccount:myproject:default",
+                Arrays.asList("system:serviceaccounts", "system:serviceaccounts:myproject"), "kafka.strimzi.io", "kafkatopics", "get", "my-topic");
+
+        // Decision granted through a group is not used for the same user without the group and the other way around
+        cache.put(withGroups, true);
+        assertNull(cache.get(key("my-topic")));
+
+        cache.put(key("my-topic"), false);
+        assertEquals(Boolean.TRUE, cache.get(withGroups));
+        assertEquals(Boolean.FALSE, cache.get(key("my-topic")));
+    }
+
+    @Test
+    public void testLookupWithoutKey()    {
+        MockTime time = new MockTime();
+        AuthorizationCache cache = new AuthorizationCache(time, 1000, 1000, 10, 500);
+        List<String> groups = Arrays.asList("system:serviceaccounts", "system:serviceaccounts:myproject");
+
+        cache.put(new AuthorizationCache.Key("system:serviceaccount:myproject:default", new ArrayList<>(groups), "kafka.strimzi.io", "kafkatopics", "get", "my-topic"), true);
+
+        assertEquals(Boolean.TRUE, cache.get("system:serviceaccount:myproject:default", groups, "kafka.strimzi.io", "kafkatopics", "get", "my-topic"));
+        assertNull(cache.get("system:serviceaccount:myproject:default", Collections.emptyList(), "kafka.strimzi.io", "kafkatopics", "get", "my-topic"));
+        assertNull(cache.get("system:serviceaccount:myproject:default", groups, "kafka.strimzi.io", "kafkatopics", "update", "my-topic"));
+        assertNull(cache.getStale("system:serviceaccount:myproject:default", groups, "kafka.strimzi.io", "kafkatopics", "get", "my-topic"));
+
+        time.sleep(1000);
+        assertNull(cache.get("system:serviceaccount:myproject:default", groups, "kafka.strimzi.io", "kafkatopics", "get", "my-topic"));
+        assertEquals(Boolean.TRUE, cache.getStale("system:serviceaccount:myproject:default", groups, "kafka.strimzi.io", "kafkatopics", "get", "my-topic"));
+
+        time.sleep(500);
+        assertNull(cache.get("system:serviceaccount:myproject:default", groups, "kafka.strimzi.io", "kafkatopics", "get", "my-topic"));
+        assertEquals(0, cache.size());
+    }
+
+    @Test
+    public void testSizeBasedEviction()    {
+        MockTime time = new MockTime();
+        AuthorizationCache cache = new AuthorizationCache(time, 1000, 1000, 10);
+
+        for (int i = 0; i < 5; i++) {
+            cache.put(key("old-" + i), true);
+        }
+
+        time.sleep(1000);
+
+        for (int i = 0; i < 100; i++) {
+            cache.put(key("topic-" + i), true);
+            assertTrue(cache.size() <= 10);
+        }
+
+        for (int i = 0; i < 5; i++) {
+            assertNull(cache.get(key("old-" + i)));
+        }
+
+        assertEquals(Boolean.TRUE, cache.get(key("topic-99")));
+    }
+
+    @Test
+    public void testGracePeriod()    {
+        MockTime time = new MockTime();
+        AuthorizationCache cache = new AuthorizationCache(time, 1000, 100, 10, 500);
+
+        cache.put(key("allowed"), true);
+        cache.put(key("denied"), false);
+
+        assertEquals(Boolean.TRUE, cache.get(key("allowed")));
+        assertNull(cache.getStale(key("allowed")));
+
+        time.sleep(1000);
+        assertNull(cache.get(key("allowed")));
+        assertEquals(Boolean.TRUE, cache.getStale(key("allowed")));
+        assertNull(cache.getStale(key("denied")));
+
+        // Refreshed decision is fresh again
+        cache.put(key("allowed"), true);
+        assertEquals(Boolean.TRUE, cache.get(key("allowed")));
+
+        time.sleep(1500);
+        assertNull(cache.get(key("allowed")));
+        assertNull(cache.getStale(key("allowed")));
+        assertNull(cache.get(key("denied")));
+        assertEquals(0, cache.size());
+    }
+
+    @Test
+    public void testInvalidation()    {
+        AuthorizationCache cache = new AuthorizationCache(new MockTime(), 1000, 1000, 10);
+
+        cache.put(key("topic1"), true);
+        cache.put(key("topic2"), false);
+
+        assertEquals(1, cache.invalidate(key -> "topic1".equals(key.name())));
+        assertNull(cache.get(key("topic1")));
+        assertEquals(Boolean.FALSE, cache.get(key("topic2")));
+    }
+
+    @Test
+    public void testDecisionFromBeforeInvalidationIsDropped()    {
+        AuthorizationCache cache = new AuthorizationCache(new MockTime(), 1000, 1000, 10);
+
+        long generation = cache.generation();
+        cache.invalidate(key -> true);
+        cache.put(key("topic"), true, generation);
+        assertNull(cache.get(key("topic")));
+
+        cache.put(key("topic"), true, cache.generation());
+        assertEquals(Boolean.TRUE, cache.get(key("topic")));
+
+        generation = cache.generation();
+        cache.clear();
+        cache.put(key("topic"), true, generation);
+        assertEquals(0, cache.size());
+    }
+
+    @Test
+    public void testSharedDecisions()    {
+        MockTime time = new MockTime();
+        AuthorizationCache cache = new AuthorizationCache(time, 1000, 1000, 10);
+
+        assertEquals(time.milliseconds() + 1000, cache.put(key("topic"), false, cache.generation()));
+
+        // Decisions reviewed before the local one do not replace it
+        assertFalse(cache.share(key("topic"), true, time.milliseconds() - 1, time.milliseconds() + 1000));
+        assertEquals(Boolean.FALSE, cache.get(key("topic")));
+
+        time.sleep(10);
+        assertTrue(cache.share(key("topic"), true, time.milliseconds(), time.milliseconds() + 1000));
+        assertEquals(Boolean.TRUE, cache.get(key("topic")));
+
+        // Expired decisions are ignored
+        assertFalse(cache.share(key("expired"), true, time.milliseconds(), time.milliseconds()));
+        assertNull(cache.get(key("expired")));
+    }
+
+    @Test
+    public void testSharedDecisionFromBeforeInvalidationIsIgnored()    {
+        MockTime time = new MockTime();
+        AuthorizationCache cache = new AuthorizationCache(time, 1000, 1000, 10);
+
+        long reviewedAtMs = time.milliseconds();
+        time.sleep(10);
+        cache.invalidate(key -> true);
+
+        assertFalse(cache.share(key("topic"), true, reviewedAtMs, time.milliseconds() + 1000));
+        assertNull(cache.get(key("topic")));
+
+        assertTrue(cache.share(key("topic"), true, time.milliseconds(), time.milliseconds() + 1000));
+        assertEquals(Boolean.TRUE, cache.get(key("topic")));
+    }
+
+    @Test
+    public void testSharedDecisionWithinClockSkewIsIgnored()    {
+        MockTime time = new MockTime();
+        AuthorizationCache cache = new AuthorizationCache(time, 1000, 1000, 10);
+
+        cache.ignoreSharedDecisions();
+        time.sleep(10);
+
+        // Reviewed after the invalidation according to the clock of the other broker, but within the clock skew
+        assertFalse(cache.share(key("topic"), true, time.milliseconds(), time.milliseconds() + 1000, 100));
+        assertTrue(cache.share(key("topic"), true, time.milliseconds(), time.milliseconds() + 1000, 10));
+        assertEquals(Boolean.TRUE, cache.get(key("topic")));
+    }
+
+    static class MockTime implements Time {
+        private long nowMs = 1_000_000L;
+
+        @Override
+        public long milliseconds() {
+            return nowMs;
+        }
+
+        @Override
+        public long nanoseconds() {
+            return nowMs * 1_000_000L;
+        }
+
+        @Override
+        public void sleep(long ms) {
+            nowMs += ms;
+        }
+
+        @Override
+        public void waitObject(Object obj, Supplier<Boolean> condition, long timeoutMs) {
+            throw new UnsupportedOperationException();
+        }
+    }
+}
@@ -0,0 +1,153 @@
+package io.strimzi.kafka.kubernetes.authorizer;
+
+import io.fabric8.kubernetes.api.model.ServiceAccountBuilder;
+import io.fabric8.kubernetes.api.model.rbac.ClusterRoleBindingBuilder;
+import io.fabric8.kubernetes.api.model.rbac.ClusterRoleBuilder;
+import io.fabric8.kubernetes.api.model.rbac.RoleBinding;
+import io.fabric8.kubernetes.api.model.rbac.RoleBindingBuilder;
+import io.fabric8.kubernetes.api.model.rbac.RoleBuilder;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class CacheInvalidatorTest {
+    private static final String NAMESPACE = "myproject";
+    private static final String SA1 = "system:serviceaccount:myproject:user1";
+    private static final String SA2 = "system:serviceaccount:myproject:user2";
+    private static final String SA3 = "system:serviceaccount:other:user3";
+
+    private static AuthorizationCache.Key key(String user)  {
+        return new AuthorizationCache.Key(user, Arrays.asList("system:serviceaccounts", "system:authenticated"), "kafka.strimzi.io", "kafkatopics", "get", "my-topic");
+    }
+
+    private static RoleBinding roleBinding(String name, String roleName, String serviceAccount)  {
+        return new RoleBindingBuilder()
+                .withNewMetadata().withName(name).withNamespace(NAMESPACE).endMetadata()
+                .withNewRoleRef().withApiGroup("rbac.authorization.k8s.io").withKind("Role").withName(roleName).endRoleRef()
+                .addNewSubject().withKind("ServiceAccount").withName(serviceAccount).endSubject()
+                .build();
+    }
+
+    private static AuthorizationCache populatedCache()  {
+        AuthorizationCache cache = new AuthorizationCache(new AuthorizationCacheTest.MockTime(), 60_000, 60_000, 100);
+        cache.put(key(SA1), true);
+        cache.put(key(SA2), true);
+        cache.put(key(SA3), false);
+
+        return cache;
+    }
+
+    private static CacheInvalidator listed(CacheInvalidator invalidator, RoleBinding... roleBindings)  {
+        invalidator.resetRoles(Collections.emptyList());
+        invalidator.resetClusterRoles(Collections.emptyList());
+        invalidator.resetRoleBindings(Arrays.asList(roleBindings));
+        invalidator.resetClusterRoleBindings(Collections.emptyList());
+        invalidator.resetServiceAccounts(Collections.emptyList());
+
+        return invalidator;
+    }
+
+    @Test
+    public void testInitialListDoesNotInvalidate()  {
+        AuthorizationCache cache = populatedCache();
+        listed(new CacheInvalidator(cache, NAMESPACE));
+
+        assertEquals(3, cache.size());
+    }
+
+    @Test
+    public void testSharedDecisionsAreIgnoredUntilSynced()  {
+        AuthorizationCacheTest.MockTime time = new AuthorizationCacheTest.MockTime();
+        AuthorizationCache cache = new AuthorizationCache(time, 60_000, 60_000, 100);
+        CacheInvalidator invalidator = new CacheInvalidator(cache, NAMESPACE);
+        long reviewedAtMs = time.milliseconds();
+
+        invalidator.resetRoles(Collections.emptyList());
+        assertFalse(invalidator.synced());
+
+        time.sleep(10);
+        listed(invalidator);
+        assertTrue(invalidator.synced());
+
+        // Decisions reviewed before the RBAC resources were listed might have been revoked since
+        assertFalse(cache.share(key(SA1), true, reviewedAtMs, time.milliseconds() + 1_000));
+        assertTrue(cache.share(key(SA1), true, time.milliseconds(), time.milliseconds() + 1_000));
+    }
+
+    @Test
+    public void testRoleBindingChange()  {
+        AuthorizationCache cache = populatedCache();
+        CacheInvalidator invalidator = listed(new CacheInvalidator(cache, NAMESPACE), roleBinding("binding", "role", "user1"));
+
+        // Both the removed and the added subject are evicted
+        invalidator.roleBindingChanged(roleBinding("binding", "role", "user2"), false);
+
+        assertNull(cache.get(key(SA1)));
+        assertNull(cache.get(key(SA2)));
+        assertEquals(Boolean.FALSE, cache.get(key(SA3)));
+    }
+
+    @Test
+    public void testRoleChange()  {
+        AuthorizationCache cache = populatedCache();
+        CacheInvalidator invalidator = listed(new CacheInvalidator(cache, NAMESPACE),
+                roleBinding("binding1", "role1", "user1"), roleBinding("binding2", "role2", "user2"));
+
+        invalidator.roleChanged(new RoleBuilder().withNewMetadata().withName("role1").withNamespace(NAMESPACE).endMetadata().build(), false);
+
+        assertNull(cache.get(key(SA1)));
+        assertEquals(2, cache.size());
+    }
+
+    @Test
+    public void testClusterRoleBindingWithGroup()  {
+        AuthorizationCache cache = populatedCache();
+        cache.put(new AuthorizationCache.Key("alice", Collections.singletonList("developers"), "kafka.strimzi.io", "kafkatopics", "get", "my-topic"), true);
+        CacheInvalidator invalidator = listed(new CacheInvalidator(cache, NAMESPACE));
+
+        invalidator.clusterRoleBindingChanged(new ClusterRoleBindingBuilder()
+                .withNewMetadata().withName("binding").endMetadata()
+                .withNewRoleRef().withApiGroup("rbac.authorization.k8s.io").withKind("ClusterRole").withName("role").endRoleRef()
+                .addNewSubject().withKind("Group").withName("system:serviceaccounts").endSubject()
+                .build(), true);
+
+        assertEquals(1, cache.size());
+    }
+
+    @Test
+    public void testServiceAccountChange()  {
+        AuthorizationCache cache = populatedCache();
+        CacheInvalidator invalidator = listed(new CacheInvalidator(cache, NAMESPACE));
+
+        invalidator.serviceAccountChanged(new ServiceAccountBuilder().withNewMetadata().withName("user2").withNamespace(NAMESPACE).endMetadata().build(), true);
+
+        assertNull(cache.get(key(SA2)));
+        assertEquals(2, cache.size());
+    }
+
+    @Test
+    public void testClusterRoleChangeInvalidatesAll()  {
+        AuthorizationCache cache = populatedCache();
+        CacheInvalidator invalidator = listed(new CacheInvalidator(cache, NAMESPACE));
+
+        invalidator.clusterRoleChanged(new ClusterRoleBuilder().withNewMetadata().withName("role").endMetadata().build(), false);
+
+        assertEquals(0, cache.size());
+    }
+
+    @Test
+    public void testRelistInvalidatesAll()  {
+        AuthorizationCache cache = populatedCache();
+        CacheInvalidator invalidator = listed(new CacheInvalidator(cache, NAMESPACE));
+
+        invalidator.resetRoleBindings(Collections.emptyList());
+
+        assertEquals(0, cache.size());
+    }
+}
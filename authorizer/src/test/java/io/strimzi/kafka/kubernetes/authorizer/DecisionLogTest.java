@@ -0,0 +1,78 @@
+package io.strimzi.kafka.kubernetes.authorizer;
+
+import org.apache.kafka.common.acl.AclOperation;
+import org.apache.kafka.common.resource.ResourceType;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class DecisionLogTest {
+    private static final String SA = "system:serviceaccount:myproject:my-user";
+
+    @Test
+    public void testRepeatedDecisionsAreSummarized()   {
+        AuthorizationCacheTest.MockTime time = new AuthorizationCacheTest.MockTime();
+        List<String> output = new ArrayList<>();
+        DecisionLog decisionLog = new DecisionLog(16, 1000, 1.0, false, time, output::add);
+
+        for (int i = 0; i < 5; i++) {
+            decisionLog.record("User", SA, AclOperation.READ, ResourceType.TOPIC, "my-topic", DecisionLog.Decision.DENIED);
+        }
+        decisionLog.record("User", "CN=my-user", AclOperation.WRITE, ResourceType.TOPIC, "my-topic", DecisionLog.Decision.DELEGATED);
+
+        decisionLog.drain();
+        assertEquals(2, output.size());
+        assertEquals("DENIED User:" + SA + " READ TOPIC:my-topic", output.get(0));
+        assertEquals("DELEGATED User:CN=my-user WRITE TOPIC:my-topic", output.get(1));
+
+        time.sleep(1000);
+        decisionLog.drain();
+        assertEquals(3, output.size());
+        assertEquals("DENIED User:" + SA + " READ TOPIC:my-topic (repeated 4 more times in the last 1000 ms)", output.get(2));
+
+        // New interval logs the first occurrence again
+        decisionLog.record("User", SA, AclOperation.READ, ResourceType.TOPIC, "my-topic", DecisionLog.Decision.DENIED);
+        decisionLog.drain();
+        assertEquals(4, output.size());
+        assertEquals("DENIED User:" + SA + " READ TOPIC:my-topic", output.get(3));
+    }
+
+    @Test
+    public void testAllowedDecisionsAndSampling()   {
+        AuthorizationCacheTest.MockTime time = new AuthorizationCacheTest.MockTime();
+        List<String> output = new ArrayList<>();
+
+        DecisionLog withoutAllowed = new DecisionLog(16, 1000, 1.0, false, time, output::add);
+        withoutAllowed.record("User", SA, AclOperation.READ, ResourceType.TOPIC, "my-topic", DecisionLog.Decision.ALLOWED);
+        withoutAllowed.drain();
+        assertTrue(output.isEmpty());
+
+        DecisionLog withAllowed = new DecisionLog(16, 1000, 1.0, true, time, output::add);
+        withAllowed.record("User", SA, AclOperation.READ, ResourceType.TOPIC, "my-topic", DecisionLog.Decision.ALLOWED);
+        withAllowed.drain();
+        assertEquals(1, output.size());
+
+        DecisionLog sampledOut = new DecisionLog(16, 1000, 0.0, false, time, output::add);
+        sampledOut.record("User", SA, AclOperation.READ, ResourceType.TOPIC, "my-topic", DecisionLog.Decision.DENIED);
+        sampledOut.drain();
+        assertEquals(1, output.size());
+    }
+
+    @Test
+    public void testFullBufferDropsDecisions()   {
+        AuthorizationCacheTest.MockTime time = new AuthorizationCacheTest.MockTime();
+        List<String> output = new ArrayList<>();
+        DecisionLog decisionLog = new DecisionLog(2, 1000, 1.0, false, time, output::add);
+
+        for (int i = 0; i < 10; i++) {
+            decisionLog.record("User", SA, AclOperation.READ, ResourceType.TOPIC, "topic-" + i, DecisionLog.Decision.DENIED);
+        }
+
+        decisionLog.drain();
+        assertEquals(2, output.size());
+    }
+}
@@ -0,0 +1,251 @@
+package io.strimzi.kafka.kubernetes.authorizer;
+
+import kafka.server.KafkaServerStartable;
+import org.apache.kafka.common.utils.Time;
+import org.apache.zookeeper.server.ServerCnxnFactory;
+import org.apache.zookeeper.server.ZooKeeperServer;
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.BooleanSupplier;
+import java.util.stream.Stream;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class DecisionSharingTest {
+    private static final String TOPIC = "__kubernetes_authorizer_decisions";
+
+    private static Path zooKeeperDir;
+    private static ZooKeeperServer zooKeeper;
+    private static ServerCnxnFactory zooKeeperFactory;
+    private static Path kafkaDir;
+    private static KafkaServerStartable kafka;
+    private static String bootstrapServers;
+
+    @BeforeClass
+    public static void startBroker() throws IOException, InterruptedException {
+        zooKeeperDir = Files.createTempDirectory("zookeeper");
+        zooKeeper = new ZooKeeperServer(zooKeeperDir.toFile(), zooKeeperDir.toFile(), 500);
+        zooKeeperFactory = ServerCnxnFactory.createFactory(new InetSocketAddress("localhost", 0), 100);
+        zooKeeperFactory.startup(zooKeeper);
+
+        int port;
+        try (ServerSocket socket = new ServerSocket(0)) {
+            port = socket.getLocalPort();
+        }
+
+        kafkaDir = Files.createTempDirectory("kafka");
+        bootstrapServers = "localhost:" + port;
+
+        Properties props = new Properties();
+        props.setProperty("broker.id", "0");
+        props.setProperty("zookeeper.connect", "localhost:" + zooKeeperFactory.getLocalPort());
+        props.setProperty("log.dirs", kafkaDir.toAbsolutePath().toString());
+        props.setProperty("listeners", "PLAINTEXT://" + bootstrapServers);
+        props.setProperty("offsets.topic.replication.factor", "1");
+        props.setProperty("auto.create.topics.enable", "false");
+
+        kafka = KafkaServerStartable.fromProps(props);
+        kafka.startup();
+    }
+
+    @AfterClass
+    public static void stopBroker() throws IOException {
+        kafka.shutdown();
+        kafka.awaitShutdown();
+        zooKeeperFactory.shutdown();
+        zooKeeper.shutdown();
+
+        delete(kafkaDir);
+        delete(zooKeeperDir);
+    }
+
+    private static void delete(Path dir) throws IOException {
+        try (Stream<Path> files = Files.walk(dir)) {
+            files.sorted(Comparator.reverseOrder()).map(Path::toFile).forEach(File::delete);
+        }
+    }
+
+    private static AuthorizationCache.Key key(String name)  {
+        return new AuthorizationCache.Key("system:serviceaccount:myproject:default", Arrays.asList("system:serviceaccounts", "system:serviceaccounts:myproject"),
+                "kafka.strimzi.io", "kafkatopics", "get", name);
+    }
+
+    private static DecisionSharing sharing(AuthorizationCache cache)  {
+        return sharing(cache, () -> true);
+    }
+
+    private static DecisionSharing sharing(AuthorizationCache cache, BooleanSupplier ready)  {
+        Map<String, Object> clientConfig = new HashMap<>();
+        clientConfig.put("bootstrap.servers", bootstrapServers);
+
+        DecisionSharing sharing = new DecisionSharing(cache, TOPIC, clientConfig, 16, 60_000, 0, ready);
+        sharing.start();
+
+        return sharing;
+    }
+
+    private static void waitFor(AuthorizationCache cache, AuthorizationCache.Key key) throws InterruptedException {
+        for (int i = 0; i < 300 && cache.get(key) == null; i++)   {
+            Thread.sleep(100);
+        }
+    }
+
+    @Test
+    public void testEncoding() throws IOException {
+        DecisionSharing.Decision decision = new DecisionSharing.Decision(key("my-topic"), true, 1_000L, 2_000L);
+        DecisionSharing.Decision decoded = DecisionSharing.decode(DecisionSharing.encodeKey(decision.key()), DecisionSharing.encodeValue(decision));
+
+        assertEquals(decision.key(), decoded.key());
+        assertEquals(decision.key().userGroups(), decoded.key().userGroups());
+        assertEquals(true, decoded.allowed());
+    }
+
+    @Test
+    public void testInvalidRecordsAreIgnored()    {
+        AuthorizationCache cache = new AuthorizationCache(Time.SYSTEM, 60_000, 60_000, 10);
+        DecisionSharing sharing = new DecisionSharing(cache, TOPIC, Collections.emptyMap(), 16, 60_000, 0, () -> true);
+
+        sharing.receive(DecisionSharing.encodeKey(key("my-topic")), null);
+        sharing.receive(DecisionSharing.encodeKey(key("my-topic")), "garbage".getBytes(StandardCharsets.UTF_8));
+        sharing.receive(new byte[] {1}, new byte[] {1});
+
+        assertEquals(0, cache.size());
+        assertEquals(0, sharing.received());
+    }
+
+    @Test
+    public void testDecisionsAreSharedThroughTopic() throws InterruptedException {
+        AuthorizationCache publisherCache = new AuthorizationCache(Time.SYSTEM, 60_000, 60_000, 10);
+        AuthorizationCache consumerCache = new AuthorizationCache(Time.SYSTEM, 60_000, 60_000, 10);
+        DecisionSharing publisher = sharing(publisherCache);
+        DecisionSharing consumer = sharing(consumerCache);
+
+        try {
+            long now = Time.SYSTEM.milliseconds();
+            publisher.publish(key("allowed-topic"), true, now, now + 60_000);
+            publisher.publish(key("denied-topic"), false, now, now + 60_000);
+            publisher.publish(key("expired-topic"), true, now - 60_000, now - 1);
+
+            waitFor(consumerCache, key("denied-topic"));
+
+            assertEquals(Boolean.TRUE, consumerCache.get(key("allowed-topic")));
+            assertEquals(Boolean.FALSE, consumerCache.get(key("denied-topic")));
+            assertNull(consumerCache.get(key("expired-topic")));
+
+            // A starting broker gets the decisions shared before it started
+            AuthorizationCache lateCache = new AuthorizationCache(Time.SYSTEM, 60_000, 60_000, 10);
+            DecisionSharing late = sharing(lateCache);
+
+            try {
+                waitFor(lateCache, key("allowed-topic"));
+                assertEquals(Boolean.TRUE, lateCache.get(key("allowed-topic")));
+            } finally {
+                late.close();
+            }
+        } finally {
+            publisher.close();
+            consumer.close();
+        }
+    }
+
+    @Test
+    public void testDecisionsAreImportedOnlyWhenReady() throws InterruptedException {
+        AuthorizationCache publisherCache = new AuthorizationCache(Time.SYSTEM, 60_000, 60_000, 10);
+        AuthorizationCache restartedCache = new AuthorizationCache(Time.SYSTEM, 60_000, 60_000, 10);
+        AtomicBoolean ready = new AtomicBoolean(false);
+        DecisionSharing publisher = sharing(publisherCache);
+        DecisionSharing restarted = sharing(restartedCache, ready::get);
+
+        try {
+            // Reviewed before the restarted broker knows about the RBAC changes
+            long now = Time.SYSTEM.milliseconds();
+            publisher.publish(key("revoked-topic"), true, now, now + 60_000);
+
+            Thread.sleep(1_000);
+            assertNull(restartedCache.get(key("revoked-topic")));
+
+            Thread.sleep(10);
+            restartedCache.ignoreSharedDecisions();
+            ready.set(true);
+
+            Thread.sleep(10);
+            now = Time.SYSTEM.milliseconds();
+            publisher.publish(key("reviewed-topic"), true, now, now + 60_000);
+
+            waitFor(restartedCache, key("reviewed-topic"));
+            assertEquals(Boolean.TRUE, restartedCache.get(key("reviewed-topic")));
+            assertNull(restartedCache.get(key("revoked-topic")));
+        } finally {
+            publisher.close();
+            restarted.close();
+        }
+    }
+
+    @Test
+    public void testFailedSharingIsRetried() throws InterruptedException {
+        AuthorizationCache cache = new AuthorizationCache(Time.SYSTEM, 60_000, 60_000, 10);
+        DecisionSharing sharing = new DecisionSharing(cache, TOPIC, Collections.singletonMap("bootstrap.servers", "not-a-bootstrap-server"),
+                16, 60_000, 0, () -> true);
+        sharing.start();
+
+        try {
+            for (int i = 0; i < 100 && sharing.failures() == 0; i++)   {
+                Thread.sleep(100);
+            }
+
+            assertEquals(1, sharing.failures());
+            assertTrue(sharing.running());
+        } finally {
+            sharing.close();
+        }
+
+        assertFalse(sharing.running());
+    }
+
+    @Test
+    public void testSharingIsRetriedAfterUnexpectedException() throws InterruptedException {
+        AuthorizationCache cache = new AuthorizationCache(Time.SYSTEM, 60_000, 60_000, 10);
+        AtomicBoolean failed = new AtomicBoolean(false);
+        DecisionSharing sharing = new DecisionSharing(cache, TOPIC, Collections.singletonMap("bootstrap.servers", bootstrapServers),
+                16, 60_000, 0, () -> {
+                    if (failed.compareAndSet(false, true))  {
+                        throw new IllegalStateException("Unexpected failure");
+                    }
+
+                    return true;
+                });
+        sharing.start();
+
+        try {
+            for (int i = 0; i < 100 && sharing.failures() == 0; i++)   {
+                Thread.sleep(100);
+            }
+
+            assertEquals(1, sharing.failures());
+            assertTrue(sharing.running());
+        } finally {
+            sharing.close();
+        }
+
+        assertFalse(sharing.running());
+    }
+}
@@ -0,0 +1,45 @@
+package io.strimzi.kafka.kubernetes.authorizer;
+
+import org.junit.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class KubernetesBatchAuthorizerTest {
+    @Test
+    public void testReviewsRunInCallerWhenQueueIsFull() throws InterruptedException, ExecutionException {
+        ThreadPoolExecutor executor = KubernetesBatchAuthorizer.reviewExecutor(1);
+        CountDownLatch release = new CountDownLatch(1);
+
+        try {
+            // Block the only review thread
+            executor.submit(() -> {
+                release.await();
+                return null;
+            });
+
+            // Fill the queue
+            int queueSize = executor.getQueue().remainingCapacity();
+            for (int i = 0; i < queueSize; i++)  {
+                executor.submit(() -> Thread.currentThread().getName());
+            }
+
+            assertEquals(0, executor.getQueue().remainingCapacity());
+
+            // The queue is bounded, so the next review is done in the calling thread
+            Future<String> review = executor.submit(() -> Thread.currentThread().getName());
+            assertTrue(review.isDone());
+            assertEquals(Thread.currentThread().getName(), review.get());
+        } finally {
+            release.countDown();
+            executor.shutdownNow();
+            executor.awaitTermination(10, TimeUnit.SECONDS);
+        }
+    }
+}
@@ -0,0 +1,99 @@
+package io.strimzi.kafka.kubernetes.authorizer;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class MpscRingBufferTest {
+    @Test
+    public void testCapacity()   {
+        assertEquals(1, new MpscRingBuffer<>(1).capacity());
+        assertEquals(8, new MpscRingBuffer<>(8).capacity());
+        assertEquals(16, new MpscRingBuffer<>(9).capacity());
+    }
+
+    @Test
+    public void testOfferAndPoll()   {
+        MpscRingBuffer<Integer> buffer = new MpscRingBuffer<>(4);
+        assertNull(buffer.poll());
+
+        for (int round = 0; round < 3; round++) {
+            for (int i = 0; i < 4; i++) {
+                assertTrue(buffer.offer(i));
+            }
+
+            // Full
+            assertFalse(buffer.offer(4));
+
+            for (int i = 0; i < 4; i++) {
+                assertEquals(Integer.valueOf(i), buffer.poll());
+            }
+
+            assertNull(buffer.poll());
+        }
+    }
+
+    @Test
+    public void testConcurrentProducers() throws InterruptedException {
+        int producers = 4;
+        int perProducer = 100_000;
+
+        MpscRingBuffer<Integer> buffer = new MpscRingBuffer<>(1024);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Thread> threads = new ArrayList<>();
+
+        for (int p = 0; p < producers; p++) {
+            int producer = p;
+            Thread thread = new Thread(() -> {
+                try {
+                    start.await();
+                } catch (InterruptedException e) {
+                    return;
+                }
+
+                for (int i = 0; i < perProducer; i++) {
+                    while (!buffer.offer(producer * perProducer + i))   {
+                        Thread.yield();
+                    }
+                }
+            });
+            thread.start();
+            threads.add(thread);
+        }
+
+        start.countDown();
+
+        int[] lastPerProducer = new int[producers];
+        Arrays.fill(lastPerProducer, -1);
+        long received = 0;
+
+        while (received < (long) producers * perProducer)  {
+            Integer value = buffer.poll();
+
+            if (value == null)  {
+                Thread.yield();
+                continue;
+            }
+
+            // Elements of every producer are received in order and exactly once
+            int producer = value / perProducer;
+            assertEquals(lastPerProducer[producer] + 1, value % perProducer);
+            lastPerProducer[producer] = value % perProducer;
+            received++;
+        }
+
+        for (Thread thread : threads)   {
+            thread.join();
+        }
+
+        assertNull(buffer.poll());
+    }
+}
@@ -0,0 +1,121 @@
+package io.strimzi.kafka.kubernetes.authorizer;
+
+import io.fabric8.kubernetes.api.model.rbac.ClusterRole;
+import io.fabric8.kubernetes.api.model.rbac.ClusterRoleBinding;
+import io.fabric8.kubernetes.api.model.rbac.ClusterRoleBindingBuilder;
+import io.fabric8.kubernetes.api.model.rbac.ClusterRoleBuilder;
+import io.fabric8.kubernetes.api.model.rbac.Role;
+import io.fabric8.kubernetes.api.model.rbac.RoleBinding;
+import io.fabric8.kubernetes.api.model.rbac.RoleBindingBuilder;
+import io.fabric8.kubernetes.api.model.rbac.RoleBuilder;
+import org.junit.Test;
+
+import java.util.Collections;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class RbacEvaluatorTest {
+    private static final String NAMESPACE = "myproject";
+    private static final String SA = "system:serviceaccount:myproject:my-user";
+    private static final String GROUP = "kafka.strimzi.io";
+    private static final String TOPICS = "kafkatopics";
+
+    private static Role role(String name, String verb, String... resourceNames)  {
+        return new RoleBuilder()
+                .withNewMetadata().withName(name).withNamespace(NAMESPACE).endMetadata()
+                .addNewRule().withApiGroups(GROUP).withResources(TOPICS).withVerbs(verb).withResourceNames(resourceNames).endRule()
+                .build();
+    }
+
+    private static RoleBinding roleBinding(String name, String roleKind, String roleName, String subjectKind, String subjectName)  {
+        return new RoleBindingBuilder()
+                .withNewMetadata().withName(name).withNamespace(NAMESPACE).endMetadata()
+                .withNewRoleRef().withApiGroup("rbac.authorization.k8s.io").withKind(roleKind).withName(roleName).endRoleRef()
+                .addNewSubject().withKind(subjectKind).withName(subjectName).endSubject()
+                .build();
+    }
+
+    private static RbacEvaluator synced(RbacEvaluator evaluator)  {
+        evaluator.resetRoles(Collections.emptyList());
+        evaluator.resetRoleBindings(Collections.emptyList());
+        evaluator.resetClusterRoles(Collections.emptyList());
+        evaluator.resetClusterRoleBindings(Collections.emptyList());
+
+        return evaluator;
+    }
+
+    @Test
+    public void testNotSynced()  {
+        RbacEvaluator evaluator = new RbacEvaluator(NAMESPACE);
+        evaluator.resetRoles(Collections.singletonList(role("reader", "get")));
+        evaluator.resetRoleBindings(Collections.singletonList(roleBinding("reader", "Role", "reader", "ServiceAccount", "my-user")));
+
+        assertFalse(evaluator.isSynced());
+        assertFalse(evaluator.isAllowed(SA, Collections.emptyList(), GROUP, TOPICS, "get", "my-topic"));
+    }
+
+    @Test
+    public void testRoleBindingToServiceAccount()  {
+        RbacEvaluator evaluator = synced(new RbacEvaluator(NAMESPACE));
+        evaluator.roleChanged(role("reader", "get"), false);
+        evaluator.roleBindingChanged(roleBinding("reader", "Role", "reader", "ServiceAccount", "my-user"), false);
+
+        assertTrue(evaluator.isAllowed(SA, Collections.emptyList(), GROUP, TOPICS, "get", "my-topic"));
+        assertTrue(evaluator.isAllowed(SA, Collections.emptyList(), GROUP, TOPICS, "get", ""));
+        assertFalse(evaluator.isAllowed(SA, Collections.emptyList(), GROUP, TOPICS, "update", "my-topic"));
+        assertFalse(evaluator.isAllowed(SA, Collections.emptyList(), GROUP, "kafkas", "get", "my-cluster"));
+        assertFalse(evaluator.isAllowed("system:serviceaccount:myproject:other-user", Collections.emptyList(), GROUP, TOPICS, "get", "my-topic"));
+        assertFalse(evaluator.isAllowed("system:serviceaccount:other-project:my-user", Collections.emptyList(), GROUP, TOPICS, "get", "my-topic"));
+
+        evaluator.roleBindingChanged(roleBinding("reader", "Role", "reader", "ServiceAccount", "my-user"), true);
+
+        assertFalse(evaluator.isAllowed(SA, Collections.emptyList(), GROUP, TOPICS, "get", "my-topic"));
+    }
+
+    @Test
+    public void testResourceNames()  {
+        RbacEvaluator evaluator = synced(new RbacEvaluator(NAMESPACE));
+        evaluator.roleChanged(role("writer", "update", "my-topic"), false);
+        evaluator.roleBindingChanged(roleBinding("writer", "Role", "writer", "User", SA), false);
+
+        assertTrue(evaluator.isAllowed(SA, Collections.emptyList(), GROUP, TOPICS, "update", "my-topic"));
+        assertFalse(evaluator.isAllowed(SA, Collections.emptyList(), GROUP, TOPICS, "update", "other-topic"));
+        assertFalse(evaluator.isAllowed(SA, Collections.emptyList(), GROUP, TOPICS, "update", ""));
+    }
+
+    @Test
+    public void testClusterRoles()  {
+        RbacEvaluator evaluator = synced(new RbacEvaluator(NAMESPACE));
+
+        ClusterRole clusterRole = new ClusterRoleBuilder()
+                .withNewMetadata().withName("kafka-admin").endMetadata()
+                .addNewRule().withApiGroups(GROUP).withResources("*").withVerbs("*").endRule()
+                .build();
+        evaluator.clusterRoleChanged(clusterRole, false);
+
+        // ClusterRole bound to a group of all service accounts in the namespace
+        ClusterRoleBinding clusterRoleBinding = new ClusterRoleBindingBuilder()
+                .withNewMetadata().withName("kafka-admin").endMetadata()
+                .withNewRoleRef().withApiGroup("rbac.authorization.k8s.io").withKind("ClusterRole").withName("kafka-admin").endRoleRef()
+                .addNewSubject().withKind("Group").withName("system:serviceaccounts:myproject").endSubject()
+                .build();
+        evaluator.clusterRoleBindingChanged(clusterRoleBinding, false);
+
+        assertTrue(evaluator.isAllowed(SA, Collections.emptyList(), GROUP, TOPICS, "patch", "my-topic"));
+        assertTrue(evaluator.isAllowed(SA, Collections.emptyList(), GROUP, "kafkas", "create", "my-cluster"));
+        assertFalse(evaluator.isAllowed(SA, Collections.emptyList(), "", "pods", "get", "my-pod"));
+        assertFalse(evaluator.isAllowed("system:serviceaccount:other-project:my-user", Collections.emptyList(), GROUP, TOPICS, "patch", "my-topic"));
+
+        // ClusterRole bound to an explicit group using a RoleBinding
+        evaluator.roleBindingChanged(roleBinding("admins", "ClusterRole", "kafka-admin", "Group", "kafka-admins"), false);
+
+        assertTrue(evaluator.isAllowed("alice", Collections.singletonList("kafka-admins"), GROUP, TOPICS, "patch", "my-topic"));
+        assertFalse(evaluator.isAllowed("alice", Collections.emptyList(), GROUP, TOPICS, "patch", "my-topic"));
+
+        evaluator.clusterRoleChanged(clusterRole, true);
+
+        assertFalse(evaluator.isAllowed(SA, Collections.emptyList(), GROUP, TOPICS, "patch", "my-topic"));
+        assertFalse(evaluator.isAllowed("alice", Collections.singletonList("kafka-admins"), GROUP, TOPICS, "patch", "my-topic"));
+    }
+}
@@ -0,0 +1,115 @@
+package io.strimzi.kafka.kubernetes.authorizer;
+
+import io.fabric8.kubernetes.api.model.rbac.Role;
+import io.fabric8.kubernetes.api.model.rbac.RoleBuilder;
+import io.fabric8.kubernetes.api.model.rbac.RoleListBuilder;
+import io.fabric8.kubernetes.client.Watcher;
+import org.junit.Test;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class ResourceWatchTest {
+    private static Role role(String name, String resourceVersion)   {
+        return new RoleBuilder()
+                .withNewMetadata()
+                    .withName(name)
+                    .withResourceVersion(resourceVersion)
+                .endMetadata()
+                .build();
+    }
+
+    @Test
+    public void testEventsAreDeliveredFromExecutorThread() throws InterruptedException {
+        ScheduledExecutorService executor = Executors.newSingleThreadScheduledExecutor(runnable -> new Thread(runnable, "watcher"));
+        List<String> calls = new CopyOnWriteArrayList<>();
+        CountDownLatch delivered = new CountDownLatch(3);
+
+        ResourceWatch<Role> watch = new ResourceWatch<>("Roles",
+            () -> new RoleListBuilder().withNewMetadata().withResourceVersion("1").endMetadata().build(),
+            (resourceVersion, watcher) -> () -> { },
+            new ResourceWatch.Handler<Role>() {
+                @Override
+                public void reset(List<Role> items) {
+                    calls.add(Thread.currentThread().getName() + ":reset");
+                    delivered.countDown();
+                }
+
+                @Override
+                public void changed(Role item, boolean deleted) {
+                    calls.add(Thread.currentThread().getName() + ":" + item.getMetadata().getName() + (deleted ? ":deleted" : ":changed"));
+                    delivered.countDown();
+                }
+            }, executor, 1_000L);
+
+        try {
+            watch.start();
+            watch.eventReceived(Watcher.Action.ADDED, role("my-role", "2"));
+            watch.eventReceived(Watcher.Action.DELETED, role("my-role", "3"));
+
+            assertTrue(delivered.await(10, TimeUnit.SECONDS));
+            assertEquals(3, calls.size());
+            assertEquals("watcher:reset", calls.get(0));
+            assertEquals("watcher:my-role:changed", calls.get(1));
+            assertEquals("watcher:my-role:deleted", calls.get(2));
+        } finally {
+            watch.close();
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    public void testResourceVersionIsNotAdvancedWhenHandlerFails() throws InterruptedException {
+        ScheduledExecutorService executor = Executors.newSingleThreadScheduledExecutor();
+        List<String> watchedFrom = new CopyOnWriteArrayList<>();
+        CountDownLatch resets = new CountDownLatch(2);
+        CountDownLatch applied = new CountDownLatch(1);
+
+        ResourceWatch<Role> watch = new ResourceWatch<>("Roles",
+            () -> new RoleListBuilder().withNewMetadata().withResourceVersion("1").endMetadata().build(),
+            (resourceVersion, watcher) -> {
+                watchedFrom.add(resourceVersion);
+                return () -> { };
+            },
+            new ResourceWatch.Handler<Role>() {
+                @Override
+                public void reset(List<Role> items) {
+                    resets.countDown();
+                }
+
+                @Override
+                public void changed(Role item, boolean deleted) {
+                    if ("failing-role".equals(item.getMetadata().getName()))  {
+                        throw new IllegalStateException("Failed to apply the event");
+                    }
+
+                    applied.countDown();
+                }
+            }, executor, 1_000L);
+
+        try {
+            watch.start();
+            watch.eventReceived(Watcher.Action.ADDED, role("failing-role", "2"));
+
+            // The failed event is not skipped: the resources are listed again and watched from the listed version
+            assertTrue(resets.await(10, TimeUnit.SECONDS));
+            watch.eventReceived(Watcher.Action.ADDED, role("my-role", "3"));
+            assertTrue(applied.await(10, TimeUnit.SECONDS));
+
+            assertEquals(2, watchedFrom.size());
+            assertEquals("1", watchedFrom.get(0));
+            assertEquals("1", watchedFrom.get(1));
+            assertEquals("3", watch.resourceVersion());
+        } finally {
+            watch.close();
+            executor.shutdownNow();
+        }
+    }
+}
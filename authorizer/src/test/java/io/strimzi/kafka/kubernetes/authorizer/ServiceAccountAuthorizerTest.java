@@ -0,0 +1,150 @@
+package io.strimzi.kafka.kubernetes.authorizer;
+
+import io.strimzi.kafka.kubernetes.common.AdmissionController;
+import io.strimzi.kafka.kubernetes.common.KubernetesPrincipal;
+import org.apache.kafka.common.acl.AclOperation;
+import org.apache.kafka.common.metrics.Metrics;
+import org.apache.kafka.common.resource.ResourceType;
+import org.apache.kafka.common.security.auth.KafkaPrincipal;
+import org.apache.kafka.common.utils.Time;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class ServiceAccountAuthorizerTest {
+    private static final String SA = "system:serviceaccount:myproject:my-user";
+    private static final KafkaPrincipal PRINCIPAL = new KafkaPrincipal(KafkaPrincipal.USER_TYPE, SA);
+
+    @Test
+    public void testIsServiceAccount()    {
+        ServiceAccountAuthorizer authorizer = new ServiceAccountAuthorizer();
+
+        assertTrue(authorizer.isServiceAccount(new KafkaPrincipal(KafkaPrincipal.USER_TYPE, SA)));
+        assertTrue(authorizer.isServiceAccount(new KafkaPrincipal(KafkaPrincipal.USER_TYPE, SA)));
+        assertFalse(authorizer.isServiceAccount(new KafkaPrincipal("Group", SA)));
+        assertFalse(authorizer.isServiceAccount(new KafkaPrincipal(KafkaPrincipal.USER_TYPE, "CN=my-user")));
+        assertFalse(authorizer.isServiceAccount(new KafkaPrincipal(KafkaPrincipal.USER_TYPE, "CN=my-user")));
+        assertFalse(authorizer.isServiceAccount(new KafkaPrincipal(KafkaPrincipal.USER_TYPE, "system:serviceaccount:myproject")));
+    }
+
+    @Test
+    public void testReviewKey()    {
+        ServiceAccountAuthorizer authorizer = new ServiceAccountAuthorizer();
+
+        assertKey(authorizer.reviewKey(PRINCIPAL, ResourceType.TOPIC, AclOperation.READ, "my-topic"), "kafka.strimzi.io", "kafkatopics", "get", "my-topic");
+        assertKey(authorizer.reviewKey(PRINCIPAL, ResourceType.TOPIC, AclOperation.WRITE, "my-topic"), "kafka.strimzi.io", "kafkatopics", "update", "my-topic");
+        assertKey(authorizer.reviewKey(PRINCIPAL, ResourceType.TOPIC, AclOperation.IDEMPOTENT_WRITE, "my-topic"), "kafka.strimzi.io", "kafkatopics", "update", "my-topic");
+        assertKey(authorizer.reviewKey(PRINCIPAL, ResourceType.TOPIC, AclOperation.DESCRIBE, "my-topic"), "kafka.strimzi.io", "kafkatopics", "list", "my-topic");
+        assertKey(authorizer.reviewKey(PRINCIPAL, ResourceType.TOPIC, AclOperation.CREATE, "my-topic"), "kafka.strimzi.io", "kafkatopics", "create", "my-topic");
+        assertKey(authorizer.reviewKey(PRINCIPAL, ResourceType.TOPIC, AclOperation.ALTER_CONFIGS, "my-topic"), "kafka.strimzi.io", "kafkatopics", "patch", "my-topic");
+        assertKey(authorizer.reviewKey(PRINCIPAL, ResourceType.TOPIC, AclOperation.DELETE, "my-topic"), "kafka.strimzi.io", "kafkatopics", "", "my-topic");
+        assertKey(authorizer.reviewKey(PRINCIPAL, ResourceType.CLUSTER, AclOperation.CLUSTER_ACTION, "kafka-cluster"), "kafka.strimzi.io", "kafkas", "patch", "kafka-cluster");
+        assertKey(authorizer.reviewKey(PRINCIPAL, ResourceType.CLUSTER, AclOperation.DESCRIBE_CONFIGS, "kafka-cluster"), "kafka.strimzi.io", "kafkas", "list", "kafka-cluster");
+        assertKey(authorizer.reviewKey(PRINCIPAL, ResourceType.ANY, AclOperation.READ, "something"), "", "", "", "");
+
+        // The attributes are shared and not built again for every call
+        assertSame(authorizer.reviewKey(PRINCIPAL, ResourceType.TOPIC, AclOperation.READ, "a").verb(),
+                authorizer.reviewKey(PRINCIPAL, ResourceType.CLUSTER, AclOperation.READ, "b").verb());
+    }
+
+    @Test
+    public void testReviewKeyWithGroups()    {
+        ServiceAccountAuthorizer authorizer = new ServiceAccountAuthorizer();
+        List<String> groups = Arrays.asList("system:serviceaccounts", "system:serviceaccounts:myproject", "system:authenticated");
+
+        AuthorizationCache.Key key = authorizer.reviewKey(new KubernetesPrincipal(SA, "uid", groups), ResourceType.TOPIC, AclOperation.READ, "my-topic");
+        assertEquals(groups, key.userGroups());
+        assertTrue(authorizer.reviewKey(PRINCIPAL, ResourceType.TOPIC, AclOperation.READ, "my-topic").userGroups().isEmpty());
+
+        // The groups are part of the cache key, so a decision granted through a group is not used without the group
+        assertNotEquals(authorizer.reviewKey(PRINCIPAL, ResourceType.TOPIC, AclOperation.READ, "my-topic"), key);
+        assertEquals(authorizer.reviewKey(new KubernetesPrincipal(SA, "other-uid", new ArrayList<>(groups)), ResourceType.TOPIC, AclOperation.READ, "my-topic"), key);
+    }
+
+    private static void assertKey(AuthorizationCache.Key key, String group, String resource, String verb, String name)   {
+        assertEquals(SA, key.user());
+        assertEquals(group, key.group());
+        assertEquals(resource, key.resource());
+        assertEquals(verb, key.verb());
+        assertEquals(name, key.name());
+    }
+
+    @Test
+    public void testSnapshotIsRevalidatedWithInvalidation()    {
+        Map<String, Object> configs = new HashMap<>();
+        assertFalse(ServiceAccountAuthorizer.revalidateSnapshot(configs));
+
+        configs.put(ServiceAccountAuthorizer.CACHE_SNAPSHOT_REVALIDATE_CONFIG, "true");
+        assertTrue(ServiceAccountAuthorizer.revalidateSnapshot(configs));
+
+        configs.put(ServiceAccountAuthorizer.CACHE_SNAPSHOT_REVALIDATE_CONFIG, "false");
+        configs.put(ServiceAccountAuthorizer.CACHE_INVALIDATION_ENABLED_CONFIG, "true");
+        assertTrue(ServiceAccountAuthorizer.revalidateSnapshot(configs));
+    }
+
+    @Test
+    public void testOnlyClusterActionsUseCriticalLane() throws InterruptedException {
+        assertEquals(AdmissionController.Lane.CRITICAL, ServiceAccountAuthorizer.lane(AclOperation.CLUSTER_ACTION));
+        assertEquals(AdmissionController.Lane.NORMAL, ServiceAccountAuthorizer.lane(AclOperation.IDEMPOTENT_WRITE));
+        assertEquals(AdmissionController.Lane.NORMAL, ServiceAccountAuthorizer.lane(AclOperation.ALTER));
+
+        ServiceAccountAuthorizer authorizer = new ServiceAccountAuthorizer();
+        AdmissionController admissionController = new AdmissionController("test", Time.SYSTEM, 1, 0, 1, 0, 1_000);
+        authorizer.configureAdmission(new AuthorizerMetrics(new Metrics()), admissionController);
+
+        // The only concurrent review is in flight and there is no space in the queue
+        assertTrue(admissionController.acquire(AdmissionController.Lane.NORMAL));
+
+        try {
+            AuthorizationCache.Key key = authorizer.reviewKey(PRINCIPAL, ResourceType.CLUSTER, AclOperation.IDEMPOTENT_WRITE, "kafka-cluster");
+            authorizer.review(key, ServiceAccountAuthorizer.lane(AclOperation.IDEMPOTENT_WRITE));
+            fail("The review should not be admitted");
+        } catch (IOException e) {
+            assertTrue(e.getMessage().contains("not admitted"));
+        } finally {
+            admissionController.release();
+        }
+    }
+
+    @Test
+    public void testRefreshSkippedWithFullQueueIsNotLost()    {
+        CountDownLatch blocked = new CountDownLatch(1);
+        ThreadPoolExecutor executor = new ThreadPoolExecutor(1, 1, 0, TimeUnit.MILLISECONDS, new ArrayBlockingQueue<>(1));
+        ServiceAccountAuthorizer authorizer = new ServiceAccountAuthorizer();
+        authorizer.configureRefresh(executor);
+
+        try {
+            // The only thread is busy and the only slot of the queue is taken
+            executor.execute(() -> {
+                try {
+                    blocked.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            });
+            executor.execute(() -> { });
+
+            authorizer.refreshInBackground(authorizer.reviewKey(PRINCIPAL, ResourceType.TOPIC, AclOperation.READ, "my-topic"));
+            assertEquals(0, authorizer.refreshing());
+        } finally {
+            blocked.countDown();
+            executor.shutdownNow();
+        }
+    }
+}
@@ -0,0 +1,104 @@
+package io.strimzi.kafka.kubernetes.authorizer;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import okhttp3.RequestBody;
+import okio.Buffer;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class SubjectAccessReviewUtilsTest {
+    @Test
+    public void testRequestBody() throws IOException {
+        Buffer buffer = new Buffer();
+        SubjectAccessReviewUtils.getSubjectAccessReviewRequestBody("myproject", "system:serviceaccount:myproject:my-user",
+                "kafka.strimzi.io", "kafkatopics", "get", "my\"topic\\").writeTo(buffer);
+        String request = buffer.readUtf8();
+
+        assertFalse(request.contains("\n"));
+
+        JsonNode json = new ObjectMapper().readTree(request);
+        assertEquals("authorization.k8s.io/v1", json.get("apiVersion").asText());
+        assertEquals("SubjectAccessReview", json.get("kind").asText());
+        assertEquals("system:serviceaccount:myproject:my-user", json.get("spec").get("user").asText());
+
+        JsonNode attributes = json.get("spec").get("resourceAttributes");
+        assertEquals("kafka.strimzi.io", attributes.get("group").asText());
+        assertEquals("kafkatopics", attributes.get("resource").asText());
+        assertEquals("get", attributes.get("verb").asText());
+        assertEquals("my\"topic\\", attributes.get("name").asText());
+        assertEquals("myproject", attributes.get("namespace").asText());
+
+        assertEquals(request, SubjectAccessReviewUtils.getSubjectAccessReviewRequest("myproject", "system:serviceaccount:myproject:my-user",
+                "kafka.strimzi.io", "kafkatopics", "get", "my\"topic\\"));
+    }
+
+    @Test
+    public void testRequestBodyHasContentLengthAndCanBeResent() throws IOException {
+        RequestBody body = SubjectAccessReviewUtils.getSubjectAccessReviewRequestBody("myproject", "system:serviceaccount:myproject:my-user",
+                "kafka.strimzi.io", "kafkatopics", "get", "my-topic");
+
+        Buffer first = new Buffer();
+        body.writeTo(first);
+        Buffer second = new Buffer();
+        body.writeTo(second);
+
+        assertEquals(first.size(), body.contentLength());
+        assertEquals(first.readUtf8(), second.readUtf8());
+    }
+
+    @Test
+    public void testRequestBodyWithGroups() throws IOException {
+        Buffer buffer = new Buffer();
+        SubjectAccessReviewUtils.getSubjectAccessReviewRequestBody("myproject", "system:serviceaccount:myproject:my-user",
+                Arrays.asList("system:serviceaccounts", "system:serviceaccounts:myproject"), "kafka.strimzi.io", "kafkatopics", "get", "my-topic").writeTo(buffer);
+
+        JsonNode groups = new ObjectMapper().readTree(buffer.readUtf8()).get("spec").get("groups");
+        assertEquals(2, groups.size());
+        assertEquals("system:serviceaccounts", groups.get(0).asText());
+        assertEquals("system:serviceaccounts:myproject", groups.get(1).asText());
+    }
+
+    @Test
+    public void testAllowed() throws IOException {
+        String response = "{\"kind\":\"SubjectAccessReview\",\"apiVersion\":\"authorization.k8s.io/v1\",\"metadata\":{\"creationTimestamp\":null}," +
+                "\"spec\":{\"resourceAttributes\":{\"namespace\":\"myproject\",\"verb\":\"get\",\"group\":\"kafka.strimzi.io\",\"resource\":\"kafkatopics\",\"name\":\"my-topic\"}," +
+                "\"user\":\"system:serviceaccount:myproject:my-user\",\"groups\":[\"system:authenticated\"]}," +
+                "\"status\":{\"allowed\":true,\"reason\":\"RBAC: allowed by RoleBinding\"}}";
+
+        SubjectAccessReviewUtils.Status status = SubjectAccessReviewUtils.parseStatus(new ByteArrayInputStream(response.getBytes(StandardCharsets.UTF_8)));
+
+        assertTrue(status.isAllowed());
+        assertFalse(status.isDenied());
+        assertEquals("RBAC: allowed by RoleBinding", status.reason());
+        assertTrue(SubjectAccessReviewUtils.isAllowed(response));
+    }
+
+    @Test
+    public void testNotAllowed() throws IOException {
+        assertFalse(SubjectAccessReviewUtils.isAllowed("{\"status\":{\"allowed\":false}}"));
+        assertFalse(SubjectAccessReviewUtils.isAllowed("{\"status\":{}}"));
+        assertFalse(SubjectAccessReviewUtils.isAllowed("{\"kind\":\"SubjectAccessReview\"}"));
+
+        SubjectAccessReviewUtils.Status status = SubjectAccessReviewUtils.parseStatus("{\"status\":{\"allowed\":true,\"denied\":true,\"reason\":\"denied by webhook\"}}");
+        assertFalse(status.isAllowed());
+        assertTrue(status.isDenied());
+        assertEquals("denied by webhook", status.reason());
+
+        assertNull(SubjectAccessReviewUtils.parseStatus("{\"status\":{\"allowed\":false}}").reason());
+    }
+
+    @Test(expected = IOException.class)
+    public void testInvalidResponse() throws IOException {
+        SubjectAccessReviewUtils.isAllowed("[]");
+    }
+}
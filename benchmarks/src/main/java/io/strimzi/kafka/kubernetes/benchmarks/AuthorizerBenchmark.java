@@ -0,0 +1,117 @@
+package io.strimzi.kafka.kubernetes.benchmarks;
+
+import io.strimzi.kafka.kubernetes.authorizer.KubernetesAuthorizer;
+import io.strimzi.kafka.kubernetes.authorizer.ServiceAccountAuthorizer;
+import io.strimzi.kafka.kubernetes.common.KubernetesPrincipal;
+import kafka.network.RequestChannel;
+import kafka.security.auth.Read$;
+import kafka.security.auth.Resource;
+import kafka.security.auth.Topic$;
+import org.apache.kafka.common.resource.PatternType;
+import org.apache.kafka.common.security.auth.KafkaPrincipal;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks the KubernetesAuthorizer.authorize() method for service accounts (authorized using the
+ * SubjectAccessReviews against the stand-in API server) and for regular users (passed to the SimpleAclAuthorizer).
+ * The kubernetes principal is a service account principal created by the KubernetesPrincipalBuilder, which uses the
+ * per-session decision memo.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class AuthorizerBenchmark {
+    private static final int TOPICS = 100;
+
+    @Param({"serviceaccount", "kubernetes", "regular"})
+    public String principal;
+
+    @Param({"false", "true"})
+    public boolean cache;
+
+    @Param({"0", "5"})
+    public long latencyMs;
+
+    private StandInApiServer apiServer;
+    private EmbeddedZooKeeper zooKeeper;
+    private KubernetesAuthorizer authorizer;
+    private RequestChannel.Session session;
+    private Resource[] resources;
+
+    @Setup(Level.Trial)
+    public void setup() throws IOException, InterruptedException {
+        apiServer = new StandInApiServer(latencyMs);
+        zooKeeper = new EmbeddedZooKeeper();
+
+        Map<String, Object> configs = new HashMap<>();
+        configs.put("zookeeper.connect", zooKeeper.connect());
+        configs.put("super.users", "User:admin");
+        configs.put(ServiceAccountAuthorizer.CACHE_ENABLED_CONFIG, String.valueOf(cache));
+        configs.put(ServiceAccountAuthorizer.SESSION_MEMO_ENABLED_CONFIG, "true");
+
+        authorizer = new KubernetesAuthorizer();
+        authorizer.configure(configs);
+
+        String sa = "system:serviceaccount:" + StandInApiServer.NAMESPACE + ":my-user";
+        KafkaPrincipal kafkaPrincipal;
+
+        switch (principal)  {
+            case "serviceaccount":
+                kafkaPrincipal = new KafkaPrincipal(KafkaPrincipal.USER_TYPE, sa);
+                break;
+            case "kubernetes":
+                kafkaPrincipal = new KubernetesPrincipal(sa, null,
+                        Arrays.asList("system:serviceaccounts", "system:serviceaccounts:" + StandInApiServer.NAMESPACE, "system:authenticated"));
+                break;
+            default:
+                kafkaPrincipal = new KafkaPrincipal(KafkaPrincipal.USER_TYPE, "CN=my-user");
+        }
+
+        session = new RequestChannel.Session(kafkaPrincipal, InetAddress.getLoopbackAddress());
+
+        resources = new Resource[TOPICS];
+        for (int i = 0; i < TOPICS; i++)    {
+            resources[i] = new Resource(Topic$.MODULE$, "my-topic-" + i, PatternType.LITERAL);
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void teardown() throws IOException {
+        authorizer.close();
+        zooKeeper.close();
+        apiServer.close();
+    }
+
+    @State(Scope.Thread)
+    public static class Counter {
+        int next = 0;
+    }
+
+    @Benchmark
+    public boolean authorize(Counter counter) {
+        Resource resource = resources[counter.next++ % TOPICS];
+        return authorizer.authorize(session, Read$.MODULE$, resource);
+    }
+}
@@ -0,0 +1,86 @@
+package io.strimzi.kafka.kubernetes.benchmarks;
+
+import kafka.server.KafkaServerStartable;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.net.ServerSocket;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.Map;
+import java.util.Properties;
+import java.util.stream.Stream;
+
+/**
+ * Embedded single-node Kafka broker. It has two listeners: the REPLICATION listener without any authentication which
+ * is used by the broker itself and by the admin client, and the CLIENTS listener which is used by the producers and
+ * consumers and which is configured by the scenario.
+ */
+public class EmbeddedKafka implements Closeable {
+    private final Path logDir;
+    private final int replicationPort;
+    private final int clientsPort;
+    private final KafkaServerStartable kafka;
+
+    /**
+     * @param zooKeeperConnect  ZooKeeper connection string
+     * @param brokerConfig      Configuration of the broker on top of the defaults (e.g. authorizer or the
+     *                          configuration of the CLIENTS listener)
+     * @param clientsProtocol   Security protocol of the CLIENTS listener
+     */
+    public EmbeddedKafka(String zooKeeperConnect, Map<String, String> brokerConfig, String clientsProtocol) throws IOException {
+        logDir = Files.createTempDirectory("kafka");
+        replicationPort = freePort();
+        clientsPort = freePort();
+
+        Properties props = new Properties();
+        props.setProperty("broker.id", "0");
+        props.setProperty("zookeeper.connect", zooKeeperConnect);
+        props.setProperty("log.dirs", logDir.toAbsolutePath().toString());
+        props.setProperty("listeners", "REPLICATION://localhost:" + replicationPort + ",CLIENTS://localhost:" + clientsPort);
+        props.setProperty("listener.security.protocol.map", "REPLICATION:PLAINTEXT,CLIENTS:" + clientsProtocol);
+        props.setProperty("inter.broker.listener.name", "REPLICATION");
+        props.setProperty("offsets.topic.replication.factor", "1");
+        props.setProperty("offsets.topic.num.partitions", "1");
+        props.setProperty("transaction.state.log.replication.factor", "1");
+        props.setProperty("transaction.state.log.min.isr", "1");
+        props.setProperty("group.initial.rebalance.delay.ms", "0");
+        props.setProperty("auto.create.topics.enable", "false");
+        props.putAll(brokerConfig);
+
+        kafka = KafkaServerStartable.fromProps(props);
+        kafka.startup();
+    }
+
+    private static int freePort() throws IOException {
+        try (ServerSocket socket = new ServerSocket(0)) {
+            return socket.getLocalPort();
+        }
+    }
+
+    /**
+     * @return  Bootstrap address of the REPLICATION listener
+     */
+    public String replicationBootstrap() {
+        return "localhost:" + replicationPort;
+    }
+
+    /**
+     * @return  Bootstrap address of the CLIENTS listener
+     */
+    public String clientsBootstrap() {
+        return "localhost:" + clientsPort;
+    }
+
+    @Override
+    public void close() throws IOException {
+        kafka.shutdown();
+        kafka.awaitShutdown();
+
+        try (Stream<Path> files = Files.walk(logDir)) {
+            files.sorted(Comparator.reverseOrder()).map(Path::toFile).forEach(File::delete);
+        }
+    }
+}
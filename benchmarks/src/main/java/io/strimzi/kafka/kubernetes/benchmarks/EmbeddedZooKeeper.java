@@ -0,0 +1,48 @@
+package io.strimzi.kafka.kubernetes.benchmarks;
+
+import org.apache.zookeeper.server.ServerCnxnFactory;
+import org.apache.zookeeper.server.ZooKeeperServer;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.stream.Stream;
+
+/**
+ * Embedded ZooKeeper used by the SimpleAclAuthorizer to which the regular users are passed
+ */
+public class EmbeddedZooKeeper implements Closeable {
+    private final Path dataDir;
+    private final ZooKeeperServer zooKeeper;
+    private final ServerCnxnFactory factory;
+
+    public EmbeddedZooKeeper() throws IOException, InterruptedException {
+        dataDir = Files.createTempDirectory("zookeeper");
+        File dir = dataDir.toFile();
+
+        zooKeeper = new ZooKeeperServer(dir, dir, 500);
+        factory = ServerCnxnFactory.createFactory(new InetSocketAddress("localhost", 0), 100);
+        factory.startup(zooKeeper);
+    }
+
+    /**
+     * @return  Connection string for the embedded ZooKeeper
+     */
+    public String connect() {
+        return "localhost:" + factory.getLocalPort();
+    }
+
+    @Override
+    public void close() throws IOException {
+        factory.shutdown();
+        zooKeeper.shutdown();
+
+        try (Stream<Path> files = Files.walk(dataDir)) {
+            files.sorted(Comparator.reverseOrder()).map(Path::toFile).forEach(File::delete);
+        }
+    }
+}
@@ -0,0 +1,362 @@
+package io.strimzi.kafka.kubernetes.benchmarks;
+
+import org.apache.kafka.clients.admin.AdminClient;
+import org.apache.kafka.clients.admin.AdminClientConfig;
+import org.apache.kafka.clients.admin.NewTopic;
+import org.apache.kafka.clients.consumer.ConsumerConfig;
+import org.apache.kafka.clients.consumer.ConsumerRecords;
+import org.apache.kafka.clients.consumer.KafkaConsumer;
+import org.apache.kafka.clients.producer.KafkaProducer;
+import org.apache.kafka.clients.producer.ProducerConfig;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.apache.kafka.common.serialization.ByteArrayDeserializer;
+import org.apache.kafka.common.serialization.ByteArraySerializer;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * End-to-end benchmark of the produce and consume throughput and latency with the Kubernetes authenticator and
+ * authorizer. It starts an embedded ZooKeeper and Kafka broker and the stand-in Kubernetes API server, so it runs
+ * fully offline. Every scenario runs against its own broker:
+ *
+ *   - baseline: PLAINTEXT listener and the SimpleAclAuthorizer
+ *   - kubernetes: OAUTHBEARER listener with the KubernetesTokenValidatorCallbackHandler, KubernetesAuthorizer and
+ *     clients using the KubernetesTokenLoginCallbackHandler
+ *
+ * Run it from the benchmarks JAR:
+ *
+ *   java -cp benchmarks/target/benchmarks.jar io.strimzi.kafka.kubernetes.benchmarks.EndToEndBenchmark [options]
+ *
+ * Options:
+ *
+ *   --records <n>              Number of measured records (default 100000)
+ *   --warmup-records <n>       Number of records sent before the measurement (default 10000)
+ *   --record-size <bytes>      Size of the record value (default 512)
+ *   --target-rate <n>          Records per second sent by the producer (default 0 = as fast as possible). Without
+ *                              the limit, the producer latency is dominated by the time the records wait in the
+ *                              producer buffer.
+ *   --api-latency-ms <ms>      Latency of the stand-in API server (default 1)
+ *   --scenarios <list>         Comma separated scenarios to run (default baseline,kubernetes)
+ *   --broker-config <k=v>      Additional configuration of the kubernetes scenario broker (can be repeated), for
+ *                              example --broker-config kubernetes.authorizer.cache.enabled=true
+ */
+public class EndToEndBenchmark {
+    private static final String TOPIC = "e2e-benchmark";
+    private static final int PARTITIONS = 3;
+    private static final String SERVICE_ACCOUNT = "system:serviceaccount:" + StandInApiServer.NAMESPACE + ":my-user";
+    // The consumer groups of the service accounts have to be prefixed with their name
+    private static final String GROUP = SERVICE_ACCOUNT + "-e2e-benchmark";
+    private static final long CONSUME_TIMEOUT_MS = 300_000L;
+
+    private final int records;
+    private final int warmupRecords;
+    private final int recordSize;
+    private final int targetRate;
+    private final long apiLatencyMs;
+    private final List<String> scenarios;
+    private final Map<String, String> extraBrokerConfig;
+
+    private EndToEndBenchmark(int records, int warmupRecords, int recordSize, int targetRate, long apiLatencyMs, List<String> scenarios, Map<String, String> extraBrokerConfig) {
+        this.records = records;
+        this.warmupRecords = warmupRecords;
+        this.recordSize = recordSize;
+        this.targetRate = targetRate;
+        this.apiLatencyMs = apiLatencyMs;
+        this.scenarios = scenarios;
+        this.extraBrokerConfig = extraBrokerConfig;
+    }
+
+    public static void main(String[] args) throws Exception {
+        int records = 100_000;
+        int warmupRecords = 10_000;
+        int recordSize = 512;
+        int targetRate = 0;
+        long apiLatencyMs = 1;
+        List<String> scenarios = Arrays.asList("baseline", "kubernetes");
+        Map<String, String> extraBrokerConfig = new HashMap<>();
+
+        for (int i = 0; i < args.length; i++)   {
+            if (i + 1 >= args.length)   {
+                throw new IllegalArgumentException("Missing value for " + args[i]);
+            }
+
+            String value = args[++i];
+
+            switch (args[i - 1])    {
+                case "--records":
+                    records = Integer.parseInt(value);
+                    break;
+                case "--warmup-records":
+                    warmupRecords = Integer.parseInt(value);
+                    break;
+                case "--record-size":
+                    recordSize = Integer.parseInt(value);
+                    break;
+                case "--target-rate":
+                    targetRate = Integer.parseInt(value);
+                    break;
+                case "--api-latency-ms":
+                    apiLatencyMs = Long.parseLong(value);
+                    break;
+                case "--scenarios":
+                    scenarios = Arrays.asList(value.split(","));
+                    break;
+                case "--broker-config":
+                    String[] keyValue = value.split("=", 2);
+                    extraBrokerConfig.put(keyValue[0], keyValue.length > 1 ? keyValue[1] : "");
+                    break;
+                default:
+                    throw new IllegalArgumentException("Unknown option " + args[i - 1]);
+            }
+        }
+
+        new EndToEndBenchmark(records, warmupRecords, recordSize, targetRate, apiLatencyMs, scenarios, extraBrokerConfig).run();
+    }
+
+    private void run() throws Exception {
+        List<Result> results = new ArrayList<>();
+
+        try (StandInApiServer apiServer = new StandInApiServer(apiLatencyMs)) {
+            for (String scenario : scenarios)   {
+                switch (scenario)   {
+                    case "baseline":
+                        results.add(runScenario(scenario, apiServer, baselineBrokerConfig(), "PLAINTEXT", Collections.emptyMap()));
+                        break;
+                    case "kubernetes":
+                        results.add(runScenario(scenario, apiServer, kubernetesBrokerConfig(), "SASL_PLAINTEXT", kubernetesClientConfig()));
+                        break;
+                    default:
+                        throw new IllegalArgumentException("Unknown scenario " + scenario);
+                }
+            }
+        }
+
+        report(results);
+    }
+
+    private static Map<String, String> baselineBrokerConfig()  {
+        Map<String, String> config = new HashMap<>();
+        config.put("authorizer.class.name", "kafka.security.auth.SimpleAclAuthorizer");
+        config.put("allow.everyone.if.no.acl.found", "true");
+        return config;
+    }
+
+    private Map<String, String> kubernetesBrokerConfig()  {
+        Map<String, String> config = new HashMap<>();
+        config.put("authorizer.class.name", "io.strimzi.kafka.kubernetes.authorizer.KubernetesAuthorizer");
+        // The broker itself is a regular user passed to the SimpleAclAuthorizer
+        config.put("allow.everyone.if.no.acl.found", "true");
+        config.put("sasl.enabled.mechanisms", "OAUTHBEARER");
+        config.put("listener.name.clients.oauthbearer.sasl.jaas.config", "org.apache.kafka.common.security.oauthbearer.OAuthBearerLoginModule required ;");
+        config.put("listener.name.clients.oauthbearer.sasl.server.callback.handler.class", "io.strimzi.kafka.kubernetes.authenticator.KubernetesTokenValidatorCallbackHandler");
+        config.putAll(extraBrokerConfig);
+        return config;
+    }
+
+    private static Map<String, Object> kubernetesClientConfig()  {
+        Map<String, Object> config = new HashMap<>();
+        config.put("security.protocol", "SASL_PLAINTEXT");
+        config.put("sasl.mechanism", "OAUTHBEARER");
+        config.put("sasl.jaas.config", "org.apache.kafka.common.security.oauthbearer.OAuthBearerLoginModule required token=\"" + Tokens.boundToken(SERVICE_ACCOUNT) + "\";");
+        config.put("sasl.login.callback.handler.class", "io.strimzi.kafka.kubernetes.authenticator.KubernetesTokenLoginCallbackHandler");
+        return config;
+    }
+
+    private Result runScenario(String name, StandInApiServer apiServer, Map<String, String> brokerConfig, String clientsProtocol, Map<String, Object> clientConfig) throws Exception {
+        System.out.println("Running scenario " + name);
+
+        try (EmbeddedZooKeeper zooKeeper = new EmbeddedZooKeeper();
+             EmbeddedKafka kafka = new EmbeddedKafka(zooKeeper.connect(), brokerConfig, clientsProtocol)) {
+            createTopic(kafka);
+
+            long requestsBefore = apiServer.requests();
+            Result result = new Result(name);
+
+            produce(kafka, clientConfig, result);
+            consume(kafka, clientConfig, result);
+
+            result.apiRequests = apiServer.requests() - requestsBefore;
+            return result;
+        }
+    }
+
+    private static void createTopic(EmbeddedKafka kafka) throws ExecutionException, InterruptedException {
+        Properties props = new Properties();
+        props.put(AdminClientConfig.BOOTSTRAP_SERVERS_CONFIG, kafka.replicationBootstrap());
+
+        try (AdminClient admin = AdminClient.create(props)) {
+            admin.createTopics(Collections.singletonList(new NewTopic(TOPIC, PARTITIONS, (short) 1))).all().get();
+        }
+    }
+
+    private void produce(EmbeddedKafka kafka, Map<String, Object> clientConfig, Result result) throws InterruptedException {
+        Map<String, Object> config = new HashMap<>(clientConfig);
+        config.put(ProducerConfig.BOOTSTRAP_SERVERS_CONFIG, kafka.clientsBootstrap());
+        config.put(ProducerConfig.ACKS_CONFIG, "all");
+        config.put(ProducerConfig.KEY_SERIALIZER_CLASS_CONFIG, ByteArraySerializer.class.getName());
+        config.put(ProducerConfig.VALUE_SERIALIZER_CLASS_CONFIG, ByteArraySerializer.class.getName());
+
+        byte[] value = new byte[recordSize];
+        long[] latenciesNs = new long[records];
+        AtomicLong errors = new AtomicLong(0);
+
+        try (KafkaProducer<byte[], byte[]> producer = new KafkaProducer<>(config)) {
+            for (int i = 0; i < warmupRecords; i++) {
+                producer.send(new ProducerRecord<>(TOPIC, value), (metadata, e) -> {
+                    if (e != null) {
+                        errors.incrementAndGet();
+                    }
+                });
+            }
+            producer.flush();
+
+            long startNs = System.nanoTime();
+
+            long intervalNs = targetRate > 0 ? TimeUnit.SECONDS.toNanos(1) / targetRate : 0;
+
+            for (int i = 0; i < records; i++) {
+                int index = i;
+
+                if (intervalNs > 0) {
+                    long scheduledNs = startNs + i * intervalNs;
+
+                    while (System.nanoTime() < scheduledNs) {
+                        LockSupport.parkNanos(scheduledNs - System.nanoTime());
+                    }
+                }
+
+                long sendNs = System.nanoTime();
+
+                producer.send(new ProducerRecord<>(TOPIC, value), (metadata, e) -> {
+                    latenciesNs[index] = System.nanoTime() - sendNs;
+
+                    if (e != null) {
+                        errors.incrementAndGet();
+                    }
+                });
+            }
+            producer.flush();
+
+            result.produceElapsedNs = System.nanoTime() - startNs;
+        }
+
+        if (errors.get() > 0)   {
+            throw new IllegalStateException(errors.get() + " records failed to be produced");
+        }
+
+        Arrays.sort(latenciesNs);
+        result.produceLatenciesNs = latenciesNs;
+    }
+
+    private void consume(EmbeddedKafka kafka, Map<String, Object> clientConfig, Result result) {
+        Map<String, Object> config = new HashMap<>(clientConfig);
+        config.put(ConsumerConfig.BOOTSTRAP_SERVERS_CONFIG, kafka.clientsBootstrap());
+        config.put(ConsumerConfig.GROUP_ID_CONFIG, GROUP);
+        config.put(ConsumerConfig.AUTO_OFFSET_RESET_CONFIG, "earliest");
+        config.put(ConsumerConfig.KEY_DESERIALIZER_CLASS_CONFIG, ByteArrayDeserializer.class.getName());
+        config.put(ConsumerConfig.VALUE_DESERIALIZER_CLASS_CONFIG, ByteArrayDeserializer.class.getName());
+
+        long expected = (long) records + warmupRecords;
+        long consumed = 0;
+        long startNs = 0;
+        long deadline = System.currentTimeMillis() + CONSUME_TIMEOUT_MS;
+
+        try (KafkaConsumer<byte[], byte[]> consumer = new KafkaConsumer<>(config)) {
+            consumer.subscribe(Collections.singletonList(TOPIC));
+
+            while (consumed < expected) {
+                if (System.currentTimeMillis() > deadline)  {
+                    throw new IllegalStateException("Consumed only " + consumed + " out of " + expected + " records");
+                }
+
+                ConsumerRecords<byte[], byte[]> polled = consumer.poll(Duration.ofMillis(100));
+
+                if (!polled.isEmpty() && startNs == 0)  {
+                    // The measurement starts with the first fetched records, after the group join
+                    startNs = System.nanoTime();
+                }
+
+                consumed += polled.count();
+            }
+
+            consumer.commitSync();
+        }
+
+        result.consumeElapsedNs = System.nanoTime() - startNs;
+        result.consumedRecords = consumed;
+    }
+
+    private void report(List<Result> results)  {
+        System.out.println();
+        System.out.println(String.format(Locale.ROOT, "Records: %d (warm-up %d), record size: %d bytes, target rate: %s, API server latency: %d ms",
+                records, warmupRecords, recordSize, targetRate > 0 ? targetRate + " rec/s" : "unlimited", apiLatencyMs));
+        System.out.println();
+        System.out.println(String.format(Locale.ROOT, "%-12s %14s %10s %10s %10s %10s %10s %14s %10s %12s",
+                "Scenario", "Produce rec/s", "MB/s", "p50 ms", "p99 ms", "p99.9 ms", "max ms", "Consume rec/s", "MB/s", "API requests"));
+
+        for (Result result : results)   {
+            double produceRate = records / (result.produceElapsedNs / 1e9);
+            double consumeRate = result.consumedRecords / (result.consumeElapsedNs / 1e9);
+
+            System.out.println(String.format(Locale.ROOT, "%-12s %14.0f %10.2f %10.2f %10.2f %10.2f %10.2f %14.0f %10.2f %12d",
+                    result.name,
+                    produceRate, produceRate * recordSize / (1024 * 1024),
+                    result.produceLatencyMs(0.50), result.produceLatencyMs(0.99), result.produceLatencyMs(0.999), result.produceLatencyMs(1.0),
+                    consumeRate, consumeRate * recordSize / (1024 * 1024),
+                    result.apiRequests));
+        }
+
+        Result baseline = results.stream().filter(result -> "baseline".equals(result.name)).findFirst().orElse(null);
+
+        if (baseline != null)   {
+            System.out.println();
+
+            for (Result result : results)   {
+                if (result != baseline) {
+                    System.out.println(String.format(Locale.ROOT, "%s vs. baseline: produce throughput %+.1f %%, produce p99 latency %+.1f %%, consume throughput %+.1f %%",
+                            result.name,
+                            change(baseline.produceElapsedNs, result.produceElapsedNs, true),
+                            change(baseline.produceLatencyMs(0.99), result.produceLatencyMs(0.99), false),
+                            change((double) baseline.consumeElapsedNs / baseline.consumedRecords, (double) result.consumeElapsedNs / result.consumedRecords, true)));
+                }
+            }
+        }
+    }
+
+    /**
+     * @return  Relative change in percent. For durations, the change of the corresponding throughput is returned.
+     */
+    private static double change(double baseline, double value, boolean duration)  {
+        return duration ? (baseline / value - 1) * 100 : (value / baseline - 1) * 100;
+    }
+
+    private static class Result {
+        private final String name;
+        private long produceElapsedNs;
+        private long[] produceLatenciesNs;
+        private long consumeElapsedNs;
+        private long consumedRecords;
+        private long apiRequests;
+
+        private Result(String name) {
+            this.name = name;
+        }
+
+        private double produceLatencyMs(double percentile)  {
+            int index = Math.min(produceLatenciesNs.length - 1, (int) Math.ceil(percentile * produceLatenciesNs.length) - 1);
+            return (double) produceLatenciesNs[Math.max(index, 0)] / TimeUnit.MILLISECONDS.toNanos(1);
+        }
+    }
+}
@@ -0,0 +1,150 @@
+package io.strimzi.kafka.kubernetes.benchmarks;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Predicate;
+
+/**
+ * Minimal stand-in for the Kubernetes API server. It answers the TokenReview and SubjectAccessReview requests after
+ * a configurable latency. By default, all reviews are positive. The decisions can be scripted with predicates on the
+ * request body. It also configures the Kubernetes client used by the plugins to connect to it.
+ */
+public class StandInApiServer implements Closeable {
+    public static final String NAMESPACE = "myproject";
+
+    private static final byte[] SUBJECT_ACCESS_REVIEW_RESPONSE = ("{\"kind\":\"SubjectAccessReview\",\"apiVersion\":\"authorization.k8s.io/v1\"," +
+            "\"metadata\":{\"creationTimestamp\":null},\"spec\":{\"resourceAttributes\":{\"namespace\":\"myproject\",\"verb\":\"get\"," +
+            "\"group\":\"kafka.strimzi.io\",\"resource\":\"kafkatopics\",\"name\":\"my-topic\"},\"user\":\"system:serviceaccount:myproject:my-user\"}," +
+            "\"status\":{\"allowed\":true,\"reason\":\"RBAC: allowed by RoleBinding \\\"my-user\\\" of Role \\\"my-user\\\" to ServiceAccount \\\"my-user/myproject\\\"\"}}")
+            .getBytes(StandardCharsets.UTF_8);
+
+    private static final byte[] SUBJECT_ACCESS_REVIEW_DENIED_RESPONSE = ("{\"kind\":\"SubjectAccessReview\",\"apiVersion\":\"authorization.k8s.io/v1\"," +
+            "\"metadata\":{\"creationTimestamp\":null},\"spec\":{},\"status\":{\"allowed\":false}}")
+            .getBytes(StandardCharsets.UTF_8);
+
+    private static final byte[] TOKEN_REVIEW_RESPONSE = ("{\"kind\":\"TokenReview\",\"apiVersion\":\"authentication.k8s.io/v1\"," +
+            "\"metadata\":{\"creationTimestamp\":null},\"spec\":{\"token\":\"<token>\"},\"status\":{\"authenticated\":true," +
+            "\"user\":{\"username\":\"system:serviceaccount:myproject:my-user\",\"uid\":\"f80b54a9-a710-11e9-8571-321f1ac1f59d\"," +
+            "\"groups\":[\"system:serviceaccounts\",\"system:serviceaccounts:myproject\",\"system:authenticated\"]}}}")
+            .getBytes(StandardCharsets.UTF_8);
+
+    private static final byte[] TOKEN_REVIEW_REJECTED_RESPONSE = ("{\"kind\":\"TokenReview\",\"apiVersion\":\"authentication.k8s.io/v1\"," +
+            "\"metadata\":{\"creationTimestamp\":null},\"spec\":{\"token\":\"<token>\"},\"status\":{\"user\":{}," +
+            "\"error\":\"[invalid bearer token]\"}}")
+            .getBytes(StandardCharsets.UTF_8);
+
+    private final HttpServer server;
+    private final ExecutorService executor;
+    private final AtomicLong requests = new AtomicLong(0);
+
+    private volatile long latencyMs;
+    private volatile Predicate<String> subjectAccessReviewDecision = request -> true;
+    private volatile Predicate<String> tokenReviewDecision = request -> true;
+
+    /**
+     * @param latencyMs     Latency added to every response
+     */
+    public StandInApiServer(long latencyMs) throws IOException {
+        this.latencyMs = latencyMs;
+
+        // Without this, Nagle's algorithm adds tens of milliseconds to every response
+        System.setProperty("sun.net.httpserver.nodelay", "true");
+
+        server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        server.createContext("/apis/authorization.k8s.io/v1/subjectaccessreviews",
+            exchange -> respond(exchange, subjectAccessReviewDecision, SUBJECT_ACCESS_REVIEW_RESPONSE, SUBJECT_ACCESS_REVIEW_DENIED_RESPONSE));
+        server.createContext("/apis/authentication.k8s.io/v1/tokenreviews",
+            exchange -> respond(exchange, tokenReviewDecision, TOKEN_REVIEW_RESPONSE, TOKEN_REVIEW_REJECTED_RESPONSE));
+
+        // The requests are handled in parallel so that the latency does not serialize them
+        executor = Executors.newCachedThreadPool(runnable -> {
+            Thread thread = new Thread(runnable, "stand-in-api-server");
+            thread.setDaemon(true);
+            return thread;
+        });
+        server.setExecutor(executor);
+        server.start();
+
+        System.setProperty("kubernetes.master", "http://localhost:" + server.getAddress().getPort() + "/");
+        System.setProperty("kubernetes.namespace", NAMESPACE);
+        System.setProperty("kubernetes.auth.tryKubeConfig", "false");
+        System.setProperty("kubernetes.auth.tryServiceAccount", "false");
+    }
+
+    /**
+     * @param latencyMs     Latency added to every response
+     */
+    public void latencyMs(long latencyMs) {
+        this.latencyMs = latencyMs;
+    }
+
+    /**
+     * @param decision  Decides whether the SubjectAccessReview request (passed as JSON) is allowed
+     */
+    public void subjectAccessReviewDecision(Predicate<String> decision) {
+        this.subjectAccessReviewDecision = decision;
+    }
+
+    /**
+     * @param decision  Decides whether the token in the TokenReview request (passed as JSON) is authenticated
+     */
+    public void tokenReviewDecision(Predicate<String> decision) {
+        this.tokenReviewDecision = decision;
+    }
+
+    private void respond(HttpExchange exchange, Predicate<String> decision, byte[] positiveResponse, byte[] negativeResponse) throws IOException {
+        requests.incrementAndGet();
+
+        ByteArrayOutputStream request = new ByteArrayOutputStream(512);
+
+        try (InputStream is = exchange.getRequestBody()) {
+            byte[] buffer = new byte[1024];
+            int read;
+
+            while ((read = is.read(buffer)) >= 0) {
+                request.write(buffer, 0, read);
+            }
+        }
+
+        byte[] response = decision.test(new String(request.toByteArray(), StandardCharsets.UTF_8)) ? positiveResponse : negativeResponse;
+
+        if (latencyMs > 0)  {
+            try {
+                Thread.sleep(latencyMs);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+
+        exchange.getResponseHeaders().add("Content-Type", "application/json");
+        exchange.sendResponseHeaders(201, response.length);
+
+        try (OutputStream os = exchange.getResponseBody()) {
+            os.write(response);
+        }
+    }
+
+    /**
+     * @return  Number of requests received by the server
+     */
+    public long requests() {
+        return requests.get();
+    }
+
+    @Override
+    public void close() {
+        server.stop(0);
+        executor.shutdownNow();
+    }
+}
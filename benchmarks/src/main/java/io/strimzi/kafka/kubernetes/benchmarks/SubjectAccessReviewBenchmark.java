@@ -0,0 +1,52 @@
+package io.strimzi.kafka.kubernetes.benchmarks;
+
+import io.strimzi.kafka.kubernetes.authorizer.SubjectAccessReviewUtils;
+import okio.Buffer;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks building the SubjectAccessReview requests and parsing the responses
+ */
+@State(Scope.Thread)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class SubjectAccessReviewBenchmark {
+    private static final byte[] RESPONSE = ("{\"kind\":\"SubjectAccessReview\",\"apiVersion\":\"authorization.k8s.io/v1\",\"metadata\":{\"creationTimestamp\":null}," +
+            "\"spec\":{\"resourceAttributes\":{\"namespace\":\"myproject\",\"verb\":\"get\",\"group\":\"kafka.strimzi.io\",\"resource\":\"kafkatopics\"," +
+            "\"name\":\"my-topic\"},\"user\":\"system:serviceaccount:myproject:my-user\",\"groups\":[\"system:serviceaccounts\"," +
+            "\"system:serviceaccounts:myproject\",\"system:authenticated\"],\"uid\":\"f80b54a9-a710-11e9-8571-321f1ac1f59d\"}," +
+            "\"status\":{\"allowed\":true,\"reason\":\"RBAC: allowed by RoleBinding \\\"my-user\\\" of Role \\\"my-user\\\" to ServiceAccount \\\"my-user/myproject\\\"\"}}")
+            .getBytes(StandardCharsets.UTF_8);
+
+    private final Buffer buffer = new Buffer();
+
+    @Benchmark
+    public long buildRequest() throws IOException {
+        buffer.clear();
+        SubjectAccessReviewUtils.getSubjectAccessReviewRequestBody("myproject", "system:serviceaccount:myproject:my-user",
+                "kafka.strimzi.io", "kafkatopics", "get", "my-topic").writeTo(buffer);
+
+        return buffer.size();
+    }
+
+    @Benchmark
+    public boolean parseResponse() throws IOException {
+        return SubjectAccessReviewUtils.parseStatus(new ByteArrayInputStream(RESPONSE)).isAllowed();
+    }
+}
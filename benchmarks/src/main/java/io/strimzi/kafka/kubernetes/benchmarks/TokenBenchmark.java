@@ -0,0 +1,44 @@
+package io.strimzi.kafka.kubernetes.benchmarks;
+
+import io.strimzi.kafka.kubernetes.authenticator.KubernetesClaims;
+import io.strimzi.kafka.kubernetes.authenticator.OAuthBearerTokenImpl;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks parsing of the service account tokens in OAuthBearerTokenImpl
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class TokenBenchmark {
+    private final String boundToken = Tokens.boundToken("system:serviceaccount:myproject:my-user");
+
+    @Benchmark
+    public OAuthBearerTokenImpl legacyToken() throws IOException {
+        return new OAuthBearerTokenImpl(Tokens.LEGACY_TOKEN);
+    }
+
+    @Benchmark
+    public OAuthBearerTokenImpl boundToken() throws IOException {
+        return new OAuthBearerTokenImpl(boundToken);
+    }
+
+    @Benchmark
+    public KubernetesClaims boundTokenWithKubernetesClaims() throws IOException {
+        return new OAuthBearerTokenImpl(boundToken).kubernetesClaims();
+    }
+}
@@ -0,0 +1,85 @@
+package io.strimzi.kafka.kubernetes.benchmarks;
+
+import io.strimzi.kafka.kubernetes.authenticator.KubernetesTokenValidatorCallbackHandler;
+import org.apache.kafka.common.security.oauthbearer.OAuthBearerLoginModule;
+import org.apache.kafka.common.security.oauthbearer.OAuthBearerValidatorCallback;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import javax.security.auth.callback.Callback;
+import javax.security.auth.callback.UnsupportedCallbackException;
+import java.io.IOException;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks the KubernetesTokenValidatorCallbackHandler.handle() method with TokenReviews against the stand-in API
+ * server
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class TokenValidatorBenchmark {
+    private static final int TOKENS = 100;
+
+    @Param({"false", "true"})
+    public boolean cache;
+
+    @Param({"0", "5"})
+    public long latencyMs;
+
+    private StandInApiServer apiServer;
+    private KubernetesTokenValidatorCallbackHandler handler;
+    private String[] tokens;
+
+    @Setup(Level.Trial)
+    public void setup() throws IOException {
+        apiServer = new StandInApiServer(latencyMs);
+
+        Map<String, Object> configs = new HashMap<>();
+        configs.put(KubernetesTokenValidatorCallbackHandler.CACHE_ENABLED_CONFIG, String.valueOf(cache));
+
+        handler = new KubernetesTokenValidatorCallbackHandler();
+        handler.configure(configs, OAuthBearerLoginModule.OAUTHBEARER_MECHANISM, Collections.emptyList());
+
+        tokens = new String[TOKENS];
+        for (int i = 0; i < TOKENS; i++)    {
+            tokens[i] = Tokens.boundToken("system:serviceaccount:" + StandInApiServer.NAMESPACE + ":my-user-" + i);
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void teardown() {
+        handler.close();
+        apiServer.close();
+    }
+
+    @State(Scope.Thread)
+    public static class Counter {
+        int next = 0;
+    }
+
+    @Benchmark
+    public OAuthBearerValidatorCallback handle(Counter counter) throws IOException, UnsupportedCallbackException {
+        OAuthBearerValidatorCallback callback = new OAuthBearerValidatorCallback(tokens[counter.next++ % TOKENS]);
+        handler.handle(new Callback[] {callback});
+
+        return callback;
+    }
+}
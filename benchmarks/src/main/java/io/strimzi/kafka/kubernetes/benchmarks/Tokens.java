@@ -0,0 +1,39 @@
+package io.strimzi.kafka.kubernetes.benchmarks;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+/**
+ * Sample service account tokens. The signatures are not valid, so they can be used only with the stand-in API server.
+ */
+public class Tokens {
+    private static final Base64.Encoder ENCODER = Base64.getUrlEncoder().withoutPadding();
+    private static final String HEADER = ENCODER.encodeToString("{\"alg\":\"RS256\",\"kid\":\"dKq1Zzx8tVOm4dN_4yNQW0dNEkAuEGTqAkuwR3D1KFc\"}".getBytes(StandardCharsets.UTF_8));
+    private static final String SIGNATURE = ENCODER.encodeToString(new byte[256]);
+
+    // Token issued by the API server for the legacy service account token secrets
+    public static final String LEGACY_TOKEN = token("{\"iss\":\"kubernetes/serviceaccount\",\"kubernetes.io/serviceaccount/namespace\":\"myproject\"," +
+            "\"kubernetes.io/serviceaccount/secret.name\":\"my-user-token-rtq6k\",\"kubernetes.io/serviceaccount/service-account.name\":\"my-user\"," +
+            "\"kubernetes.io/serviceaccount/service-account.uid\":\"f80b54a9-a710-11e9-8571-321f1ac1f59d\",\"sub\":\"system:serviceaccount:myproject:my-user\"}");
+
+    /**
+     * Creates bound service account token
+     *
+     * @param subject   Subject of the token
+     *
+     * @return  Token valid for the next 10 years
+     */
+    public static String boundToken(String subject)  {
+        long now = System.currentTimeMillis() / 1000L;
+
+        return token("{\"aud\":[\"https://kubernetes.default.svc.cluster.local\"],\"exp\":" + (now + 315360000L) + ",\"iat\":" + now + "," +
+                "\"iss\":\"https://kubernetes.default.svc.cluster.local\",\"kubernetes.io\":{\"namespace\":\"myproject\"," +
+                "\"pod\":{\"name\":\"my-pod-7d8f9b6c5-x2x4z\",\"uid\":\"3c2e8c1a-1f1e-4f3e-9a2b-2d6f1c0e8a7b\"}," +
+                "\"serviceaccount\":{\"name\":\"my-user\",\"uid\":\"f80b54a9-a710-11e9-8571-321f1ac1f59d\"},\"warnafter\":" + (now + 3607) + "}," +
+                "\"nbf\":" + now + ",\"sub\":\"" + subject + "\"}");
+    }
+
+    private static String token(String payload)  {
+        return HEADER + "." + ENCODER.encodeToString(payload.getBytes(StandardCharsets.UTF_8)) + "." + SIGNATURE;
+    }
+}
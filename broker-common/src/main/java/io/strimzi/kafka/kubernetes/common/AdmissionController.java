@@ -0,0 +1,246 @@
+package io.strimzi.kafka.kubernetes.common;
+
+import org.apache.kafka.common.utils.Time;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Limits the review requests sent to the Kubernetes API server. It combines a limit on the number of concurrent
+ * requests with a token bucket limiting their rate. Requests which cannot be admitted immediately wait in a bounded
+ * queue. The waiting requests are admitted by their lane: critical requests (cluster actions of authenticated
+ * principals) first, then revalidations of cached results and only then new client requests. A request which cannot
+ * be admitted before its deadline or which does not fit into the queue is rejected, so that the callers can fail fast
+ * instead of piling up behind a slow API server.
+ */
+public class AdmissionController {
+    private static final Logger log = LoggerFactory.getLogger(AdmissionController.class);
+
+    // The options are prefixed by the plugin prefix (e.g. kubernetes.authorizer.)
+    public static final String ENABLED_CONFIG = "admission.enabled";
+    public static final String MAX_CONCURRENT_CONFIG = "admission.max.concurrent";
+    public static final String RATE_CONFIG = "admission.rate";
+    public static final String BURST_CONFIG = "admission.burst";
+    public static final String QUEUE_SIZE_CONFIG = "admission.queue.size";
+    public static final String MAX_WAIT_MS_CONFIG = "admission.max.wait.ms";
+
+    private static final int DEFAULT_MAX_CONCURRENT = 16;
+    private static final double DEFAULT_RATE = 50.0;
+    private static final int DEFAULT_QUEUE_SIZE = 100;
+    private static final long DEFAULT_MAX_WAIT_MS = 1_000L;
+
+    // Minimal wait, so that rounding never turns the wait for the next token into a busy loop
+    private static final long MIN_WAIT_NS = TimeUnit.MICROSECONDS.toNanos(100);
+
+    /**
+     * Priority lanes ordered from the highest priority
+     */
+    public enum Lane {
+        // Cluster actions of authenticated principals. They are never rejected because of a full queue, so they must
+        // never be chosen based on anything the client did not prove.
+        CRITICAL,
+        // Background revalidation of cached results
+        REVALIDATION,
+        // New requests from the clients
+        NORMAL
+    }
+
+    private final String name;
+    private final Time time;
+    private final int maxConcurrent;
+    private final double ratePerNs;
+    private final double burst;
+    private final int queueSize;
+    private final long maxWaitNs;
+
+    private final int[] waiting = new int[Lane.values().length];
+    private int totalWaiting = 0;
+    private int inFlight = 0;
+    private double tokens;
+    private long lastRefillNs;
+
+    /**
+     * @param name          Name used in the log messages
+     * @param time          Time
+     * @param maxConcurrent Maximal number of concurrent requests
+     * @param rate          Maximal rate of the requests per second (0 for no rate limit)
+     * @param burst         Number of requests which can be admitted at once above the rate
+     * @param queueSize     Maximal number of waiting requests
+     * @param maxWaitMs     How long can a request wait to be admitted
+     */
+    public AdmissionController(String name, Time time, int maxConcurrent, double rate, double burst, int queueSize, long maxWaitMs) {
+        if (maxConcurrent <= 0)   {
+            throw new IllegalArgumentException("The maximal number of concurrent requests has to be positive");
+        }
+
+        this.name = name;
+        this.time = time;
+        this.maxConcurrent = maxConcurrent;
+        this.ratePerNs = rate > 0 ? rate / TimeUnit.SECONDS.toNanos(1) : 0;
+        this.burst = Math.max(burst, 1.0);
+        this.queueSize = Math.max(queueSize, 0);
+        this.maxWaitNs = TimeUnit.MILLISECONDS.toNanos(Math.max(maxWaitMs, 0));
+        this.tokens = this.burst;
+        this.lastRefillNs = time.nanoseconds();
+    }
+
+    /**
+     * Creates the admission controller from the plugin configuration.
+     *
+     * @param configs   Plugin configuration
+     * @param prefix    Prefix of the options
+     * @param name      Name used in the log messages
+     *
+     * @return  The admission controller or null if it is not enabled
+     */
+    public static AdmissionController fromConfig(Map<String, ?> configs, String prefix, String name)  {
+        if (!ConfigUtils.getBoolean(configs, prefix + ENABLED_CONFIG, false))    {
+            return null;
+        }
+
+        int maxConcurrent = ConfigUtils.getInt(configs, prefix + MAX_CONCURRENT_CONFIG, DEFAULT_MAX_CONCURRENT);
+        double rate = ConfigUtils.getDouble(configs, prefix + RATE_CONFIG, DEFAULT_RATE);
+        double burst = ConfigUtils.getDouble(configs, prefix + BURST_CONFIG, Math.max(rate, 1.0));
+        int queueSize = ConfigUtils.getInt(configs, prefix + QUEUE_SIZE_CONFIG, DEFAULT_QUEUE_SIZE);
+        long maxWaitMs = ConfigUtils.getLong(configs, prefix + MAX_WAIT_MS_CONFIG, DEFAULT_MAX_WAIT_MS);
+
+        log.info("{} admission control is enabled (max. concurrent {}, rate {}/s, burst {}, queue size {}, max. wait {} ms)",
+                name, maxConcurrent, rate, burst, queueSize, maxWaitMs);
+
+        return new AdmissionController(name, Time.SYSTEM, maxConcurrent, rate, burst, queueSize, maxWaitMs);
+    }
+
+    /**
+     * Asks for permission to send a request. Waits until the request is admitted, its deadline passes or the queue is
+     * full. Every admitted request has to be followed by release().
+     *
+     * @param lane  Priority lane of the request
+     *
+     * @return  True if the request was admitted. False if it was rejected.
+     *
+     * @throws InterruptedException When interrupted while waiting
+     */
+    public synchronized boolean acquire(Lane lane) throws InterruptedException  {
+        // Requests which are not waiting yet do not overtake the waiting requests from the same or higher lanes
+        if (!hasWaitingAtOrAbove(lane.ordinal()) && canAdmit()) {
+            admit();
+            return true;
+        }
+
+        if (lane != Lane.CRITICAL && totalWaiting >= queueSize) {
+            log.trace("{} request rejected because the admission queue is full", name);
+            return false;
+        }
+
+        long deadlineNs = time.nanoseconds() + maxWaitNs;
+        waiting[lane.ordinal()]++;
+        totalWaiting++;
+
+        try {
+            while (true)    {
+                long remainingNs = deadlineNs - time.nanoseconds();
+
+                if (remainingNs <= 0)   {
+                    log.trace("{} request rejected because it was not admitted within {} ms", name, TimeUnit.NANOSECONDS.toMillis(maxWaitNs));
+                    return false;
+                }
+
+                long waitNs = remainingNs;
+
+                if (inFlight < maxConcurrent && !hasWaitingAtOrAbove(lane.ordinal() - 1))  {
+                    // Only the rate limit blocks this request
+                    long tokenWaitNs = nanosUntilToken();
+
+                    if (tokenWaitNs > remainingNs)  {
+                        log.trace("{} request rejected because the rate limit would not admit it within its deadline", name);
+                        return false;
+                    }
+
+                    waitNs = Math.max(tokenWaitNs, MIN_WAIT_NS);
+                }
+
+                TimeUnit.NANOSECONDS.timedWait(this, waitNs);
+
+                if (!hasWaitingAtOrAbove(lane.ordinal() - 1) && canAdmit()) {
+                    admit();
+                    return true;
+                }
+            }
+        } finally {
+            waiting[lane.ordinal()]--;
+            totalWaiting--;
+            // The lower lanes might be able to proceed now
+            notifyAll();
+        }
+    }
+
+    /**
+     * Releases the permission after the admitted request finished
+     */
+    public synchronized void release()  {
+        inFlight--;
+        notifyAll();
+    }
+
+    /**
+     * @return  Number of admitted requests which were not released yet
+     */
+    public synchronized int inFlight()  {
+        return inFlight;
+    }
+
+    /**
+     * @return  Number of requests waiting to be admitted
+     */
+    public synchronized int waiting()  {
+        return totalWaiting;
+    }
+
+    private boolean hasWaitingAtOrAbove(int lane)  {
+        for (int i = 0; i <= lane; i++) {
+            if (waiting[i] > 0) {
+                return true;
+            }
+        }
+
+        return false;
+    }
+
+    private boolean canAdmit()  {
+        if (inFlight >= maxConcurrent)  {
+            return false;
+        }
+
+        refill();
+        return ratePerNs == 0 || tokens >= 1.0;
+    }
+
+    private void admit()  {
+        inFlight++;
+
+        if (ratePerNs > 0)  {
+            tokens -= 1.0;
+        }
+    }
+
+    private void refill()  {
+        if (ratePerNs == 0) {
+            return;
+        }
+
+        long now = time.nanoseconds();
+        tokens = Math.min(burst, tokens + (now - lastRefillNs) * ratePerNs);
+        lastRefillNs = now;
+    }
+
+    private long nanosUntilToken()  {
+        if (ratePerNs == 0)    {
+            return 0;
+        }
+
+        refill();
+        return tokens >= 1.0 ? 0 : (long) Math.ceil((1.0 - tokens) / ratePerNs);
+    }
+}
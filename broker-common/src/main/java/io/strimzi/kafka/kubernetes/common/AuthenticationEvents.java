@@ -0,0 +1,64 @@
+package io.strimzi.kafka.kubernetes.common;
+
+import org.apache.kafka.common.security.auth.KafkaPrincipal;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * Passes the successful authentications from the authenticator to the other plugins in the same broker (for example
+ * the authorizer, which can prepare the decisions the authenticated principal will need). The listeners are called
+ * from the thread doing the authentication, which is usually the network thread of the broker. So they have to
+ * return quickly and do any real work asynchronously.
+ */
+public class AuthenticationEvents {
+    private static final Logger log = LoggerFactory.getLogger(AuthenticationEvents.class);
+
+    /**
+     * Listener for the authentication events
+     */
+    public interface Listener {
+        /**
+         * Called when a principal was authenticated
+         *
+         * @param principal     The authenticated principal
+         */
+        void authenticated(KafkaPrincipal principal);
+    }
+
+    private static final List<Listener> LISTENERS = new CopyOnWriteArrayList<>();
+
+    private AuthenticationEvents() { }
+
+    public static void register(Listener listener)  {
+        LISTENERS.add(listener);
+    }
+
+    public static void unregister(Listener listener)  {
+        LISTENERS.remove(listener);
+    }
+
+    /**
+     * @return  True if any listener is registered
+     */
+    public static boolean hasListeners()  {
+        return !LISTENERS.isEmpty();
+    }
+
+    /**
+     * Passes the authenticated principal to all listeners. Failures of the listeners never fail the authentication.
+     *
+     * @param principal     The authenticated principal
+     */
+    public static void authenticated(KafkaPrincipal principal)  {
+        for (Listener listener : LISTENERS)    {
+            try {
+                listener.authenticated(principal);
+            } catch (RuntimeException e)    {
+                log.warn("Authentication listener failed", e);
+            }
+        }
+    }
+}
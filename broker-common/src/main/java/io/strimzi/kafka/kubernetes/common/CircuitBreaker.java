@@ -0,0 +1,211 @@
+package io.strimzi.kafka.kubernetes.common;
+
+import org.apache.kafka.common.utils.Time;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Map;
+
+/**
+ * Circuit breaker for the calls to the Kubernetes API server. It keeps the results of the last calls in a sliding
+ * window. Failed calls and calls slower than the slow call threshold count as failures. When the failure ratio in the
+ * window reaches the threshold, the circuit opens and the calls are rejected without contacting the API server. After
+ * the open duration, a single probe call is let through (half-open state). When it succeeds, the circuit closes again.
+ * Otherwise it stays open for another open duration.
+ */
+public class CircuitBreaker {
+    private static final Logger log = LoggerFactory.getLogger(CircuitBreaker.class);
+
+    // The options are prefixed by the plugin prefix (e.g. kubernetes.authorizer.)
+    public static final String ENABLED_CONFIG = "circuit.breaker.enabled";
+    public static final String FAILURE_RATIO_CONFIG = "circuit.breaker.failure.ratio";
+    public static final String SLOW_CALL_MS_CONFIG = "circuit.breaker.slow.call.ms";
+    public static final String WINDOW_SIZE_CONFIG = "circuit.breaker.window.size";
+    public static final String MINIMUM_CALLS_CONFIG = "circuit.breaker.minimum.calls";
+    public static final String OPEN_MS_CONFIG = "circuit.breaker.open.ms";
+
+    private static final double DEFAULT_FAILURE_RATIO = 0.5;
+    private static final long DEFAULT_SLOW_CALL_MS = 5_000L;
+    private static final int DEFAULT_WINDOW_SIZE = 20;
+    private static final int DEFAULT_MINIMUM_CALLS = 10;
+    private static final long DEFAULT_OPEN_MS = 10_000L;
+
+    public enum State {
+        CLOSED,
+        OPEN,
+        HALF_OPEN
+    }
+
+    private final String name;
+    private final Time time;
+    private final double failureRatio;
+    private final long slowCallMs;
+    private final int minimumCalls;
+    private final long openMs;
+
+    private final boolean[] window;
+    private int windowPosition = 0;
+    private int calls = 0;
+    private int failures = 0;
+
+    private State state = State.CLOSED;
+    private long openedAtMs = 0;
+    private boolean probeInFlight = false;
+
+    /**
+     * @param name          Name used in the log messages
+     * @param time          Time
+     * @param failureRatio  Ratio of failed calls in the window which opens the circuit
+     * @param slowCallMs    Calls slower than this count as failures
+     * @param windowSize    Number of last calls tracked
+     * @param minimumCalls  Minimal number of calls in the window before the circuit can open
+     * @param openMs        How long does the circuit stay open before the probe call
+     */
+    public CircuitBreaker(String name, Time time, double failureRatio, long slowCallMs, int windowSize, int minimumCalls, long openMs) {
+        if (windowSize <= 0)   {
+            throw new IllegalArgumentException("The circuit breaker window size has to be positive");
+        }
+
+        this.name = name;
+        this.time = time;
+        this.failureRatio = failureRatio;
+        this.slowCallMs = slowCallMs;
+        this.minimumCalls = Math.min(Math.max(minimumCalls, 1), windowSize);
+        this.openMs = openMs;
+        this.window = new boolean[windowSize];
+    }
+
+    /**
+     * Creates the circuit breaker from the plugin configuration.
+     *
+     * @param configs   Plugin configuration
+     * @param prefix    Prefix of the options
+     * @param name      Name used in the log messages
+     *
+     * @return  The circuit breaker or null if it is not enabled
+     */
+    public static CircuitBreaker fromConfig(Map<String, ?> configs, String prefix, String name)  {
+        if (!ConfigUtils.getBoolean(configs, prefix + ENABLED_CONFIG, false))    {
+            return null;
+        }
+
+        double failureRatio = ConfigUtils.getDouble(configs, prefix + FAILURE_RATIO_CONFIG, DEFAULT_FAILURE_RATIO);
+        long slowCallMs = ConfigUtils.getLong(configs, prefix + SLOW_CALL_MS_CONFIG, DEFAULT_SLOW_CALL_MS);
+        int windowSize = ConfigUtils.getInt(configs, prefix + WINDOW_SIZE_CONFIG, DEFAULT_WINDOW_SIZE);
+        int minimumCalls = ConfigUtils.getInt(configs, prefix + MINIMUM_CALLS_CONFIG, DEFAULT_MINIMUM_CALLS);
+        long openMs = ConfigUtils.getLong(configs, prefix + OPEN_MS_CONFIG, DEFAULT_OPEN_MS);
+
+        log.info("{} circuit breaker is enabled (failure ratio {}, slow call {} ms, window size {}, minimum calls {}, open {} ms)",
+                name, failureRatio, slowCallMs, windowSize, minimumCalls, openMs);
+
+        return new CircuitBreaker(name, Time.SYSTEM, failureRatio, slowCallMs, windowSize, minimumCalls, openMs);
+    }
+
+    /**
+     * Asks for permission to do a call. Every permitted call has to be followed by onSuccess(), onFailure() or
+     * onCancelled().
+     *
+     * @return  True if the call can be done. False if the circuit is open.
+     */
+    public synchronized boolean tryAcquire()  {
+        switch (state)  {
+            case CLOSED:
+                return true;
+            case OPEN:
+                if (time.milliseconds() - openedAtMs >= openMs) {
+                    log.info("{} circuit breaker is half-open", name);
+                    state = State.HALF_OPEN;
+                    probeInFlight = true;
+                    return true;
+                }
+
+                return false;
+            case HALF_OPEN:
+            default:
+                if (!probeInFlight) {
+                    probeInFlight = true;
+                    return true;
+                }
+
+                return false;
+        }
+    }
+
+    /**
+     * Records a successful call
+     *
+     * @param latencyMs     Latency of the call
+     */
+    public synchronized void onSuccess(long latencyMs)  {
+        if (latencyMs > slowCallMs) {
+            onFailure();
+        } else if (state == State.HALF_OPEN)    {
+            log.info("{} circuit breaker is closed", name);
+            state = State.CLOSED;
+            probeInFlight = false;
+            resetWindow();
+        } else {
+            record(false);
+        }
+    }
+
+    /**
+     * Records a failed call
+     */
+    public synchronized void onFailure()  {
+        if (state == State.HALF_OPEN)   {
+            open();
+        } else if (state == State.CLOSED)   {
+            record(true);
+
+            if (calls >= minimumCalls && failures >= failureRatio * calls) {
+                open();
+            }
+        }
+    }
+
+    /**
+     * Records a call which was cancelled by the caller. It says nothing about the called service, so it is not
+     * recorded. Only the probe of the half-open circuit is released, so that the next call can be the probe.
+     */
+    public synchronized void onCancelled()  {
+        if (state == State.HALF_OPEN)   {
+            probeInFlight = false;
+        }
+    }
+
+    public synchronized State state()  {
+        return state;
+    }
+
+    private void open()  {
+        log.warn("{} circuit breaker is open. The calls will be rejected for {} ms.", name, openMs);
+        state = State.OPEN;
+        openedAtMs = time.milliseconds();
+        probeInFlight = false;
+        resetWindow();
+    }
+
+    private void record(boolean failure)  {
+        if (calls == window.length)  {
+            if (window[windowPosition])  {
+                failures--;
+            }
+        } else {
+            calls++;
+        }
+
+        window[windowPosition] = failure;
+        windowPosition = (windowPosition + 1) % window.length;
+
+        if (failure)    {
+            failures++;
+        }
+    }
+
+    private void resetWindow()  {
+        calls = 0;
+        failures = 0;
+        windowPosition = 0;
+    }
+}
@@ -0,0 +1,135 @@
+package io.strimzi.kafka.kubernetes.common;
+
+import org.apache.kafka.common.security.auth.KafkaPrincipal;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Helpers for reading the plugin options from the broker configuration. The values can be either strings (when
+ * read from the properties file) or already parsed objects.
+ */
+public class ConfigUtils {
+    private ConfigUtils() { }
+
+    public static boolean getBoolean(Map<String, ?> configs, String key, boolean defaultValue)  {
+        Object value = configs.get(key);
+
+        if (value == null)  {
+            return defaultValue;
+        } else if (value instanceof Boolean)   {
+            return (Boolean) value;
+        } else {
+            return Boolean.parseBoolean(value.toString().trim());
+        }
+    }
+
+    public static long getLong(Map<String, ?> configs, String key, long defaultValue)  {
+        Object value = configs.get(key);
+
+        if (value == null)  {
+            return defaultValue;
+        } else if (value instanceof Number)   {
+            return ((Number) value).longValue();
+        } else {
+            try {
+                return Long.parseLong(value.toString().trim());
+            } catch (NumberFormatException e)   {
+                throw new IllegalArgumentException("Invalid value " + value + " for " + key, e);
+            }
+        }
+    }
+
+    public static int getInt(Map<String, ?> configs, String key, int defaultValue)  {
+        long value = getLong(configs, key, defaultValue);
+
+        if (value > Integer.MAX_VALUE || value < Integer.MIN_VALUE)    {
+            throw new IllegalArgumentException("Invalid value " + value + " for " + key);
+        }
+
+        return (int) value;
+    }
+
+    public static double getDouble(Map<String, ?> configs, String key, double defaultValue)  {
+        Object value = configs.get(key);
+
+        if (value == null)  {
+            return defaultValue;
+        } else if (value instanceof Number)   {
+            return ((Number) value).doubleValue();
+        } else {
+            try {
+                return Double.parseDouble(value.toString().trim());
+            } catch (NumberFormatException e)   {
+                throw new IllegalArgumentException("Invalid value " + value + " for " + key, e);
+            }
+        }
+    }
+
+    public static String getString(Map<String, ?> configs, String key, String defaultValue)  {
+        Object value = configs.get(key);
+
+        if (value == null)  {
+            return defaultValue;
+        } else {
+            return value.toString().trim();
+        }
+    }
+
+    /**
+     * @return  List of the comma separated values or an empty list when the option is not set
+     */
+    @SuppressWarnings("unchecked")
+    public static List<String> getList(Map<String, ?> configs, String key)  {
+        Object value = configs.get(key);
+
+        if (value == null)  {
+            return Collections.emptyList();
+        } else if (value instanceof List)   {
+            return (List<String>) value;
+        } else {
+            List<String> result = new ArrayList<>();
+
+            for (String item : value.toString().split(",")) {
+                if (!item.trim().isEmpty()) {
+                    result.add(item.trim());
+                }
+            }
+
+            return result;
+        }
+    }
+
+    /**
+     * Parses the super.users option. The users can be configured with the User: prefix used by Kafka or without it.
+     *
+     * @param superUsers    Semicolon separated list of super users or null if not set
+     *
+     * @return  Set with the super users as configured and, for the User principals, also without the prefix
+     */
+    public static Set<String> parseSuperUsers(String superUsers)  {
+        if (superUsers == null || superUsers.trim().isEmpty())  {
+            return Collections.emptySet();
+        }
+
+        Set<String> users = new HashSet<>();
+
+        for (String user : superUsers.split(";"))   {
+            user = user.trim();
+
+            if (!user.isEmpty())    {
+                users.add(user);
+
+                if (user.startsWith(KafkaPrincipal.USER_TYPE + ":"))    {
+                    users.add(user.substring(KafkaPrincipal.USER_TYPE.length() + 1));
+                }
+            }
+        }
+
+        return users;
+    }
+}
@@ -0,0 +1,154 @@
+package io.strimzi.kafka.kubernetes.common;
+
+import java.util.Iterator;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Small memo of the authorization decisions of a single connection. A long-lived connection usually repeats the same
+ * few actions (for example producing to the same topic), so the memo lets it skip the authorization cache and the
+ * reviews for them. The decisions expire like the cached ones.
+ *
+ * The memo is looked up on every authorization, so the lookup does not allocate. The decisions are kept per resource
+ * name in an array with one slot for every action (e.g. the combination of the resource type and the operation). The
+ * slot holds the expiration of the decision and the decision itself packed into a single long. When the memo holds
+ * the decisions for the maximal number of resource names, the names with only expired decisions are removed first and
+ * then arbitrary names until there is space for the new one.
+ *
+ * The decisions are memoized together with the generation of the authorization cache they were made in. When the
+ * cache is invalidated (for example because an RBAC resource changed), its generation changes and the decisions of the
+ * older generations are not used anymore.
+ */
+public class DecisionMemo {
+    private final int maxSize;
+    private final int actions;
+    private final AtomicReference<Generation> current = new AtomicReference<>(new Generation(0));
+
+    /**
+     * @param maxSize   Maximal number of resource names kept in the memo
+     * @param actions   Number of the actions memoized for every resource name
+     */
+    public DecisionMemo(int maxSize, int actions) {
+        this.maxSize = maxSize;
+        this.actions = actions;
+    }
+
+    /**
+     * @param resourceName  Name of the resource
+     * @param action        Index of the action (from 0 to actions - 1)
+     * @param nowMs         Current time
+     * @param generation    Current generation of the authorization cache
+     *
+     * @return  The decision or null if no valid decision is memoized
+     */
+    public Boolean get(String resourceName, int action, long nowMs, long generation)  {
+        Generation memoized = current.get();
+
+        if (resourceName == null || memoized.generation != generation)  {
+            return null;
+        }
+
+        AtomicLongArray slots = memoized.entries.get(resourceName);
+
+        if (slots == null)  {
+            return null;
+        }
+
+        long slot = slots.get(action);
+
+        if (slot == 0 || expiresAtMs(slot) <= nowMs)  {
+            return null;
+        }
+
+        return (slot & 1L) == 1L;
+    }
+
+    /**
+     * @param resourceName  Name of the resource
+     * @param action        Index of the action (from 0 to actions - 1)
+     * @param allowed       The decision
+     * @param nowMs         Current time
+     * @param expiresAtMs   Time when the decision expires
+     * @param generation    Generation of the authorization cache from before the decision was made
+     */
+    public void put(String resourceName, int action, boolean allowed, long nowMs, long expiresAtMs, long generation)  {
+        if (resourceName == null || expiresAtMs <= nowMs)    {
+            return;
+        }
+
+        Generation memoized = current.get();
+
+        // The decisions of the older generations are dropped. A decision made before the latest invalidation is not
+        // memoized, because it might not be valid anymore.
+        while (memoized.generation < generation
+                && !current.compareAndSet(memoized, new Generation(generation)))    {
+            memoized = current.get();
+        }
+
+        memoized = current.get();
+
+        if (memoized.generation != generation)  {
+            return;
+        }
+
+        ConcurrentHashMap<String, AtomicLongArray> entries = memoized.entries;
+        AtomicLongArray slots = entries.get(resourceName);
+
+        if (slots == null)  {
+            if (entries.size() >= maxSize)  {
+                evict(entries, nowMs);
+            }
+
+            slots = entries.computeIfAbsent(resourceName, name -> new AtomicLongArray(actions));
+        }
+
+        slots.set(action, (expiresAtMs << 1) | (allowed ? 1L : 0L));
+    }
+
+    /**
+     * @return  Number of resource names in the memo
+     */
+    public int size()   {
+        return current.get().entries.size();
+    }
+
+    private void evict(ConcurrentHashMap<String, AtomicLongArray> entries, long nowMs)    {
+        entries.values().removeIf(slots -> isExpired(slots, nowMs));
+
+        // Iteration order of the map is arbitrary, so an arbitrary name makes space for the new one
+        Iterator<String> iterator = entries.keySet().iterator();
+        while (entries.size() >= maxSize && iterator.hasNext())  {
+            iterator.next();
+            iterator.remove();
+        }
+    }
+
+    private static boolean isExpired(AtomicLongArray slots, long nowMs)    {
+        for (int i = 0; i < slots.length(); i++)  {
+            long slot = slots.get(i);
+
+            if (slot != 0 && expiresAtMs(slot) > nowMs)    {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+    private static long expiresAtMs(long slot)  {
+        return slot >>> 1;
+    }
+
+    /**
+     * Decisions memoized in one generation of the authorization cache
+     */
+    private static class Generation {
+        private final long generation;
+        private final ConcurrentHashMap<String, AtomicLongArray> entries = new ConcurrentHashMap<>();
+
+        Generation(long generation) {
+            this.generation = generation;
+        }
+    }
+}
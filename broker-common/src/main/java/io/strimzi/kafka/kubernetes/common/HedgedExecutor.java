@@ -0,0 +1,270 @@
+package io.strimzi.kafka.kubernetes.common;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Runs the review requests on a dedicated bounded thread pool instead of the calling thread, so that a slow API server
+ * does not block the calling thread (for example the network thread of the broker) for longer than the deadline.
+ * When the request does not complete within the deadline, the caller gets an error and the request is cancelled.
+ *
+ * Optionally, the request can be hedged: when it does not complete within the given percentile of the recent
+ * latencies, an identical second request is sent and the first result is used. This cuts the tail latency caused by
+ * a single slow API server instance at the cost of a few additional requests.
+ *
+ * The requests which are not needed anymore (the slower of the hedged requests or requests after the deadline) are
+ * interrupted. They can check cancelled() to tell the interruption apart from a failure of the API server, so that it
+ * does not count as an error in their metrics or circuit breaker.
+ */
+public class HedgedExecutor {
+    private static final Logger log = LoggerFactory.getLogger(HedgedExecutor.class);
+
+    // The options are prefixed by the plugin prefix (e.g. kubernetes.authenticator.)
+    public static final String DEADLINE_MS_CONFIG = "review.deadline.ms";
+    public static final String THREADS_CONFIG = "review.threads";
+    public static final String QUEUE_SIZE_CONFIG = "review.queue.size";
+    public static final String HEDGE_PERCENTILE_CONFIG = "review.hedge.percentile";
+    public static final String HEDGE_MIN_DELAY_MS_CONFIG = "review.hedge.min.delay.ms";
+
+    private static final int DEFAULT_THREADS = 4;
+    private static final int DEFAULT_QUEUE_SIZE = 100;
+    private static final double DEFAULT_HEDGE_PERCENTILE = 0.0;
+    private static final long DEFAULT_HEDGE_MIN_DELAY_MS = 10L;
+
+    // Number of the recent latencies used to calculate the hedge delay
+    private static final int LATENCY_WINDOW = 256;
+    // The requests are not hedged until there are enough latencies to calculate the percentile
+    private static final int MIN_LATENCIES = 20;
+
+    // Whether the request running in the current thread was cancelled
+    private static final ThreadLocal<AtomicBoolean> CANCELLED = new ThreadLocal<>();
+
+    private final String name;
+    private final long deadlineMs;
+    private final double hedgePercentile;
+    private final long minHedgeDelayMs;
+    private final ThreadPoolExecutor executor;
+
+    // The recent latencies in nanoseconds
+    private final long[] latencies = new long[LATENCY_WINDOW];
+    private int latencyCount = 0;
+    private int latencyPosition = 0;
+    private long hedgeDelayNs = Long.MAX_VALUE;
+
+    /**
+     * @param name              Name used in the thread names and log messages
+     * @param threads           Number of threads
+     * @param queueSize         Maximal number of requests waiting for a thread
+     * @param deadlineMs        Deadline for the request including the hedged request
+     * @param hedgePercentile   Percentile of the recent latencies after which the request is hedged (0 to disable
+     *                          the hedging)
+     * @param minHedgeDelayMs   Minimal delay before the request is hedged
+     */
+    public HedgedExecutor(String name, int threads, int queueSize, long deadlineMs, double hedgePercentile, long minHedgeDelayMs) {
+        if (deadlineMs <= 0)    {
+            throw new IllegalArgumentException("The deadline has to be positive");
+        } else if (threads <= 0)   {
+            throw new IllegalArgumentException("The number of threads has to be positive");
+        }
+
+        this.name = name;
+        this.deadlineMs = deadlineMs;
+        this.hedgePercentile = hedgePercentile;
+        this.minHedgeDelayMs = minHedgeDelayMs;
+
+        AtomicInteger threadCounter = new AtomicInteger(0);
+        this.executor = new ThreadPoolExecutor(threads, threads, 60, TimeUnit.SECONDS, new ArrayBlockingQueue<>(Math.max(queueSize, 1)), runnable -> {
+            Thread thread = new Thread(runnable, name + "-" + threadCounter.getAndIncrement());
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.executor.allowCoreThreadTimeOut(true);
+    }
+
+    /**
+     * Creates the executor from the plugin configuration.
+     *
+     * @param configs   Plugin configuration
+     * @param prefix    Prefix of the options
+     * @param name      Name used in the thread names and log messages
+     *
+     * @return  The executor or null if no deadline is configured
+     */
+    public static HedgedExecutor fromConfig(Map<String, ?> configs, String prefix, String name)  {
+        long deadlineMs = ConfigUtils.getLong(configs, prefix + DEADLINE_MS_CONFIG, 0L);
+
+        if (deadlineMs <= 0)    {
+            return null;
+        }
+
+        int threads = ConfigUtils.getInt(configs, prefix + THREADS_CONFIG, DEFAULT_THREADS);
+        int queueSize = ConfigUtils.getInt(configs, prefix + QUEUE_SIZE_CONFIG, DEFAULT_QUEUE_SIZE);
+        double hedgePercentile = ConfigUtils.getDouble(configs, prefix + HEDGE_PERCENTILE_CONFIG, DEFAULT_HEDGE_PERCENTILE);
+        long hedgeMinDelayMs = ConfigUtils.getLong(configs, prefix + HEDGE_MIN_DELAY_MS_CONFIG, DEFAULT_HEDGE_MIN_DELAY_MS);
+
+        if (hedgePercentile > 0)    {
+            log.info("{} requests will run on {} threads with a deadline of {} ms (queue size {}) and will be hedged after the {}th percentile of their latency (min. {} ms)",
+                    name, threads, deadlineMs, queueSize, hedgePercentile, hedgeMinDelayMs);
+        } else {
+            log.info("{} requests will run on {} threads with a deadline of {} ms (queue size {})", name, threads, deadlineMs, queueSize);
+        }
+
+        return new HedgedExecutor(name, threads, queueSize, deadlineMs, hedgePercentile, hedgeMinDelayMs);
+    }
+
+    /**
+     * @return  Deadline of the requests
+     */
+    public long deadlineMs()    {
+        return deadlineMs;
+    }
+
+    /**
+     * Runs the request and waits for its result until the deadline.
+     *
+     * @param request   The request
+     * @param <V>       Type of the result
+     *
+     * @return  Result of the first request which completed successfully
+     *
+     * @throws DeadlineExceededException   When the request did not complete within the deadline
+     * @throws IOException  When the request failed or the executor is full
+     */
+    public <V> V execute(SingleFlight.Loader<V> request) throws IOException {
+        long deadlineNs = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(deadlineMs);
+        CompletableFuture<V> result = new CompletableFuture<>();
+        AtomicInteger pending = new AtomicInteger(1);
+        AtomicBoolean cancelled = new AtomicBoolean(false);
+
+        Future<?> primary = submit(request, result, pending, cancelled);
+        Future<?> hedged = null;
+
+        try {
+            long hedgeDelay = hedgeDelayNs();
+
+            if (hedgeDelay < deadlineNs - System.nanoTime())   {
+                try {
+                    return result.get(hedgeDelay, TimeUnit.NANOSECONDS);
+                } catch (TimeoutException e) {
+                    log.debug("{} request did not complete within {} ms and will be hedged", name, TimeUnit.NANOSECONDS.toMillis(hedgeDelay));
+                    pending.incrementAndGet();
+
+                    try {
+                        hedged = submit(request, result, pending, cancelled);
+                    } catch (IOException hedgeFailure) {
+                        // No space for the hedged request, so just keep waiting for the first one
+                        pending.decrementAndGet();
+                    }
+                }
+            }
+
+            return result.get(Math.max(deadlineNs - System.nanoTime(), 0), TimeUnit.NANOSECONDS);
+        } catch (TimeoutException e) {
+            throw new DeadlineExceededException(name + " request did not complete within the deadline of " + deadlineMs + " ms");
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while waiting for the " + name + " request");
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof IOException)    {
+                throw (IOException) e.getCause();
+            } else if (e.getCause() instanceof RuntimeException)    {
+                throw (RuntimeException) e.getCause();
+            } else {
+                throw new IOException(e.getCause());
+            }
+        } finally {
+            // The requests which did not complete are not needed anymore
+            cancelled.set(true);
+            primary.cancel(true);
+
+            if (hedged != null) {
+                hedged.cancel(true);
+            }
+        }
+    }
+
+    private <V> Future<?> submit(SingleFlight.Loader<V> request, CompletableFuture<V> result, AtomicInteger pending, AtomicBoolean cancelled) throws IOException {
+        try {
+            return executor.submit(() -> {
+                long start = System.nanoTime();
+                CANCELLED.set(cancelled);
+
+                try {
+                    V value = request.load();
+                    recordLatency(System.nanoTime() - start);
+                    result.complete(value);
+                } catch (Throwable e) {
+                    // The failure is used only when no other request can complete successfully anymore
+                    if (pending.decrementAndGet() == 0) {
+                        result.completeExceptionally(e);
+                    }
+                } finally {
+                    CANCELLED.remove();
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            throw new IOException(name + " request was rejected because there are too many requests in progress");
+        }
+    }
+
+    private synchronized void recordLatency(long latencyNs)  {
+        latencies[latencyPosition] = latencyNs;
+        latencyPosition = (latencyPosition + 1) % latencies.length;
+        latencyCount = Math.min(latencyCount + 1, latencies.length);
+
+        // The percentile is recalculated only every few requests
+        if (hedgePercentile > 0 && latencyCount >= MIN_LATENCIES && latencyPosition % MIN_LATENCIES == 0)  {
+            long[] sorted = Arrays.copyOf(latencies, latencyCount);
+            Arrays.sort(sorted);
+
+            int index = Math.min((int) Math.ceil(hedgePercentile / 100.0 * sorted.length) - 1, sorted.length - 1);
+            hedgeDelayNs = Math.max(sorted[Math.max(index, 0)], TimeUnit.MILLISECONDS.toNanos(minHedgeDelayMs));
+        }
+    }
+
+    /**
+     * @return  True if the request running in the current thread was cancelled because its result is not needed
+     *          anymore. False otherwise (including when the current thread does not run a request of any executor).
+     */
+    public static boolean cancelled()  {
+        AtomicBoolean cancelled = CANCELLED.get();
+        return cancelled != null && cancelled.get();
+    }
+
+    /**
+     * @return  The delay after which the requests are hedged or Long.MAX_VALUE when they are not hedged
+     */
+    synchronized long hedgeDelayNs()  {
+        return hedgeDelayNs;
+    }
+
+    public void close()  {
+        executor.shutdownNow();
+    }
+
+    /**
+     * Thrown when the request did not complete within the deadline
+     */
+    public static class DeadlineExceededException extends IOException {
+        private static final long serialVersionUID = 1L;
+
+        public DeadlineExceededException(String message) {
+            super(message);
+        }
+    }
+}
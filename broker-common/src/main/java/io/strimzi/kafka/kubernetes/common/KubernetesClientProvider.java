@@ -0,0 +1,92 @@
+package io.strimzi.kafka.kubernetes.common;
+
+import io.fabric8.kubernetes.client.Config;
+import io.fabric8.kubernetes.client.DefaultKubernetesClient;
+import io.fabric8.kubernetes.client.KubernetesClient;
+import io.fabric8.kubernetes.client.utils.HttpClientUtils;
+import okhttp3.ConnectionPool;
+import okhttp3.OkHttpClient;
+import okhttp3.Protocol;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Provides a single Kubernetes client shared by all plugins in the broker. The client is created by the first plugin
+ * which asks for it (using its configuration) and closed when the last plugin releases it. Sharing the client means
+ * sharing its connection pool, so the TokenReview and SubjectAccessReview calls reuse the same warm connections.
+ */
+public class KubernetesClientProvider {
+    private static final Logger log = LoggerFactory.getLogger(KubernetesClientProvider.class);
+
+    public static final String CONNECTION_POOL_SIZE_CONFIG = "kubernetes.client.connection.pool.size";
+    public static final String CONNECTION_KEEP_ALIVE_MS_CONFIG = "kubernetes.client.connection.keep.alive.ms";
+    public static final String HTTP2_ENABLED_CONFIG = "kubernetes.client.http2.enabled";
+    public static final String CONNECT_TIMEOUT_MS_CONFIG = "kubernetes.client.connect.timeout.ms";
+    public static final String READ_TIMEOUT_MS_CONFIG = "kubernetes.client.read.timeout.ms";
+
+    private static final int DEFAULT_CONNECTION_POOL_SIZE = 10;
+    private static final long DEFAULT_CONNECTION_KEEP_ALIVE_MS = 300_000L;
+    private static final int DEFAULT_CONNECT_TIMEOUT_MS = 10_000;
+    private static final int DEFAULT_READ_TIMEOUT_MS = 10_000;
+
+    private static KubernetesClient client;
+    private static int references = 0;
+
+    private KubernetesClientProvider() { }
+
+    /**
+     * Returns the shared client. Every call has to be paired with a call to release().
+     */
+    public static synchronized KubernetesClient acquire(Map<String, ?> configs)  {
+        if (client == null) {
+            client = createClient(configs);
+        }
+
+        references++;
+        return client;
+    }
+
+    public static synchronized void release(KubernetesClient released)  {
+        if (released == null || released != client) {
+            return;
+        }
+
+        references--;
+
+        if (references == 0)    {
+            log.debug("Closing the shared Kubernetes client");
+            client.close();
+            client = null;
+        }
+    }
+
+    private static KubernetesClient createClient(Map<String, ?> configs)   {
+        int poolSize = ConfigUtils.getInt(configs, CONNECTION_POOL_SIZE_CONFIG, DEFAULT_CONNECTION_POOL_SIZE);
+        long keepAliveMs = ConfigUtils.getLong(configs, CONNECTION_KEEP_ALIVE_MS_CONFIG, DEFAULT_CONNECTION_KEEP_ALIVE_MS);
+        boolean http2 = ConfigUtils.getBoolean(configs, HTTP2_ENABLED_CONFIG, true);
+        int connectTimeoutMs = ConfigUtils.getInt(configs, CONNECT_TIMEOUT_MS_CONFIG, DEFAULT_CONNECT_TIMEOUT_MS);
+        int readTimeoutMs = ConfigUtils.getInt(configs, READ_TIMEOUT_MS_CONFIG, DEFAULT_READ_TIMEOUT_MS);
+
+        log.info("Creating shared Kubernetes client (connection pool size {}, keep-alive {} ms, HTTP/2 {}, connect timeout {} ms, read timeout {} ms)",
+                poolSize, keepAliveMs, http2 ? "enabled" : "disabled", connectTimeoutMs, readTimeoutMs);
+
+        Config config = Config.autoConfigure(null);
+        config.setConnectionTimeout(connectTimeoutMs);
+        config.setRequestTimeout(readTimeoutMs);
+
+        OkHttpClient.Builder httpClientBuilder = HttpClientUtils.createHttpClient(config).newBuilder()
+                .connectionPool(new ConnectionPool(poolSize, keepAliveMs, TimeUnit.MILLISECONDS))
+                .connectTimeout(connectTimeoutMs, TimeUnit.MILLISECONDS)
+                .readTimeout(readTimeoutMs, TimeUnit.MILLISECONDS);
+
+        if (!http2)  {
+            httpClientBuilder.protocols(Collections.singletonList(Protocol.HTTP_1_1));
+        }
+
+        return new DefaultKubernetesClient(httpClientBuilder.build(), config);
+    }
+}
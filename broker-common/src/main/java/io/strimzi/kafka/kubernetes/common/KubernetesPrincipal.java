@@ -0,0 +1,73 @@
+package io.strimzi.kafka.kubernetes.common;
+
+import org.apache.kafka.common.security.auth.KafkaPrincipal;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Kafka principal of a Kubernetes service account. It carries the identity established during the authentication
+ * (the UID and the groups of the service account), so that the authorizer does not need to derive it from the
+ * principal name. The KubernetesPrincipalBuilder creates one principal for every authenticated token (i.e. for every
+ * connection and every re-authentication) and returns the same instance for all requests of the connection. So the
+ * principal also holds the memo of the authorization decisions made for the connection.
+ *
+ * Kafka compares the principals including their class. So this principal is used only for the service accounts which
+ * are authorized by the Kubernetes authorizer and never matched against the ACLs or the super users by Kafka.
+ */
+public class KubernetesPrincipal extends KafkaPrincipal {
+    private final String uid;
+    private final List<String> groups;
+
+    private volatile DecisionMemo decisionMemo;
+
+    /**
+     * @param name      Name of the principal (e.g. system:serviceaccount:myproject:my-user)
+     * @param uid       UID of the service account or null if not known
+     * @param groups    Groups of the service account
+     */
+    public KubernetesPrincipal(String name, String uid, List<String> groups) {
+        super(KafkaPrincipal.USER_TYPE, name);
+        this.uid = uid;
+        this.groups = groups != null ? Collections.unmodifiableList(groups) : Collections.emptyList();
+    }
+
+    /**
+     * @return  UID of the service account or null if not known
+     */
+    public String uid() {
+        return uid;
+    }
+
+    /**
+     * @return  Groups of the service account
+     */
+    public List<String> groups() {
+        return groups;
+    }
+
+    /**
+     * Returns the decision memo of this connection. It is created on first use.
+     *
+     * @param maxSize   Maximal number of resource names kept in the memo
+     * @param actions   Number of the actions memoized for every resource name
+     *
+     * @return  The decision memo
+     */
+    public DecisionMemo decisionMemo(int maxSize, int actions)  {
+        DecisionMemo memo = decisionMemo;
+
+        if (memo == null)   {
+            synchronized (this) {
+                memo = decisionMemo;
+
+                if (memo == null)   {
+                    memo = new DecisionMemo(maxSize, actions);
+                    decisionMemo = memo;
+                }
+            }
+        }
+
+        return memo;
+    }
+}
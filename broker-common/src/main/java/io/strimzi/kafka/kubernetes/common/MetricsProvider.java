@@ -0,0 +1,52 @@
+package io.strimzi.kafka.kubernetes.common;
+
+import org.apache.kafka.common.metrics.JmxReporter;
+import org.apache.kafka.common.metrics.MetricConfig;
+import org.apache.kafka.common.metrics.Metrics;
+import org.apache.kafka.common.metrics.MetricsReporter;
+import org.apache.kafka.common.utils.Time;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Collections;
+
+/**
+ * Provides a single Kafka Metrics registry shared by all plugins in the broker. The plugins do not get access to the
+ * metrics of the broker itself, so the metrics are registered in a separate registry and exposed through JMX under the
+ * io.strimzi.kafka.kubernetes domain. Like with the Kubernetes client, every call to acquire() has to be paired with a
+ * call to release().
+ */
+public class MetricsProvider {
+    private static final Logger log = LoggerFactory.getLogger(MetricsProvider.class);
+
+    public static final String JMX_PREFIX = "io.strimzi.kafka.kubernetes";
+
+    private static Metrics metrics;
+    private static int references = 0;
+
+    private MetricsProvider() { }
+
+    public static synchronized Metrics acquire()  {
+        if (metrics == null) {
+            log.debug("Creating the shared metrics registry");
+            metrics = new Metrics(new MetricConfig(), Collections.<MetricsReporter>singletonList(new JmxReporter(JMX_PREFIX)), Time.SYSTEM);
+        }
+
+        references++;
+        return metrics;
+    }
+
+    public static synchronized void release(Metrics released)  {
+        if (released == null || released != metrics) {
+            return;
+        }
+
+        references--;
+
+        if (references == 0)    {
+            log.debug("Closing the shared metrics registry");
+            metrics.close();
+            metrics = null;
+        }
+    }
+}
@@ -0,0 +1,153 @@
+package io.strimzi.kafka.kubernetes.common;
+
+import org.apache.kafka.common.metrics.Gauge;
+import org.apache.kafka.common.metrics.Metrics;
+import org.apache.kafka.common.metrics.Sensor;
+import org.apache.kafka.common.metrics.stats.Avg;
+import org.apache.kafka.common.metrics.stats.Max;
+import org.apache.kafka.common.metrics.stats.Meter;
+import org.apache.kafka.common.metrics.stats.Percentile;
+import org.apache.kafka.common.metrics.stats.Percentiles;
+
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Metrics of the review requests sent to the Kubernetes API server (TokenReviews or SubjectAccessReviews). It tracks
+ * the latency of the requests, the rate of the requests by their outcome and the number of requests in flight.
+ *
+ * The metrics are shared by all plugin instances using the same group and review name, so that multiple instances
+ * (for example one callback handler per listener) do not try to register the same metrics twice.
+ */
+public class ReviewMetrics {
+    private static final int PERCENTILES_SIZE_BYTES = 4000;
+    // The 1000 linear buckets are 2 ms wide. Slower requests are counted in the last bucket.
+    private static final double PERCENTILES_MAX_MS = 2_000;
+
+    /**
+     * Outcome of a review request
+     */
+    public enum Outcome {
+        // The access was allowed or the token was authenticated
+        ALLOWED("allowed"),
+        // The access was denied or the token was not authenticated
+        DENIED("denied"),
+        // The API server responded with an unexpected HTTP status
+        HTTP_ERROR("http-error"),
+        // The request failed without a response
+        IO_ERROR("io-error"),
+        // The request was not sent because the circuit breaker is open
+        CIRCUIT_OPEN("circuit-open"),
+        // The request was not sent because it was not admitted by the admission control
+        THROTTLED("throttled");
+
+        private final String tag;
+
+        Outcome(String tag) {
+            this.tag = tag;
+        }
+
+        public String tag() {
+            return tag;
+        }
+    }
+
+    private static final Map<String, ReviewMetrics> INSTANCES = new HashMap<>();
+
+    private final Metrics metrics;
+    private final Sensor latency;
+    private final Map<Outcome, Sensor> outcomes = new EnumMap<>(Outcome.class);
+    private final AtomicInteger inFlight = new AtomicInteger(0);
+
+    /**
+     * Returns the review metrics registered in given registry. The metrics are registered on first use.
+     *
+     * @param metrics   Metrics registry
+     * @param group     Metric group (for example kubernetes-authorizer-metrics)
+     * @param review    Name of the review used as metric name prefix (for example subject-access-review)
+     *
+     * @return  Review metrics
+     */
+    public static synchronized ReviewMetrics get(Metrics metrics, String group, String review) {
+        String key = group + ":" + review;
+        ReviewMetrics instance = INSTANCES.get(key);
+
+        // The registry is recreated when all plugins using it are closed and configured again
+        if (instance == null || instance.metrics != metrics)    {
+            instance = new ReviewMetrics(metrics, group, review);
+            INSTANCES.put(key, instance);
+        }
+
+        return instance;
+    }
+
+    private ReviewMetrics(Metrics metrics, String group, String review) {
+        this.metrics = metrics;
+
+        latency = metrics.sensor(group + ":" + review + "-latency");
+        latency.add(metrics.metricName(review + "-latency-avg", group, "Average latency of the " + review + " requests in milliseconds"), new Avg());
+        latency.add(metrics.metricName(review + "-latency-max", group, "Maximal latency of the " + review + " requests in milliseconds"), new Max());
+        latency.add(new Percentiles(PERCENTILES_SIZE_BYTES, PERCENTILES_MAX_MS, Percentiles.BucketSizing.LINEAR,
+                new Percentile(metrics.metricName(review + "-latency-p50", group, "Median latency of the " + review + " requests in milliseconds"), 50),
+                new Percentile(metrics.metricName(review + "-latency-p99", group, "99th percentile latency of the " + review + " requests in milliseconds"), 99)));
+
+        metrics.addMetric(metrics.metricName(review + "-in-flight", group, "Number of " + review + " requests in flight"),
+                (Gauge<Integer>) (config, now) -> inFlight.get());
+
+        for (Outcome outcome : Outcome.values())    {
+            Map<String, String> tags = Collections.singletonMap("outcome", outcome.tag());
+
+            Sensor sensor = metrics.sensor(group + ":" + review + "-" + outcome.tag());
+            sensor.add(new Meter(metrics.metricName(review + "-rate", group, "Rate of the " + review + " requests per second", tags),
+                    metrics.metricName(review + "-total", group, "Total number of the " + review + " requests", tags)));
+
+            outcomes.put(outcome, sensor);
+        }
+    }
+
+    /**
+     * Marks start of a review request
+     *
+     * @return  Start time to be passed to the record() method
+     */
+    public long start() {
+        inFlight.incrementAndGet();
+        return System.nanoTime();
+    }
+
+    /**
+     * Records a finished review request
+     *
+     * @param startNs   Start time returned by the start() method
+     * @param outcome   Outcome of the request
+     */
+    public void record(long startNs, Outcome outcome) {
+        inFlight.decrementAndGet();
+        latency.record((double) (System.nanoTime() - startNs) / TimeUnit.MILLISECONDS.toNanos(1));
+        outcomes.get(outcome).record();
+    }
+
+    /**
+     * Records a review request which was cancelled by the caller (for example because a hedged request completed
+     * first). It says nothing about the API server, so it does not affect the latency or the outcomes.
+     *
+     * @param startNs   Start time returned by the start() method
+     */
+    public void recordCancelled(long startNs) {
+        inFlight.decrementAndGet();
+    }
+
+    /**
+     * Records a review request which was rejected by the circuit breaker or by the admission control without being
+     * sent. It does not affect the latency.
+     *
+     * @param outcome   Outcome of the request (CIRCUIT_OPEN or THROTTLED)
+     */
+    public void recordRejected(Outcome outcome) {
+        outcomes.get(outcome).record();
+    }
+}
@@ -0,0 +1,73 @@
+package io.strimzi.kafka.kubernetes.common;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+
+/**
+ * Coalesces concurrent identical requests. When a request for some key is already in progress, other callers asking
+ * for the same key do not start their own request but wait for the one in progress and share its result (or its
+ * error). Once the request completes, the next caller will start a new request.
+ *
+ * @param <K>   Type of the key identifying the request
+ * @param <V>   Type of the result
+ */
+public class SingleFlight<K, V> {
+    public interface Loader<V> {
+        V load() throws IOException;
+    }
+
+    private final ConcurrentHashMap<K, CompletableFuture<V>> inFlight = new ConcurrentHashMap<>();
+
+    public V execute(K key, Loader<V> loader) throws IOException {
+        CompletableFuture<V> future = new CompletableFuture<>();
+        CompletableFuture<V> existing = inFlight.putIfAbsent(key, future);
+
+        if (existing != null)   {
+            return await(existing);
+        }
+
+        try {
+            V result = loader.load();
+            future.complete(result);
+            return result;
+        } catch (IOException | RuntimeException | Error e) {
+            future.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(key, future);
+        }
+    }
+
+    /**
+     * @return  Number of requests currently in progress
+     */
+    public int inFlight()   {
+        return inFlight.size();
+    }
+
+    private static <V> V await(CompletableFuture<V> future) throws IOException {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while waiting for request in progress");
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+
+            if (cause instanceof IOException)   {
+                // The original exception is rethrown, so that the waiters can handle its subclasses (for example the
+                // exceeded deadline) the same way as the caller which did the request
+                throw (IOException) cause;
+            } else if (cause instanceof RuntimeException)  {
+                throw (RuntimeException) cause;
+            } else if (cause instanceof Error)  {
+                throw (Error) cause;
+            } else {
+                throw new IOException(cause);
+            }
+        }
+    }
+}
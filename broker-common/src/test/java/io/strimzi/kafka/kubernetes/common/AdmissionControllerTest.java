@@ -0,0 +1,132 @@
+package io.strimzi.kafka.kubernetes.common;
+
+import org.apache.kafka.common.utils.Time;
+import org.junit.Test;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class AdmissionControllerTest {
+    @Test
+    public void testConcurrencyLimit() throws InterruptedException {
+        AdmissionController admission = new AdmissionController("test", new CircuitBreakerTest.MockTime(), 2, 0, 1, 10, 0);
+
+        assertTrue(admission.acquire(AdmissionController.Lane.NORMAL));
+        assertTrue(admission.acquire(AdmissionController.Lane.NORMAL));
+        assertFalse(admission.acquire(AdmissionController.Lane.NORMAL));
+        assertEquals(2, admission.inFlight());
+
+        admission.release();
+        assertTrue(admission.acquire(AdmissionController.Lane.NORMAL));
+        assertEquals(0, admission.waiting());
+    }
+
+    @Test
+    public void testRateLimit() throws InterruptedException {
+        CircuitBreakerTest.MockTime time = new CircuitBreakerTest.MockTime();
+        AdmissionController admission = new AdmissionController("test", time, 10, 10, 2, 10, 0);
+
+        // The burst is admitted at once
+        assertTrue(admission.acquire(AdmissionController.Lane.NORMAL));
+        assertTrue(admission.acquire(AdmissionController.Lane.NORMAL));
+        assertFalse(admission.acquire(AdmissionController.Lane.NORMAL));
+
+        time.sleep(150);
+        assertTrue(admission.acquire(AdmissionController.Lane.NORMAL));
+        assertFalse(admission.acquire(AdmissionController.Lane.NORMAL));
+    }
+
+    @Test
+    public void testRejectedWhenTheRateLimitMissesTheDeadline() throws InterruptedException {
+        AdmissionController admission = new AdmissionController("test", Time.SYSTEM, 10, 0.1, 1, 10, 1_000);
+
+        assertTrue(admission.acquire(AdmissionController.Lane.NORMAL));
+
+        // Next token is available only in 10 seconds, so the request fails without waiting for the deadline
+        long start = System.nanoTime();
+        assertFalse(admission.acquire(AdmissionController.Lane.NORMAL));
+        assertTrue(System.nanoTime() - start < 500_000_000L);
+    }
+
+    @Test
+    public void testRejectedAfterDeadline() throws InterruptedException {
+        AdmissionController admission = new AdmissionController("test", Time.SYSTEM, 1, 0, 1, 10, 50);
+
+        assertTrue(admission.acquire(AdmissionController.Lane.NORMAL));
+        assertFalse(admission.acquire(AdmissionController.Lane.NORMAL));
+        assertEquals(0, admission.waiting());
+    }
+
+    @Test
+    public void testQueueSize() throws InterruptedException {
+        AdmissionController admission = new AdmissionController("test", Time.SYSTEM, 1, 0, 1, 1, 10_000);
+        assertTrue(admission.acquire(AdmissionController.Lane.NORMAL));
+
+        Thread waiter = new Thread(() -> {
+            try {
+                admission.acquire(AdmissionController.Lane.NORMAL);
+            } catch (InterruptedException e) {
+                // Expected
+            }
+        });
+        waiter.start();
+        awaitWaiting(admission, 1);
+
+        // The queue is full
+        assertFalse(admission.acquire(AdmissionController.Lane.NORMAL));
+
+        waiter.interrupt();
+        waiter.join();
+    }
+
+    @Test
+    public void testHigherLanesAreAdmittedFirst() throws InterruptedException {
+        AdmissionController admission = new AdmissionController("test", Time.SYSTEM, 1, 0, 1, 10, 10_000);
+        List<AdmissionController.Lane> admitted = new CopyOnWriteArrayList<>();
+
+        assertTrue(admission.acquire(AdmissionController.Lane.NORMAL));
+
+        Thread normal = waiter(admission, AdmissionController.Lane.NORMAL, admitted);
+        awaitWaiting(admission, 1);
+        Thread revalidation = waiter(admission, AdmissionController.Lane.REVALIDATION, admitted);
+        awaitWaiting(admission, 2);
+        Thread critical = waiter(admission, AdmissionController.Lane.CRITICAL, admitted);
+        awaitWaiting(admission, 3);
+
+        admission.release();
+        critical.join();
+        normal.join();
+        revalidation.join();
+
+        assertEquals(3, admitted.size());
+        assertEquals(AdmissionController.Lane.CRITICAL, admitted.get(0));
+        assertEquals(AdmissionController.Lane.REVALIDATION, admitted.get(1));
+        assertEquals(AdmissionController.Lane.NORMAL, admitted.get(2));
+    }
+
+    private static Thread waiter(AdmissionController admission, AdmissionController.Lane lane, List<AdmissionController.Lane> admitted)  {
+        Thread thread = new Thread(() -> {
+            try {
+                if (admission.acquire(lane))    {
+                    admitted.add(lane);
+                    admission.release();
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        thread.start();
+
+        return thread;
+    }
+
+    private static void awaitWaiting(AdmissionController admission, int expected) throws InterruptedException {
+        while (admission.waiting() < expected)  {
+            Thread.sleep(1);
+        }
+    }
+}
@@ -0,0 +1,42 @@
+package io.strimzi.kafka.kubernetes.common;
+
+import org.apache.kafka.common.security.auth.KafkaPrincipal;
+import org.junit.Test;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class AuthenticationEventsTest {
+    @Test
+    public void testListeners()  {
+        List<KafkaPrincipal> received = new CopyOnWriteArrayList<>();
+        AuthenticationEvents.Listener failing = principal -> {
+            throw new IllegalStateException("failed");
+        };
+        AuthenticationEvents.Listener listener = received::add;
+
+        AuthenticationEvents.register(failing);
+        AuthenticationEvents.register(listener);
+
+        try {
+            assertTrue(AuthenticationEvents.hasListeners());
+
+            // The failing listener does not stop the other listeners
+            KafkaPrincipal principal = new KafkaPrincipal(KafkaPrincipal.USER_TYPE, "system:serviceaccount:myproject:my-user");
+            AuthenticationEvents.authenticated(principal);
+            assertEquals(1, received.size());
+            assertEquals(principal, received.get(0));
+        } finally {
+            AuthenticationEvents.unregister(failing);
+            AuthenticationEvents.unregister(listener);
+        }
+
+        assertFalse(AuthenticationEvents.hasListeners());
+        AuthenticationEvents.authenticated(new KafkaPrincipal(KafkaPrincipal.USER_TYPE, "other"));
+        assertEquals(1, received.size());
+    }
+}
@@ -0,0 +1,144 @@
+package io.strimzi.kafka.kubernetes.common;
+
+import org.apache.kafka.common.utils.Time;
+import org.junit.Test;
+
+import java.util.function.Supplier;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class CircuitBreakerTest {
+    private static void calls(CircuitBreaker breaker, int count, boolean failure)  {
+        for (int i = 0; i < count; i++) {
+            assertTrue(breaker.tryAcquire());
+
+            if (failure)    {
+                breaker.onFailure();
+            } else {
+                breaker.onSuccess(1);
+            }
+        }
+    }
+
+    @Test
+    public void testOpensOnFailureRatio()    {
+        MockTime time = new MockTime();
+        CircuitBreaker breaker = new CircuitBreaker("test", time, 0.5, 1000, 10, 4, 5000);
+
+        // Not enough calls yet
+        calls(breaker, 3, true);
+        assertEquals(CircuitBreaker.State.CLOSED, breaker.state());
+
+        calls(breaker, 3, false);
+        assertEquals(CircuitBreaker.State.CLOSED, breaker.state());
+
+        calls(breaker, 1, true);
+        assertEquals(CircuitBreaker.State.OPEN, breaker.state());
+        assertFalse(breaker.tryAcquire());
+    }
+
+    @Test
+    public void testSlowCallsCountAsFailures()    {
+        CircuitBreaker breaker = new CircuitBreaker("test", new MockTime(), 0.5, 1000, 10, 2, 5000);
+
+        assertTrue(breaker.tryAcquire());
+        breaker.onSuccess(1500);
+        assertTrue(breaker.tryAcquire());
+        breaker.onSuccess(2000);
+
+        assertEquals(CircuitBreaker.State.OPEN, breaker.state());
+    }
+
+    @Test
+    public void testOldResultsLeaveTheWindow()    {
+        CircuitBreaker breaker = new CircuitBreaker("test", new MockTime(), 0.5, 1000, 4, 4, 5000);
+
+        calls(breaker, 1, true);
+        calls(breaker, 3, false);
+        calls(breaker, 1, true);
+        calls(breaker, 1, false);
+
+        // The window now holds success, success, failure, success
+        assertEquals(CircuitBreaker.State.CLOSED, breaker.state());
+
+        calls(breaker, 1, true);
+        assertEquals(CircuitBreaker.State.OPEN, breaker.state());
+    }
+
+    @Test
+    public void testHalfOpen()    {
+        MockTime time = new MockTime();
+        CircuitBreaker breaker = new CircuitBreaker("test", time, 0.5, 1000, 10, 2, 5000);
+
+        calls(breaker, 2, true);
+        assertFalse(breaker.tryAcquire());
+
+        time.sleep(5000);
+
+        // Only a single probe is allowed
+        assertTrue(breaker.tryAcquire());
+        assertEquals(CircuitBreaker.State.HALF_OPEN, breaker.state());
+        assertFalse(breaker.tryAcquire());
+
+        // Failed probe opens the circuit again
+        breaker.onFailure();
+        assertEquals(CircuitBreaker.State.OPEN, breaker.state());
+        assertFalse(breaker.tryAcquire());
+
+        time.sleep(5000);
+
+        assertTrue(breaker.tryAcquire());
+        breaker.onSuccess(1);
+        assertEquals(CircuitBreaker.State.CLOSED, breaker.state());
+        assertTrue(breaker.tryAcquire());
+    }
+
+    @Test
+    public void testCancelledCallsAreNotRecorded()    {
+        MockTime time = new MockTime();
+        CircuitBreaker breaker = new CircuitBreaker("test", time, 0.5, 1000, 10, 2, 5000);
+
+        for (int i = 0; i < 10; i++) {
+            assertTrue(breaker.tryAcquire());
+            breaker.onCancelled();
+        }
+
+        assertEquals(CircuitBreaker.State.CLOSED, breaker.state());
+
+        calls(breaker, 2, true);
+        time.sleep(5000);
+
+        // Cancelled probe lets the next call be the probe
+        assertTrue(breaker.tryAcquire());
+        breaker.onCancelled();
+        assertEquals(CircuitBreaker.State.HALF_OPEN, breaker.state());
+        assertTrue(breaker.tryAcquire());
+        assertFalse(breaker.tryAcquire());
+    }
+
+    static class MockTime implements Time {
+        private long nowMs = 1_000_000L;
+
+        @Override
+        public long milliseconds() {
+            return nowMs;
+        }
+
+        @Override
+        public long nanoseconds() {
+            return nowMs * 1_000_000L;
+        }
+
+        @Override
+        public void sleep(long ms) {
+            nowMs += ms;
+        }
+
+        @Override
+        public void waitObject(Object obj, Supplier<Boolean> condition, long timeoutMs) {
+            throw new UnsupportedOperationException();
+        }
+    }
+}
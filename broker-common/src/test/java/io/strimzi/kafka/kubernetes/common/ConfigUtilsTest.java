@@ -0,0 +1,78 @@
+package io.strimzi.kafka.kubernetes.common;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class ConfigUtilsTest {
+    @Test
+    public void testDefaults()    {
+        Map<String, Object> configs = Collections.emptyMap();
+
+        assertTrue(ConfigUtils.getBoolean(configs, "missing", true));
+        assertEquals(10L, ConfigUtils.getLong(configs, "missing", 10L));
+        assertEquals(10, ConfigUtils.getInt(configs, "missing", 10));
+        assertEquals(0.5, ConfigUtils.getDouble(configs, "missing", 0.5), 0.0);
+        assertEquals("default", ConfigUtils.getString(configs, "missing", "default"));
+        assertEquals(Collections.emptyList(), ConfigUtils.getList(configs, "missing"));
+    }
+
+    @Test
+    public void testStringValues()    {
+        Map<String, Object> configs = new HashMap<>();
+        configs.put("boolean", " true ");
+        configs.put("long", " 60000 ");
+        configs.put("double", "0.25");
+        configs.put("string", " value ");
+        configs.put("list", "a, b,,c ");
+
+        assertTrue(ConfigUtils.getBoolean(configs, "boolean", false));
+        assertEquals(60_000L, ConfigUtils.getLong(configs, "long", 0L));
+        assertEquals(60_000, ConfigUtils.getInt(configs, "long", 0));
+        assertEquals(0.25, ConfigUtils.getDouble(configs, "double", 0.0), 0.0);
+        assertEquals("value", ConfigUtils.getString(configs, "string", null));
+        assertEquals(Arrays.asList("a", "b", "c"), ConfigUtils.getList(configs, "list"));
+    }
+
+    @Test
+    public void testParsedValues()    {
+        Map<String, Object> configs = new HashMap<>();
+        configs.put("boolean", Boolean.FALSE);
+        configs.put("long", 100);
+        configs.put("list", Arrays.asList("a", "b"));
+
+        assertFalse(ConfigUtils.getBoolean(configs, "boolean", true));
+        assertEquals(100L, ConfigUtils.getLong(configs, "long", 0L));
+        assertEquals(Arrays.asList("a", "b"), ConfigUtils.getList(configs, "list"));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testInvalidLong()    {
+        ConfigUtils.getLong(Collections.singletonMap("long", "ten"), "long", 0L);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testIntOverflow()    {
+        ConfigUtils.getInt(Collections.singletonMap("int", Long.MAX_VALUE), "int", 0);
+    }
+
+    @Test
+    public void testParseSuperUsers()    {
+        assertTrue(ConfigUtils.parseSuperUsers(null).isEmpty());
+        assertTrue(ConfigUtils.parseSuperUsers(" ").isEmpty());
+
+        Set<String> superUsers = ConfigUtils.parseSuperUsers("User:CN=admin; system:serviceaccount:myproject:admin;");
+        assertEquals(3, superUsers.size());
+        assertTrue(superUsers.contains("User:CN=admin"));
+        assertTrue(superUsers.contains("CN=admin"));
+        assertTrue(superUsers.contains("system:serviceaccount:myproject:admin"));
+    }
+}
@@ -0,0 +1,87 @@
+package io.strimzi.kafka.kubernetes.common;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+public class DecisionMemoTest {
+    private static final int READ = 0;
+    private static final int WRITE = 1;
+
+    @Test
+    public void testExpiration()    {
+        DecisionMemo memo = new DecisionMemo(10, 2);
+
+        memo.put("allowed", READ, true, 0, 1000, 0);
+        memo.put("denied", READ, false, 0, 500, 0);
+
+        assertEquals(Boolean.TRUE, memo.get("allowed", READ, 100, 0));
+        assertEquals(Boolean.FALSE, memo.get("denied", READ, 100, 0));
+
+        assertNull(memo.get("denied", READ, 500, 0));
+        assertEquals(Boolean.TRUE, memo.get("allowed", READ, 500, 0));
+        assertNull(memo.get("allowed", READ, 1000, 0));
+    }
+
+    @Test
+    public void testActionsAreSeparate()    {
+        DecisionMemo memo = new DecisionMemo(10, 2);
+
+        memo.put("my-topic", READ, true, 0, 1000, 0);
+        memo.put("my-topic", WRITE, false, 0, 1000, 0);
+
+        assertEquals(Boolean.TRUE, memo.get("my-topic", READ, 0, 0));
+        assertEquals(Boolean.FALSE, memo.get("my-topic", WRITE, 0, 0));
+        assertNull(memo.get("other-topic", READ, 0, 0));
+        assertNull(memo.get(null, READ, 0, 0));
+        assertEquals(1, memo.size());
+    }
+
+    @Test
+    public void testMaxSize()    {
+        DecisionMemo memo = new DecisionMemo(2, 2);
+
+        memo.put("a", READ, true, 0, 100, 0);
+        memo.put("b", READ, true, 0, 1000, 0);
+
+        // Expired decisions make space for the new ones
+        memo.put("c", READ, true, 100, 1000, 0);
+        assertEquals(Boolean.TRUE, memo.get("b", READ, 100, 0));
+        assertEquals(Boolean.TRUE, memo.get("c", READ, 100, 0));
+        assertEquals(2, memo.size());
+
+        // When nothing expired, another name is evicted instead of clearing the memo
+        memo.put("d", READ, true, 100, 1000, 0);
+        assertEquals(Boolean.TRUE, memo.get("d", READ, 100, 0));
+        assertEquals(2, memo.size());
+    }
+
+    @Test
+    public void testInvalidation()    {
+        DecisionMemo memo = new DecisionMemo(10, 2);
+
+        memo.put("my-topic", READ, true, 0, 1000, 0);
+        assertEquals(Boolean.TRUE, memo.get("my-topic", READ, 0, 0));
+
+        // The decisions of the older generation are not used after the cache was invalidated
+        assertNull(memo.get("my-topic", READ, 0, 1));
+
+        // A decision made before the invalidation is not memoized
+        memo.put("other-topic", READ, true, 0, 1000, 1);
+        memo.put("my-topic", WRITE, true, 0, 1000, 0);
+        assertEquals(Boolean.TRUE, memo.get("other-topic", READ, 0, 1));
+        assertNull(memo.get("my-topic", WRITE, 0, 1));
+        assertNull(memo.get("my-topic", READ, 0, 1));
+        assertEquals(1, memo.size());
+    }
+
+    @Test
+    public void testPrincipalMemo()    {
+        KubernetesPrincipal principal = new KubernetesPrincipal("system:serviceaccount:myproject:my-user", null, null);
+
+        assertSame(principal.decisionMemo(10, 2), principal.decisionMemo(10, 2));
+        assertEquals(0, principal.groups().size());
+    }
+}
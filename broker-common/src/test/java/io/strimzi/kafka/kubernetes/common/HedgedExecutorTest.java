@@ -0,0 +1,163 @@
+package io.strimzi.kafka.kubernetes.common;
+
+import org.junit.Test;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class HedgedExecutorTest {
+    @Test
+    public void testResult() throws IOException {
+        HedgedExecutor executor = new HedgedExecutor("test", 1, 1, 1_000, 0, 0);
+
+        try {
+            assertEquals("result", executor.execute(() -> "result"));
+        } finally {
+            executor.close();
+        }
+    }
+
+    @Test
+    public void testFailure() {
+        HedgedExecutor executor = new HedgedExecutor("test", 1, 1, 1_000, 0, 0);
+
+        try {
+            executor.execute(() -> {
+                throw new IOException("failed");
+            });
+            fail("Expected IOException");
+        } catch (IOException e) {
+            assertEquals("failed", e.getMessage());
+        } finally {
+            executor.close();
+        }
+    }
+
+    @Test
+    public void testDeadline() throws IOException {
+        HedgedExecutor executor = new HedgedExecutor("test", 1, 1, 100, 0, 0);
+        CountDownLatch release = new CountDownLatch(1);
+
+        try {
+            executor.execute(() -> {
+                await(release);
+                return "result";
+            });
+            fail("Expected DeadlineExceededException");
+        } catch (HedgedExecutor.DeadlineExceededException e) {
+            // Expected
+        } finally {
+            release.countDown();
+            executor.close();
+        }
+    }
+
+    @Test
+    public void testHedging() throws IOException {
+        HedgedExecutor executor = new HedgedExecutor("test", 2, 1, 5_000, 90, 10);
+        CountDownLatch release = new CountDownLatch(1);
+
+        try {
+            // Fast requests to collect the latencies
+            for (int i = 0; i < 20; i++)    {
+                assertEquals("fast", executor.execute(() -> "fast"));
+            }
+
+            assertEquals(TimeUnit.MILLISECONDS.toNanos(10), executor.hedgeDelayNs());
+
+            // The first request hangs, so the hedged one provides the result
+            AtomicInteger attempts = new AtomicInteger(0);
+            String result = executor.execute(() -> {
+                if (attempts.getAndIncrement() == 0) {
+                    await(release);
+                    return "slow";
+                }
+
+                return "hedged";
+            });
+
+            assertEquals("hedged", result);
+            assertEquals(2, attempts.get());
+        } finally {
+            release.countDown();
+            executor.close();
+        }
+    }
+
+    @Test
+    public void testHedgingFailureUsesOtherResult() throws IOException {
+        HedgedExecutor executor = new HedgedExecutor("test", 2, 1, 5_000, 90, 10);
+        CountDownLatch hedged = new CountDownLatch(1);
+
+        try {
+            for (int i = 0; i < 20; i++)    {
+                executor.execute(() -> "fast");
+            }
+
+            // The hedged request fails, but the first one still completes within the deadline
+            AtomicInteger attempts = new AtomicInteger(0);
+            String result = executor.execute(() -> {
+                if (attempts.getAndIncrement() == 0) {
+                    await(hedged);
+                    return "first";
+                }
+
+                hedged.countDown();
+                throw new IOException("failed");
+            });
+
+            assertEquals("first", result);
+        } finally {
+            executor.close();
+        }
+    }
+
+    @Test
+    public void testRequestAfterDeadlineIsCancelled() throws IOException, InterruptedException {
+        HedgedExecutor executor = new HedgedExecutor("test", 1, 1, 100, 0, 0);
+        CountDownLatch release = new CountDownLatch(1);
+        CountDownLatch interrupted = new CountDownLatch(1);
+        AtomicBoolean cancelled = new AtomicBoolean(false);
+
+        try {
+            assertFalse(HedgedExecutor.cancelled());
+            assertEquals(Boolean.FALSE, executor.execute(HedgedExecutor::cancelled));
+
+            executor.execute(() -> {
+                try {
+                    await(release);
+                } finally {
+                    // The interruption is not a failure of the request
+                    cancelled.set(HedgedExecutor.cancelled());
+                    interrupted.countDown();
+                }
+
+                return "result";
+            });
+            fail("Expected DeadlineExceededException");
+        } catch (HedgedExecutor.DeadlineExceededException e) {
+            assertTrue(interrupted.await(10, TimeUnit.SECONDS));
+            assertTrue(cancelled.get());
+        } finally {
+            release.countDown();
+            executor.close();
+        }
+    }
+
+    private static void await(CountDownLatch latch) throws InterruptedIOException {
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            throw new InterruptedIOException();
+        }
+    }
+}
@@ -0,0 +1,61 @@
+package io.strimzi.kafka.kubernetes.common;
+
+import io.fabric8.kubernetes.client.KubernetesClient;
+import okhttp3.OkHttpClient;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+
+public class KubernetesClientProviderTest {
+    @BeforeClass
+    public static void setupKubernetesConfig()    {
+        System.setProperty("kubernetes.master", "http://localhost:1");
+        System.setProperty("kubernetes.namespace", "myproject");
+        System.setProperty("kubernetes.auth.tryKubeConfig", "false");
+        System.setProperty("kubernetes.auth.tryServiceAccount", "false");
+    }
+
+    @Test
+    public void testClientIsShared()    {
+        Map<String, Object> configs = new HashMap<>();
+
+        KubernetesClient first = KubernetesClientProvider.acquire(configs);
+        KubernetesClient second = KubernetesClientProvider.acquire(configs);
+        assertSame(first, second);
+
+        KubernetesClientProvider.release(first);
+        KubernetesClient third = KubernetesClientProvider.acquire(configs);
+        assertSame(first, third);
+
+        KubernetesClientProvider.release(second);
+        KubernetesClientProvider.release(third);
+
+        KubernetesClient fourth = KubernetesClientProvider.acquire(configs);
+        assertNotSame(first, fourth);
+        KubernetesClientProvider.release(fourth);
+    }
+
+    @Test
+    public void testClientConfiguration()    {
+        Map<String, Object> configs = new HashMap<>();
+        configs.put(KubernetesClientProvider.CONNECT_TIMEOUT_MS_CONFIG, "1234");
+        configs.put(KubernetesClientProvider.READ_TIMEOUT_MS_CONFIG, 4321);
+        configs.put(KubernetesClientProvider.HTTP2_ENABLED_CONFIG, "false");
+
+        KubernetesClient client = KubernetesClientProvider.acquire(configs);
+        OkHttpClient httpClient = client.adapt(OkHttpClient.class);
+
+        assertEquals(1234, httpClient.connectTimeoutMillis());
+        assertEquals(4321, httpClient.readTimeoutMillis());
+        assertEquals(1, httpClient.protocols().size());
+        assertEquals("myproject", client.getNamespace());
+
+        KubernetesClientProvider.release(client);
+    }
+}
@@ -0,0 +1,89 @@
+package io.strimzi.kafka.kubernetes.common;
+
+import org.apache.kafka.common.MetricName;
+import org.apache.kafka.common.metrics.Metrics;
+import org.junit.Test;
+
+import java.util.Collections;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class ReviewMetricsTest {
+    private static final String GROUP = "test-metrics";
+
+    private static Object value(Metrics metrics, String name, String outcome)  {
+        MetricName metricName = outcome != null
+                ? metrics.metricName(name, GROUP, Collections.singletonMap("outcome", outcome))
+                : metrics.metricName(name, GROUP);
+
+        return metrics.metrics().get(metricName).metricValue();
+    }
+
+    @Test
+    public void testRecording() {
+        Metrics metrics = MetricsProvider.acquire();
+
+        try {
+            ReviewMetrics reviewMetrics = ReviewMetrics.get(metrics, GROUP, "test-review");
+
+            long start = reviewMetrics.start();
+            assertEquals(1, value(metrics, "test-review-in-flight", null));
+
+            reviewMetrics.record(start, ReviewMetrics.Outcome.ALLOWED);
+            reviewMetrics.record(reviewMetrics.start(), ReviewMetrics.Outcome.ALLOWED);
+            reviewMetrics.record(reviewMetrics.start(), ReviewMetrics.Outcome.HTTP_ERROR);
+            reviewMetrics.recordCancelled(reviewMetrics.start());
+
+            assertEquals(0, value(metrics, "test-review-in-flight", null));
+            assertEquals(2.0, value(metrics, "test-review-total", "allowed"));
+            assertEquals(0.0, value(metrics, "test-review-total", "denied"));
+            assertEquals(1.0, value(metrics, "test-review-total", "http-error"));
+            assertEquals(0.0, value(metrics, "test-review-total", "io-error"));
+            assertTrue((Double) value(metrics, "test-review-latency-max", null) >= 0.0);
+        } finally {
+            MetricsProvider.release(metrics);
+        }
+    }
+
+    @Test
+    public void testLatencyPercentiles() {
+        Metrics metrics = MetricsProvider.acquire();
+
+        try {
+            ReviewMetrics reviewMetrics = ReviewMetrics.get(metrics, GROUP, "percentile-review");
+
+            for (int i = 0; i < 100; i++)   {
+                reviewMetrics.start();
+                reviewMetrics.record(System.nanoTime() - TimeUnit.MILLISECONDS.toNanos(i < 90 ? 3 : 12), ReviewMetrics.Outcome.ALLOWED);
+            }
+
+            double p50 = (Double) value(metrics, "percentile-review-latency-p50", null);
+            double p99 = (Double) value(metrics, "percentile-review-latency-p99", null);
+
+            assertTrue("p50 was " + p50, p50 >= 2.0 && p50 < 6.0);
+            assertTrue("p99 was " + p99, p99 >= 10.0 && p99 < 16.0);
+        } finally {
+            MetricsProvider.release(metrics);
+        }
+    }
+
+    @Test
+    public void testSharedBetweenInstances() {
+        Metrics metrics = MetricsProvider.acquire();
+        Metrics metrics2 = MetricsProvider.acquire();
+
+        try {
+            assertSame(metrics, metrics2);
+
+            // Registering the same review twice must not fail
+            ReviewMetrics reviewMetrics = ReviewMetrics.get(metrics, GROUP, "shared-review");
+            assertSame(reviewMetrics, ReviewMetrics.get(metrics2, GROUP, "shared-review"));
+        } finally {
+            MetricsProvider.release(metrics);
+            MetricsProvider.release(metrics2);
+        }
+    }
+}
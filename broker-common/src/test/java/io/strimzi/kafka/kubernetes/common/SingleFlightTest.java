@@ -0,0 +1,138 @@
+package io.strimzi.kafka.kubernetes.common;
+
+import org.junit.Test;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class SingleFlightTest {
+    @Test
+    public void testConcurrentCallsAreCoalesced() throws Exception {
+        SingleFlight<String, Boolean> singleFlight = new SingleFlight<>();
+        AtomicInteger loads = new AtomicInteger();
+        CountDownLatch release = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(10);
+
+        try {
+            List<Future<Boolean>> results = new ArrayList<>();
+
+            for (int i = 0; i < 10; i++) {
+                results.add(executor.submit(() -> singleFlight.execute("key", () -> {
+                    loads.incrementAndGet();
+
+                    try {
+                        release.await();
+                    } catch (InterruptedException e) {
+                        throw new IOException(e);
+                    }
+
+                    return true;
+                })));
+            }
+
+            // Wait until the first request is in progress and give the others time to join it
+            while (loads.get() == 0)    {
+                Thread.sleep(10);
+            }
+            Thread.sleep(100);
+            release.countDown();
+
+            for (Future<Boolean> result : results)  {
+                assertTrue(result.get(10, TimeUnit.SECONDS));
+            }
+
+            assertEquals(1, loads.get());
+            assertEquals(0, singleFlight.inFlight());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    public void testSequentialCallsAreNotCoalesced() throws IOException {
+        SingleFlight<String, Integer> singleFlight = new SingleFlight<>();
+        AtomicInteger loads = new AtomicInteger();
+
+        assertEquals(Integer.valueOf(1), singleFlight.execute("key", loads::incrementAndGet));
+        assertEquals(Integer.valueOf(2), singleFlight.execute("key", loads::incrementAndGet));
+        assertEquals(Integer.valueOf(3), singleFlight.execute("other", loads::incrementAndGet));
+    }
+
+    @Test
+    public void testDeadlineIsPropagatedToWaiters() throws Exception {
+        SingleFlight<String, Boolean> singleFlight = new SingleFlight<>();
+        HedgedExecutor hedgedExecutor = new HedgedExecutor("test", 1, 1, 500, 0, 0);
+        AtomicInteger loads = new AtomicInteger();
+        CountDownLatch release = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+
+        try {
+            Callable<Boolean> validation = () -> singleFlight.execute("token", () -> hedgedExecutor.execute(() -> {
+                loads.incrementAndGet();
+
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    throw new InterruptedIOException();
+                }
+
+                return true;
+            }));
+
+            Future<Boolean> first = executor.submit(validation);
+
+            while (loads.get() == 0)    {
+                Thread.sleep(10);
+            }
+
+            Future<Boolean> second = executor.submit(validation);
+
+            // Both validations exceed the deadline, not only the one which sent the request
+            for (Future<Boolean> result : Arrays.asList(first, second)) {
+                try {
+                    result.get(10, TimeUnit.SECONDS);
+                    fail("Expected DeadlineExceededException");
+                } catch (ExecutionException e) {
+                    assertTrue(e.getCause() instanceof HedgedExecutor.DeadlineExceededException);
+                }
+            }
+
+            assertEquals(1, loads.get());
+        } finally {
+            release.countDown();
+            executor.shutdownNow();
+            hedgedExecutor.close();
+        }
+    }
+
+    @Test
+    public void testErrorsArePropagated() {
+        SingleFlight<String, Integer> singleFlight = new SingleFlight<>();
+
+        try {
+            singleFlight.execute("key", () -> {
+                throw new IOException("Failed");
+            });
+            fail("Expected IOException");
+        } catch (IOException e) {
+            assertEquals("Failed", e.getMessage());
+        }
+
+        assertEquals(0, singleFlight.inFlight());
+    }
+}